@@ -9,6 +9,7 @@ import java.util.List;
 
 import org.apache.commons.io.FileUtils;
 
+import app.input.AssetCatalog;
 import util.Logger;
 
 public enum Directories
@@ -25,6 +26,7 @@ public enum Directories
 	LOCAL				(Root.NONE,				"/local/"),
 	TEMP				(Root.NONE, LOCAL,			"/temp/"),
 	LOGS				(Root.NONE, LOCAL,			"/logs/"),
+	YAY0_CACHE			(Root.NONE, LOCAL,			"/yay0/"),		// compressed assets shared by all projects
 
 	DEFAULTS			(Root.NONE, DATABASE,		"/defaults/"),
 	DEFAULTS_FORM		(Root.NONE, DEFAULTS,			"/formation/"),
@@ -252,6 +254,7 @@ public enum Directories
 	MOD_SYSTEM			(Root.MOD, MOD_GLOBALS,		"/system/"),
 
 	MOD_RESOURCE		(Root.MOD, 				"/res/"),
+	MOD_CACHE			(Root.MOD,				"/cache/", true),	// records from previous builds used for incremental compilation
 	MOD_OUT 			(Root.MOD, 				"/out/");
 
 	// @formatter:on
@@ -310,6 +313,8 @@ public enum Directories
 
 	public static final String FN_MAP_NICKNAMES = "default_map_names.txt";
 
+	public static final String FN_BUILD_GRAPH = "BuildGraph.txt";
+
 	private final Root root;
 	private final String path;
 	private final boolean optional;
@@ -435,6 +440,7 @@ public enum Directories
 			path = path.substring(0, path.length() - 1);
 
 		dumpPath = path;
+		AssetCatalog.closeAll();
 		Logger.log("Using dump: " + dumpPath);
 	}
 
@@ -450,6 +456,7 @@ public enum Directories
 		if (path.endsWith("/"))
 			path = path.substring(0, path.length() - 1);
 		modPath = path;
+		AssetCatalog.closeAll();
 
 		Logger.log("Using Mod Directory: " + modPath);
 	}
@@ -12,6 +12,8 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.security.CodeSource;
 import java.util.Properties;
 import java.util.jar.Attributes;
@@ -584,6 +586,12 @@ public abstract class Environment
 		return FileUtils.readFileToByteArray(baseRom);
 	}
 
+	// only allow read-only references to the base ROM
+	public static FileChannel getBaseRomChannel() throws IOException
+	{
+		return FileChannel.open(baseRom.toPath(), StandardOpenOption.READ);
+	}
+
 	// only allow read-only references to the base ROM
 	public static File copyBaseRom(File copy) throws IOException
 	{
@@ -15,6 +15,7 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 
 import net.miginfocom.swing.MigLayout;
+import patcher.CICChecksum;
 
 public class RomValidator
 {
@@ -127,14 +128,12 @@ public class RomValidator
 
 			if (crc1 == CRC1_Z64 && crc2 == CRC2_Z64) {
 				// now compute the checksum
-				try (RandomAccessFile raf = new RandomAccessFile(f, "r")) {
-					if (!verifyCRCs(raf)) {
-						SwingUtils.getErrorDialog()
-							.setTitle("ROM Validation Failure")
-							.setMessage("ROM data does not match CRC values!")
-							.show();
-						return null;
-					}
+				if (!CICChecksum.compute(f).equals(new CICChecksum(CRC1_Z64, CRC2_Z64))) {
+					SwingUtils.getErrorDialog()
+						.setTitle("ROM Validation Failure")
+						.setMessage("ROM data does not match CRC values!")
+						.show();
+					return null;
 				}
 			}
 			else {
@@ -225,45 +224,4 @@ public class RomValidator
 
 		FileUtils.writeByteArrayToFile(out, swapped);
 	}
-
-	/**
-	 * Checks the two CRC values used by the N64 boot chip to verify the integrity of
-	 * the ROM (0x10 and 0x14). Paper Mario uses the CIC-NUS-6103 boot chip, so we must
-	 * use the corresponding algorithm to calculate the new CRCs. Reproducing the correct
-	 * unsigned integer arithmetic is tricky and leads to this ugly, nigh-unreadable code.
-	 * But it works.
-	 * @throws IOException
-	 */
-	private static boolean verifyCRCs(RandomAccessFile raf) throws IOException
-	{
-		long t1, t2, t3;
-		long t4, t5, t6;
-		t1 = t2 = t3 = t4 = t5 = t6 = 0xA3886759;
-
-		long r, d;
-
-		for (int i = 0x00001000; i < 0x00101000; i += 4) {
-			raf.seek(i);
-			d = raf.readInt() & 0xFFFFFFFFL;
-			if (((t6 + d) & 0xFFFFFFFFL) < (t6 & 0xFFFFFFFFL))
-				t4++;
-			t6 += d;
-			t3 ^= d;
-
-			r = ((d << (d & 0x1F)) | (d >> (32L - (d & 0x1F)))) & 0xFFFFFFFFL;
-
-			t5 += r;
-			if ((t2 & 0xFFFFFFFFL) > (d & 0xFFFFFFFFL))
-				t2 ^= r;
-			else
-				t2 ^= t6 ^ d;
-
-			t1 += t5 ^ d;
-		}
-
-		int crc1 = (int) ((t6 ^ t4) + t3);
-		int crc2 = (int) ((t5 ^ t2) + t1);
-
-		return (crc1 == CRC1_Z64 && crc2 == CRC2_Z64);
-	}
 }
@@ -73,6 +73,8 @@ import game.map.MapIndex;
 import game.map.compiler.BuildException;
 import game.map.compiler.CollisionCompiler;
 import game.map.compiler.GeometryCompiler;
+import game.map.compiler.MapBatchCompiler;
+import game.map.compiler.MapBatchCompiler.MapResult;
 import game.map.config.LevelEditor;
 import game.map.editor.MapEditor;
 import game.map.patching.MapDumper;
@@ -81,6 +83,8 @@ import game.map.shading.SpriteShadingEditor;
 import game.requests.SpecialRequestDumper;
 import game.shared.ProjectDatabase;
 import game.shared.struct.script.ScriptVariable;
+import game.sound.AudioBatchExporter;
+import game.sound.AudioBatchExporter.ExportResult;
 import game.sound.AudioModder;
 import game.sound.booth.AudioBooth;
 import game.sprite.SpriteDumper;
@@ -99,6 +103,7 @@ import game.world.entity.EntityEditor;
 import game.world.partner.PartnerWorldDumper;
 import game.worldmap.WorldMapEditor;
 import game.worldmap.WorldMapModder;
+import game.yay0.Yay0ContentCache;
 import net.miginfocom.swing.MigLayout;
 import patcher.Patcher;
 import reports.BattleMapTracker;
@@ -118,8 +123,8 @@ public class StarRodClassic extends JFrame
 		Environment.initialize(args.length > 0 || GraphicsEnvironment.isHeadless());
 
 		if (Environment.isCommandLine()) {
-			runCommandLine(args);
-			Environment.exit();
+			int status = runCommandLine(args);
+			Environment.exit(status);
 		}
 
 		try {
@@ -1108,8 +1113,13 @@ public class StarRodClassic extends JFrame
 		}
 	}
 
-	private static void runCommandLine(String[] args)
+	/**
+	 * @return exit status, which is non-zero if any map failed to compile
+	 */
+	private static int runCommandLine(String[] args)
 	{
+		int status = 0;
+
 		for (int i = 0; i < args.length; i++) {
 			switch (args[i].toUpperCase()) {
 				case "-VERSION":
@@ -1162,6 +1172,7 @@ public class StarRodClassic extends JFrame
 								new ScriptGenerator(map);
 							else
 								throw new IllegalStateException();
+							Yay0ContentCache.instance().save();
 						}
 						catch (BuildException be) {
 							be.printStackTrace();
@@ -1180,28 +1191,54 @@ public class StarRodClassic extends JFrame
 					break;
 
 				case "-COMPILEMAPS":
+					int numThreads = MapBatchCompiler.getDefaultThreadCount();
+					if (args.length > i + 1 && args[i + 1].matches("\\d+")) {
+						numThreads = Integer.parseInt(args[i + 1]);
+						i++;
+					}
+
 					try {
-						for (File mapFile : AssetManager.getMapsToBuild()) {
-							try {
-								Map map = Map.loadMap(mapFile);
+						long t0 = System.nanoTime();
+						List<MapResult> results = new MapBatchCompiler(numThreads).compile(AssetManager.getMapsToBuild());
+						int numFailed = MapBatchCompiler.printSummary(results);
+						Logger.logf("Finished in %.3f s with %d threads.", (System.nanoTime() - t0) / 1e9, numThreads);
+
+						if (numFailed > 0) {
+							Logger.logfError("Failed to compile %d of %d maps!", numFailed, results.size());
+							status = 1;
+						}
+					}
+					catch (IOException e) {
+						Logger.logError("Failed to compile maps: " + e.getMessage());
+						Logger.printStackTrace(e);
+						status = 1;
+					}
+					break;
 
-								new GeometryCompiler(map);
-								new CollisionCompiler(map);
-								new ScriptGenerator(map);
-							}
-							catch (BuildException be) {
-								be.printStackTrace();
-							}
-							catch (IOException e) {
-								e.printStackTrace();
-							}
-							catch (InvalidInputException e) {
-								e.printStackTrace();
-							}
+				case "-EXPORTAUDIO":
+					int numExportThreads = AudioBatchExporter.getDefaultThreadCount();
+					if (args.length > i + 1 && args[i + 1].matches("\\d+")) {
+						numExportThreads = Integer.parseInt(args[i + 1]);
+						i++;
+					}
+
+					try {
+						long t0 = System.nanoTime();
+						File exportDir = AudioBatchExporter.getDefaultOutputDirectory();
+						List<ExportResult> results = new AudioBatchExporter(numExportThreads, exportDir).exportAll();
+						int numFailed = AudioBatchExporter.printSummary(results);
+						Logger.logf("Finished in %.3f s with %d threads, saved to %s", (System.nanoTime() - t0) / 1e9,
+							numExportThreads, exportDir.getAbsolutePath());
+
+						if (numFailed > 0) {
+							Logger.logfError("Failed to export %d of %d audio files!", numFailed, results.size());
+							status = 1;
 						}
 					}
 					catch (IOException e) {
-						e.printStackTrace();
+						Logger.logError("Failed to export audio: " + e.getMessage());
+						Logger.printStackTrace(e);
+						status = 1;
 					}
 					break;
 
@@ -1268,6 +1305,8 @@ public class StarRodClassic extends JFrame
 					Logger.logfError("Unrecognized command line arg: %s", args[i]);
 			}
 		}
+
+		return status;
 	}
 
 	private static enum GreetingChoice
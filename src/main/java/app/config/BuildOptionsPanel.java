@@ -155,6 +155,7 @@ public class BuildOptionsPanel extends JPanel
 		addCheckbox(tab, Options.IncreaseHeapSizes, "growx");
 		addCheckbox(tab, Options.CompressModPackage, "growx");
 		addCheckbox(tab, Options.CompressBattleData, "growx");
+		addCheckbox(tab, Options.MaxCompression, "growx");
 		addCheckbox(tab, Options.PackScriptOpcodes, "growx");
 
 		addCheckbox(tab, Options.ClearJapaneseStrings, "growx");
@@ -98,7 +98,8 @@ public class DumpOptionsPanel extends JPanel
 		JPanel tab = new JPanel(new MigLayout("wrap, fillx, " + TAB_INSETS));
 
 		addCheckbox(tab, Options.DumpReports, "growx");
-		addCheckbox(tab, Options.RecompressMaps, "growx, gapbottom 16");
+		addCheckbox(tab, Options.RecompressMaps, "growx");
+		addCheckbox(tab, Options.ParallelDump, "growx, gapbottom 16");
 
 		addCheckbox(tab, Options.UseTabIndents, "growx");
 		addCheckbox(tab, Options.UseTabSpacing, "growx");
@@ -40,6 +40,8 @@ public enum Options
 			"Includes configuration files, scripts, and maps."),
 	RecompressMaps		(true, Scope.Main, Type.Boolean, "RecompressMapAssets", "False", "Recompress Map Data",
 			"Attempt to compress map data more thoroughly than the originals."),
+	ParallelDump		(true, Scope.Main, Type.Boolean, "ParallelDump", "False", "Decode maps and battles in parallel",
+			"Decodes independent maps and battle sections on multiple threads. The dumped files are the same as a serial dump."),
 	DumpBattles			(true, Scope.Main, Type.Boolean, "DumpBattles", "True", "Battle Scripts",
 			"Includes configuration files and scripts."),
 	DumpMoves			(true, Scope.Main, Type.Boolean, "DumpMoves", "True", "Move and Item Scripts",
@@ -185,6 +187,9 @@ public enum Options
 	CompressModPackage	(true, Scope.Patch, Type.Boolean, "CompressModPackage", "True", "Compress Legacy MOD Package",
 			"Use Yay0 to compress the legacy .mod diff file. May take several additional minutes."),
 
+	MaxCompression		(true, Scope.Patch, Type.Boolean, "MaxCompression", "False", "Maximum Yay0 Compression",
+			"Use a slower optimal encoder for map assets and battle data, saving space in the ROM."),
+
 	DebugInlineScripts	(false, Scope.Patch, Type.Boolean, "DebugInlineScripts", "False"),
 
 	// editor options
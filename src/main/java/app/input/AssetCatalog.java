@@ -0,0 +1,393 @@
+package app.input;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+
+import app.Directories;
+import util.Logger;
+
+/**
+ * In-memory index of every file beneath a directory, keyed by file name.
+ * <p>
+ * The directory tree is walked once when the catalog is first used. After that, changes are
+ * picked up from a {@link WatchService}, so looking up a file by name costs no more than a hash
+ * lookup and a check that the file still exists. A lookup which finds nothing in the index
+ * only checks the top of the directory, where new files are normally saved, and the miss is
+ * remembered until the next watch event. Files saved in subdirectories are found once their
+ * watch event arrives.
+ * <p>
+ * If the file system does not support watching, the tree is walked again whenever the index
+ * is more than {@link #UNWATCHED_RESCAN_MS} old, and a miss walks the tree for that name.
+ */
+public class AssetCatalog
+{
+	private static final long UNWATCHED_RESCAN_MS = 2000;
+
+	private static final ConcurrentHashMap<Path, AssetCatalog> catalogs = new ConcurrentHashMap<>();
+
+	public static final class Asset
+	{
+		public final File file;
+		public final long size;
+		public final long lastModified;
+
+		private Asset(Path path, BasicFileAttributes attrs)
+		{
+			this.file = path.toFile();
+			this.size = attrs.size();
+			this.lastModified = attrs.lastModifiedTime().toMillis();
+		}
+
+		@Override
+		public String toString()
+		{
+			return file.getPath();
+		}
+	}
+
+	private final Path root;
+
+	private final HashMap<String, List<Asset>> byName = new HashMap<>();
+	private final LinkedHashMap<Path, Asset> byPath = new LinkedHashMap<>();
+
+	// names which were not found, until the index next changes
+	private final HashSet<String> missing = new HashSet<>();
+
+	private WatchService watcher;
+	private final HashMap<WatchKey, Path> watchedDirs = new HashMap<>();
+
+	private boolean scanned = false;
+	private long scanTime = 0;
+
+	public static AssetCatalog of(Directories dir)
+	{
+		return of(dir.toFile());
+	}
+
+	public static AssetCatalog of(File dir)
+	{
+		Path root = dir.getAbsoluteFile().toPath().normalize();
+		return catalogs.computeIfAbsent(root, AssetCatalog::new);
+	}
+
+	private AssetCatalog(Path root)
+	{
+		this.root = root;
+	}
+
+	/**
+	 * Closes the watch services of every catalog and discards them. Call when the project
+	 * or dump directory changes, so catalogs of directories no longer in use are not kept.
+	 */
+	public static void closeAll()
+	{
+		Iterator<AssetCatalog> iter = catalogs.values().iterator();
+		while (iter.hasNext()) {
+			iter.next().close();
+			iter.remove();
+		}
+	}
+
+	private synchronized void close()
+	{
+		if (watcher != null) {
+			try {
+				watcher.close();
+			}
+			catch (IOException e) {
+				Logger.logWarning("Could not stop watching " + root + ": " + e.getMessage());
+			}
+			watcher = null;
+		}
+
+		watchedDirs.clear();
+		byName.clear();
+		byPath.clear();
+		missing.clear();
+		scanned = false;
+	}
+
+	/**
+	 * @return every file with this name beneath the catalog directory
+	 */
+	public synchronized List<Asset> find(String name)
+	{
+		refresh();
+
+		List<Asset> matches = new ArrayList<>();
+		List<Asset> assets = byName.get(name);
+
+		if (assets != null) {
+			Iterator<Asset> iter = assets.iterator();
+			while (iter.hasNext()) {
+				Asset a = iter.next();
+				if (a.file.isFile()) {
+					matches.add(a);
+				}
+				else {
+					// deleted, but the event has not arrived yet
+					iter.remove();
+					byPath.remove(a.file.toPath());
+				}
+			}
+		}
+
+		if (matches.isEmpty() && missing.add(name)) {
+			if (watcher == null) {
+				search(name, matches);
+			}
+			else {
+				Asset a = update(root.resolve(name));
+				if (a != null)
+					matches.add(a);
+			}
+
+			if (!matches.isEmpty())
+				missing.remove(name);
+		}
+
+		return matches;
+	}
+
+	public File[] findFiles(String name)
+	{
+		List<Asset> matches = find(name);
+		File[] files = new File[matches.size()];
+		for (int i = 0; i < files.length; i++)
+			files[i] = matches.get(i).file;
+		return files;
+	}
+
+	public synchronized int size()
+	{
+		refresh();
+		return byPath.size();
+	}
+
+	/**
+	 * Discards the index and walks the directory tree again.
+	 */
+	public synchronized void rescan()
+	{
+		scan();
+	}
+
+	private void refresh()
+	{
+		if (!scanned) {
+			scan();
+			return;
+		}
+
+		if (watcher == null) {
+			if (System.currentTimeMillis() - scanTime > UNWATCHED_RESCAN_MS)
+				scan();
+			return;
+		}
+
+		boolean overflow = false;
+		WatchKey key;
+		while ((key = watcher.poll()) != null) {
+			Path dir = watchedDirs.get(key);
+
+			for (WatchEvent<?> event : key.pollEvents()) {
+				if (event.kind() == OVERFLOW || dir == null) {
+					overflow = true;
+					continue;
+				}
+
+				Path path = dir.resolve((Path) event.context());
+				missing.clear();
+				if (event.kind() == ENTRY_DELETE)
+					remove(path);
+				else if (Files.isDirectory(path))
+					walk(path);
+				else
+					update(path);
+			}
+
+			if (!key.reset())
+				watchedDirs.remove(key);
+		}
+
+		if (overflow)
+			scan();
+	}
+
+	private void scan()
+	{
+		byName.clear();
+		byPath.clear();
+		missing.clear();
+
+		for (WatchKey key : watchedDirs.keySet())
+			key.cancel();
+		watchedDirs.clear();
+
+		if (watcher == null) {
+			try {
+				watcher = FileSystems.getDefault().newWatchService();
+			}
+			catch (IOException | UnsupportedOperationException e) {
+				Logger.logWarning("Cannot watch " + root + " for changes: " + e.getMessage());
+			}
+		}
+
+		scanTime = System.currentTimeMillis();
+
+		// a missing directory has nothing to watch, so keep checking until it exists
+		scanned = Files.isDirectory(root);
+		if (scanned)
+			walk(root);
+	}
+
+	private void walk(Path dir)
+	{
+		try {
+			Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult preVisitDirectory(Path subdir, BasicFileAttributes attrs)
+				{
+					watch(subdir);
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+				{
+					if (attrs.isRegularFile())
+						add(file, new Asset(file, attrs));
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFileFailed(Path file, IOException e)
+				{
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		}
+		catch (IOException e) {
+			Logger.logWarning("Could not read " + dir + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Walks the directory tree for files with this name, adding any it finds to the index.
+	 * Only used when the directory is not watched, so the index may be missing new files.
+	 */
+	private void search(String name, List<Asset> matches)
+	{
+		if (!Files.isDirectory(root))
+			return;
+
+		try {
+			Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+				{
+					if (attrs.isRegularFile() && file.getFileName().toString().equals(name)) {
+						Asset a = new Asset(file, attrs);
+						add(file, a);
+						matches.add(a);
+					}
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFileFailed(Path file, IOException e)
+				{
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		}
+		catch (IOException e) {
+			Logger.logWarning("Could not read " + root + ": " + e.getMessage());
+		}
+	}
+
+	private void watch(Path dir)
+	{
+		if (watcher == null)
+			return;
+
+		try {
+			watchedDirs.put(dir.register(watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), dir);
+		}
+		catch (IOException e) {
+			Logger.logWarning("Cannot watch " + dir + " for changes: " + e.getMessage());
+		}
+	}
+
+	private Asset update(Path file)
+	{
+		try {
+			BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+			if (!attrs.isRegularFile())
+				return null;
+
+			Asset a = new Asset(file, attrs);
+			add(file, a);
+			return a;
+		}
+		catch (IOException e) {
+			// deleted before we got to it, the delete event will follow
+			return null;
+		}
+	}
+
+	private void add(Path file, Asset a)
+	{
+		Asset old = byPath.put(file, a);
+		List<Asset> assets = byName.computeIfAbsent(file.getFileName().toString(), k -> new ArrayList<>(1));
+		if (old != null)
+			assets.remove(old);
+		assets.add(a);
+	}
+
+	private void remove(Path path)
+	{
+		Asset removed = byPath.remove(path);
+		if (removed != null) {
+			List<Asset> assets = byName.get(removed.file.getName());
+			if (assets != null)
+				assets.remove(removed);
+			return;
+		}
+
+		// not a file, so remove everything within the deleted directory
+		Iterator<Entry<Path, Asset>> iter = byPath.entrySet().iterator();
+		while (iter.hasNext()) {
+			Entry<Path, Asset> mapping = iter.next();
+			if (mapping.getKey().startsWith(path)) {
+				Asset a = mapping.getValue();
+				List<Asset> assets = byName.get(a.file.getName());
+				if (assets != null)
+					assets.remove(a);
+				iter.remove();
+			}
+		}
+	}
+}
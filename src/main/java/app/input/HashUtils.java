@@ -0,0 +1,57 @@
+package app.input;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import app.StarRodException;
+
+/**
+ * SHA-256 hashing shared by the build caches, which identify their inputs by content.
+ */
+public class HashUtils
+{
+	private static final HexFormat HEX = HexFormat.of();
+
+	public static MessageDigest getDigest()
+	{
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new StarRodException(e);
+		}
+	}
+
+	public static byte[] hash(byte[] data)
+	{
+		return getDigest().digest(data);
+	}
+
+	/**
+	 * Hashes the contents of a file without reading all of it into memory at once.
+	 */
+	public static byte[] hashFile(File f) throws IOException
+	{
+		MessageDigest digest = getDigest();
+		try (InputStream in = Files.newInputStream(f.toPath())) {
+			byte[] buffer = new byte[0x10000];
+			int count;
+			while ((count = in.read(buffer)) > 0)
+				digest.update(buffer, 0, count);
+		}
+		return digest.digest();
+	}
+
+	/**
+	 * @return lowercase hex string of the bytes, two characters per byte
+	 */
+	public static String toHex(byte[] bytes)
+	{
+		return HEX.formatHex(bytes);
+	}
+}
@@ -3,6 +3,7 @@ package app.input;
 import java.awt.Desktop;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -14,6 +15,7 @@ import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.CharacterCodingException;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CodingErrorAction;
@@ -23,6 +25,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -73,6 +76,10 @@ public class IOUtils
 
 	public static File[] getFileWithin(Directories dir, String name, boolean recursive)
 	{
+		// recursive lookups are served from an index instead of walking the tree every time
+		if (recursive)
+			return AssetCatalog.of(dir).findFiles(name);
+
 		IOFileFilter fileFilter = FileFilterUtils.nameFileFilter(name);
 		IOFileFilter directoryFilter = recursive ? TrueFileFilter.INSTANCE : null;
 
@@ -99,6 +106,29 @@ public class IOUtils
 		return bb;
 	}
 
+	/**
+	 * Reads an entire file into a read-only heap buffer with a single channel read.
+	 * The file is closed before this method returns, so it is never kept locked.
+	 * Use this rather than mapping files which may be replaced later, since Windows
+	 * cannot replace a file which is still mapped.
+	 */
+	public static ByteBuffer getReadOnlyBuffer(File source) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE)
+				throw new StarRodException("%s is too large to read (%d bytes)", source.getName(), size);
+
+			ByteBuffer bb = ByteBuffer.allocate((int) size);
+			while (bb.hasRemaining()) {
+				if (channel.read(bb) < 0)
+					throw new EOFException(source.getName() + " was truncated while reading");
+			}
+			bb.flip();
+			return bb.asReadOnlyBuffer();
+		}
+	}
+
 	public static String getRelativePath(File dir, File f)
 	{
 		Path dirPath = Paths.get(dir.getAbsolutePath());
@@ -963,16 +963,15 @@ public class MIPS
 
 	private static final Pattern IntWithOffsetPattern = Pattern.compile(
 		"((?:[0-9]+[`'])|(?:[0-9A-F]+))(?:\\[((?:[0-9]+[`'])|(?:[0-9A-F]+))\\])?");
-	private static final Matcher IntWithOffsetMatcher = IntWithOffsetPattern.matcher("");
 
 	private static int parseIntWithOffset(String s) throws InvalidInputException
 	{
-		IntWithOffsetMatcher.reset(s);
-		if (!IntWithOffsetMatcher.matches())
+		Matcher matcher = IntWithOffsetPattern.matcher(s);
+		if (!matcher.matches())
 			throw new InvalidInputException("Could not parse " + s + " as an integer.");
 
-		int base = DataUtils.parseIntString(IntWithOffsetMatcher.group(1));
-		int offset = IntWithOffsetMatcher.group(2) == null ? 0 : DataUtils.parseIntString(IntWithOffsetMatcher.group(2));
+		int base = DataUtils.parseIntString(matcher.group(1));
+		int offset = matcher.group(2) == null ? 0 : DataUtils.parseIntString(matcher.group(2));
 		return base + offset;
 	}
 
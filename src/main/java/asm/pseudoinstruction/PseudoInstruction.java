@@ -125,8 +125,8 @@ public class PseudoInstruction
 
 	public static boolean isValidOpcode(String opcode)
 	{
-		PushPopOpcodeMatcher.reset(opcode);
-		if (PushPopOpcodeMatcher.matches())
+		Matcher matcher = PushPopOpcodePattern.matcher(opcode);
+		if (matcher.matches())
 			return true;
 
 		if (validHelperInstructions.contains(opcode))
@@ -139,8 +139,8 @@ public class PseudoInstruction
 	{
 		String opcode = tokens[0];
 
-		PushPopOpcodeMatcher.reset(opcode);
-		if (PushPopOpcodeMatcher.matches()) {
+		Matcher matcher = PushPopOpcodePattern.matcher(opcode);
+		if (matcher.matches()) {
 			if (opcode.startsWith("PUSH"))
 				opcode = "PUSH";
 			else if (opcode.startsWith("POP"))
@@ -244,8 +244,8 @@ public class PseudoInstruction
 		String opcode = line.getString(0);
 		int len = line.numTokens();
 
-		PushPopOpcodeMatcher.reset(opcode);
-		if (PushPopOpcodeMatcher.matches()) {
+		Matcher matcher = PushPopOpcodePattern.matcher(opcode);
+		if (matcher.matches()) {
 			if (opcode.startsWith("PUSH"))
 				opcode = "PUSH";
 			else if (opcode.startsWith("POP"))
@@ -1067,10 +1067,8 @@ public class PseudoInstruction
 	}
 
 	private static final Pattern PushPopOpcodePattern = Pattern.compile("(?i)(PUSH|POP|JPOP)(?:\\[([0-9A-F]+`?)\\])?");
-	private static final Matcher PushPopOpcodeMatcher = PushPopOpcodePattern.matcher("");
 
 	private static final Pattern PushPopLinePattern = Pattern.compile("(?i)(PUSH|POP|JPOP)(?:\\[([0-9A-F]+`?)\\])?\\s+(.+)");
-	private static final Matcher PushPopLineMatcher = PushPopLinePattern.matcher("");
 
 	/**
 	 * Removes all pseudoinstrucions from a list of lines, replacing them with ordinary ASM.
@@ -1113,12 +1111,12 @@ public class PseudoInstruction
 			}
 			else // (pi == null) --> check helper PIs
 			{
-				PushPopLineMatcher.reset(line.str);
-				if (PushPopLineMatcher.matches()) {
+				Matcher matcher = PushPopLinePattern.matcher(line.str);
+				if (matcher.matches()) {
 					int stackDataSize = 0x10;
 					int stackFrameSize;
 
-					String requestedSpace = PushPopLineMatcher.group(2);
+					String requestedSpace = matcher.group(2);
 					if (requestedSpace != null) {
 						try {
 							stackDataSize = DataUtils.parseIntString(requestedSpace);
@@ -1131,7 +1129,7 @@ public class PseudoInstruction
 							throw new InputFileException(line, "Stack data size must be a multiple of 4 bytes: " + requestedSpace);
 					}
 
-					String[] args = PushPopLineMatcher.group(3).split("[,?\\s]+");
+					String[] args = matcher.group(3).split("[,?\\s]+");
 					int numArgs = args.length;
 
 					// keep stack frame 8-byte aligned
@@ -1140,7 +1138,7 @@ public class PseudoInstruction
 					else
 						stackFrameSize = stackDataSize + 4 * (numArgs + 1);
 
-					switch (PushPopLineMatcher.group(1).toUpperCase()) {
+					switch (matcher.group(1).toUpperCase()) {
 						case "PUSH": {
 							assertNoDelaySlot(line, delaySlot);
 							delaySlot = false;
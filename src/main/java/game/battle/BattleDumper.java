@@ -7,8 +7,14 @@ import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
 
+import app.Environment;
+import app.config.Options;
 import app.input.IOUtils;
 import game.battle.formations.BattleSectionDecoder;
 import game.map.Map;
@@ -16,6 +22,7 @@ import game.map.MapIndex;
 import game.map.config.MapConfigTable;
 import game.map.config.MapConfigTable.AreaConfig;
 import game.map.config.MapConfigTable.MapConfig;
+import game.shared.decoder.DecodeBatch;
 import util.Logger;
 import util.Priority;
 
@@ -38,38 +45,63 @@ public class BattleDumper
 			}
 		}
 
+		boolean parallel = Environment.mainConfig.getBoolean(Options.ParallelDump);
+
+		// sections are decoded independently, each with its own view of the ROM buffer
+		List<Callable<SectionResult>> jobs = new ArrayList<>();
+		for (int section = 0; section < NUM_SECTIONS; section++) {
+			if (section == 0x28 || section == 0x2F)
+				continue;
+
+			int sectionID = section;
+			ByteBuffer sectionBuffer = fileBuffer.duplicate();
+			jobs.add(() -> decodeSection(sectionBuffer, sectionID, stageIndexLookup));
+		}
+
 		PrintWriter pw = IOUtils.getBufferedPrintWriter(DUMP_BATTLE + FN_BATTLE_SECTIONS);
 
 		int totalUnknownPointers = 0;
 		int totalMissingSections = 0;
 
+		Iterator<SectionResult> results = DecodeBatch.decodeAll(jobs, parallel).iterator();
 		for (int section = 0; section < NUM_SECTIONS; section++) {
 			if (section == 0x28 || section == 0x2F) {
 				pw.println(BLANK_SECTION);
 				continue;
 			}
 
-			Logger.log("Generating source files for battles: " + String.format(SECTION_NAMES[section]), Priority.MILESTONE);
-
-			BattleSectionDecoder decoder = new BattleSectionDecoder(fileBuffer, section, stageIndexLookup);
-			pw.printf("%08X : %s%n", decoder.getStartAddress(), SECTION_NAMES[section]);
-
-			int unknownPointers = decoder.unknownPointers;
-			int missingSections = decoder.missingSections;
-			totalUnknownPointers += unknownPointers;
-			totalMissingSections += missingSections;
-
-			if (unknownPointers > 0)
-				Logger.log("Found " + unknownPointers + " unknown pointers.");
-
-			if (missingSections > 0)
-				Logger.log("Missing " + missingSections + " sections!");
+			SectionResult result = results.next();
+			pw.printf("%08X : %s%n", result.startAddress, SECTION_NAMES[section]);
 
-			Logger.log("");
+			totalUnknownPointers += result.unknownPointers;
+			totalMissingSections += result.missingSections;
 		}
 
 		Logger.log(totalUnknownPointers + " total unknown pointers!", Priority.IMPORTANT);
 		Logger.log(totalMissingSections + " total missing sections!", Priority.IMPORTANT);
 		pw.close();
 	}
+
+	private static record SectionResult(int startAddress, int unknownPointers, int missingSections)
+	{}
+
+	private static SectionResult decodeSection(ByteBuffer fileBuffer, int section, HashMap<String, MapIndex> stageIndexLookup) throws IOException
+	{
+		Logger.log("Generating source files for battles: " + String.format(SECTION_NAMES[section]), Priority.MILESTONE);
+
+		BattleSectionDecoder decoder = new BattleSectionDecoder(fileBuffer, section, stageIndexLookup);
+
+		int unknownPointers = decoder.unknownPointers;
+		int missingSections = decoder.missingSections;
+
+		if (unknownPointers > 0)
+			Logger.log("Found " + unknownPointers + " unknown pointers.");
+
+		if (missingSections > 0)
+			Logger.log("Missing " + missingSections + " sections!");
+
+		Logger.log("");
+
+		return new SectionResult(decoder.getStartAddress(), unknownPointers, missingSections);
+	}
 }
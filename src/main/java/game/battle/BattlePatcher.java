@@ -6,6 +6,7 @@ import static game.shared.StructTypes.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -17,7 +18,7 @@ import app.input.InputFileException;
 import asm.AsmUtils;
 import game.battle.formations.BattleSectionEncoder;
 import game.shared.struct.Struct;
-import game.yay0.Yay0Helper;
+import game.yay0.Yay0ContentCache;
 import patcher.Patcher;
 import patcher.RomPatcher;
 import util.Logger;
@@ -194,7 +195,7 @@ public final class BattlePatcher
 
 	// 04309A0 - 0543570	Battle sections 0x00 - 0x11
 	// 05573E0 - 06F0B30	Battle sections 0x12 - 0x27
-	public void writeBattleData(boolean compressBattleData) throws IOException
+	public void writeBattleData(boolean compressBattleData, boolean maxCompression) throws IOException
 	{
 		Logger.log("Loading formation data...", Priority.MILESTONE);
 		for (BattleConfig cfg : configs) {
@@ -206,10 +207,21 @@ public final class BattlePatcher
 
 		if (compressBattleData) {
 			Logger.log("Compressing formation data...", Priority.MILESTONE);
-			configs.parallelStream().forEach((cfg) -> {
-				if (!cfg.empty)
-					cfg.data = Yay0Helper.encode(cfg.data);
-			});
+			List<BattleConfig> nonEmpty = new ArrayList<>();
+			List<byte[]> sources = new ArrayList<>();
+			for (BattleConfig cfg : configs) {
+				if (!cfg.empty) {
+					nonEmpty.add(cfg);
+					sources.add(cfg.data);
+				}
+			}
+
+			Yay0ContentCache cache = Yay0ContentCache.instance();
+			List<byte[]> encoded = cache.encodeAll(sources, maxCompression);
+			cache.save();
+
+			for (int i = 0; i < nonEmpty.size(); i++)
+				nonEmpty.get(i).data = encoded.get(i);
 		}
 
 		Logger.log("Writing formation data...", Priority.MILESTONE);
@@ -14,6 +14,7 @@ import game.shared.decoder.BaseDataDecoder;
 import game.shared.decoder.Pointer;
 import game.shared.encoder.BaseDataEncoder;
 import game.shared.struct.Struct;
+import reports.TrackerJournal;
 
 public class Actor extends BaseStruct
 {
@@ -24,6 +25,16 @@ public class Actor extends BaseStruct
 
 	public static final String[] nameIDs = new String[0xD4];
 
+	private static void trackNameID(int nameIndex, String sourceName)
+	{
+		// first section to use the name wins, so keep the dump order when decoding concurrently
+		if (TrackerJournal.defer(() -> trackNameID(nameIndex, sourceName)))
+			return;
+
+		if (nameIDs[nameIndex] == null)
+			nameIDs[nameIndex] = sourceName;
+	}
+
 	@Override
 	public void scan(BaseDataDecoder decoder, Pointer ptr, ByteBuffer fileBuffer)
 	{
@@ -33,8 +44,7 @@ public class Actor extends BaseStruct
 		int nameIndex = (fileBuffer.get() & 0xFF);
 		ptr.setDescriptor(ProjectDatabase.getActorName(nameIndex));
 
-		if (nameIDs[nameIndex] == null)
-			nameIDs[nameIndex] = decoder.getSourceName();
+		trackNameID(nameIndex, decoder.getSourceName());
 
 		fileBuffer.position(start + 0x8);
 		int numStates = fileBuffer.getShort();
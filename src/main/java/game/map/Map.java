@@ -61,6 +61,7 @@ import util.Logger;
 import util.Priority;
 import util.identity.IdentityHashSet;
 import util.xml.XmlKey;
+import util.xml.XmlWrapper.StreamedContentReader;
 import util.xml.XmlWrapper.XmlReader;
 import util.xml.XmlWrapper.XmlSerializable;
 import util.xml.XmlWrapper.XmlTag;
@@ -648,9 +649,21 @@ public class Map implements XmlSerializable
 		return vertices;
 	}
 
+	// mesh data makes up most of a map file, so it is read straight from the stream
+	static final HashMap<String, StreamedContentReader> MESH_READERS = new HashMap<>();
+	static final HashMap<String, StreamedContentReader> MESH_SKIPPERS = new HashMap<>();
+
+	static {
+		MESH_READERS.put(TAG_VERTEX_TABLE.toString(), Vertex::readTable);
+		MESH_READERS.put(TAG_TRIANGLE_LIST.toString(), Triangle::readList);
+
+		MESH_SKIPPERS.put(TAG_VERTEX_TABLE.toString(), XmlReader.SKIP);
+		MESH_SKIPPERS.put(TAG_TRIANGLE_LIST.toString(), XmlReader.SKIP);
+	}
+
 	public static Map loadMap(File f)
 	{
-		Map map = load(f);
+		Map map = load(f, true, true);
 		map.name = FilenameUtils.getBaseName(f.getName());
 		map.source = f;
 		map.saveFile = AssetManager.getSaveMap(map.name);
@@ -661,7 +674,7 @@ public class Map implements XmlSerializable
 
 	public static Map loadBackup(File f)
 	{
-		Map map = load(f);
+		Map map = load(f, true, false);
 		map.saveFile = AssetManager.getSaveMap(map.name);
 		map.name = FilenameUtils.getBaseName(map.saveFile.getName());
 		map.source = map.saveFile;
@@ -670,12 +683,16 @@ public class Map implements XmlSerializable
 		return map;
 	}
 
+	/**
+	 * Loads a map for {@link MapIndex}, which only needs the object hierarchy.
+	 * Meshes are skipped while parsing, so every model, collider, and zone is left empty.
+	 */
 	public static Map indexMap(File f)
 	{
-		Map map = load(f);
+		Map map = load(f, false, true);
+		map.name = FilenameUtils.getBaseName(f.getName());
 		map.source = f;
 		map.saveFile = AssetManager.getSaveMap(map.name);
-		map.name = FilenameUtils.getBaseName(f.getName());
 
 		map.modelTree.recalculateIndicies();
 		map.colliderTree.recalculateIndicies();
@@ -685,12 +702,12 @@ public class Map implements XmlSerializable
 		return map;
 	}
 
-	private static Map load(File f)
+	private static Map load(File f, boolean meshes, boolean useSnapshot)
 	{
 		long t0 = System.nanoTime();
 		Map map = null;
 
-		XmlReader xmr = new XmlReader(f);
+		XmlReader xmr = useSnapshot ? readSource(f, meshes) : new XmlReader(f, meshes ? MESH_READERS : MESH_SKIPPERS);
 		map = new Map();
 		map.fromXML(xmr, xmr.getRootElement());
 
@@ -704,6 +721,26 @@ public class Map implements XmlSerializable
 		return map;
 	}
 
+	/**
+	 * Reads the {@link MapSnapshot} of a map if it is up to date. Otherwise reads the XML source
+	 * and writes a new snapshot for next time.
+	 */
+	private static XmlReader readSource(File f, boolean meshes)
+	{
+		File snapshot = MapSnapshot.getFile(f);
+		XmlReader xmr = MapSnapshot.read(snapshot, f, meshes);
+		if (xmr != null)
+			return xmr;
+
+		// without meshes there is nothing to snapshot
+		if (!meshes)
+			return new XmlReader(f, MESH_SKIPPERS);
+
+		xmr = new XmlReader(f, MESH_READERS);
+		MapSnapshot.write(snapshot, f, xmr);
+		return xmr;
+	}
+
 	public static void validateObjectData(Map map)
 	{
 		if (map.modelTree == null)
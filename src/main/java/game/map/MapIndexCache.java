@@ -0,0 +1,212 @@
+package game.map;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+import java.util.function.Function;
+
+import app.input.HashUtils;
+import util.Logger;
+
+/**
+ * Persistent cache of {@link MapIndex} objects, so unchanged maps do not need to be parsed
+ * on every build.
+ * <p>
+ * Each entry records the size, modification time, and SHA-256 hash of the map source it was
+ * built from. An entry is reused if the size and modification time still match, or failing
+ * that, if the contents hash the same. Touching a map without changing it, for example with
+ * a version control checkout, only costs a hash rather than a full parse.
+ * <p>
+ * Entries are stored as independent blobs. An entry which can no longer be read is rebuilt
+ * without discarding the rest of the cache. Increase {@link #FORMAT_VERSION} whenever the
+ * contents of a MapIndex change meaning, which discards every entry.
+ * <p>
+ * Safe to use from several threads at once.
+ */
+public class MapIndexCache
+{
+	private static final int MAGIC = 0x4D494458; // MIDX
+	private static final int FORMAT_VERSION = 1;
+	private static final int HASH_SIZE = 32;
+
+	private static class CacheEntry
+	{
+		private final long size;
+		private final long lastModified;
+		private final byte[] hash;
+		private final byte[] data;
+
+		private CacheEntry(long size, long lastModified, byte[] hash, byte[] data)
+		{
+			this.size = size;
+			this.lastModified = lastModified;
+			this.hash = hash;
+			this.data = data;
+		}
+	}
+
+	private final HashMap<String, CacheEntry> entries = new HashMap<>();
+
+	public MapIndexCache()
+	{}
+
+	/**
+	 * Reads a cache file. A missing, outdated, or damaged file gives an empty cache.
+	 */
+	public static MapIndexCache load(File f)
+	{
+		MapIndexCache cache = new MapIndexCache();
+		if (!f.exists())
+			return cache;
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)))) {
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION)
+				return cache;
+
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				String name = in.readUTF();
+				long size = in.readLong();
+				long lastModified = in.readLong();
+
+				byte[] hash = new byte[HASH_SIZE];
+				in.readFully(hash);
+
+				int length = in.readInt();
+				if (length < 0)
+					throw new IOException("Invalid entry length for " + name);
+				byte[] data = new byte[length];
+				in.readFully(data);
+
+				cache.entries.put(name, new CacheEntry(size, lastModified, hash, data));
+			}
+		}
+		catch (EOFException e) {
+			Logger.logWarning("Map index cache is truncated, rebuilding it.");
+			cache.entries.clear();
+		}
+		catch (IOException e) {
+			Logger.logWarning("Could not read map index cache: " + e.getMessage());
+			cache.entries.clear();
+		}
+
+		return cache;
+	}
+
+	/**
+	 * Returns the cached index for a map if its source is unchanged. Otherwise builds a new
+	 * index and stores it in the cache.
+	 */
+	public MapIndex getOrBuild(String mapName, File source, Function<File, MapIndex> builder) throws IOException
+	{
+		// read the attributes first, so a file modified while building is checked again next time
+		long size = source.length();
+		long lastModified = source.lastModified();
+		byte[] hash = null;
+
+		CacheEntry entry;
+		synchronized (this) {
+			entry = entries.get(mapName);
+		}
+
+		if (entry != null) {
+			if (entry.size == size && entry.lastModified == lastModified) {
+				hash = entry.hash;
+			}
+			else {
+				hash = HashUtils.hashFile(source);
+				if (Arrays.equals(entry.hash, hash)) {
+					// same contents, just remember the new timestamp
+					entry = new CacheEntry(size, lastModified, hash, entry.data);
+					synchronized (this) {
+						entries.put(mapName, entry);
+					}
+				}
+			}
+
+			if (Arrays.equals(entry.hash, hash)) {
+				MapIndex index = decode(entry.data, mapName);
+				if (index != null)
+					return index;
+			}
+		}
+
+		if (hash == null)
+			hash = HashUtils.hashFile(source);
+
+		MapIndex index = builder.apply(source);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(index);
+		}
+
+		CacheEntry built = new CacheEntry(size, lastModified, hash, bytes.toByteArray());
+		synchronized (this) {
+			entries.put(mapName, built);
+		}
+
+		return index;
+	}
+
+	private static MapIndex decode(byte[] data, String mapName)
+	{
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+			MapIndex index = (MapIndex) in.readObject();
+			return mapName.equals(index.getMapName()) ? index : null;
+		}
+		catch (IOException | ClassNotFoundException | ClassCastException e) {
+			// written by an incompatible version, build it again
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the entries for the given maps, dropping any others.
+	 */
+	public synchronized void save(File f, Iterable<String> mapNames) throws IOException
+	{
+		LinkedHashMap<String, CacheEntry> saved = new LinkedHashMap<>();
+		for (String name : mapNames) {
+			CacheEntry entry = entries.get(name);
+			if (entry != null)
+				saved.put(name, entry);
+		}
+
+		File tempFile = new File(f.getPath() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeInt(saved.size());
+
+			for (Entry<String, CacheEntry> e : saved.entrySet()) {
+				CacheEntry entry = e.getValue();
+				out.writeUTF(e.getKey());
+				out.writeLong(entry.size);
+				out.writeLong(entry.lastModified);
+				out.write(entry.hash);
+				out.writeInt(entry.data.length);
+				out.write(entry.data);
+			}
+		}
+
+		Files.move(tempFile.toPath(), f.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+}
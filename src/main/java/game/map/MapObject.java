@@ -12,6 +12,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.Stack;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.w3c.dom.Element;
 
@@ -42,12 +43,12 @@ public abstract class MapObject extends UpdateProvider implements Selectable, Ex
 	private int instanceVersion = latestVersion;
 	private static final int latestVersion = 1;
 
-	private static int nextID = 0;
+	private static final AtomicInteger nextID = new AtomicInteger();
 	public final int uniqueID;
 
 	public MapObject(MapObjectType type)
 	{
-		uniqueID = nextID++;
+		uniqueID = nextID.getAndIncrement();
 	}
 
 	private transient boolean transforming = false;
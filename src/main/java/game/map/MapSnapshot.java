@@ -0,0 +1,376 @@
+package game.map;
+
+import static app.Directories.MOD_MAP_CACHE;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map.Entry;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.commons.io.FilenameUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import app.input.IOUtils;
+import game.map.mesh.Triangle;
+import game.map.mesh.Vertex;
+import game.map.shape.UV;
+import util.Logger;
+import util.xml.XmlWrapper;
+import util.xml.XmlWrapper.XmlReader;
+
+/**
+ * Binary copy of a map XML file, kept in the map cache so maps can be opened without parsing
+ * their source again.
+ * <p>
+ * A snapshot is written from the document read by the streaming {@link XmlReader}, so it holds
+ * everything in the source file: the model, collider, zone, and marker trees, light sets, scripts,
+ * and editor metadata. Element and attribute names and values are stored once in a string table.
+ * Vertex tables and triangle lists, which make up most of a map, are stored as fixed-size binary
+ * records and read back directly into {@link Vertex} and {@link Triangle} arrays.
+ * <p>
+ * Each snapshot records the path, size, and modification time of its source. If any of these no
+ * longer match, the snapshot is ignored and the map is read from XML.
+ */
+public class MapSnapshot
+{
+	private static final int MAGIC = 0x4D534E50; // MSNP
+	private static final int FORMAT_VERSION = 1;
+
+	public static final String EXTENSION = "snap";
+
+	private static final byte NODE_ELEMENT = Node.ELEMENT_NODE;
+	private static final byte NODE_TEXT = Node.TEXT_NODE;
+
+	private static final byte CONTENT_CHILDREN = 0;
+	private static final byte CONTENT_VERTICES = 1;
+	private static final byte CONTENT_TRIANGLES = 2;
+
+	private static final int VERTEX_SIZE = 24;
+	private static final int TRIANGLE_SIZE = 13;
+
+	private MapSnapshot()
+	{}
+
+	public static File getFile(File source)
+	{
+		return new File(MOD_MAP_CACHE + FilenameUtils.getBaseName(source.getName()) + "." + EXTENSION);
+	}
+
+	/**
+	 * Reads a snapshot into memory in one pass. The file is closed before this returns, so a later
+	 * {@link #write} can replace it.
+	 * @param meshes if false, vertex tables and triangle lists are skipped, as for {@link Map#indexMap}
+	 * @return a reader for the snapshot contents, or null if the snapshot is missing or out of date
+	 */
+	public static XmlReader read(File snapshot, File source, boolean meshes)
+	{
+		if (!snapshot.isFile())
+			return null;
+
+		try {
+			ByteBuffer bb = IOUtils.getReadOnlyBuffer(snapshot);
+
+			if (bb.getInt() != MAGIC || bb.getInt() != FORMAT_VERSION)
+				return null;
+
+			if (bb.getLong() != source.length() || bb.getLong() != source.lastModified())
+				return null;
+
+			if (!source.getAbsolutePath().equals(readString(bb)))
+				return null;
+
+			String[] strings = new String[bb.getInt()];
+			for (int i = 0; i < strings.length; i++)
+				strings[i] = readString(bb);
+
+			Document document = XmlWrapper.newSecureDocumentBuilder().newDocument();
+			IdentityHashMap<Element, Object> meshContent = new IdentityHashMap<>();
+			document.appendChild(readElement(bb, document, meshContent, strings, meshes));
+
+			XmlReader xmr = new XmlReader(source, document);
+			for (Entry<Element, Object> e : meshContent.entrySet())
+				xmr.putStreamedContent(e.getKey(), e.getValue());
+			return xmr;
+		}
+		catch (IOException | ParserConfigurationException | RuntimeException e) {
+			// anything wrong with the snapshot just means the source must be read instead
+			Logger.logWarning("Could not read map snapshot " + snapshot.getName() + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	private static Element readElement(ByteBuffer bb, Document document, IdentityHashMap<Element, Object> meshContent,
+		String[] strings, boolean meshes)
+	{
+		Element elem = document.createElement(strings[bb.getInt()]);
+
+		int numAttributes = bb.getInt();
+		for (int i = 0; i < numAttributes; i++) {
+			String name = strings[bb.getInt()];
+			elem.setAttribute(name, strings[bb.getInt()]);
+		}
+
+		switch (bb.get()) {
+			case CONTENT_CHILDREN:
+				int numChildren = bb.getInt();
+				for (int i = 0; i < numChildren; i++) {
+					byte type = bb.get();
+					if (type == NODE_ELEMENT)
+						elem.appendChild(readElement(bb, document, meshContent, strings, meshes));
+					else if (type == NODE_TEXT)
+						elem.appendChild(document.createTextNode(strings[bb.getInt()]));
+					else
+						throw new IllegalStateException("Invalid node type: " + type);
+				}
+				break;
+
+			case CONTENT_VERTICES:
+				int numVertices = bb.getInt();
+				if (meshes)
+					meshContent.put(elem, readVertices(bb, numVertices));
+				else
+					skip(bb, numVertices * VERTEX_SIZE);
+				break;
+
+			case CONTENT_TRIANGLES:
+				int numTriangles = bb.getInt();
+				if (meshes)
+					meshContent.put(elem, readTriangles(bb, numTriangles));
+				else
+					skip(bb, numTriangles * TRIANGLE_SIZE);
+				break;
+
+			default:
+				throw new IllegalStateException("Invalid content type for " + elem.getTagName());
+		}
+
+		return elem;
+	}
+
+	private static Vertex[] readVertices(ByteBuffer bb, int count)
+	{
+		Vertex[] vertices = new Vertex[count];
+		for (int i = 0; i < count; i++) {
+			Vertex v = new Vertex(bb.getInt(), bb.getInt(), bb.getInt());
+			v.uv = new UV(bb.getInt(), bb.getInt());
+			v.r = bb.get() & 0xFF;
+			v.g = bb.get() & 0xFF;
+			v.b = bb.get() & 0xFF;
+			v.a = bb.get() & 0xFF;
+			vertices[i] = v;
+		}
+		return vertices;
+	}
+
+	private static Triangle[] readTriangles(ByteBuffer bb, int count)
+	{
+		Triangle[] triangles = new Triangle[count];
+		for (int i = 0; i < count; i++) {
+			Triangle t = new Triangle();
+			t.ijk = new int[] { bb.getInt(), bb.getInt(), bb.getInt() };
+			t.doubleSided = bb.get() != 0;
+			triangles[i] = t;
+		}
+		return triangles;
+	}
+
+	private static void skip(ByteBuffer bb, int numBytes)
+	{
+		if (numBytes < 0 || numBytes > bb.remaining())
+			throw new BufferUnderflowException();
+		bb.position(bb.position() + numBytes);
+	}
+
+	private static String readString(ByteBuffer bb)
+	{
+		byte[] bytes = new byte[bb.getInt()];
+		bb.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Writes a snapshot of a map source, if the reader still has its mesh data.
+	 * Failures are only logged, since the map can always be read from its source.
+	 */
+	public static void write(File snapshot, File source, XmlReader xmr)
+	{
+		long sourceLength = source.length();
+		long sourceModified = source.lastModified();
+
+		HashMap<String, Integer> stringIDs = new HashMap<>();
+		List<String> strings = new ArrayList<>();
+		if (!collectStrings(xmr, xmr.getRootElement(), stringIDs, strings))
+			return;
+
+		File tempFile = null;
+		try {
+			File dir = snapshot.getAbsoluteFile().getParentFile();
+			dir.mkdirs();
+			tempFile = File.createTempFile(snapshot.getName(), ".tmp", dir);
+
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				out.writeLong(sourceLength);
+				out.writeLong(sourceModified);
+				writeString(out, source.getAbsolutePath());
+
+				out.writeInt(strings.size());
+				for (String s : strings)
+					writeString(out, s);
+
+				writeElement(out, xmr, xmr.getRootElement(), stringIDs);
+			}
+
+			Files.move(tempFile.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (IOException e) {
+			Logger.logWarning("Could not write map snapshot " + snapshot.getName() + ": " + e.getMessage());
+			if (tempFile != null)
+				tempFile.delete();
+		}
+	}
+
+	private static boolean collectStrings(XmlReader xmr, Element elem, HashMap<String, Integer> stringIDs, List<String> strings)
+	{
+		intern(elem.getTagName(), stringIDs, strings);
+
+		NamedNodeMap attributes = elem.getAttributes();
+		for (int i = 0; i < attributes.getLength(); i++) {
+			Node attr = attributes.item(i);
+			intern(attr.getNodeName(), stringIDs, strings);
+			intern(attr.getNodeValue(), stringIDs, strings);
+		}
+
+		if (getContentType(xmr, elem) != CONTENT_CHILDREN)
+			return true;
+
+		// mesh elements loaded without their contents, nothing complete to write
+		if (isMeshTag(elem.getTagName()))
+			return false;
+
+		for (Node child = elem.getFirstChild(); child != null; child = child.getNextSibling()) {
+			if (child instanceof Element childElem) {
+				if (!collectStrings(xmr, childElem, stringIDs, strings))
+					return false;
+			}
+			else if (child.getNodeType() == Node.TEXT_NODE)
+				intern(child.getNodeValue(), stringIDs, strings);
+		}
+
+		return true;
+	}
+
+	private static void intern(String s, HashMap<String, Integer> stringIDs, List<String> strings)
+	{
+		if (!stringIDs.containsKey(s)) {
+			stringIDs.put(s, strings.size());
+			strings.add(s);
+		}
+	}
+
+	private static boolean isMeshTag(String tagName)
+	{
+		return MapKey.TAG_VERTEX_TABLE.toString().equals(tagName)
+			|| MapKey.TAG_TRIANGLE_LIST.toString().equals(tagName);
+	}
+
+	private static byte getContentType(XmlReader xmr, Element elem)
+	{
+		if (xmr.getStreamedContent(elem, Object.class) instanceof Vertex[])
+			return CONTENT_VERTICES;
+		if (xmr.getStreamedContent(elem, Object.class) instanceof Triangle[])
+			return CONTENT_TRIANGLES;
+		return CONTENT_CHILDREN;
+	}
+
+	private static void writeElement(DataOutputStream out, XmlReader xmr, Element elem, HashMap<String, Integer> stringIDs)
+		throws IOException
+	{
+		out.writeInt(stringIDs.get(elem.getTagName()));
+
+		NamedNodeMap attributes = elem.getAttributes();
+		out.writeInt(attributes.getLength());
+		for (int i = 0; i < attributes.getLength(); i++) {
+			Node attr = attributes.item(i);
+			out.writeInt(stringIDs.get(attr.getNodeName()));
+			out.writeInt(stringIDs.get(attr.getNodeValue()));
+		}
+
+		byte contentType = getContentType(xmr, elem);
+		out.writeByte(contentType);
+
+		switch (contentType) {
+			case CONTENT_VERTICES:
+				Vertex[] vertices = xmr.getStreamedContent(elem, Vertex[].class);
+				out.writeInt(vertices.length);
+				for (Vertex v : vertices) {
+					MutablePoint pos = v.getLocalPosition();
+					out.writeInt(pos.getX());
+					out.writeInt(pos.getY());
+					out.writeInt(pos.getZ());
+					out.writeInt(v.uv.getU());
+					out.writeInt(v.uv.getV());
+					out.writeByte(v.r);
+					out.writeByte(v.g);
+					out.writeByte(v.b);
+					out.writeByte(v.a);
+				}
+				break;
+
+			case CONTENT_TRIANGLES:
+				Triangle[] triangles = xmr.getStreamedContent(elem, Triangle[].class);
+				out.writeInt(triangles.length);
+				for (Triangle t : triangles) {
+					out.writeInt(t.ijk[0]);
+					out.writeInt(t.ijk[1]);
+					out.writeInt(t.ijk[2]);
+					out.writeByte(t.doubleSided ? 1 : 0);
+				}
+				break;
+
+			default:
+				List<Node> children = new ArrayList<>();
+				for (Node child = elem.getFirstChild(); child != null; child = child.getNextSibling()) {
+					if (child instanceof Element || child.getNodeType() == Node.TEXT_NODE)
+						children.add(child);
+				}
+
+				out.writeInt(children.size());
+				for (Node child : children) {
+					if (child instanceof Element childElem) {
+						out.writeByte(NODE_ELEMENT);
+						writeElement(out, xmr, childElem, stringIDs);
+					}
+					else {
+						out.writeByte(NODE_TEXT);
+						out.writeInt(stringIDs.get(child.getNodeValue()));
+					}
+				}
+				break;
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String s) throws IOException
+	{
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+}
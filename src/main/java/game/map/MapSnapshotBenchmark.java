@@ -0,0 +1,82 @@
+package game.map;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+
+import app.Directories;
+import app.Environment;
+import app.input.IOUtils;
+import util.Logger;
+import util.xml.XmlWrapper.XmlReader;
+
+/**
+ * Loads every map in a directory from XML and from a {@link MapSnapshot}, and reports the
+ * wall time and file size of each. Snapshots are written to a temporary directory, so the
+ * map cache of the current mod is left alone.
+ * Usage: MapSnapshotBenchmark [map directory]
+ */
+public class MapSnapshotBenchmark
+{
+	private static final int ITERATIONS = 3;
+
+	public static void main(String[] args) throws IOException
+	{
+		Environment.initialize();
+		Logger.disable();
+
+		File dir = (args.length > 0) ? new File(args[0]) : Directories.MOD_MAP_SRC.toFile();
+		Collection<File> sources = IOUtils.getFilesWithExtension(dir, "xml", true);
+
+		File tempDir = Files.createTempDirectory("snapshots").toFile();
+		List<File[]> pairs = new ArrayList<>();
+		long xmlBytes = 0;
+		long snapshotBytes = 0;
+
+		for (File source : sources) {
+			File snapshot = new File(tempDir, source.getName() + "." + MapSnapshot.EXTENSION);
+			MapSnapshot.write(snapshot, source, new XmlReader(source, Map.MESH_READERS));
+			if (!snapshot.exists())
+				continue;
+
+			pairs.add(new File[] { source, snapshot });
+			xmlBytes += source.length();
+			snapshotBytes += snapshot.length();
+		}
+
+		System.out.printf("Found %d maps in %s%n", pairs.size(), dir);
+		System.out.printf("XML size:      %8.3f MB%n", xmlBytes / 1e6);
+		System.out.printf("Snapshot size: %8.3f MB%n", snapshotBytes / 1e6);
+
+		// the first pass warms up the JIT and file cache, so only keep the best time
+		long xmlTime = Long.MAX_VALUE;
+		long snapshotTime = Long.MAX_VALUE;
+		for (int i = 0; i < ITERATIONS; i++) {
+			long t0 = System.nanoTime();
+			for (File[] pair : pairs) {
+				XmlReader xmr = new XmlReader(pair[0], Map.MESH_READERS);
+				new Map().fromXML(xmr, xmr.getRootElement());
+			}
+			long t1 = System.nanoTime();
+			for (File[] pair : pairs) {
+				XmlReader xmr = MapSnapshot.read(pair[1], pair[0], true);
+				new Map().fromXML(xmr, xmr.getRootElement());
+			}
+			long t2 = System.nanoTime();
+
+			xmlTime = Math.min(xmlTime, t1 - t0);
+			snapshotTime = Math.min(snapshotTime, t2 - t1);
+		}
+
+		System.out.printf("XML:      %8.3f s%n", xmlTime * 1e-9);
+		System.out.printf("Snapshot: %8.3f s%n", snapshotTime * 1e-9);
+
+		FileUtils.deleteDirectory(tempDir);
+		Environment.exit();
+	}
+}
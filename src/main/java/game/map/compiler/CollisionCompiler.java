@@ -2,7 +2,6 @@ package game.map.compiler;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.util.ArrayList;
 import java.util.HashMap;
 
@@ -12,6 +11,8 @@ import common.Vector3f;
 
 import app.AssetManager;
 import app.Directories;
+import app.Environment;
+import app.config.Options;
 import game.map.BoundingBox;
 import game.map.Map;
 import game.map.hit.Collider;
@@ -20,13 +21,15 @@ import game.map.hit.Zone;
 import game.map.mesh.Triangle;
 import game.map.mesh.Vertex;
 import game.map.tree.MapObjectNode;
-import game.yay0.Yay0Helper;
+import game.yay0.Yay0ContentCache;
+import util.DynamicByteBuffer;
 import util.Logger;
 import util.Priority;
 
 public class CollisionCompiler
 {
 	private static final int MAX_VERTEX_COUNT = 1024;
+	private static final int INITIAL_BUFFER_SIZE = 0x10000;
 
 	public CollisionCompiler(Map map) throws IOException
 	{
@@ -40,23 +43,24 @@ public class CollisionCompiler
 		if (build_dec.exists())
 			build_dec.delete();
 
-		try (RandomAccessFile raf = new RandomAccessFile(build_dec, "rw")) {
-			int colliderHeaderOffset = compileColliders(raf, map);
-			int zoneHeaderOffset = compileZones(raf, map);
+		DynamicByteBuffer dbb = DynamicByteBuffer.empty(INITIAL_BUFFER_SIZE);
+		int colliderHeaderOffset = compileColliders(dbb, map);
+		int zoneHeaderOffset = compileZones(dbb, map);
 
-			raf.seek(0);
-			raf.writeInt(colliderHeaderOffset);
-			raf.writeInt(zoneHeaderOffset);
-		}
+		dbb.position(0);
+		dbb.putInt(colliderHeaderOffset);
+		dbb.putInt(zoneHeaderOffset);
 
-		byte[] complete = FileUtils.readFileToByteArray(build_dec);
-		byte[] encoded = Yay0Helper.encode(complete);
+		dbb.writeToFile(build_dec);
+		byte[] complete = dbb.getBytes();
+		boolean maxCompression = Environment.project.config.getBoolean(Options.MaxCompression);
+		byte[] encoded = Yay0ContentCache.instance().get(complete, maxCompression).data;
 
 		File build = new File(Directories.MOD_MAP_BUILD + map.name + "_hit");
 		FileUtils.writeByteArrayToFile(build, encoded);
 	}
 
-	private int compileColliders(RandomAccessFile raf, Map map) throws IOException
+	private int compileColliders(DynamicByteBuffer dbb, Map map)
 	{
 		MapObjectNode<Collider> colliderRoot = map.colliderTree.getRoot();
 		int num = colliderRoot.countDescendents();
@@ -97,19 +101,19 @@ public class CollisionCompiler
 		/* write vertices */
 
 		int colliderVertexOffset = 0x10;
-		raf.seek(colliderVertexOffset);
+		dbb.position(colliderVertexOffset);
 
 		for (SimpleVertex v : uniqueVertexList) {
-			raf.writeShort((short) v.x);
-			raf.writeShort((short) v.y);
-			raf.writeShort((short) v.z);
+			dbb.putShort((short) v.x);
+			dbb.putShort((short) v.y);
+			dbb.putShort((short) v.z);
 		}
 
 		// pad to alignment
 		if ((uniqueVertexList.size() % 2) == 1)
-			raf.writeShort(0);
+			dbb.putShort(0);
 
-		int endVertOffset = (int) raf.getFilePointer();
+		int endVertOffset = dbb.position();
 		Logger.logf("Wrote %d vertices (%X to %X).", uniqueVertexList.size(), 0x10, endVertOffset);
 
 		/* write triangles */
@@ -120,7 +124,7 @@ public class CollisionCompiler
 			if (!c.hasMesh())
 				continue;
 
-			c.c_TriangleOffset = (int) raf.getFilePointer();
+			c.c_TriangleOffset = dbb.position();
 			for (Triangle t : c.getMesh()) {
 				int index1 = uniqueVertexMap.get(simpleVertexMap.get(t.vert[0]));
 				int index2 = uniqueVertexMap.get(simpleVertexMap.get(t.vert[1]));
@@ -131,84 +135,84 @@ public class CollisionCompiler
 				triangle = triangle | (index2 << 10);
 				triangle = triangle | (index3 << 20);
 
-				raf.writeInt(triangle);
+				dbb.putInt(triangle);
 				triCount++;
 			}
 		}
 
-		int endTriOffset = (int) raf.getFilePointer();
+		int endTriOffset = dbb.position();
 		Logger.logf("Wrote %d triangles (%X to %X).", triCount, endVertOffset, endTriOffset);
 
 		/* write meshes */
 
-		int colliderMeshOffset = (int) raf.getFilePointer();
+		int colliderMeshOffset = dbb.position();
 		short aabbOffset = 0; // not file offset, its the word offset in the aabb table
 		for (Collider c : colliderList) {
-			raf.writeShort(aabbOffset);
-			raf.writeShort(c.c_NextIndex);
-			raf.writeShort(c.c_ChildIndex);
+			dbb.putShort(aabbOffset);
+			dbb.putShort(c.c_NextIndex);
+			dbb.putShort(c.c_ChildIndex);
 
 			if (c.hasMesh()) {
 				int triangleCount = c.mesh.batch.triangles.size();
-				raf.writeShort(triangleCount);
-				raf.writeInt(c.c_TriangleOffset);
+				dbb.putShort(triangleCount);
+				dbb.putInt(c.c_TriangleOffset);
 			}
 			else {
-				raf.writeShort(0);
-				raf.writeInt(0);
+				dbb.putShort(0);
+				dbb.putInt(0);
 			}
 
 			aabbOffset += 7;
 		}
 
-		int endColliderOffset = (int) raf.getFilePointer();
+		int endColliderOffset = dbb.position();
 		Logger.logf("Wrote %d colliders (%X to %X).", colliderList.size(), endTriOffset, endColliderOffset);
 
 		/* write bounding boxes */
 
-		int colliderBoundingOffset = (int) raf.getFilePointer();
+		int colliderBoundingOffset = dbb.position();
 		for (Collider c : colliderList) {
 			Vector3f min = c.AABB.getMin();
 			Vector3f max = c.AABB.getMax();
-			raf.writeFloat(min.x);
-			raf.writeFloat(min.y);
-			raf.writeFloat(min.z);
-			raf.writeFloat(max.x);
-			raf.writeFloat(max.y);
-			raf.writeFloat(max.z);
+			dbb.putFloat(min.x);
+			dbb.putFloat(min.y);
+			dbb.putFloat(min.z);
+			dbb.putFloat(max.x);
+			dbb.putFloat(max.y);
+			dbb.putFloat(max.z);
 
 			int flagBits = 0;
 			flagBits |= c.flags.get() & ~0xFF;
 			flagBits |= c.surface.get() & 0xFF;
-			raf.writeInt(flagBits);
+			dbb.putInt(flagBits);
 		}
 
-		int endBoxesOffset = (int) raf.getFilePointer();
+		int endBoxesOffset = dbb.position();
 		Logger.logf("Wrote %d bounding boxes (%X to %X).", colliderList.size(), endColliderOffset, endBoxesOffset);
 
 		/* write header */
 
-		int colliderHeaderOffset = (int) raf.getFilePointer();
+		int colliderHeaderOffset = dbb.position();
 
-		raf.writeShort(colliderList.size());
-		raf.writeShort(0);
-		raf.writeInt(colliderMeshOffset);
+		dbb.putShort(colliderList.size());
+		dbb.putShort(0);
+		dbb.putInt(colliderMeshOffset);
 
-		raf.writeShort(uniqueVertexList.size());
-		raf.writeShort(0);
-		raf.writeInt(colliderVertexOffset);
+		dbb.putShort(uniqueVertexList.size());
+		dbb.putShort(0);
+		dbb.putInt(colliderVertexOffset);
 
-		raf.writeShort(colliderList.size() * 7);
-		raf.writeShort(0);
-		raf.writeInt(colliderBoundingOffset);
+		dbb.putShort(colliderList.size() * 7);
+		dbb.putShort(0);
+		dbb.putInt(colliderBoundingOffset);
 
-		while ((raf.length() & 0x0F) != 0)
-			raf.write(0);
+		while ((dbb.size() & 0x0F) != 0)
+			dbb.putByte(0);
 
 		return colliderHeaderOffset;
 	}
 
-	private int compileZones(RandomAccessFile raf, Map map) throws IOException
+	private int compileZones(DynamicByteBuffer dbb, Map map)
 	{
 		MapObjectNode<Zone> zoneRoot = map.zoneTree.getRoot();
 		int num = zoneRoot.countDescendents();
@@ -242,17 +246,17 @@ public class CollisionCompiler
 
 		/* write vertices */
 
-		int areaVertexOffset = (int) raf.getFilePointer();
+		int areaVertexOffset = dbb.position();
 
 		for (Vertex v : vertexList) {
-			raf.writeShort((short) v.getCurrentX());
-			raf.writeShort((short) v.getCurrentY());
-			raf.writeShort((short) v.getCurrentZ());
+			dbb.putShort((short) v.getCurrentX());
+			dbb.putShort((short) v.getCurrentY());
+			dbb.putShort((short) v.getCurrentZ());
 		}
 
 		// pad to alignment
 		if ((vertexList.size() % 2) == 1)
-			raf.writeShort(0);
+			dbb.putShort(0);
 
 		/* write triangles */
 
@@ -261,7 +265,7 @@ public class CollisionCompiler
 			if (!z.hasMesh())
 				continue;
 
-			z.c_TriangleOffset = (int) raf.getFilePointer();
+			z.c_TriangleOffset = dbb.position();
 			for (Triangle t : z.getMesh()) {
 				int index1 = vertexMap.get(t.vert[0]);
 				int index2 = vertexMap.get(t.vert[1]);
@@ -272,70 +276,70 @@ public class CollisionCompiler
 				triangle = triangle | (index2 << 10);
 				triangle = triangle | (index3 << 20);
 
-				raf.writeInt(triangle);
+				dbb.putInt(triangle);
 			}
 		}
 
 		/* write meshes */
 
-		int areaMeshOffset = (int) raf.getFilePointer();
+		int areaMeshOffset = dbb.position();
 		int cameraOffset = 0;
 		for (Zone z : zoneList) {
 			if (z.hasCameraData.get()) {
-				raf.writeShort(cameraOffset);
+				dbb.putShort(cameraOffset);
 				z.c_CameraOffset = cameraOffset * 4;
 				cameraOffset += 11; // 11 words
 			}
 			else {
-				raf.writeShort(-1);
+				dbb.putShort(-1);
 			}
 
-			raf.writeShort(z.c_NextIndex);
-			raf.writeShort(z.c_ChildIndex);
+			dbb.putShort(z.c_NextIndex);
+			dbb.putShort(z.c_ChildIndex);
 
 			if (z.hasMesh()) {
 				int triangleCount = z.mesh.batch.triangles.size();
-				raf.writeShort(triangleCount);
-				raf.writeInt(z.c_TriangleOffset);
+				dbb.putShort(triangleCount);
+				dbb.putInt(z.c_TriangleOffset);
 			}
 			else {
-				raf.writeShort(0);
-				raf.writeInt(0);
+				dbb.putShort(0);
+				dbb.putInt(0);
 			}
 		}
 
 		/* write camera data -- could be out of order or duplicated etc. */
-		int zoneDataOffset = (int) raf.getFilePointer();
+		int zoneDataOffset = dbb.position();
 		int zoneDataSize = 0;
 		for (Zone z : zoneList) {
 			if (z.c_CameraOffset >= 0) {
-				raf.seek(zoneDataOffset + z.c_CameraOffset);
+				dbb.position(zoneDataOffset + z.c_CameraOffset);
 				for (int i : z.camData.getData())
-					raf.writeInt(i);
+					dbb.putInt(i);
 				zoneDataSize += 0x2C;
 			}
 		}
 
-		raf.seek(zoneDataOffset + zoneDataSize);
+		dbb.position(zoneDataOffset + zoneDataSize);
 
 		/* write header */
 
-		int zoneHeaderOffset = (int) raf.getFilePointer();
+		int zoneHeaderOffset = dbb.position();
 
-		raf.writeShort(zoneList.size());
-		raf.writeShort(0);
-		raf.writeInt(areaMeshOffset);
+		dbb.putShort(zoneList.size());
+		dbb.putShort(0);
+		dbb.putInt(areaMeshOffset);
 
-		raf.writeShort(vertexList.size());
-		raf.writeShort(0);
-		raf.writeInt(areaVertexOffset);
+		dbb.putShort(vertexList.size());
+		dbb.putShort(0);
+		dbb.putInt(areaVertexOffset);
 
-		raf.writeShort(zoneDataSize / 4);
-		raf.writeShort(0);
-		raf.writeInt(zoneDataOffset);
+		dbb.putShort(zoneDataSize / 4);
+		dbb.putShort(0);
+		dbb.putInt(zoneDataOffset);
 
-		while ((raf.length() & 0x0F) != 0)
-			raf.write(0);
+		while ((dbb.size() & 0x0F) != 0)
+			dbb.putByte(0);
 
 		return zoneHeaderOffset;
 	}
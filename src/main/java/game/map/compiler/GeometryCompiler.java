@@ -2,7 +2,6 @@ package game.map.compiler;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -15,6 +14,8 @@ import org.apache.commons.io.FileUtils;
 
 import app.AssetManager;
 import app.Directories;
+import app.Environment;
+import app.config.Options;
 import game.map.BoundingBox;
 import game.map.Map;
 import game.map.MapObject.ShapeType;
@@ -27,7 +28,8 @@ import game.map.shape.TransformMatrix;
 import game.map.shape.TriangleBatch;
 import game.map.shape.commands.DisplayCommand;
 import game.map.tree.MapObjectNode;
-import game.yay0.Yay0Helper;
+import game.yay0.Yay0ContentCache;
+import util.DynamicByteBuffer;
 import util.Logger;
 import util.Priority;
 
@@ -49,7 +51,7 @@ public class GeometryCompiler
 	private static final int MAX_MAP_SIZE = 0x30000;
 	private static final int MAX_STAGE_SIZE = 0x8000;
 
-	private RandomAccessFile raf;
+	private DynamicByteBuffer dbb;
 
 	private int vertexTableBase;
 	private ArrayList<Vertex> vertexTable;
@@ -86,21 +88,21 @@ public class GeometryCompiler
 		MapObjectNode<Model> rootNode = map.modelTree.getRoot();
 		finalizeBoundingBoxes(rootNode);
 
-		raf = new RandomAccessFile(build_dec, "rw");
-		raf.seek(0x20);
+		dbb = DynamicByteBuffer.empty(MAX_MAP_SIZE);
+		dbb.position(0x20);
 
 		/* texture list */
 		textureNameMap = new HashMap<>();
 		for (Model mdl : map.modelTree) {
 			TexturedMesh m = mdl.getMesh();
 			if (!textureNameMap.containsKey(m.textureName) && !m.textureName.isEmpty()) {
-				textureNameMap.put(m.textureName, (int) raf.getFilePointer());
-				raf.write(m.textureName.getBytes());
-				raf.write((byte) 0);
-				raf.seek(((int) raf.getFilePointer() + 3) & 0xFFFFFFFC);
+				textureNameMap.put(m.textureName, dbb.position());
+				dbb.putBytes(m.textureName.getBytes());
+				dbb.putByte(0);
+				dbb.align(4);
 			}
 		}
-		raf.seek(((int) raf.getFilePointer() + 0xF) & 0xFFFFFFF0);
+		dbb.align(16);
 
 		/* create vertex table */
 		vertexTable = new ArrayList<>();
@@ -108,15 +110,15 @@ public class GeometryCompiler
 		buildVertexTable(rootNode);
 
 		/* write vertex table */
-		vertexTableBase = (int) raf.getFilePointer();
+		vertexTableBase = dbb.position();
 		for (Vertex v : vertexTable)
-			raf.write(v.getCompiledRepresentation());
-		raf.seek(((int) raf.getFilePointer() + 0xF) & 0xFFFFFFF0);
+			dbb.putBytes(v.getCompiledRepresentation());
+		dbb.align(16);
 
 		/* write light sets */
 		for (LightSet lightSet : map.lightSets) {
-			lightSet.c_address = RAM_BASE + (int) raf.getFilePointer();
-			lightSet.write(raf);
+			lightSet.c_address = RAM_BASE + dbb.position();
+			lightSet.write(dbb);
 		}
 
 		/* create matrix list */
@@ -126,31 +128,30 @@ public class GeometryCompiler
 		/* write matrix list */
 		matrixMap = new HashMap<>();
 		for (TransformMatrix m : matrixTable) {
-			matrixMap.put(m, (int) raf.getFilePointer());
-			m.writeRDP(raf);
+			matrixMap.put(m, dbb.position());
+			m.writeRDP(dbb);
 		}
 
 		/* display list */
 		writeDisplayList(rootNode);
-		raf.seek(((int) raf.getFilePointer() + 0xF) & 0xFFFFFFF0);
+		dbb.align(16);
 
 		/* model tree */
 		int modelTreeRoot = writeModelTree(rootNode, map.lightSets);
 
 		/* header */
-		raf.seek(0);
-		raf.writeInt(RAM_BASE + modelTreeRoot);
-		raf.writeInt(RAM_BASE + vertexTableBase);
+		dbb.position(0);
+		dbb.putInt(RAM_BASE + modelTreeRoot);
+		dbb.putInt(RAM_BASE + vertexTableBase);
 
 		/* padding */
-		raf.seek(raf.length());
-		int nextAlignedOffset = ((int) raf.length() + 0xF) & 0xFFFFFFF0;
-		for (int i = 0; i < nextAlignedOffset - raf.length(); i += 4)
-			raf.writeInt(0);
+		dbb.position(dbb.size());
+		int nextAlignedOffset = (dbb.size() + 0xF) & 0xFFFFFFF0;
+		for (int i = 0; i < nextAlignedOffset - dbb.size(); i += 4)
+			dbb.putInt(0);
 
-		raf.close();
-
-		byte[] complete = FileUtils.readFileToByteArray(build_dec);
+		dbb.writeToFile(build_dec);
+		byte[] complete = dbb.getBytes();
 
 		// check size
 		boolean battleMap = map.name.contains("_bt");
@@ -165,7 +166,8 @@ public class GeometryCompiler
 			throw new BuildException("Build failed: " + mapType + " size exceeds engine limit.\n" + breakdown);
 		}
 
-		byte[] encoded = Yay0Helper.encode(complete);
+		boolean maxCompression = Environment.project.config.getBoolean(Options.MaxCompression);
+		byte[] encoded = Yay0ContentCache.instance().get(complete, maxCompression).data;
 
 		File buildFile = new File(Directories.MOD_MAP_BUILD + map.name + "_shape");
 		FileUtils.writeByteArrayToFile(buildFile, encoded);
@@ -242,9 +244,8 @@ public class GeometryCompiler
 	 * Recursively writes the display list to the .shape file. Pass the
 	 * root as a parameter to write the whole tree.
 	 * @param node
-	 * @throws IOException
 	 */
-	private void writeDisplayList(MapObjectNode<Model> node) throws IOException
+	private void writeDisplayList(MapObjectNode<Model> node)
 	{
 		for (int i = 0; i < node.getChildCount(); i++) {
 			MapObjectNode<Model> child = node.getChildAt(i);
@@ -252,37 +253,36 @@ public class GeometryCompiler
 		}
 
 		Model mdl = node.getUserObject();
-		mdl.c_DisplayListOffset = (int) raf.getFilePointer(); //XXX changed!
+		mdl.c_DisplayListOffset = dbb.position(); //XXX changed!
 
 		// F3DEX2_LOAD_MATRIX
 		if (mdl.hasTransformMatrix.get()) {
-			raf.writeInt(0xDA380000);
-			raf.writeInt(RAM_BASE + matrixMap.get(mdl.localTransformMatrix));
+			dbb.putInt(0xDA380000);
+			dbb.putInt(RAM_BASE + matrixMap.get(mdl.localTransformMatrix));
 		}
 
 		// write DL for this group
 		for (int i = 0; i < node.getChildCount(); i++) {
 			MapObjectNode<Model> child = node.getChildAt(i);
 
-			raf.writeInt(F3DEX2_START_DL);
-			raf.writeInt(RAM_BASE + child.getUserObject().c_DisplayListOffset);
+			dbb.putInt(F3DEX2_START_DL);
+			dbb.putInt(RAM_BASE + child.getUserObject().c_DisplayListOffset);
 		}
 
 		if (mdl.hasMesh()) {
 			//	System.out.println(mdl + " " + mdl.mesh.batchList.size());
 
-			//	mdl.c_DisplayListOffset = (int)raf.getFilePointer();
 			writeMeshDisplayList(mdl.getMesh());
 		}
 
 		// F3DEX2_POP_MATRIX
 		if (mdl.hasTransformMatrix.get()) {
-			raf.writeInt(0xD8380002);
-			raf.writeInt(0x00000040);
+			dbb.putInt(0xD8380002);
+			dbb.putInt(0x00000040);
 		}
 
-		raf.writeInt(F3DEX2_END_DL);
-		raf.writeInt(0);
+		dbb.putInt(F3DEX2_END_DL);
+		dbb.putInt(0);
 	}
 
 	/**
@@ -291,9 +291,8 @@ public class GeometryCompiler
 	 * and the triangle lists. Finish with an end list command.
 	 *
 	 * @param mesh
-	 * @throws IOException
 	 */
-	private void writeMeshDisplayList(TexturedMesh mesh) throws IOException
+	private void writeMeshDisplayList(TexturedMesh mesh)
 	{
 		for (int i = 0; i < mesh.displayListModel.size(); i++) {
 			DisplayCommand cmd = mesh.displayListModel.getElementAt(i);
@@ -302,8 +301,8 @@ public class GeometryCompiler
 			}
 			else {
 				int[] v = cmd.getF3DEX2Command();
-				raf.writeInt(v[0]);
-				raf.writeInt(v[1]);
+				dbb.putInt(v[0]);
+				dbb.putInt(v[1]);
 			}
 
 		}
@@ -313,19 +312,19 @@ public class GeometryCompiler
 		{
 			if(batch.flushPipeline)
 			{
-				raf.writeInt(RDP_PIPE_SYNC);
-				raf.writeInt(0);
+				dbb.putInt(RDP_PIPE_SYNC);
+				dbb.putInt(0);
 			}
 		
 			for(int i : batch.commandList)
-				raf.writeInt(i);
+				dbb.putInt(i);
 		
 			writeTriangleList(batch.triangles);
 		}
 		*/
 
-		raf.writeInt(F3DEX2_END_DL);
-		raf.writeInt(0);
+		dbb.putInt(F3DEX2_END_DL);
+		dbb.putInt(0);
 	}
 
 	/**
@@ -335,9 +334,8 @@ public class GeometryCompiler
 	 * Since the size of this list is unknown, it is possible
 	 *
 	 * @param triangleList
-	 * @throws IOException
 	 */
-	private void writeTriangleList(List<Triangle> triangleList) throws IOException
+	private void writeTriangleList(List<Triangle> triangleList)
 	{
 		if (triangleList == null || triangleList.size() == 0)
 			return;
@@ -371,7 +369,7 @@ public class GeometryCompiler
 		return batchList;
 	}
 
-	private void writeTriangleBatch(VertexBatch batch) throws IOException
+	private void writeTriangleBatch(VertexBatch batch)
 	{
 		ArrayList<Integer> indexList = new ArrayList<>();
 		for (Vertex v : batch.vertexSet)
@@ -410,8 +408,8 @@ public class GeometryCompiler
 			int cmd = F3DEX2_LOAD_VTX;
 			cmd |= range.length() << 12;
 			cmd |= 2 * vertexBuffer.size();
-			raf.writeInt(cmd);
-			raf.writeInt(RAM_BASE + vertexTableBase + range.start * 0x10);
+			dbb.putInt(cmd);
+			dbb.putInt(RAM_BASE + vertexTableBase + range.start * 0x10);
 		}
 
 		// write draw triangle commands
@@ -425,8 +423,8 @@ public class GeometryCompiler
 				code |= (2 * vertexBufferMap.get(t.vert[0])) << 16;
 				code |= (2 * vertexBufferMap.get(t.vert[1])) << 8;
 				code |= (2 * vertexBufferMap.get(t.vert[2]));
-				raf.writeInt(code);
-				raf.writeInt(0);
+				dbb.putInt(code);
+				dbb.putInt(0);
 				draws++;
 
 				// draw two triangles
@@ -437,7 +435,7 @@ public class GeometryCompiler
 				code |= (2 * vertexBufferMap.get(t.vert[0])) << 16;
 				code |= (2 * vertexBufferMap.get(t.vert[1])) << 8;
 				code |= (2 * vertexBufferMap.get(t.vert[2]));
-				raf.writeInt(code);
+				dbb.putInt(code);
 				draws++;
 
 				t = batch.triangleList.get(draws);
@@ -445,7 +443,7 @@ public class GeometryCompiler
 				code |= (2 * vertexBufferMap.get(t.vert[0])) << 16;
 				code |= (2 * vertexBufferMap.get(t.vert[1])) << 8;
 				code |= (2 * vertexBufferMap.get(t.vert[2]));
-				raf.writeInt(code);
+				dbb.putInt(code);
 				draws++;
 			}
 		}
@@ -527,25 +525,24 @@ public class GeometryCompiler
 	 * to write the whole tree.
 	 * @param node
 	 * @return Offset of the root
-	 * @throws IOException
 	 */
-	private int writeModelTree(MapObjectNode<Model> node, ListModel<LightSet> lightSets) throws IOException
+	private int writeModelTree(MapObjectNode<Model> node, ListModel<LightSet> lightSets)
 	{
 		Model mdl = node.getUserObject();
 		int nodePosition = -1;
 
 		if (mdl.modelType.get() == ShapeType.MODEL) {
-			int propertiesAddress = (int) raf.getFilePointer();
+			int propertiesAddress = dbb.position();
 			int numProperties = writeModelProperties(mdl);
 
-			raf.writeInt(RAM_BASE + mdl.c_DisplayListOffset);
-			raf.writeInt(0);
-			nodePosition = (int) raf.getFilePointer();
-			raf.writeInt(2); // type 2 = model
-			raf.writeInt(RAM_BASE + (int) raf.getFilePointer() - 0xC);
-			raf.writeInt(numProperties);
-			raf.writeInt(RAM_BASE + propertiesAddress);
-			raf.writeInt(0);
+			dbb.putInt(RAM_BASE + mdl.c_DisplayListOffset);
+			dbb.putInt(0);
+			nodePosition = dbb.position();
+			dbb.putInt(2); // type 2 = model
+			dbb.putInt(RAM_BASE + dbb.position() - 0xC);
+			dbb.putInt(numProperties);
+			dbb.putInt(RAM_BASE + propertiesAddress);
+			dbb.putInt(0);
 		}
 		else {
 			ArrayList<Integer> childOffsets = new ArrayList<>();
@@ -556,96 +553,96 @@ public class GeometryCompiler
 				childOffsets.add(writeModelTree(child, lightSets));
 			}
 
-			int propertiesOffset = (int) raf.getFilePointer();
+			int propertiesOffset = dbb.position();
 			int numProperties = writeGroupProperties(mdl);
 
-			int childListOffset = (int) raf.getFilePointer();
+			int childListOffset = dbb.position();
 			for (Integer i : childOffsets)
-				raf.writeInt(RAM_BASE + i);
+				dbb.putInt(RAM_BASE + i);
 
 			if (mdl.hasTransformMatrix.get())
-				raf.writeInt(RAM_BASE + matrixMap.get(mdl.localTransformMatrix));
+				dbb.putInt(RAM_BASE + matrixMap.get(mdl.localTransformMatrix));
 			else
-				raf.writeInt(0);
+				dbb.putInt(0);
 
-			raf.writeInt(mdl.lights.get().c_address);
-			raf.writeInt(mdl.lights.get().getLightCount());
+			dbb.putInt(mdl.lights.get().c_address);
+			dbb.putInt(mdl.lights.get().getLightCount());
 
-			raf.writeInt(childOffsets.size());
-			raf.writeInt(RAM_BASE + childListOffset);
+			dbb.putInt(childOffsets.size());
+			dbb.putInt(RAM_BASE + childListOffset);
 
-			raf.writeInt(RAM_BASE + mdl.c_DisplayListOffset);
-			raf.writeInt(0);
+			dbb.putInt(RAM_BASE + mdl.c_DisplayListOffset);
+			dbb.putInt(0);
 
-			nodePosition = (int) raf.getFilePointer();
-			raf.writeInt(Model.getIDFromType(mdl.modelType.get()));
-			raf.writeInt(RAM_BASE + (int) raf.getFilePointer() - 0xC);
+			nodePosition = dbb.position();
+			dbb.putInt(Model.getIDFromType(mdl.modelType.get()));
+			dbb.putInt(RAM_BASE + dbb.position() - 0xC);
 
-			raf.writeInt(numProperties);
-			raf.writeInt(RAM_BASE + propertiesOffset);
-			raf.writeInt(RAM_BASE + (int) raf.getFilePointer() - 0x2C);
+			dbb.putInt(numProperties);
+			dbb.putInt(RAM_BASE + propertiesOffset);
+			dbb.putInt(RAM_BASE + dbb.position() - 0x2C);
 		}
 
 		Logger.log(String.format("Wrote %s to %08X", mdl.toString(), nodePosition), Priority.DETAIL);
 		return nodePosition;
 	}
 
-	private int writeGroupProperties(Model mdl) throws IOException
+	private int writeGroupProperties(Model mdl)
 	{
 		writeBoundingBox(mdl.AABB);
 
 		int[][] properties = mdl.getProperties();
 		for (int i = 0; i < properties.length; i++) {
-			raf.writeInt(properties[i][0]);
-			raf.writeInt(properties[i][1]);
-			raf.writeInt(properties[i][2]);
+			dbb.putInt(properties[i][0]);
+			dbb.putInt(properties[i][1]);
+			dbb.putInt(properties[i][2]);
 		}
 
 		return 6 + properties.length;
 	}
 
-	private int writeModelProperties(Model mdl) throws IOException
+	private int writeModelProperties(Model mdl)
 	{
 		writeBoundingBox(mdl.localAABB);
 
 		// write texture pointer
-		raf.writeInt(0x5E);
-		raf.writeInt(2);
+		dbb.putInt(0x5E);
+		dbb.putInt(2);
 		if (mdl.getMesh().textureName.isEmpty())
-			raf.writeInt(0);
+			dbb.putInt(0);
 		else
-			raf.writeInt(RAM_BASE + textureNameMap.get(mdl.getMesh().textureName));
+			dbb.putInt(RAM_BASE + textureNameMap.get(mdl.getMesh().textureName));
 
 		int[][] properties = mdl.getProperties();
 		for (int i = 0; i < properties.length; i++) {
-			raf.writeInt(properties[i][0]);
-			raf.writeInt(properties[i][1]);
-			raf.writeInt(properties[i][2]);
+			dbb.putInt(properties[i][0]);
+			dbb.putInt(properties[i][1]);
+			dbb.putInt(properties[i][2]);
 		}
 
 		return 7 + properties.length;
 	}
 
-	private void writeBoundingBox(BoundingBox AABB) throws IOException
+	private void writeBoundingBox(BoundingBox AABB)
 	{
-		raf.writeInt(0x61);
-		raf.writeInt(1);
-		raf.writeFloat(AABB.min.getX());
-		raf.writeInt(0x61);
-		raf.writeInt(1);
-		raf.writeFloat(AABB.min.getY());
-		raf.writeInt(0x61);
-		raf.writeInt(1);
-		raf.writeFloat(AABB.min.getZ());
-
-		raf.writeInt(0x61);
-		raf.writeInt(1);
-		raf.writeFloat(AABB.max.getX());
-		raf.writeInt(0x61);
-		raf.writeInt(1);
-		raf.writeFloat(AABB.max.getY());
-		raf.writeInt(0x61);
-		raf.writeInt(1);
-		raf.writeFloat(AABB.max.getZ());
+		dbb.putInt(0x61);
+		dbb.putInt(1);
+		dbb.putFloat(AABB.min.getX());
+		dbb.putInt(0x61);
+		dbb.putInt(1);
+		dbb.putFloat(AABB.min.getY());
+		dbb.putInt(0x61);
+		dbb.putInt(1);
+		dbb.putFloat(AABB.min.getZ());
+
+		dbb.putInt(0x61);
+		dbb.putInt(1);
+		dbb.putFloat(AABB.max.getX());
+		dbb.putInt(0x61);
+		dbb.putInt(1);
+		dbb.putFloat(AABB.max.getY());
+		dbb.putInt(0x61);
+		dbb.putInt(1);
+		dbb.putFloat(AABB.max.getZ());
 	}
 }
@@ -0,0 +1,202 @@
+package game.map.compiler;
+
+import static app.Directories.MOD_MAP_BUILD;
+import static app.Directories.MOD_MAP_GEN;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.FilenameUtils;
+
+import game.map.Map;
+import game.map.scripts.ScriptGenerator;
+import game.yay0.Yay0ContentCache;
+import util.Logger;
+import util.Priority;
+import util.ThreadPools;
+
+/**
+ * Compiles the geometry, collision, and generated script of many maps at once.
+ * Maps are independent of each other, so each one is compiled on its own worker thread.
+ * A map is skipped if all of its outputs are newer than its source file.
+ * The compression cache is saved once the whole batch has finished.
+ */
+public class MapBatchCompiler
+{
+	public static class MapResult
+	{
+		public final File source;
+		public final String name;
+
+		private boolean skipped = false;
+		private long nanos = 0;
+		private Throwable error = null;
+
+		private MapResult(File source)
+		{
+			this.source = source;
+			this.name = FilenameUtils.getBaseName(source.getName());
+		}
+
+		public boolean skipped()
+		{
+			return skipped;
+		}
+
+		public boolean failed()
+		{
+			return error != null;
+		}
+
+		public Throwable getError()
+		{
+			return error;
+		}
+
+		public double getSeconds()
+		{
+			return nanos / 1e9;
+		}
+	}
+
+	private final int numThreads;
+
+	public MapBatchCompiler(int numThreads)
+	{
+		this.numThreads = Math.max(1, numThreads);
+	}
+
+	public static int getDefaultThreadCount()
+	{
+		return Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * Compiles every map in the list. Failures do not stop the other maps from compiling,
+	 * they are recorded in the results instead.
+	 * @return one result for each map, in the same order
+	 */
+	public List<MapResult> compile(Collection<File> sources)
+	{
+		List<MapResult> results = new ArrayList<>(sources.size());
+		for (File source : sources)
+			results.add(new MapResult(source));
+
+		ExecutorService pool = ThreadPools.newDaemonPool("MapCompiler", Math.min(numThreads, results.size()));
+
+		try {
+			List<Future<?>> futures = new ArrayList<>(results.size());
+			for (MapResult result : results)
+				futures.add(pool.submit(() -> compile(result)));
+
+			for (int i = 0; i < futures.size(); i++) {
+				try {
+					futures.get(i).get();
+				}
+				catch (ExecutionException e) {
+					results.get(i).error = e.getCause();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					results.get(i).error = e;
+				}
+			}
+		}
+		finally {
+			pool.shutdownNow();
+		}
+
+		// written once for the whole batch, rather than by each worker
+		try {
+			Yay0ContentCache.instance().save();
+		}
+		catch (IOException e) {
+			Logger.logWarning("Could not save compression cache: " + e.getMessage());
+		}
+
+		return results;
+	}
+
+	private static void compile(MapResult result)
+	{
+		if (isUpToDate(result.source, result.name)) {
+			result.skipped = true;
+			return;
+		}
+
+		long t0 = System.nanoTime();
+		try {
+			Map map = Map.loadMap(result.source);
+			new GeometryCompiler(map);
+			new CollisionCompiler(map);
+			new ScriptGenerator(map);
+		}
+		catch (Exception e) {
+			result.error = e;
+		}
+		result.nanos = System.nanoTime() - t0;
+	}
+
+	private static File[] getOutputs(String mapName)
+	{
+		return new File[] {
+				new File(MOD_MAP_BUILD + mapName + "_shape"),
+				new File(MOD_MAP_BUILD + mapName + "_hit"),
+				new File(MOD_MAP_GEN + mapName + ".mpat")
+		};
+	}
+
+	private static boolean isUpToDate(File source, String mapName)
+	{
+		long sourceTime = source.lastModified();
+		for (File out : getOutputs(mapName)) {
+			if (!out.exists() || out.lastModified() < sourceTime)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Logs the time taken for each map, followed by every error.
+	 * @return the number of maps which failed to compile
+	 */
+	public static int printSummary(List<MapResult> results)
+	{
+		int numCompiled = 0;
+		int numSkipped = 0;
+		List<MapResult> failed = new ArrayList<>();
+		double totalSeconds = 0.0;
+
+		for (MapResult result : results) {
+			if (result.skipped()) {
+				numSkipped++;
+				continue;
+			}
+
+			if (result.failed())
+				failed.add(result);
+			else
+				numCompiled++;
+
+			totalSeconds += result.getSeconds();
+			Logger.logf("%-12s %8.3f s %s", result.name, result.getSeconds(), result.failed() ? "FAILED" : "");
+		}
+
+		Logger.log(String.format("Compiled %d maps, skipped %d unchanged, %d failed (%.3f s of work).",
+			numCompiled, numSkipped, failed.size(), totalSeconds), Priority.MILESTONE);
+
+		for (MapResult result : failed) {
+			Throwable e = result.getError();
+			String message = (e.getMessage() != null) ? e.getMessage() : e.getClass().getSimpleName();
+			Logger.logfError("%s: %s", result.name, message);
+		}
+
+		return failed.size();
+	}
+}
@@ -0,0 +1,120 @@
+package game.map.compiler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+
+import app.AssetManager;
+import app.Environment;
+import game.map.Map;
+import game.yay0.Yay0ContentCache;
+import util.DynamicByteBuffer;
+import util.Logger;
+
+/**
+ * Compiles the geometry and collision of every map in {@link AssetManager#getMapsToBuild()}
+ * and reports the wall time. The uncompressed outputs are then written again field by field
+ * through a {@link RandomAccessFile}, as the compilers used to, and through a single
+ * {@link DynamicByteBuffer} flush, to compare the cost of the two output paths.
+ * Usage: MapCompilerBenchmark
+ */
+public class MapCompilerBenchmark
+{
+	private static final int ITERATIONS = 3;
+
+	public static void main(String[] args) throws IOException
+	{
+		Environment.initialize();
+		Logger.disable();
+
+		List<Map> maps = new ArrayList<>();
+		for (File f : AssetManager.getMapsToBuild())
+			maps.add(Map.loadMap(f));
+
+		System.out.printf("Loaded %d maps%n", maps.size());
+
+		// the first pass also fills the compression cache, so only the later passes are comparable
+		long bestTime = Long.MAX_VALUE;
+		for (int i = 0; i < ITERATIONS; i++) {
+			long t0 = System.nanoTime();
+			for (Map map : maps) {
+				try {
+					new GeometryCompiler(map);
+					new CollisionCompiler(map);
+				}
+				catch (BuildException e) {
+					System.out.printf("Skipped %s: %s%n", map.name, e.getMessage());
+				}
+			}
+			long t1 = System.nanoTime();
+			System.out.printf("Compile pass %d: %8.3f s%n", i + 1, (t1 - t0) * 1e-9);
+			bestTime = Math.min(bestTime, t1 - t0);
+		}
+		System.out.printf("Compile best:   %8.3f s%n", bestTime * 1e-9);
+		Yay0ContentCache.instance().save();
+
+		List<byte[]> outputs = new ArrayList<>();
+		for (Map map : maps) {
+			for (String suffix : new String[] { "_shape_dec", "_hit_dec" }) {
+				File f = new File(AssetManager.getMapBuildDir(), map.name + suffix);
+				if (f.exists())
+					outputs.add(FileUtils.readFileToByteArray(f));
+			}
+		}
+
+		File temp = File.createTempFile("map", ".bin");
+		temp.deleteOnExit();
+
+		long rafTime = Long.MAX_VALUE;
+		long bufferTime = Long.MAX_VALUE;
+		for (int i = 0; i < ITERATIONS; i++) {
+			long t0 = System.nanoTime();
+			for (byte[] data : outputs)
+				writeFields(data, temp);
+			long t1 = System.nanoTime();
+			for (byte[] data : outputs)
+				writeBuffered(data, temp);
+			long t2 = System.nanoTime();
+
+			rafTime = Math.min(rafTime, t1 - t0);
+			bufferTime = Math.min(bufferTime, t2 - t1);
+		}
+
+		System.out.printf("Output writes (%d files):%n", outputs.size());
+		System.out.printf("RandomAccessFile:  %8.3f s%n", rafTime * 1e-9);
+		System.out.printf("DynamicByteBuffer: %8.3f s%n", bufferTime * 1e-9);
+
+		Environment.exit();
+	}
+
+	private static void writeFields(byte[] data, File f) throws IOException
+	{
+		ByteBuffer bb = ByteBuffer.wrap(data);
+		f.delete();
+
+		try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+			while (bb.remaining() >= 4)
+				raf.writeInt(bb.getInt());
+			while (bb.hasRemaining())
+				raf.write(bb.get());
+		}
+	}
+
+	private static void writeBuffered(byte[] data, File f) throws IOException
+	{
+		ByteBuffer bb = ByteBuffer.wrap(data);
+		DynamicByteBuffer dbb = DynamicByteBuffer.empty(data.length);
+
+		while (bb.remaining() >= 4)
+			dbb.putInt(bb.getInt());
+		while (bb.hasRemaining())
+			dbb.putByte(bb.get());
+
+		dbb.writeToFile(f);
+	}
+}
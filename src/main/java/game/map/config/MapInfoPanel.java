@@ -34,6 +34,7 @@ import game.map.compiler.CollisionCompiler;
 import game.map.compiler.GeometryCompiler;
 import game.map.config.MapConfigTable.MapConfig;
 import game.map.editor.MapEditor;
+import game.yay0.Yay0ContentCache;
 import net.miginfocom.swing.MigLayout;
 import util.Logger;
 import util.ui.HexTextField;
@@ -778,6 +779,7 @@ public class MapInfoPanel extends JPanel
 			{
 				try {
 					new GeometryCompiler(Map.loadMap(validMap));
+					Yay0ContentCache.instance().save();
 					SwingUtilities.invokeLater(() -> {
 						updateSourceInfo();
 					});
@@ -814,6 +816,7 @@ public class MapInfoPanel extends JPanel
 			{
 				try {
 					new CollisionCompiler(Map.loadMap(validMap));
+					Yay0ContentCache.instance().save();
 					SwingUtilities.invokeLater(() -> {
 						updateSourceInfo();
 					});
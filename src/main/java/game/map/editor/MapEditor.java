@@ -155,6 +155,7 @@ import game.map.shape.UVGenerator;
 import game.map.tree.MapObjectNode;
 import game.shared.ProjectDatabase;
 import game.texture.ModelTexture;
+import game.yay0.Yay0ContentCache;
 import renderer.buffers.LineRenderQueue;
 import renderer.shaders.RenderState;
 import renderer.shaders.postprocess.PostProcessFX;
@@ -1544,6 +1545,7 @@ public class MapEditor extends GLEditor implements MouseManagerListener
 					Map shapeMap = getGeometryMap();
 					Logger.log("Building " + shapeMap.name + "_shape...");
 					new GeometryCompiler(shapeMap);
+					Yay0ContentCache.instance().save();
 					Logger.log("Successfully compiled " + shapeMap.name + "_shape");
 				}
 				catch (BuildException be) {
@@ -1563,6 +1565,7 @@ public class MapEditor extends GLEditor implements MouseManagerListener
 					Map hitMap = getCollisionMap();
 					Logger.log("Building " + hitMap.name + "_hit...");
 					new CollisionCompiler(hitMap);
+					Yay0ContentCache.instance().save();
 					Logger.log("Successfully compiled " + hitMap.name + "_hit");
 				}
 				catch (BuildException be) {
@@ -131,7 +131,7 @@ public abstract class TextureManager
 			if (archive == null)
 				return false;
 
-			ta = TextureArchive.loadText(archive);
+			ta = TextureArchive.loadText(archive, true);
 		}
 		catch (IOException e) {
 			Logger.log("Could not load texture archive " + texArchiveName);
@@ -2,8 +2,13 @@ package game.map.mesh;
 
 import static game.map.MapKey.*;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import org.w3c.dom.Element;
 
 import common.Vector3f;
@@ -47,27 +52,58 @@ public class Triangle implements XmlSerializable, Selectable
 	{
 		Triangle tri = new Triangle();
 		tri.fromXML(xmr, triangleElement);
+		tri.link(xmr, vertexTable);
+		return tri;
+	}
+
+	/**
+	 * Reads every triangle in a triangle list directly from an XML stream. The triangles only have
+	 * their vertex indices set, {@link #link} must be called once the vertex table is known.
+	 */
+	public static Triangle[] readList(XmlReader xmr, XMLStreamReader in) throws XMLStreamException
+	{
+		List<Triangle> triangles = new ArrayList<>();
+
+		while (xmr.nextChildTag(in, TAG_TRIANGLE)) {
+			Triangle tri = new Triangle();
+			tri.fromAttributes(xmr,
+				xmr.getRequiredAttribute(in, ATTR_TRI_IJK),
+				xmr.getAttribute(in, ATTR_TRI_TWOSIDE));
+			triangles.add(tri);
+			XmlReader.skipElement(in);
+		}
+
+		return triangles.toArray(new Triangle[triangles.size()]);
+	}
 
-		tri.vert = new Vertex[3];
+	public void link(XmlReader xmr, Vertex[] vertexTable)
+	{
+		vert = new Vertex[3];
 		for (int i = 0; i < 3; i++) {
-			int vi = tri.ijk[i];
+			int vi = ijk[i];
 			if (vi >= vertexTable.length)
 				xmr.complain("Vertex index is out of bounds: " + vi);
 
-			tri.vert[i] = vertexTable[vi];
+			vert[i] = vertexTable[vi];
 		}
-
-		return tri;
 	}
 
 	@Override
 	public void fromXML(XmlReader xmr, Element elem)
 	{
 		xmr.requiresAttribute(elem, ATTR_TRI_IJK);
-		ijk = xmr.readIntArray(elem, ATTR_TRI_IJK, 3);
 
-		if (xmr.hasAttribute(elem, ATTR_TRI_TWOSIDE))
-			doubleSided = xmr.readBoolean(elem, ATTR_TRI_TWOSIDE);
+		fromAttributes(xmr,
+			xmr.getAttribute(elem, ATTR_TRI_IJK),
+			xmr.hasAttribute(elem, ATTR_TRI_TWOSIDE) ? xmr.getAttribute(elem, ATTR_TRI_TWOSIDE) : null);
+	}
+
+	private void fromAttributes(XmlReader xmr, String ijkValue, String twoSideValue)
+	{
+		ijk = xmr.parseIntArray(ijkValue, ATTR_TRI_IJK, 3);
+
+		if (twoSideValue != null)
+			doubleSided = xmr.parseBoolean(twoSideValue, ATTR_TRI_TWOSIDE);
 	}
 
 	@Override
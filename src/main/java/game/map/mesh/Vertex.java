@@ -2,6 +2,12 @@ package game.map.mesh;
 
 import static game.map.MapKey.*;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import org.w3c.dom.Element;
 
 import common.Vector3f;
@@ -67,25 +73,53 @@ public class Vertex implements XmlSerializable, Selectable
 		return v;
 	}
 
+	/**
+	 * Reads every vertex in a vertex table directly from an XML stream.
+	 */
+	public static Vertex[] readTable(XmlReader xmr, XMLStreamReader in) throws XMLStreamException
+	{
+		List<Vertex> vertices = new ArrayList<>();
+
+		while (xmr.nextChildTag(in, TAG_VERTEX)) {
+			Vertex v = new Vertex();
+			v.fromAttributes(xmr,
+				xmr.getRequiredAttribute(in, ATTR_VERT_XYZ),
+				xmr.getAttribute(in, ATTR_VERT_UV),
+				xmr.getAttribute(in, ATTR_VERT_COLOR));
+			vertices.add(v);
+			XmlReader.skipElement(in);
+		}
+
+		return vertices.toArray(new Vertex[vertices.size()]);
+	}
+
 	@Override
 	public void fromXML(XmlReader xmr, Element elem)
 	{
 		xmr.requiresAttribute(elem, ATTR_VERT_XYZ);
 
-		int[] xyz = xmr.readIntArray(elem, ATTR_VERT_XYZ, 3);
+		fromAttributes(xmr,
+			xmr.getAttribute(elem, ATTR_VERT_XYZ),
+			xmr.hasAttribute(elem, ATTR_VERT_UV) ? xmr.getAttribute(elem, ATTR_VERT_UV) : null,
+			xmr.hasAttribute(elem, ATTR_VERT_COLOR) ? xmr.getAttribute(elem, ATTR_VERT_COLOR) : null);
+	}
+
+	private void fromAttributes(XmlReader xmr, String xyzValue, String uvValue, String rgbaValue)
+	{
+		int[] xyz = xmr.parseIntArray(xyzValue, ATTR_VERT_XYZ, 3);
 		localPos = new MutablePoint(xyz[0], xyz[1], xyz[2]);
 		worldPos = new MutablePoint(xyz[0], xyz[1], xyz[2]);
 
-		if (xmr.hasAttribute(elem, ATTR_VERT_UV)) {
-			int[] uv = xmr.readIntArray(elem, ATTR_VERT_UV, 2);
+		if (uvValue != null) {
+			int[] uv = xmr.parseIntArray(uvValue, ATTR_VERT_UV, 2);
 			this.uv = new UV(uv[0], uv[1]);
 		}
 		else {
 			this.uv = new UV(0, 0);
 		}
 
-		if (xmr.hasAttribute(elem, ATTR_VERT_COLOR)) {
-			int[] rgba = xmr.readIntArray(elem, ATTR_VERT_COLOR, 4);
+		if (rgbaValue != null) {
+			int[] rgba = xmr.parseIntArray(rgbaValue, ATTR_VERT_COLOR, 4);
 			r = rgba[0] & 0xFF;
 			g = rgba[1] & 0xFF;
 			b = rgba[2] & 0xFF;
@@ -7,15 +7,21 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.commons.io.FileUtils;
 
 import app.Directories;
 import app.Environment;
 import app.StarRodClassic;
+import app.StarRodException;
 import app.config.Options;
 import app.input.IOUtils;
 import game.ROM;
@@ -32,10 +38,13 @@ import game.map.marker.Marker;
 import game.map.marker.Marker.MarkerType;
 import game.map.tree.MapObjectNode;
 import game.shared.ProjectDatabase;
+import game.shared.decoder.DecodeBatch;
+import game.yay0.Yay0ContentCache;
 import game.yay0.Yay0Helper;
 import reports.FunctionCallTracker;
 import util.Logger;
 import util.Priority;
+import util.ThreadPools;
 
 public class MapDumper
 {
@@ -62,12 +71,15 @@ public class MapDumper
 			}
 		}
 
+		// resources are read concurrently, so copy the ROM to memory instead of seeking the shared file
+		ByteBuffer romBuffer = readRom(raf);
+
 		Logger.log("Dumping map data.", Priority.MILESTONE);
-		dumpMapData(raf, table);
+		dumpMapData(romBuffer, table);
 
 		if (fullDump) {
 			Logger.log("Dumping map assets.", Priority.MILESTONE);
-			dumpAssets(raf, table);
+			dumpAssets(romBuffer, table);
 
 			if (recompress) {
 				Logger.log("Stripping and recompressing assets.", Priority.MILESTONE);
@@ -175,28 +187,89 @@ public class MapDumper
 	}
 	*/
 
-	private static void dumpMapData(RandomAccessFile raf, MapConfigTable table) throws IOException
+	private interface DumpJob<S, T>
+	{
+		T run(S item) throws IOException;
+	}
+
+	private static ByteBuffer readRom(RandomAccessFile raf) throws IOException
 	{
+		byte[] bytes = new byte[(int) raf.length()];
+		raf.seek(0);
+		raf.readFully(bytes);
+		return ByteBuffer.wrap(bytes);
+	}
+
+	/**
+	 * Runs a job for each item on a pool of worker threads. Progress is reported in item order
+	 * as the jobs complete, so the log reads the same as a serial run.
+	 * @return the result of each job, in the same order as the items
+	 */
+	private static <S, T> List<T> runParallel(List<S> items, String progressMessage, DumpJob<S, T> job) throws IOException
+	{
+		int numThreads = Math.min(Runtime.getRuntime().availableProcessors(), items.size());
+		ExecutorService pool = ThreadPools.newDaemonPool("MapDumper", numThreads);
+
+		try {
+			List<Future<T>> futures = new ArrayList<>(items.size());
+			for (S item : items)
+				futures.add(pool.submit(() -> job.run(item)));
+
+			List<T> results = new ArrayList<>(futures.size());
+			for (int i = 0; i < futures.size(); i++) {
+				String progress = String.format("(%.1f%%)", 100.0 * ((float) i / futures.size()));
+				Logger.log(progressMessage + " " + progress, Priority.UPDATE);
+
+				try {
+					results.add(futures.get(i).get());
+				}
+				catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof IOException ioe)
+						throw ioe;
+					if (cause instanceof RuntimeException re)
+						throw re;
+					if (cause instanceof Error err)
+						throw err;
+					throw new StarRodException(cause);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new StarRodException(e);
+				}
+			}
+			return results;
+		}
+		finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private static void dumpMapData(ByteBuffer romBuffer, MapConfigTable table) throws IOException
+	{
+		List<MapConfig> maps = new ArrayList<>();
 		for (AreaConfig area : table.areas) {
 			for (MapConfig map : area.maps) {
-				if (map.hasData) {
-					byte[] mapData = new byte[map.dataEndOffset - map.dataStartOffset];
-					raf.seek(map.dataStartOffset);
-					raf.read(mapData);
-					FileUtils.writeByteArrayToFile(new File(DUMP_MAP_RAW + map.name + ".bin"), mapData);
-				}
+				if (map.hasData)
+					maps.add(map);
 			}
 		}
+
+		runParallel(maps, "Dumping map data...", (map) -> {
+			byte[] mapData = new byte[map.dataEndOffset - map.dataStartOffset];
+			romBuffer.get(map.dataStartOffset, mapData);
+			FileUtils.writeByteArrayToFile(new File(DUMP_MAP_RAW + map.name + ".bin"), mapData);
+			return null;
+		});
 	}
 
-	private static void dumpAssets(RandomAccessFile raf, MapConfigTable table) throws IOException
+	private static void dumpAssets(ByteBuffer romBuffer, MapConfigTable table) throws IOException
 	{
 		Logger.log("Dumping resources...", Priority.MILESTONE);
-		for (Resource res : table.allResources) {
+		runParallel(table.allResources, "Dumping resources...", (res) -> {
 			byte[] writeBytes;
 			byte[] dumpedBytes = new byte[res.length];
-			raf.seek(res.offset);
-			raf.read(dumpedBytes);
+			romBuffer.get(res.offset, dumpedBytes);
 
 			if (res.compressed) {
 				File yay0 = new File(DUMP_MAP_YAY0 + res.name);
@@ -209,7 +282,8 @@ public class MapDumper
 
 			File out = new File(DUMP_MAP_RAW + res.name);
 			FileUtils.writeByteArrayToFile(out, writeBytes);
-		}
+			return null;
+		});
 	}
 
 	/**
@@ -221,34 +295,46 @@ public class MapDumper
 		int totalSize = 0;
 		int totalSavings = 0;
 
-		int i = 0;
-		for (Resource res : table.allResources) {
-			String progress = String.format("(%.1f%%)", 100.0 * ((float) i / table.allResources.size()));
-			Logger.log("Stripping and recompressing assets... " + progress, Priority.UPDATE);
-			i++;
-
+		// strip assets in parallel, then compress them as one batch
+		List<byte[]> stripped = runParallel(table.allResources, "Stripping assets...", (res) -> {
 			File dumpedFile = new File(DUMP_MAP_RAW + res.name);
 			byte[] dumped = FileUtils.readFileToByteArray(dumpedFile);
 
-			File out = new File(DUMP_MAP_YAY0 + res.name);
-
 			if (!res.compressed) {
 				// just copy uncompressed files
+				File out = new File(DUMP_MAP_YAY0 + res.name);
 				FileUtils.writeByteArrayToFile(out, dumped);
-				continue;
+				return null;
 			}
 
 			ResourceType type = Resource.resolveType(res.name);
-			byte[] recompressed = null;
 
-			if (type == ResourceType.SHAPE) {
-				byte[] stripped = stripShape(dumped);
-				recompressed = Yay0Helper.encode(stripped);
-			}
-			else {
-				// don't bother trying to strip _hit or other files
-				recompressed = Yay0Helper.encode(dumped);
+			if (type == ResourceType.SHAPE)
+				return stripShape(dumped);
+			else
+				return dumped; // don't bother trying to strip _hit or other files
+		});
+
+		List<Resource> compressedResources = new ArrayList<>();
+		List<byte[]> sources = new ArrayList<>();
+		for (int i = 0; i < stripped.size(); i++) {
+			if (stripped.get(i) != null) {
+				compressedResources.add(table.allResources.get(i));
+				sources.add(stripped.get(i));
 			}
+		}
+
+		Yay0ContentCache cache = Yay0ContentCache.instance();
+		List<byte[]> encoded = cache.encodeAll(sources, false);
+		cache.save();
+
+		for (int i = 0; i < compressedResources.size(); i++) {
+			String progress = String.format("(%.1f%%)", 100.0 * ((float) i / compressedResources.size()));
+			Logger.log("Stripping and recompressing assets... " + progress, Priority.UPDATE);
+
+			Resource res = compressedResources.get(i);
+			File out = new File(DUMP_MAP_YAY0 + res.name);
+			byte[] recompressed = encoded.get(i);
 
 			if (recompressed.length < res.length) {
 				Logger.logf("Stripped %05X bytes from %s",
@@ -398,55 +484,34 @@ public class MapDumper
 	{
 		long t0 = System.nanoTime();
 
-		int totalUnknownPointers = 0;
-		int totalMissingSections = 0;
-
 		FunctionCallTracker.clear();
 		boolean dumpReports = Environment.mainConfig.getBoolean(Options.DumpReports);
+		boolean parallel = Environment.mainConfig.getBoolean(Options.ParallelDump);
 
+		// maps are decoded independently, tracker updates are replayed in this order afterwards
+		List<Callable<MapConfig>> jobs = new ArrayList<>();
 		for (AreaConfig area : table.areas) {
 			for (MapConfig cfg : area.maps) {
-				Logger.log("Generating source files for map: " + cfg.name, Priority.MILESTONE);
-
-				Map map = generateMap(rom, cfg);
-				try {
-					map.saveMapAs(DUMP_MAP_SRC + map.name + ".xml", "");
-				}
-				catch (Exception e) {
-					StarRodClassic.displayStackTrace(e);
-				}
-
-				totalUnknownPointers += cfg.unknownPointers;
-				totalMissingSections += cfg.missingSections;
-				Logger.log("", Priority.IMPORTANT);
+				jobs.add(() -> {
+					generateMapSource(rom, cfg);
+					return cfg;
+				});
 			}
 
 			for (MapConfig cfg : area.stages) {
-				Logger.log("Generating source files for stage: " + cfg.name, Priority.MILESTONE);
-				Map map = generateMap(rom, cfg);
-				map.isStage = cfg.isStage;
-
-				MapObjectNode<Marker> rootNode = map.markerTree.getRoot();
-				for (int i = 0; i < BATTLE_ENEMY_POSITIONS.length; i++) {
-					int[] vec = BATTLE_ENEMY_POSITIONS[i];
-					String name = String.format("Home Position %X", i);
-					Marker m = new Marker(name, MarkerType.Position, vec[0], vec[1], vec[2], 0);
-					m.getNode().parentNode = rootNode;
-					m.getNode().childIndex = rootNode.getChildCount();
-					rootNode.add(m.getNode());
-				}
+				jobs.add(() -> {
+					generateStageSource(rom, cfg);
+					return cfg;
+				});
+			}
+		}
 
-				try {
-					map.saveMapAs(DUMP_MAP_SRC + map.name + ".xml", "");
-				}
-				catch (Exception e) {
-					StarRodClassic.displayStackTrace(e);
-				}
+		int totalUnknownPointers = 0;
+		int totalMissingSections = 0;
 
-				totalUnknownPointers += cfg.unknownPointers;
-				totalMissingSections += cfg.missingSections;
-				Logger.log("", Priority.IMPORTANT);
-			}
+		for (MapConfig cfg : DecodeBatch.decodeAll(jobs, parallel)) {
+			totalUnknownPointers += cfg.unknownPointers;
+			totalMissingSections += cfg.missingSections;
 		}
 
 		Logger.log(totalUnknownPointers + " total unknown pointers.", Priority.IMPORTANT);
@@ -461,6 +526,47 @@ public class MapDumper
 		Logger.logf("TOTAL TIME: %8.2f ms\n", (t1 - t0) / 1000000.0);
 	}
 
+	private static void generateMapSource(ROM rom, MapConfig cfg) throws IOException
+	{
+		Logger.log("Generating source files for map: " + cfg.name, Priority.MILESTONE);
+
+		Map map = generateMap(rom, cfg);
+		try {
+			map.saveMapAs(DUMP_MAP_SRC + map.name + ".xml", "");
+		}
+		catch (Exception e) {
+			StarRodClassic.displayStackTrace(e);
+		}
+
+		Logger.log("", Priority.IMPORTANT);
+	}
+
+	private static void generateStageSource(ROM rom, MapConfig cfg) throws IOException
+	{
+		Logger.log("Generating source files for stage: " + cfg.name, Priority.MILESTONE);
+		Map map = generateMap(rom, cfg);
+		map.isStage = cfg.isStage;
+
+		MapObjectNode<Marker> rootNode = map.markerTree.getRoot();
+		for (int i = 0; i < BATTLE_ENEMY_POSITIONS.length; i++) {
+			int[] vec = BATTLE_ENEMY_POSITIONS[i];
+			String name = String.format("Home Position %X", i);
+			Marker m = new Marker(name, MarkerType.Position, vec[0], vec[1], vec[2], 0);
+			m.getNode().parentNode = rootNode;
+			m.getNode().childIndex = rootNode.getChildCount();
+			rootNode.add(m.getNode());
+		}
+
+		try {
+			map.saveMapAs(DUMP_MAP_SRC + map.name + ".xml", "");
+		}
+		catch (Exception e) {
+			StarRodClassic.displayStackTrace(e);
+		}
+
+		Logger.log("", Priority.IMPORTANT);
+	}
+
 	private static Map generateMap(ROM rom, MapConfig cfg) throws IOException
 	{
 		Map map = new Map("", cfg.name);
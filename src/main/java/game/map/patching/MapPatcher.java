@@ -31,6 +31,7 @@ import game.map.config.MapConfigTable.MapConfig;
 import game.map.config.MapConfigTable.Resource;
 import game.map.config.MapConfigTable.Resource.ResourceType;
 import game.shared.struct.Struct;
+import game.yay0.Yay0ContentCache;
 import patcher.Patcher;
 import patcher.Region;
 import patcher.RomPatcher;
@@ -168,6 +169,8 @@ public class MapPatcher
 				}
 			}
 		}
+
+		Yay0ContentCache.instance().save();
 	}
 
 	/**
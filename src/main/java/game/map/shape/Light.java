@@ -7,8 +7,6 @@ import java.awt.Color;
 import java.awt.Font;
 import java.awt.Insets;
 import java.awt.Toolkit;
-import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 
@@ -25,6 +23,7 @@ import game.map.shape.LightSet.DeleteLight;
 import game.map.shape.LightSet.MoveLightDown;
 import game.map.shape.LightSet.MoveLightUp;
 import net.miginfocom.swing.MigLayout;
+import util.DynamicByteBuffer;
 import util.MathUtil;
 import util.ui.IntVectorPanel;
 
@@ -81,15 +80,15 @@ public class Light
 		panel = new LightPanel(this);
 	}
 
-	public void write(RandomAccessFile raf) throws IOException
+	public void write(DynamicByteBuffer dbb)
 	{
 		int packedColor = ((color[0] & 0xFF) << 24) | ((color[1] & 0xFF) << 16) | ((color[2] & 0xFF) << 8);
 		int packedDirection = ((dir[0] & 0xFF) << 24) | ((dir[1] & 0xFF) << 16) | ((dir[2] & 0xFF) << 8);
 
-		raf.writeInt(packedColor);
-		raf.writeInt(packedColor);
-		raf.writeInt(packedDirection);
-		raf.writeInt(0);
+		dbb.putInt(packedColor);
+		dbb.putInt(packedColor);
+		dbb.putInt(packedDirection);
+		dbb.putInt(0);
 	}
 
 	public int[] getPacked()
@@ -2,8 +2,6 @@ package game.map.shape;
 
 import static game.map.MapKey.*;
 
-import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.util.Iterator;
 import java.util.List;
@@ -12,6 +10,7 @@ import org.w3c.dom.Element;
 
 import game.map.editor.commands.AbstractCommand;
 import game.map.scripts.LightingPanel;
+import util.DynamicByteBuffer;
 import util.identity.IdentityArrayList;
 import util.xml.XmlWrapper.XmlReader;
 import util.xml.XmlWrapper.XmlSerializable;
@@ -196,25 +195,25 @@ public class LightSet implements Iterable<Light>, XmlSerializable
 			lightList.add(new Light(this, bb));
 	}
 
-	public void write(RandomAccessFile raf) throws IOException
+	public void write(DynamicByteBuffer dbb)
 	{
 		int packed = ((ambient[0] & 0xFF) << 24) | ((ambient[1] & 0xFF) << 16) | ((ambient[2] & 0xFF) << 8);
-		raf.writeInt(packed);
-		raf.writeInt(packed);
+		dbb.putInt(packed);
+		dbb.putInt(packed);
 
 		for (Light light : lightList)
-			light.write(raf);
+			light.write(dbb);
 
 		if (lightList.isEmpty()) {
-			raf.writeInt(0);
-			raf.writeInt(0);
-			raf.writeInt(0);
-			raf.writeInt(0);
+			dbb.putInt(0);
+			dbb.putInt(0);
+			dbb.putInt(0);
+			dbb.putInt(0);
 		}
 
 		// alignment
-		raf.writeInt(0);
-		raf.writeInt(0);
+		dbb.putInt(0);
+		dbb.putInt(0);
 	}
 
 	@Override
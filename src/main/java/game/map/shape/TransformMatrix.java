@@ -2,8 +2,6 @@ package game.map.shape;
 
 import static game.map.MapKey.*;
 
-import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.io.Serializable;
 import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
@@ -17,6 +15,7 @@ import common.Vector3f;
 import game.map.Axis;
 import game.map.MutableAngle;
 import game.map.MutablePoint;
+import util.DynamicByteBuffer;
 import util.Logger;
 import util.MathUtil;
 import util.xml.XmlWrapper.XmlReader;
@@ -166,7 +165,7 @@ public class TransformMatrix implements Serializable, XmlSerializable
 		 */
 	}
 
-	public void writeRDP(RandomAccessFile raf) throws IOException
+	public void writeRDP(DynamicByteBuffer dbb)
 	{
 		short[][] whole = new short[4][4];
 		short[][] frac = new short[4][4];
@@ -180,11 +179,11 @@ public class TransformMatrix implements Serializable, XmlSerializable
 
 		for (int i = 0; i < 4; i++)
 			for (int j = 0; j < 4; j++)
-				raf.writeShort(whole[j][i]);
+				dbb.putShort(whole[j][i]);
 
 		for (int i = 0; i < 4; i++)
 			for (int j = 0; j < 4; j++)
-				raf.writeShort(frac[j][i]);
+				dbb.putShort(frac[j][i]);
 	}
 
 	@Override
@@ -48,24 +48,39 @@ public class TriangleBatch extends DisplayCommand implements XmlSerializable
 		xmr.requiresAttribute(batchElem, ATTR_VERSION);
 		instanceVersion = xmr.readInt(batchElem, ATTR_VERSION);
 
+		// mesh data may have already been read by the streaming parser
 		Element vertexTableElement = xmr.getUniqueRequiredTag(batchElem, TAG_VERTEX_TABLE);
-		List<Element> vertexElements = xmr.getTags(vertexTableElement, TAG_VERTEX);
+		Vertex[] vertexTable = xmr.getStreamedContent(vertexTableElement, Vertex[].class);
 
-		Vertex[] vertexTable = new Vertex[vertexElements.size()];
+		if (vertexTable == null) {
+			List<Element> vertexElements = xmr.getTags(vertexTableElement, TAG_VERTEX);
+			vertexTable = new Vertex[vertexElements.size()];
 
-		int i = 0;
-		for (Element vertexElement : vertexElements) {
-			Vertex v = Vertex.read(xmr, vertexElement);
-			vertexTable[i++] = v;
+			int i = 0;
+			for (Element vertexElement : vertexElements) {
+				Vertex v = Vertex.read(xmr, vertexElement);
+				vertexTable[i++] = v;
+			}
 		}
 
 		Element triangleListElement = xmr.getUniqueRequiredTag(batchElem, TAG_TRIANGLE_LIST);
-		List<Element> triangleElements = xmr.getTags(triangleListElement, TAG_TRIANGLE);
+		Triangle[] streamedTriangles = xmr.getStreamedContent(triangleListElement, Triangle[].class);
 
-		for (Element triangleElement : triangleElements) {
-			Triangle t = Triangle.read(xmr, triangleElement, vertexTable);
-			t.parentBatch = this;
-			triangles.add(t);
+		if (streamedTriangles != null) {
+			for (Triangle t : streamedTriangles) {
+				t.link(xmr, vertexTable);
+				t.parentBatch = this;
+				triangles.add(t);
+			}
+		}
+		else {
+			List<Element> triangleElements = xmr.getTags(triangleListElement, TAG_TRIANGLE);
+
+			for (Element triangleElement : triangleElements) {
+				Triangle t = Triangle.read(xmr, triangleElement, vertexTable);
+				t.parentBatch = this;
+				triangles.add(t);
+			}
 		}
 	}
 
@@ -16,7 +16,6 @@ import game.shared.struct.script.ScriptVariable;
 public class VarNameDictionary
 {
 	private static final Pattern EntryPattern = Pattern.compile("([0-9A-Fa-f]+)\\s*=\\s*(\\S+)(?:\\s*=\\s*(\\S+))?(?:\\s*%(.+))?");
-	private static final Matcher EntryMatcher = EntryPattern.matcher("");
 
 	public static class VarName
 	{
@@ -83,11 +82,11 @@ public class VarNameDictionary
 			if (line.isEmpty())
 				continue;
 
-			EntryMatcher.reset(line);
-			if (!EntryMatcher.matches())
+			Matcher matcher = EntryPattern.matcher(line);
+			if (!matcher.matches())
 				throw new InputFileException(definitionFile, i, "Invalid database entry: %n%s", line);
 
-			int index = Integer.parseInt(EntryMatcher.group(1), 16);
+			int index = Integer.parseInt(matcher.group(1), 16);
 
 			int max = varType.getMaxIndex();
 			if (index < 0 || index >= max)
@@ -99,11 +98,11 @@ public class VarNameDictionary
 
 			boolean unused = false;
 
-			String defaultName = SyntaxConstants.SCRIPT_VAR_PREFIX + EntryMatcher.group(2);
+			String defaultName = SyntaxConstants.SCRIPT_VAR_PREFIX + matcher.group(2);
 			if (addName(definitionFile, line, index, defaultName))
 				varTable[index].defaultName = defaultName;
 
-			String assignedName = EntryMatcher.group(3);
+			String assignedName = matcher.group(3);
 			if (assignedName != null) {
 				if (assignedName.equalsIgnoreCase("unused")) {
 					assignedName = null;
@@ -119,7 +118,7 @@ public class VarNameDictionary
 			if (!unused)
 				varTable[index].usedByVanilla = true;
 
-			String comment = EntryMatcher.group(4);
+			String comment = matcher.group(4);
 			if (comment != null && !comment.isEmpty())
 				varTable[index].comment = comment;
 		}
@@ -10,6 +10,7 @@ import java.io.PrintWriter;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -162,6 +163,9 @@ public abstract class BaseDataDecoder
 	protected final Library library;
 	protected final TreeMap<Integer, Pointer> localPointerMap;
 
+	// number of structs scanned for each type, kept per decoder so decoders can run concurrently
+	private final HashMap<StructType, Integer> typeCounts;
+
 	// keep track of which pointers have yet to be scanned, and which already have been
 	protected final LinkedList<Integer> pointerQueue;
 	protected final HashSet<Integer> finishedPointers;
@@ -202,10 +206,7 @@ public abstract class BaseDataDecoder
 		this.ancestorType = ancestorType;
 		this.library = library;
 
-		// clear type counters
-		for (StructType s : scope.typeMap)
-			s.count = 0;
-
+		typeCounts = new HashMap<>();
 		localPointerMap = new TreeMap<>();
 		pointerQueue = new LinkedList<>();
 		finishedPointers = new HashSet<>();
@@ -602,9 +603,9 @@ public abstract class BaseDataDecoder
 	{
 		StructType type = ptr.getType();
 
-		type.count++;
+		int count = typeCounts.merge(type, 1, Integer::sum);
 
-		if (type.isUnique && type.count > 1)
+		if (type.isUnique && count > 1)
 			throw new RuntimeException("Found multiple copies of unique struct: " + ptr.getPointerName());
 
 		type.scan(this, ptr, fileBuffer);
@@ -859,7 +860,6 @@ public abstract class BaseDataDecoder
 	 */
 
 	private static final Pattern TrailingWhitespacePattern = Pattern.compile("(.*?)\\s+$");
-	private static final Matcher TrailingWhitespaceMatcher = TrailingWhitespacePattern.matcher("");
 
 	protected void printPreamble(PrintWriter pw)
 	{} // optional for subclasses
@@ -940,13 +940,13 @@ public abstract class BaseDataDecoder
 					pw.print(getTabString());
 			}
 
-			TrailingWhitespaceMatcher.reset(line);
-			if (!TrailingWhitespaceMatcher.matches()) {
+			Matcher matcher = TrailingWhitespacePattern.matcher(line);
+			if (!matcher.matches()) {
 				pw.println(line);
 				continue;
 			}
 
-			pw.println(TrailingWhitespaceMatcher.group(1));
+			pw.println(matcher.group(1));
 		}
 		pw.close();
 
@@ -0,0 +1,105 @@
+package game.shared.decoder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import reports.TrackerJournal;
+import util.ThreadPools;
+
+/**
+ * Runs a list of independent decoding jobs, such as one per map or one per battle section.
+ * In parallel mode the jobs share a pool of worker threads. Each job records its tracker
+ * updates in a {@link TrackerJournal}, and the journals are replayed in job order once the
+ * jobs finish, so reports come out the same as they would from a serial run.
+ */
+public class DecodeBatch
+{
+	private DecodeBatch()
+	{}
+
+	public static int getDefaultThreadCount()
+	{
+		return Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * Runs every job and returns their results in job order. If any job fails,
+	 * the first failure in job order is rethrown.
+	 */
+	public static <T> List<T> decodeAll(List<Callable<T>> jobs, boolean parallel) throws IOException
+	{
+		if (!parallel || jobs.size() < 2) {
+			List<T> results = new ArrayList<>(jobs.size());
+			for (Callable<T> job : jobs) {
+				try {
+					results.add(job.call());
+				}
+				catch (Exception e) {
+					throw rethrow(e);
+				}
+			}
+			return results;
+		}
+
+		int numThreads = Math.min(getDefaultThreadCount(), jobs.size());
+		ExecutorService pool = ThreadPools.newDaemonPool("Decoder", numThreads);
+
+		try {
+			List<Future<Journaled<T>>> futures = new ArrayList<>(jobs.size());
+			for (Callable<T> job : jobs)
+				futures.add(pool.submit(() -> runJournaled(job)));
+
+			List<T> results = new ArrayList<>(jobs.size());
+			for (Future<Journaled<T>> future : futures) {
+				Journaled<T> done;
+				try {
+					done = future.get();
+				}
+				catch (ExecutionException e) {
+					throw rethrow(e.getCause());
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while decoding.", e);
+				}
+
+				done.journal.replay();
+				results.add(done.result);
+			}
+			return results;
+		}
+		finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private static record Journaled<T>(T result, TrackerJournal journal)
+	{}
+
+	private static <T> Journaled<T> runJournaled(Callable<T> job) throws Exception
+	{
+		TrackerJournal journal = TrackerJournal.begin();
+		try {
+			return new Journaled<>(job.call(), journal);
+		}
+		finally {
+			TrackerJournal.end();
+		}
+	}
+
+	private static IOException rethrow(Throwable t)
+	{
+		if (t instanceof IOException e)
+			return e;
+		if (t instanceof RuntimeException e)
+			throw e;
+		if (t instanceof Error e)
+			throw e;
+		return new IOException(t);
+	}
+}
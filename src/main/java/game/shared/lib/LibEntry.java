@@ -20,16 +20,12 @@ import game.shared.struct.script.ScriptVariable;
 public class LibEntry
 {
 	private static final Pattern AddressFieldPattern = Pattern.compile("((?:80|[Ee]0)[0-9A-Fa-f]{6})(?:, *([0-9A-Fa-f]{1,8}))?");
-	private static final Matcher AddressFieldMatcher = AddressFieldPattern.matcher("");
 
 	private static final Pattern ValidScrTypePattern = Pattern.compile("\\$\\w+");
-	private static final Matcher ValidScrTypeMatcher = ValidScrTypePattern.matcher("");
 
 	private static final Pattern StackStoragePattern = Pattern.compile("SP\\[([0-9A-Fa-f]+[`']?)\\]");
-	private static final Matcher StackStorageMatcher = StackStoragePattern.matcher("");
 
 	private static final Pattern ValidOptionPattern = Pattern.compile("(\\w+)=(#?[\\w\\[\\]*]+)");
-	private static final Matcher ValidOptionMatcher = ValidOptionPattern.matcher("");
 
 	public final LibScope scope;
 	public final EntryType type;
@@ -228,10 +224,10 @@ public class LibEntry
 			}
 
 			for (String s : options) {
-				ValidOptionMatcher.reset(s);
-				if (ValidOptionMatcher.matches()) {
-					String value = ValidOptionMatcher.group(2);
-					switch (ValidOptionMatcher.group(1)) {
+				Matcher matcher = ValidOptionPattern.matcher(s);
+				if (matcher.matches()) {
+					String value = matcher.group(2);
+					switch (matcher.group(1)) {
 						case "name":
 							suffix = value;
 							break;
@@ -356,12 +352,12 @@ public class LibEntry
 				offset = ScriptVariable.getScriptVariableIndex("*" + token);
 			}
 			else {
-				StackStorageMatcher.reset(token);
-				if (StackStorageMatcher.matches()) {
+				Matcher matcher = StackStoragePattern.matcher(token);
+				if (matcher.matches()) {
 					type = StorageType.Stack;
 					baseName = "SP";
 					try {
-						offset = DataUtils.parseIntString(StackStorageMatcher.group(1));
+						offset = DataUtils.parseIntString(matcher.group(1));
 					}
 					catch (NumberFormatException e) {
 						throw new InvalidInputException("Invalid stack storage: " + token);
@@ -568,9 +564,9 @@ public class LibEntry
 				throw new InvalidInputException("Invalid address field.");
 
 			try {
-				AddressFieldMatcher.reset(addressField.get(0));
-				if (AddressFieldMatcher.matches()) {
-					address = (int) Long.parseLong(AddressFieldMatcher.group(1), 16);
+				Matcher matcher = AddressFieldPattern.matcher(addressField.get(0));
+				if (matcher.matches()) {
+					address = (int) Long.parseLong(matcher.group(1), 16);
 					if (addressField.size() >= 3)
 						offset = (int) Long.parseLong(addressField.get(2), 16);
 				}
@@ -719,8 +715,8 @@ public class LibEntry
 	public static LibType resolveType(LibScope scope, String specifier)
 	{
 		if (specifier.charAt(0) == SyntaxConstants.POINTER_PREFIX) {
-			ValidScrTypeMatcher.reset(specifier);
-			if (!ValidScrTypeMatcher.matches())
+			Matcher matcher = ValidScrTypePattern.matcher(specifier);
+			if (!matcher.matches())
 				return null;
 
 			StructType t = scope.typeMap.get(specifier.substring(1));
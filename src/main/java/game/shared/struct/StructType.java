@@ -55,8 +55,6 @@ public class StructType
 	public final boolean isArray;
 	public final int sizeOf;
 
-	public int count = 0;
-
 	public StructType(TypeMap types, String name)
 	{
 		this(types, -1, name, 0);
@@ -32,7 +32,6 @@ import util.CaseInsensitiveMap;
 public abstract class Miniscript extends BaseStruct
 {
 	private static final Pattern LinePattern = Pattern.compile("\\s*(\\S+)\\s*(?:\\(([^\\)]+)\\))?\\s*");
-	private static final Matcher LineMatcher = LinePattern.matcher("");
 
 	public final String scriptName;
 	private final int scriptFlags;
@@ -211,12 +210,12 @@ public abstract class Miniscript extends BaseStruct
 
 	public String[] parseCommand(BaseDataEncoder encoder, String line) throws InvalidInputException
 	{
-		LineMatcher.reset(line);
-		if (!LineMatcher.matches())
+		Matcher matcher = LinePattern.matcher(line);
+		if (!matcher.matches())
 			throw new InvalidInputException("%s line invalid format: %n%s", scriptName, line);
 
-		String cmdName = LineMatcher.group(1);
-		String argList = LineMatcher.group(2);
+		String cmdName = matcher.group(1);
+		String argList = matcher.group(2);
 
 		MiniCommand cmdType = cmdTypeMap.get(cmdName);
 		String[] args = new String[0];
@@ -23,7 +23,6 @@ public class AnimatedModelNode extends BaseStruct
 	public static final AnimatedModelNode instance = new AnimatedModelNode();
 
 	private static final Pattern FieldPattern = Pattern.compile("@(\\w+)\\s+(.+)");
-	private static final Matcher FieldMatcher = FieldPattern.matcher("");
 
 	private AnimatedModelNode()
 	{}
@@ -153,12 +152,12 @@ public class AnimatedModelNode extends BaseStruct
 		for (Line line : patch.lines) {
 			try {
 				line.gather();
-				FieldMatcher.reset(line.str);
-				if (!FieldMatcher.matches())
+				Matcher matcher = FieldPattern.matcher(line.str);
+				if (!matcher.matches())
 					throw new InputFileException(line, "Invalid format for field in AnimatedModelNode!");
 
-				String fieldName = FieldMatcher.group(1);
-				String argList = FieldMatcher.group(2);
+				String fieldName = matcher.group(1);
+				String argList = matcher.group(2);
 				String[] args = argList.trim().split("\\s+");
 
 				switch (fieldName.toLowerCase()) {
@@ -113,15 +113,12 @@ public enum ScriptVariable
 	}
 
 	private static final Pattern VarOffsetPattern = Pattern.compile("\\*(\\w+)\\[([\\-\\+]?[\\.0-9A-Fa-f]+['`]?)\\]");
-	private static final Matcher VarOffsetMatcher = VarOffsetPattern.matcher("");
 
 	private static final Pattern VarNamePattern = Pattern.compile("\\*[A-Za-z][\\w:]*(?:\\[\\S+\\])?");
-	private static final Matcher VarNameMatcher = VarNamePattern.matcher("");
 
 	public static boolean isValidName(String name)
 	{
-		VarNameMatcher.reset(name);
-		return VarNameMatcher.matches();
+		return VarNamePattern.matcher(name).matches();
 	}
 
 	public static String getString(ScriptVariable type, int offset)
@@ -389,11 +386,11 @@ public enum ScriptVariable
 		else
 			s = checkForModVarNames(s);
 
-		VarOffsetMatcher.reset(s);
-		if (!VarOffsetMatcher.matches())
+		Matcher matcher = VarOffsetPattern.matcher(s);
+		if (!matcher.matches())
 			return null;
 
-		return nameMap.get(VarOffsetMatcher.group(1));
+		return nameMap.get(matcher.group(1));
 	}
 
 	public static int getScriptVariableReference(String s) throws InvalidInputException
@@ -406,12 +403,12 @@ public enum ScriptVariable
 		else
 			s = checkForModVarNames(s);
 
-		VarOffsetMatcher.reset(s);
-		if (!VarOffsetMatcher.matches())
+		Matcher matcher = VarOffsetPattern.matcher(s);
+		if (!matcher.matches())
 			throw new InvalidInputException("Could not parse script variable: %s", s);
 
-		String variableType = VarOffsetMatcher.group(1);
-		String index = VarOffsetMatcher.group(2);
+		String variableType = matcher.group(1);
+		String index = matcher.group(2);
 
 		ScriptVariable type = nameMap.get(variableType);
 
@@ -440,12 +437,12 @@ public enum ScriptVariable
 		else
 			s = checkForModVarNames(s);
 
-		VarOffsetMatcher.reset(s);
-		if (!VarOffsetMatcher.matches())
+		Matcher matcher = VarOffsetPattern.matcher(s);
+		if (!matcher.matches())
 			throw new InvalidInputException("Could not parse script variable: %s", s);
 
-		String variableType = VarOffsetMatcher.group(1);
-		String index = VarOffsetMatcher.group(2);
+		String variableType = matcher.group(1);
+		String index = matcher.group(2);
 
 		ScriptVariable type = nameMap.get(variableType);
 
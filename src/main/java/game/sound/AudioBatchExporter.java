@@ -0,0 +1,313 @@
+package game.sound;
+
+import static app.Directories.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+
+import app.input.IOUtils;
+import game.sound.bgm.Song;
+import game.sound.engine.AudioEngine;
+import game.sound.engine.SoundBank;
+import game.sound.mseq.Mseq;
+import game.sound.sfx.SfxArchive;
+import game.sound.sfx.SfxArchive.Sound;
+import game.sound.sfx.SfxXml;
+import util.Logger;
+import util.Priority;
+import util.ThreadPools;
+import util.xml.XmlWrapper.XmlReader;
+
+/**
+ * Renders every BGM composition, MSEQ, and sound effect of the current mod to WAV files.
+ * Each export drives its own {@link AudioEngine}, so several are rendered at once on a fixed
+ * pool of worker threads. No audio device is needed.
+ */
+public class AudioBatchExporter
+{
+	// matches the default offered by the Audio Booth for looping exports
+	private static final int DEFAULT_LOOP_REPETITIONS = 2;
+
+	public static class ExportResult
+	{
+		public final String name;
+		public final File outputFile;
+
+		private final ExportTask task;
+		private AudioExporter.Result output = null;
+		private long nanos = 0;
+		private Throwable error = null;
+
+		private ExportResult(String name, File outputFile, ExportTask task)
+		{
+			this.name = name;
+			this.outputFile = outputFile;
+			this.task = task;
+		}
+
+		public boolean failed()
+		{
+			return error != null;
+		}
+
+		public boolean truncated()
+		{
+			return output != null && output.truncated();
+		}
+
+		public Throwable getError()
+		{
+			return error;
+		}
+
+		public double getSeconds()
+		{
+			return nanos / 1e9;
+		}
+
+		public double getAudioSeconds()
+		{
+			return (output == null) ? 0.0 : output.samples() / (double) AudioEngine.OUTPUT_RATE;
+		}
+
+		/**
+		 * @return seconds of audio rendered per second of wall time
+		 */
+		public double getRealTimeFactor()
+		{
+			return (nanos == 0) ? 0.0 : getAudioSeconds() / getSeconds();
+		}
+	}
+
+	private interface ExportTask
+	{
+		AudioExporter.Result render(AudioExporter exporter, File outputFile) throws Exception;
+	}
+
+	private final int numThreads;
+	private final File outputDir;
+
+	public AudioBatchExporter(int numThreads, File outputDir)
+	{
+		this.numThreads = Math.max(1, numThreads);
+		this.outputDir = outputDir;
+	}
+
+	public static int getDefaultThreadCount()
+	{
+		return Runtime.getRuntime().availableProcessors();
+	}
+
+	public static File getDefaultOutputDirectory()
+	{
+		return new File(MOD_OUT + "audio/");
+	}
+
+	/**
+	 * Loads the sound banks and every audio asset of the mod, then exports all of them.
+	 * Assets which fail to load or render do not stop the others, they are recorded in the results instead.
+	 * @return one result for each exported file, BGM first, then MSEQ, then SFX
+	 */
+	public List<ExportResult> exportAll() throws IOException
+	{
+		SoundBank bank = new SoundBank(true);
+		bank.installAuxBank("SPC3", 2);
+
+		List<ExportResult> results = new ArrayList<>();
+		addSongs(results, new File(outputDir, "bgm"));
+		addMseqs(results, new File(outputDir, "mseq"));
+		addSounds(results, new File(outputDir, "sfx"));
+
+		export(new AudioExporter(bank), results);
+		return results;
+	}
+
+	private static void addSongs(List<ExportResult> results, File dir) throws IOException
+	{
+		for (File file : IOUtils.getFilesWithExtension(MOD_AUDIO_BGM, "xml", false)) {
+			String baseName = FilenameUtils.getBaseName(file.getName());
+			Song song;
+			try {
+				song = loadSong(file);
+			}
+			catch (Exception e) {
+				addLoadFailure(results, baseName, e);
+				continue;
+			}
+
+			for (int i = 0; i < Song.NUM_COMPOSITIONS; i++) {
+				if (song.getComposition(i) == null)
+					continue;
+
+				int composition = i;
+				String name = baseName + "_Comp" + composition;
+				int loops = AudioExporter.hasInfiniteLoop(song, composition) ? DEFAULT_LOOP_REPETITIONS : 0;
+				results.add(new ExportResult(name, new File(dir, name + ".wav"), (exporter, out) -> exporter.exportBgm(
+					out, AudioEngine.MAX_MASTER_VOLUME, loops, song, composition, 0, 0, false)));
+			}
+		}
+	}
+
+	private static Song loadSong(File file)
+	{
+		Song song = new Song();
+		try {
+			String bgmFilename = FilenameUtils.getBaseName(file.getName()) + ".bgm";
+			song.setSoundBankCatalog(SoundBankCatalog.loadMod().withSongBanks(MOD_AUDIO.getFile(FN_AUDIO_SONGS), bgmFilename));
+		}
+		catch (Exception e) {
+			Logger.logfWarning("Could not load the sound banks for BGM asset %s; unresolved instruments will be muted: %s",
+				file.getName(), e.getMessage());
+		}
+		XmlReader xmr = new XmlReader(file);
+		song.fromXML(xmr, xmr.getRootElement());
+		return song;
+	}
+
+	private static void addMseqs(List<ExportResult> results, File dir) throws IOException
+	{
+		for (File file : IOUtils.getFilesWithExtension(MOD_AUDIO_MSEQ, "xml", false)) {
+			String name = FilenameUtils.getBaseName(file.getName());
+			Mseq mseq;
+			try {
+				mseq = Mseq.load(file);
+			}
+			catch (Exception e) {
+				addLoadFailure(results, name, e);
+				continue;
+			}
+
+			int loops = AudioExporter.hasInfiniteLoop(mseq) ? DEFAULT_LOOP_REPETITIONS : 0;
+			results.add(new ExportResult(name, new File(dir, name + ".wav"), (exporter, out) -> exporter.exportMseq(
+				out, AudioEngine.MAX_MASTER_VOLUME, loops, mseq)));
+		}
+	}
+
+	private static void addSounds(List<ExportResult> results, File dir)
+	{
+		File manifest = MOD_AUDIO.getFile(SfxXml.FN_SOUND_EFFECTS);
+		if (!manifest.isFile())
+			return;
+
+		SfxArchive archive;
+		try {
+			archive = SfxXml.read(manifest.toPath(), SoundBankCatalog.loadMod());
+		}
+		catch (Exception e) {
+			addLoadFailure(results, FilenameUtils.getBaseName(manifest.getName()), e);
+			return;
+		}
+
+		// the archive is only read during playback, so every sound can share it
+		for (Sound sound : archive.sounds.values()) {
+			int loops = AudioExporter.hasInfiniteLoop(sound) ? DEFAULT_LOOP_REPETITIONS : 0;
+			results.add(new ExportResult(sound.name, new File(dir, sound.name + ".wav"), (exporter, out) -> exporter.exportSfx(
+				out, AudioEngine.MAX_MASTER_VOLUME, loops, archive, sound)));
+		}
+	}
+
+	private static void addLoadFailure(List<ExportResult> results, String name, Exception e)
+	{
+		ExportResult result = new ExportResult(name, null, null);
+		result.error = e;
+		results.add(result);
+	}
+
+	private void export(AudioExporter exporter, List<ExportResult> results) throws IOException
+	{
+		for (ExportResult result : results) {
+			if (result.task != null)
+				FileUtils.forceMkdir(result.outputFile.getParentFile());
+		}
+
+		ExecutorService pool = ThreadPools.newDaemonPool("AudioExporter", Math.min(numThreads, results.size()));
+
+		try {
+			List<Future<?>> futures = new ArrayList<>(results.size());
+			for (ExportResult result : results) {
+				if (result.task != null)
+					futures.add(pool.submit(() -> export(exporter, result)));
+				else
+					futures.add(null);
+			}
+
+			for (int i = 0; i < futures.size(); i++) {
+				if (futures.get(i) == null)
+					continue;
+				try {
+					futures.get(i).get();
+				}
+				catch (ExecutionException e) {
+					results.get(i).error = e.getCause();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					results.get(i).error = e;
+				}
+			}
+		}
+		finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private static void export(AudioExporter exporter, ExportResult result)
+	{
+		long t0 = System.nanoTime();
+		try {
+			result.output = result.task.render(exporter, result.outputFile);
+		}
+		catch (Exception e) {
+			result.error = e;
+		}
+		result.nanos = System.nanoTime() - t0;
+	}
+
+	/**
+	 * Logs the render time and real-time factor for each file, followed by every error.
+	 * @return the number of files which failed to export
+	 */
+	public static int printSummary(List<ExportResult> results)
+	{
+		int numExported = 0;
+		int numTruncated = 0;
+		List<ExportResult> failed = new ArrayList<>();
+		double totalSeconds = 0.0;
+		double totalAudioSeconds = 0.0;
+
+		for (ExportResult result : results) {
+			if (result.failed())
+				failed.add(result);
+			else
+				numExported++;
+
+			if (result.truncated())
+				numTruncated++;
+
+			totalSeconds += result.getSeconds();
+			totalAudioSeconds += result.getAudioSeconds();
+			Logger.logf("%-24s %8.2f s audio %8.3f s %7.1fx %s", result.name, result.getAudioSeconds(), result.getSeconds(),
+				result.getRealTimeFactor(), result.failed() ? "FAILED" : result.truncated() ? "TRUNCATED" : "");
+		}
+
+		double factor = (totalSeconds > 0.0) ? totalAudioSeconds / totalSeconds : 0.0;
+		Logger.log(String.format("Exported %d files, %d truncated, %d failed (%.1f s of audio in %.3f s of work, %.1fx real time).",
+			numExported, numTruncated, failed.size(), totalAudioSeconds, totalSeconds, factor), Priority.MILESTONE);
+
+		for (ExportResult result : failed) {
+			Throwable e = result.getError();
+			String message = (e.getMessage() != null) ? e.getMessage() : e.getClass().getSimpleName();
+			Logger.logfError("%s: %s", result.name, message);
+		}
+
+		return failed.size();
+	}
+}
@@ -0,0 +1,204 @@
+package game.sound;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import app.StarRodException;
+import app.input.HashUtils;
+import app.input.IOUtils;
+import util.Logger;
+
+/**
+ * Records the inputs each file in the audio build directory was last built from, so a bank or
+ * audio file whose inputs have not changed can be kept rather than built again.
+ * <p>
+ * Each output has a key which hashes the contents of all its input files. Input hashes are
+ * cached by size and modification time, so unchanged files are not read again on every build.
+ * Outputs are only checked for size and modification time. All methods may be called from
+ * several build threads at once.
+ */
+public class AudioBuildManifest
+{
+	public static final String EXTENSION = ".manifest";
+
+	// file size, modification time, and hash or key
+	private static class FileRecord
+	{
+		private final long size;
+		private final long lastModified;
+		private final String hash;
+
+		private FileRecord(long size, long lastModified, String hash)
+		{
+			this.size = size;
+			this.lastModified = lastModified;
+			this.hash = hash;
+		}
+
+		private boolean matches(File f)
+		{
+			return f.isFile() && f.length() == size && f.lastModified() == lastModified;
+		}
+	}
+
+	private final File file;
+	private final String version;
+
+	private final HashMap<String, FileRecord> inputHashes = new HashMap<>();
+	private final TreeMap<String, FileRecord> outputs = new TreeMap<>();
+
+	/**
+	 * @param file  Manifest file, which is read if it exists.
+	 * @param version  Included in every key, so outputs are rebuilt when the tool changes.
+	 */
+	public AudioBuildManifest(File file, String version)
+	{
+		this.file = file;
+		this.version = version;
+
+		try {
+			if (file.exists())
+				read();
+		}
+		catch (IOException | StarRodException e) {
+			// the manifest only saves time, start over rather than fail the build
+			Logger.logWarning("Could not read audio build manifest: " + e.getMessage());
+			inputHashes.clear();
+			outputs.clear();
+		}
+	}
+
+	/**
+	 * @param inputs  Every file read to build an output, in a fixed order. Missing files are allowed.
+	 * @return hex string identifying the names and contents of the inputs
+	 */
+	public String getKey(List<File> inputs) throws IOException
+	{
+		MessageDigest digest = HashUtils.getDigest();
+		digest.update(version.getBytes(StandardCharsets.UTF_8));
+
+		for (File f : inputs) {
+			digest.update((byte) 0);
+			digest.update(f.getAbsolutePath().getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+			if (f.isFile())
+				digest.update(getHash(f).getBytes(StandardCharsets.UTF_8));
+		}
+
+		return HashUtils.toHex(digest.digest());
+	}
+
+	/**
+	 * @return true if the output was last built with this key and has not been modified or deleted since
+	 */
+	public synchronized boolean isUpToDate(File output, String key)
+	{
+		FileRecord record = outputs.get(output.getName());
+		return record != null && record.hash.equals(key) && record.matches(output);
+	}
+
+	/**
+	 * Records that an output has been built with the given key. Call after the output has been written.
+	 */
+	public synchronized void setBuilt(File output, String key)
+	{
+		if (output.isFile())
+			outputs.put(output.getName(), new FileRecord(output.length(), output.lastModified(), key));
+		else
+			outputs.remove(output.getName());
+	}
+
+	public synchronized void remove(File output)
+	{
+		outputs.remove(output.getName());
+	}
+
+	private String getHash(File f) throws IOException
+	{
+		String path = f.getAbsolutePath();
+
+		synchronized (this) {
+			FileRecord record = inputHashes.get(path);
+			if (record != null && record.matches(f))
+				return record.hash;
+		}
+
+		// read the attributes first, so a file modified while hashing is hashed again next time
+		long size = f.length();
+		long lastModified = f.lastModified();
+		String hash = HashUtils.toHex(HashUtils.hashFile(f));
+
+		synchronized (this) {
+			inputHashes.put(path, new FileRecord(size, lastModified, hash));
+		}
+
+		return hash;
+	}
+
+	/**
+	 * Writes the manifest, sorted by name so it does not depend on build order.
+	 * Hashes of files which no longer exist are dropped.
+	 */
+	public synchronized void save() throws IOException
+	{
+		File tempFile = new File(file.getPath() + ".tmp");
+		tempFile.getParentFile().mkdirs();
+
+		PrintWriter pw = IOUtils.getBufferedPrintWriter(tempFile);
+		for (Entry<String, FileRecord> e : new TreeMap<>(inputHashes).entrySet()) {
+			FileRecord record = e.getValue();
+			if (record.matches(new File(e.getKey())))
+				pw.printf("file %d %d %s %s%n", record.size, record.lastModified, record.hash, e.getKey());
+		}
+
+		for (Entry<String, FileRecord> e : outputs.entrySet()) {
+			FileRecord record = e.getValue();
+			pw.printf("output %d %d %s %s%n", record.size, record.lastModified, record.hash, e.getKey());
+		}
+		pw.close();
+
+		Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private void read() throws IOException
+	{
+		List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+
+		for (String line : lines) {
+			if (line.isBlank())
+				continue;
+
+			String[] tokens = line.split(" ", 5);
+			if (tokens.length != 5)
+				throw new StarRodException("Invalid line in %s: %s", file.getName(), line);
+
+			FileRecord record;
+			try {
+				record = new FileRecord(Long.parseLong(tokens[1]), Long.parseLong(tokens[2]), tokens[3]);
+			}
+			catch (NumberFormatException e) {
+				throw new StarRodException("Invalid line in %s: %s", file.getName(), line);
+			}
+
+			switch (tokens[0]) {
+				case "file":
+					inputHashes.put(tokens[4], record);
+					break;
+				case "output":
+					outputs.put(tokens[4], record);
+					break;
+				default:
+					throw new StarRodException("Invalid line in %s: %s", file.getName(), line);
+			}
+		}
+	}
+}
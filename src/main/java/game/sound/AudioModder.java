@@ -2,13 +2,21 @@ package game.sound;
 
 import static app.Directories.DUMP_AUDIO;
 import static app.Directories.DUMP_AUDIO_RAW;
+import static app.Directories.EXT_BANK;
 import static app.Directories.FN_AUDIO_AMBIENTS;
 import static app.Directories.FN_AUDIO_BANKS;
+import static app.Directories.FN_AUDIO_DRUMS;
+import static app.Directories.FN_AUDIO_PRESETS;
 import static app.Directories.FN_AUDIO_SONGS;
+import static app.Directories.FN_SOUND_BANK;
 import static app.Directories.MOD_AUDIO;
+import static app.Directories.MOD_AUDIO_BANK;
+import static app.Directories.MOD_AUDIO_BGM;
 import static app.Directories.MOD_AUDIO_BUILD;
+import static app.Directories.MOD_AUDIO_MSEQ;
 import static app.Directories.MOD_AUDIO_OVERRIDE;
 import static app.Directories.MOD_AUDIO_RAW;
+import static app.Directories.MOD_AUDIO_SFX;
 import static game.sound.AudioModder.BankListKey.ATTR_BANK_GROUP;
 import static game.sound.AudioModder.BankListKey.ATTR_BANK_INDEX;
 import static game.sound.AudioModder.BankListKey.ATTR_BANK_NAME;
@@ -33,17 +41,24 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.w3c.dom.Element;
 
 import app.Environment;
+import app.StarRodException;
 import app.input.IOUtils;
 import app.input.InputFileException;
 import game.shared.ProjectDatabase;
@@ -55,6 +70,7 @@ import game.sound.sfx.SfxXml;
 import patcher.Patcher;
 import patcher.RomPatcher;
 import util.Logger;
+import util.ThreadPools;
 import util.xml.XmlKey;
 import util.xml.XmlWrapper.XmlReader;
 import util.xml.XmlWrapper.XmlTag;
@@ -106,6 +122,87 @@ public class AudioModder
 		}
 	}
 
+	// files in the audio build directory written by each build pass
+	private enum BuildPass
+	{
+		// @formatter:off
+		SOUND_BANKS	("Sound banks",	"SoundBanks",	EXT_BANK, ".per", ".prg"),
+		AUDIO_FILES	("Audio files",	"AudioFiles",	".bgm", ".mseq", ".sef");
+		// @formatter:on
+
+		private final String description;
+		private final String manifestName;
+		private final String[] outputSuffixes;
+
+		private BuildPass(String description, String name, String ... outputSuffixes)
+		{
+			this.description = description;
+			this.manifestName = name + AudioBuildManifest.EXTENSION;
+			this.outputSuffixes = outputSuffixes;
+		}
+
+		private File getManifestFile()
+		{
+			return MOD_AUDIO_BUILD.getFile(manifestName);
+		}
+
+		private boolean ownsOutput(File f)
+		{
+			for (String suffix : outputSuffixes) {
+				if (f.getName().endsWith(suffix))
+					return true;
+			}
+			return false;
+		}
+
+		private boolean owns(File f)
+		{
+			return f.getName().equals(manifestName) || ownsOutput(f);
+		}
+	}
+
+	@FunctionalInterface
+	private interface BuildAction
+	{
+		void build() throws IOException;
+	}
+
+	// one output file of a build pass, and every file it is built from
+	private static class BuildJob
+	{
+		private final File output;
+		private final List<File> inputs;
+		private final BuildAction action;
+
+		private BuildJob(String outputName, List<File> inputs, BuildAction action)
+		{
+			this.output = MOD_AUDIO_BUILD.getFile(outputName);
+			this.inputs = new ArrayList<>(inputs);
+			this.action = action;
+
+			// an override replaces the output, so adding or removing one must rebuild it
+			this.inputs.add(MOD_AUDIO_OVERRIDE.getFile(outputName));
+		}
+
+		/**
+		 * @return true if the output was built, false if the previous one was up to date
+		 */
+		private boolean run(AudioBuildManifest manifest) throws IOException
+		{
+			String key = manifest.getKey(inputs);
+			if (manifest.isUpToDate(output, key))
+				return false;
+
+			// never leave the previous output behind, in case this one is overridden or fails
+			manifest.remove(output);
+			Files.deleteIfExists(output.toPath());
+
+			action.build();
+			manifest.setBuilt(output, key);
+			return true;
+		}
+	}
+
 	private static class SongEntry
 	{
 		private String bgmName;
@@ -379,40 +476,217 @@ public class AudioModder
 		raf.close();
 	}
 
-	public static void prepareBuildDirectory() throws IOException
+	/**
+	 * Creates the audio build directory and removes everything in it which the enabled passes will not
+	 * write, so files from earlier builds cannot be mistaken for current ones. Outputs of the enabled
+	 * passes are kept, and each pass replaces only the ones whose inputs have changed.
+	 */
+	public static void prepareBuildDirectory(boolean soundBanks, boolean audioFiles) throws IOException
 	{
-		FileUtils.forceMkdir(MOD_AUDIO_BUILD.toFile());
-		FileUtils.cleanDirectory(MOD_AUDIO_BUILD.toFile());
+		File buildDir = MOD_AUDIO_BUILD.toFile();
+		FileUtils.forceMkdir(buildDir);
+
+		File[] files = buildDir.listFiles();
+		if (files == null)
+			throw new IOException("Could not enumerate " + buildDir);
+
+		for (File f : files) {
+			boolean keep = f.isFile() && ((soundBanks && BuildPass.SOUND_BANKS.owns(f))
+				|| (audioFiles && BuildPass.AUDIO_FILES.owns(f)));
+			if (!keep)
+				FileUtils.forceDelete(f);
+		}
 	}
 
 	public static void buildSoundBanks() throws IOException
 	{
-		BankModder.buildAll();
-		DrumsModder.build();
-		InstrumentsModder.build();
+		List<File> catalogInputs = getCatalogInputs();
+		List<BuildJob> jobs = new ArrayList<>();
+
+		File[] bankDirs = MOD_AUDIO_BANK.toFile().listFiles(File::isDirectory);
+		if (bankDirs == null)
+			bankDirs = new File[0];
+
+		// sort so jobs are started and reported in the same order on every build
+		Arrays.sort(bankDirs);
+
+		for (File dir : bankDirs) {
+			String bankName = FilenameUtils.getBaseName(dir.getName());
+			List<File> inputs = getSortedFiles(dir, null);
+			jobs.add(new BuildJob(bankName + EXT_BANK, inputs, () -> BankModder.buildBank(dir)));
+		}
+
+		List<File> drumInputs = new ArrayList<>(catalogInputs);
+		drumInputs.add(MOD_AUDIO.getFile(FN_AUDIO_DRUMS));
+		jobs.add(new BuildJob(DrumsModder.FN_BIN, drumInputs, DrumsModder::build));
+
+		List<File> presetInputs = new ArrayList<>(catalogInputs);
+		presetInputs.add(MOD_AUDIO.getFile(FN_AUDIO_PRESETS));
+		jobs.add(new BuildJob(InstrumentsModder.FN_BIN, presetInputs, InstrumentsModder::build));
+
+		runBuildJobs(BuildPass.SOUND_BANKS, jobs);
 	}
 
 	public static void buildAudioFiles() throws IOException
 	{
-		SongModder.buildAll();
-		Mseq.buildAll();
+		List<File> catalogInputs = getCatalogInputs();
+		List<BuildJob> jobs = new ArrayList<>();
+
+		// the catalogs are only read while building, so every job can share them
+		SoundBankCatalog songCatalog = SoundBankCatalog.loadMod();
+		List<File> songInputs = new ArrayList<>(catalogInputs);
+		songInputs.add(MOD_AUDIO.getFile(FN_AUDIO_SONGS));
+
+		for (File f : getSortedFiles(MOD_AUDIO_BGM.toFile(), "xml")) {
+			List<File> inputs = new ArrayList<>(songInputs);
+			inputs.add(f);
+			String outputName = FilenameUtils.getBaseName(f.getName()) + ".bgm";
+			jobs.add(new BuildJob(outputName, inputs, () -> SongModder.buildSong(f, songCatalog)));
+		}
+
+		SoundBankCatalog mseqCatalog = Mseq.getBuildCatalog();
+		for (File f : getSortedFiles(MOD_AUDIO_MSEQ.toFile(), "xml")) {
+			List<File> inputs = new ArrayList<>(catalogInputs);
+			inputs.add(f);
+			String outputName = FilenameUtils.getBaseName(f.getName()) + ".mseq";
+			jobs.add(new BuildJob(outputName, inputs, () -> Mseq.buildMseq(f, mseqCatalog)));
+		}
 
 		File sfxArchive = MOD_AUDIO.getFile(FN_SFX_ARCHIVE);
-		if (sfxArchive.isFile() && hasOverride(FN_SFX_BINARY)) {
+		if (sfxArchive.isFile()) {
+			List<File> inputs = new ArrayList<>(catalogInputs);
+			inputs.add(sfxArchive);
+			inputs.add(MOD_AUDIO.getFile(SfxXml.FN_SOUND_ENVELOPES));
+			inputs.addAll(getSortedFiles(MOD_AUDIO_SFX.toFile(), null));
+			jobs.add(new BuildJob(FN_SFX_BINARY, inputs, () -> buildSfxArchive(sfxArchive)));
+		}
+
+		runBuildJobs(BuildPass.AUDIO_FILES, jobs);
+	}
+
+	private static void buildSfxArchive(File sfxArchive) throws IOException
+	{
+		if (hasOverride(FN_SFX_BINARY)) {
 			Logger.log("Using audio override for " + FN_SFX_BINARY);
+			return;
+		}
+
+		File output = MOD_AUDIO_BUILD.getFile(FN_SFX_BINARY);
+		try {
+			SoundBankCatalog soundBankCatalog = SoundBankCatalog.loadMod();
+			SfxModder.BuildSummary summary = SfxModder.build(
+				sfxArchive.toPath(), output.toPath(), soundBankCatalog);
+			Logger.logf("Built SFX archive: %X bytes.", summary.size());
+			for (String warning : summary.warnings())
+				Logger.logWarning(warning);
+		}
+		catch (SfxFormatException e) {
+			throw new InputFileException(sfxArchive, e);
 		}
-		else if (sfxArchive.isFile()) {
-			File output = MOD_AUDIO_BUILD.getFile(FN_SFX_BINARY);
-			try {
-				SoundBankCatalog soundBankCatalog = SoundBankCatalog.loadMod();
-				SfxModder.BuildSummary summary = SfxModder.build(
-					sfxArchive.toPath(), output.toPath(), soundBankCatalog);
-				Logger.logf("Built SFX archive: %X bytes.", summary.size());
-				for (String warning : summary.warnings())
-					Logger.logWarning(warning);
+	}
+
+	/**
+	 * @return files read by {@link SoundBankCatalog#loadMod()}, which every song, sequence, and preset depends on
+	 */
+	private static List<File> getCatalogInputs()
+	{
+		List<File> inputs = new ArrayList<>();
+		inputs.add(MOD_AUDIO.getFile(FN_AUDIO_BANKS));
+
+		File[] bankDirs = MOD_AUDIO_BANK.toFile().listFiles(File::isDirectory);
+		if (bankDirs != null) {
+			Arrays.sort(bankDirs);
+			for (File dir : bankDirs)
+				inputs.add(new File(dir, FN_SOUND_BANK));
+		}
+		return inputs;
+	}
+
+	/**
+	 * @param ext  Extension of the files to list, or null to list every file in the directory and its subdirectories.
+	 * @return files sorted by path, so jobs and keys do not depend on directory listing order
+	 */
+	private static List<File> getSortedFiles(File dir, String ext)
+	{
+		if (!dir.isDirectory())
+			return new ArrayList<>();
+
+		String[] extensions = (ext == null) ? null : new String[] { ext };
+		List<File> files = new ArrayList<>(FileUtils.listFiles(dir, extensions, ext == null));
+		Collections.sort(files);
+		return files;
+	}
+
+	/**
+	 * Builds every job whose inputs have changed since the last build on a fixed pool of worker threads,
+	 * then removes outputs of the pass which no job produced. Jobs are independent, so they may finish in
+	 * any order, but failures are reported in job order. The manifest is saved even if some jobs fail,
+	 * so the ones which succeeded are not built again.
+	 */
+	private static void runBuildJobs(BuildPass pass, List<BuildJob> jobs) throws IOException
+	{
+		FileUtils.forceMkdir(MOD_AUDIO_BUILD.toFile());
+		AudioBuildManifest manifest = new AudioBuildManifest(pass.getManifestFile(), Environment.getVersionString());
+
+		int numThreads = Math.min(Runtime.getRuntime().availableProcessors(), jobs.size());
+		ExecutorService pool = ThreadPools.newDaemonPool("AudioBuilder", numThreads);
+
+		Throwable firstError = null;
+		int numBuilt = 0;
+
+		try {
+			List<Future<Boolean>> futures = new ArrayList<>(jobs.size());
+			for (BuildJob job : jobs)
+				futures.add(pool.submit(() -> job.run(manifest)));
+
+			for (Future<Boolean> future : futures) {
+				try {
+					if (future.get())
+						numBuilt++;
+				}
+				catch (ExecutionException e) {
+					if (firstError == null)
+						firstError = e.getCause();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					if (firstError == null)
+						firstError = e;
+				}
 			}
-			catch (SfxFormatException e) {
-				throw new InputFileException(sfxArchive, e);
+
+			if (firstError == null)
+				removeStaleOutputs(pass, jobs, manifest);
+		}
+		finally {
+			pool.shutdownNow();
+			manifest.save();
+		}
+
+		if (firstError instanceof IOException e)
+			throw e;
+		if (firstError instanceof RuntimeException e)
+			throw e;
+		if (firstError != null)
+			throw new StarRodException(firstError);
+
+		Logger.logf("%s: built %d, reused %d unchanged.", pass.description, numBuilt, jobs.size() - numBuilt);
+	}
+
+	private static void removeStaleOutputs(BuildPass pass, List<BuildJob> jobs, AudioBuildManifest manifest) throws IOException
+	{
+		Set<String> outputNames = new HashSet<>();
+		for (BuildJob job : jobs)
+			outputNames.add(job.output.getName());
+
+		File[] files = MOD_AUDIO_BUILD.toFile().listFiles(File::isFile);
+		if (files == null)
+			return;
+
+		for (File f : files) {
+			if (pass.ownsOutput(f) && !outputNames.contains(f.getName())) {
+				manifest.remove(f);
+				FileUtils.forceDelete(f);
 			}
 		}
 	}
@@ -485,6 +759,9 @@ public class AudioModder
 
 		for (File file : files) {
 			String fileName = file.getName();
+			if (fileName.endsWith(AudioBuildManifest.EXTENSION))
+				continue;
+
 			int typeOrder = getFileTypeOrder(fileName);
 			if (typeOrder < 0)
 				throw new InputFileException(file, "Unsupported file in audio member directory");
@@ -28,7 +28,7 @@ import util.xml.XmlWrapper.XmlWriter;
 // compiler for the global BGM drum definitions stored in SET1.per
 public class DrumsModder
 {
-	private static final String FN_BIN = "SET1.per";
+	static final String FN_BIN = "SET1.per";
 
 	public static void main(String[] args) throws IOException
 	{
@@ -28,7 +28,7 @@ import util.xml.XmlWrapper.XmlWriter;
 // compiler for the global BGM instrument presets stored in SET1.prg
 public class InstrumentsModder
 {
-	private static final String FN_BIN = "SET1.prg";
+	static final String FN_BIN = "SET1.prg";
 
 	public static void main(String[] args) throws IOException
 	{
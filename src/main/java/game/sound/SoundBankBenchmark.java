@@ -0,0 +1,43 @@
+package game.sound;
+
+import java.io.IOException;
+
+import app.Environment;
+import util.Logger;
+
+/**
+ * Builds every sound bank with {@link AudioModder#buildSoundBanks()} and reports the wall time
+ * of each pass. This writes the same outputs as a normal build, into the audio build directory
+ * of the current mod. Each full pass starts from an empty build directory, and a final pass
+ * measures a rebuild where every bank is unchanged.
+ * Usage: SoundBankBenchmark
+ */
+public class SoundBankBenchmark
+{
+	private static final int ITERATIONS = 3;
+
+	public static void main(String[] args) throws IOException
+	{
+		Environment.initialize();
+		Logger.disable();
+
+		// the first pass warms up the JIT and file cache, so only keep the best time
+		long bestTime = Long.MAX_VALUE;
+		for (int i = 0; i < ITERATIONS; i++) {
+			AudioModder.prepareBuildDirectory(false, false);
+			long t0 = System.nanoTime();
+			AudioModder.buildSoundBanks();
+			long t1 = System.nanoTime();
+			System.out.printf("Build pass %d: %8.3f s%n", i + 1, (t1 - t0) * 1e-9);
+			bestTime = Math.min(bestTime, t1 - t0);
+		}
+		System.out.printf("Build best:   %8.3f s%n", bestTime * 1e-9);
+
+		long t0 = System.nanoTime();
+		AudioModder.buildSoundBanks();
+		long t1 = System.nanoTime();
+		System.out.printf("Unchanged:    %8.3f s%n", (t1 - t0) * 1e-9);
+
+		Environment.exit();
+	}
+}
@@ -1,12 +1,19 @@
 package game.sound;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.IntStream;
 
 import util.Logger;
 
 public class TableDesign
 {
+	private static final int FRAME_SIZE = 16;
+
+	// below this many frames, the overhead of splitting the work outweighs the gain
+	private static final int MIN_PARALLEL_FRAMES = 1024;
+
 	public static class Table
 	{
 		public final int numPred;
@@ -27,14 +34,6 @@ public class TableDesign
 		return makeTable(arr, order, pow);
 	}
 
-	public static Table makeTable(List<Short> samples, int order, int pow)
-	{
-		short[] arr = new short[samples.size()];
-		for (int i = 0; i < arr.length; i++)
-			arr[i] = samples.get(i);
-		return makeTable(arr, order, pow);
-	}
-
 	/**
 	 * Computes a VADPCM predictor codebook from audio sample data using LPC analysis.
 	 *
@@ -54,95 +53,25 @@ public class TableDesign
 	 */
 	public static Table makeTable(short[] audioSamples, int order, int pow)
 	{
-		final int sampleCount = audioSamples.length;
 		final int refineIteration = 2;
-		final int frameSize = 16;
-		final double threshold = 10.0;
-
 		final int orderSize = order + 1;
 
-		// we will process frames in overlapping pairs, the first half of this array holds samples
-		// from the previous frame and the second half holds current frame samples
-		short[] sampleBuffer = new short[frameSize * 2];
+		double[] frameAutocorr = analyzeFrames(audioSamples, order);
+		int numCollectedFrames = frameAutocorr.length / orderSize;
 
-		double[][] framePredictors = new double[sampleCount][orderSize];
-		double[][] autocorrMatrix = new double[orderSize][orderSize];
 		double[][] codebook = new double[1 << pow][orderSize];
 		double[] autocorr = new double[orderSize];
 		double[] reflection = new double[orderSize];
 		double[] perturbDelta = new double[orderSize];
 
-		int numCollectedFrames = 0;
-		int samplesPos = 0;
-
-		// process audio into overlapping frame pairs
-		while (sampleCount > samplesPos + 2 * frameSize) {
-			System.arraycopy(audioSamples, samplesPos, sampleBuffer, frameSize, frameSize);
-
-			// compute autocorrelation vector
-			for (int lag = 0; lag <= order; lag++) {
-				autocorr[lag] = 0.0;
-				for (int j = 0; j < frameSize; j++) {
-					// note: unusual sign for autocorrelation calculation
-					autocorr[lag] -= sampleBuffer[frameSize + j - lag] * sampleBuffer[frameSize + j];
-				}
-			}
-
-			if (Math.abs(autocorr[0]) > threshold) {
-				// compute autocorrelation matrix
-				for (int i = 1; i <= order; i++) {
-					for (int j = 1; j <= order; j++) {
-						autocorrMatrix[i][j] = 0.0;
-						for (int k = 0; k < frameSize; k++) {
-							autocorrMatrix[i][j] += sampleBuffer[frameSize + k - i] * sampleBuffer[frameSize + k - j];
-						}
-					}
-				}
-
-				int[] pivotIndices = new int[orderSize];
-
-				// solve linear prediction equations using LU decomposition
-				// in this case (the Yule-Walker equation) Ax = b has the meaning:
-				// A = LU decomposition of autocorrelation matrix
-				// x = predictor values (solving for these)
-				// b = autocorrelation vector
-				if (luDecomposition(autocorrMatrix, order, pivotIndices)) {
-					// note: after evaluation, frameAutocorr now hold the prediction vector
-					luSolve(autocorrMatrix, order, pivotIndices, autocorr);
-					autocorr[0] = 1.0;
-
-					// convert predictor coefficients to reflection coefficients and check stability
-					if (predictorToReflection(autocorr, reflection, order) == 0) {
-						framePredictors[numCollectedFrames][0] = 1.0;
-
-						// clamp reflection coefficients for numerical stability
-						for (int i = 1; i <= order; i++) {
-							reflection[i] = clamp(reflection[i], -0.9999999999, 0.9999999999);
-						}
-
-						reflectionToPredictor(reflection, framePredictors[numCollectedFrames], order);
-						numCollectedFrames++;
-					}
-				}
-			}
-
-			// store current frame as previous frame for next iteration
-			for (int i = 0; i < frameSize; i++) {
-				sampleBuffer[i] = sampleBuffer[i + frameSize];
-			}
-
-			samplesPos += frameSize;
-		}
-
 		// compute averaged autocorrelation vector from collected data
 		autocorr[0] = 1.0;
 		for (int i = 1; i <= order; i++) {
 			autocorr[i] = 0.0;
 		}
 		for (int i = 0; i < numCollectedFrames; i++) {
-			predictorToAutocorr(framePredictors[i], codebook[0], order);
 			for (int j = 1; j <= order; j++) {
-				autocorr[j] += codebook[0][j];
+				autocorr[j] += frameAutocorr[i * orderSize + j];
 			}
 		}
 		for (int i = 1; i <= order; i++) {
@@ -167,7 +96,7 @@ public class TableDesign
 			perturbDelta[order - 1] = -1.0;
 			split(codebook, perturbDelta, order, (1 << curBits), 0.01);
 			curBits++;
-			refine(codebook, order, (1 << curBits), framePredictors, numCollectedFrames, refineIteration);
+			refine(codebook, order, (1 << curBits), frameAutocorr, numCollectedFrames, refineIteration);
 		}
 
 		int nPredictors = (1 << curBits);
@@ -234,6 +163,117 @@ public class TableDesign
 		return new Table(nPredictors, out);
 	}
 
+	/**
+	 * Finds the LPC predictor for each pair of sequential frames, keeping only those which are stable.
+	 * Frames are independent of each other, so long samples are analyzed in parallel.
+	 *
+	 * @param audioSamples  The raw input audio samples.
+	 * @param order  The order of LPC prediction.
+	 * @return the autocorrelation of each stable predictor, packed in frame order with a stride of {@code order + 1}
+	 */
+	private static double[] analyzeFrames(short[] audioSamples, int order)
+	{
+		final int orderSize = order + 1;
+
+		// frames are analyzed while (length > pos + 2 * FRAME_SIZE), so the final two are never used
+		int numFrames = Math.max(0, (audioSamples.length - FRAME_SIZE - 1) / FRAME_SIZE);
+		double[] frameAutocorr = new double[numFrames * orderSize];
+		boolean[] stable = new boolean[numFrames];
+
+		IntStream frames = IntStream.range(0, numFrames);
+		if (numFrames >= MIN_PARALLEL_FRAMES)
+			frames = frames.parallel();
+		frames.forEach((frame) -> {
+			stable[frame] = analyzeFrame(audioSamples, frame, order, frameAutocorr);
+		});
+
+		// pack the stable frames, keeping their order so sums are accumulated exactly as before
+		int numCollectedFrames = 0;
+		for (int frame = 0; frame < numFrames; frame++) {
+			if (stable[frame]) {
+				System.arraycopy(frameAutocorr, frame * orderSize, frameAutocorr, numCollectedFrames * orderSize, orderSize);
+				numCollectedFrames++;
+			}
+		}
+		return Arrays.copyOf(frameAutocorr, numCollectedFrames * orderSize);
+	}
+
+	/**
+	 * Computes the predictor for a single frame pair and stores its autocorrelation.
+	 *
+	 * @return <code>true</code> if the frame has a stable predictor
+	 */
+	private static boolean analyzeFrame(short[] audioSamples, int frame, int order, double[] frameAutocorr)
+	{
+		final double threshold = 10.0;
+		final int orderSize = order + 1;
+
+		// the first half of this array holds samples from the previous frame and the second half
+		// holds current frame samples, the first frame is preceded by silence
+		short[] sampleBuffer = new short[FRAME_SIZE * 2];
+		int samplesPos = frame * FRAME_SIZE;
+		if (frame > 0)
+			System.arraycopy(audioSamples, samplesPos - FRAME_SIZE, sampleBuffer, 0, FRAME_SIZE);
+		System.arraycopy(audioSamples, samplesPos, sampleBuffer, FRAME_SIZE, FRAME_SIZE);
+
+		double[][] autocorrMatrix = new double[orderSize][orderSize];
+		double[] autocorr = new double[orderSize];
+		double[] reflection = new double[orderSize];
+
+		// compute autocorrelation vector
+		for (int lag = 0; lag <= order; lag++) {
+			autocorr[lag] = 0.0;
+			for (int j = 0; j < FRAME_SIZE; j++) {
+				// note: unusual sign for autocorrelation calculation
+				autocorr[lag] -= sampleBuffer[FRAME_SIZE + j - lag] * sampleBuffer[FRAME_SIZE + j];
+			}
+		}
+
+		if (Math.abs(autocorr[0]) <= threshold)
+			return false;
+
+		// compute autocorrelation matrix
+		for (int i = 1; i <= order; i++) {
+			for (int j = 1; j <= order; j++) {
+				autocorrMatrix[i][j] = 0.0;
+				for (int k = 0; k < FRAME_SIZE; k++) {
+					autocorrMatrix[i][j] += sampleBuffer[FRAME_SIZE + k - i] * sampleBuffer[FRAME_SIZE + k - j];
+				}
+			}
+		}
+
+		int[] pivotIndices = new int[orderSize];
+
+		// solve linear prediction equations using LU decomposition
+		// in this case (the Yule-Walker equation) Ax = b has the meaning:
+		// A = LU decomposition of autocorrelation matrix
+		// x = predictor values (solving for these)
+		// b = autocorrelation vector
+		if (!luDecomposition(autocorrMatrix, order, pivotIndices))
+			return false;
+
+		// note: after evaluation, frameAutocorr now hold the prediction vector
+		luSolve(autocorrMatrix, order, pivotIndices, autocorr);
+		autocorr[0] = 1.0;
+
+		// convert predictor coefficients to reflection coefficients and check stability
+		if (predictorToReflection(autocorr, reflection, order) != 0)
+			return false;
+
+		// clamp reflection coefficients for numerical stability
+		for (int i = 1; i <= order; i++) {
+			reflection[i] = clamp(reflection[i], -0.9999999999, 0.9999999999);
+		}
+
+		// only the autocorrelation of the predictor is needed for clustering
+		double[] predictor = new double[orderSize];
+		double[] predictorAutocorr = new double[orderSize];
+		reflectionToPredictor(reflection, predictor, order);
+		predictorToAutocorr(predictor, predictorAutocorr, order);
+		System.arraycopy(predictorAutocorr, 0, frameAutocorr, frame * orderSize, orderSize);
+		return true;
+	}
+
 	private static double clamp(double val, double min, double max)
 	{
 		return Math.max(min, Math.min(max, val));
@@ -547,36 +587,38 @@ public class TableDesign
 	}
 
 	/**
-	 * Computes the spectral distance metric between two LPC models, used to measure
-	 * how closely two predictor coefficient sets match in terms of spectral characteristics.
-	 * This metric is used to cluster similar LPC frames during predictor codebook refinement.
+	 * Computes the autocorrelation of a predictor coefficient set, as used by {@link #computeModelDistance}.
 	 *
-	 * @param modelA  The first LPC predictor coefficient set.
-	 * @param modelB  The second LPC predictor coefficient set.
+	 * @param model  The LPC predictor coefficient set.
+	 * @param autocorr  (out) autocorrelation of the coefficients.
 	 * @param order  Prediction order.
-	 * @return Spectral distance between the two LPC models (lower means more similar).
 	 */
-	private static double computeModelDistance(double[] modelA, double[] modelB, int order)
+	private static void modelToAutocorr(double[] model, double[] autocorr, int order)
 	{
-		double[] autocorrA = new double[order + 1];
-		double[] autocorrB = new double[order + 1];
-		double distance;
-
-		// get autocorrelation of modelB using predictor-to-autocorrelation conversion
-		predictorToAutocorr(modelB, autocorrB, order);
-
-		// compute autocorrelation of modelA from predictor coefficients
 		for (int lag = 0; lag <= order; lag++) {
-			autocorrA[lag] = 0.0;
+			autocorr[lag] = 0.0;
 			for (int j = 0; j <= order - lag; j++) {
-				autocorrA[lag] += modelA[j] * modelA[lag + j];
+				autocorr[lag] += model[j] * model[lag + j];
 			}
 		}
+	}
 
-		// compute the distance
-		distance = autocorrA[0] * autocorrB[0];
+	/**
+	 * Computes the spectral distance metric between two LPC models, used to measure
+	 * how closely two predictor coefficient sets match in terms of spectral characteristics.
+	 * This metric is used to cluster similar LPC frames during predictor codebook refinement.
+	 *
+	 * @param autocorrA  The first LPC model, from {@link #modelToAutocorr}.
+	 * @param autocorrB  Packed autocorrelation sequences of the second LPC models, from {@link #predictorToAutocorr}.
+	 * @param offsetB  Start of the second model in {@code autocorrB}.
+	 * @param order  Prediction order.
+	 * @return Spectral distance between the two LPC models (lower means more similar).
+	 */
+	private static double computeModelDistance(double[] autocorrA, double[] autocorrB, int offsetB, int order)
+	{
+		double distance = autocorrA[0] * autocorrB[offsetB];
 		for (int i = 1; i <= order; i++) {
-			distance += 2 * autocorrB[i] * autocorrA[i];
+			distance += 2 * autocorrB[offsetB + i] * autocorrA[i];
 		}
 
 		return distance;
@@ -598,22 +640,29 @@ public class TableDesign
 	 *   <li>These updated coefficients replace the original predictor vectors in the codebook.</li>
 	 * </ol>
 	 * These steps repeat for a specified number of iterations, progressively refining the predictor codebook.
+	 * Matching is done in parallel for long inputs, while clusters are summed in input order.
 	 *
 	 * @param codebook  Predictor codebook (LPC coefficients) to be refined.
 	 * @param order  Prediction order.
 	 * @param npredictors  Number of predictors in the codebook.
-	 * @param inputPredictors  LPC coefficient vectors derived from input audio frames.
+	 * @param inputAutocorr  Packed autocorrelation of the LPC vectors derived from input audio frames.
 	 * @param numInputVectors  Number of LPC vectors provided as input data.
 	 * @param refineIters  Number of refinement iterations to perform.
 	 */
-	private static void refine(double[][] codebook, int order, int npredictors, double[][] inputPredictors, int numInputVectors, int refineIters)
+	private static void refine(double[][] codebook, int order, int npredictors, double[] inputAutocorr, int numInputVectors, int refineIters)
 	{
+		final int orderSize = order + 1;
+
 		// accumulated reflection coefficients per predictor
-		double[][] avgReflectionCoeffs = new double[npredictors][order + 1];
+		double[][] avgReflectionCoeffs = new double[npredictors][orderSize];
 
 		// number of matches per predictor
 		int[] predictorMatches = new int[npredictors];
 
+		double[][] codebookAutocorr = new double[npredictors][orderSize];
+		int[] closest = new int[numInputVectors];
+		double[] reflection = new double[orderSize];
+
 		for (int iter = 0; iter < refineIters; iter++) {
 			// reset accumulators for this iteration
 			for (int i = 0; i < npredictors; i++) {
@@ -621,30 +670,33 @@ public class TableDesign
 				for (int j = 0; j <= order; j++) {
 					avgReflectionCoeffs[i][j] = 0.0;
 				}
+				modelToAutocorr(codebook[i], codebookAutocorr[i], order);
 			}
 
-			// temporary reflection coefficients for current vector
-			double[] reflection = new double[order + 1];
-
-			// cluster each LPC vector in the data to the nearest predictor
-			for (int frame = 0; frame < numInputVectors; frame++) {
+			// find predictor vector closest to each data vector
+			IntStream frames = IntStream.range(0, numInputVectors);
+			if (numInputVectors >= MIN_PARALLEL_FRAMES)
+				frames = frames.parallel();
+			frames.forEach((frame) -> {
 				double closestValue = Double.MAX_VALUE;
 				int closestIndex = 0;
 
-				// find predictor vector closest to current data vector
 				for (int p = 0; p < npredictors; p++) {
-					double dist = computeModelDistance(codebook[p], inputPredictors[frame], order);
+					double dist = computeModelDistance(codebookAutocorr[p], inputAutocorr, frame * orderSize, order);
 					if (dist < closestValue) {
 						closestValue = dist;
 						closestIndex = p;
 					}
 				}
+				closest[frame] = closestIndex;
+			});
 
-				// accumulate reflection coefficients of matched LPC vector
+			// accumulate reflection coefficients of matched LPC vectors
+			for (int frame = 0; frame < numInputVectors; frame++) {
+				int closestIndex = closest[frame];
 				predictorMatches[closestIndex]++;
-				predictorToAutocorr(inputPredictors[frame], reflection, order);
 				for (int j = 0; j <= order; j++) {
-					avgReflectionCoeffs[closestIndex][j] += reflection[j];
+					avgReflectionCoeffs[closestIndex][j] += inputAutocorr[frame * orderSize + j];
 				}
 			}
 
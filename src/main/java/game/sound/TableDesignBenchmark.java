@@ -0,0 +1,51 @@
+package game.sound;
+
+import java.util.Random;
+
+/**
+ * Times {@link TableDesign#makeTable(short[], int, int)} on a long synthetic sample, as produced
+ * when a full-length instrument is encoded with a 4-predictor codebook.
+ * Usage: TableDesignBenchmark [seconds]
+ */
+public class TableDesignBenchmark
+{
+	private static final int WARMUP = 3;
+	private static final int ITERATIONS = 10;
+	private static final int SAMPLE_RATE = 32000;
+	private static final int POW = 2;
+
+	public static void main(String[] args)
+	{
+		double seconds = (args.length > 0) ? Double.parseDouble(args[0]) : 30.0;
+		short[] samples = makeSamples((int) (seconds * SAMPLE_RATE));
+
+		for (int i = 0; i < WARMUP; i++)
+			TableDesign.makeTable(samples, VADPCM.ORDER, POW);
+
+		long bestTime = Long.MAX_VALUE;
+		long totalTime = 0;
+		for (int i = 0; i < ITERATIONS; i++) {
+			long t0 = System.nanoTime();
+			TableDesign.makeTable(samples, VADPCM.ORDER, POW);
+			long t1 = System.nanoTime();
+			bestTime = Math.min(bestTime, t1 - t0);
+			totalTime += t1 - t0;
+		}
+
+		System.out.printf("Samples: %d (%.1f s)%n", samples.length, seconds);
+		System.out.printf("Average: %8.3f ms%n", totalTime * 1e-6 / ITERATIONS);
+		System.out.printf("Best:    %8.3f ms%n", bestTime * 1e-6);
+	}
+
+	private static short[] makeSamples(int count)
+	{
+		Random rng = new Random(0x5EED);
+		short[] samples = new short[count];
+		double phase = 0.0;
+		for (int i = 0; i < count; i++) {
+			phase += 0.02 + 0.08 * rng.nextDouble();
+			samples[i] = (short) (Math.sin(phase) * 12000 + Math.sin(phase * 3.1) * 4000 + rng.nextGaussian() * 800);
+		}
+		return samples;
+	}
+}
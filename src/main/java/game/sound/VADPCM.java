@@ -1,11 +1,8 @@
 package game.sound;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.List;
 
 import util.DynamicByteBuffer;
-import util.Logger;
 
 public class VADPCM
 {
@@ -61,15 +58,27 @@ public class VADPCM
 		}
 	}
 
-	public static ArrayList<Short> decode(ByteBuffer bb, CodeBook book, int pos, int length)
+	/**
+	 * Decodes a stream of VADPCM frames one at a time, so samples can be consumed as they are
+	 * produced rather than collected up front.
+	 */
+	public static class Decoder
 	{
-		ArrayList<Short> samples = new ArrayList<>();
+		private final CodeBook book;
+		private final int[] state = new int[16];
+		private final int[] rawSamples = new int[16];
+		private final int[] inVec = new int[16];
 
-		int numFrames = length / FRAME_LENGTH;
-		int[] state = new int[16];
+		public Decoder(CodeBook book)
+		{
+			this.book = book;
+		}
 
-		bb.position(pos);
-		for (int frame = 0; frame < numFrames; frame++) {
+		/**
+		 * Reads one frame from <code>bb</code> and writes its 16 samples to <code>out</code>.
+		 */
+		public void decodeFrame(ByteBuffer bb, short[] out, int offset)
+		{
 			// read frame header byte
 			int header = bb.get() & 0xFF;
 
@@ -80,8 +89,6 @@ public class VADPCM
 			if (bestPred >= book.numPred)
 				bestPred = Math.min(bestPred, book.numPred - 1);
 
-			int[] rawSamples = new int[16];
-
 			// read frame sample bytes
 			for (int i = 0; i < 8; i++) {
 				int v = bb.get() & 0xFF;
@@ -103,8 +110,6 @@ public class VADPCM
 			}
 
 			for (int j = 0; j < 2; j++) {
-				int[] inVec = new int[16];
-
 				if (j == 0)
 					System.arraycopy(state, 16 - ORDER, inVec, 0, ORDER);
 				else
@@ -117,10 +122,20 @@ public class VADPCM
 				}
 			}
 
-			for (int i : state) {
-				samples.add((short) i);
-			}
+			for (int i = 0; i < 16; i++)
+				out[offset + i] = (short) state[i];
 		}
+	}
+
+	public static short[] decode(ByteBuffer bb, CodeBook book, int pos, int length)
+	{
+		int numFrames = length / FRAME_LENGTH;
+		short[] samples = new short[numFrames * 16];
+
+		Decoder decoder = new Decoder(book);
+		bb.position(pos);
+		for (int frame = 0; frame < numFrames; frame++)
+			decoder.decodeFrame(bb, samples, frame * 16);
 
 		return samples;
 	}
@@ -138,64 +153,101 @@ public class VADPCM
 	}
 
 	/**
-	 * Encodes raw audio samples using VADPCM.
-	 *
-	 * @param samples Raw audio samples.
-	 * @param book    Precomputed predictor codebook.
-	 * @return ByteBuffer containing encoded VADPCM audio.
+	 * Encodes a stream of samples into VADPCM frames one at a time.
 	 */
-	public static EncodeData encode(List<Short> samples, CodeBook book, int loopStart)
+	public static class Encoder
 	{
-		int numSamples = samples.size();
-		int encodedSize = 9 * (1 + (numSamples / 16)); // 16 samples -> 9
-
-		// output
-		ByteBuffer encoded = ByteBuffer.allocateDirect(encodedSize);
-		short[] loopState = new short[16];
-
-		int[] predCount = new int[book.numPred];
+		private final CodeBook book;
+		private final int loopStart;
+		private final short[] loopState = new short[16];
+		private final int[] predCount;
 
 		// state
-		short[] buffer = new short[16];
-		int[] state = new int[16];
-		int pos = 0;
+		private final short[] buffer = new short[16];
+		private final int[] state = new int[16];
+		private int pos = 0;
+
+		// scratch space for encodeFrame
+		private final short[] ix = new short[16];
+		private final int[] prediction = new int[16];
+		private final int[] inVec = new int[16];
+		private final int[] saveState = new int[16];
+		private final float[] error = new float[16];
+		private final int[] ie = new int[16];
+
+		/**
+		 * @param loopStart - index of the first sample of the loop, or zero if there is none
+		 */
+		public Encoder(CodeBook book, int loopStart)
+		{
+			this.book = book;
+			this.loopStart = loopStart;
+			this.predCount = new int[book.numPred];
+		}
 
-		while (pos < numSamples) {
+		/**
+		 * Encodes up to 16 samples as one frame, padding a short frame with silence.
+		 */
+		public void encodeFrame(short[] samples, int offset, int count, ByteBuffer out)
+		{
 			int frameStart = pos;
-			int remaining = Math.min(16, numSamples - pos);
 
 			// load frame samples into buffer; pad with zeros if necessary
-			if (numSamples - pos >= remaining) {
-				for (int i = 0; i < remaining; i++) {
-					buffer[i] = samples.get(pos);
-					pos++;
-				}
-				for (int i = remaining; i < 16; i++) {
-					buffer[i] = 0;
-				}
-
-				encodeFrame(encoded, book, buffer, state, predCount);
-
-				// The decoder restarts an unaligned loop from the reconstructed frame containing its first sample.
-				if (loopStart > 0 && loopStart >= frameStart && loopStart < frameStart + 16) {
-					for (int i = 0; i < 16; i++) {
-						if (state[i] > Short.MAX_VALUE)
-							loopState[i] = Short.MAX_VALUE;
-						else if (state[i] < Short.MIN_VALUE)
-							loopState[i] = Short.MIN_VALUE;
-						else
-							loopState[i] = (short) state[i];
-					}
-				}
+			System.arraycopy(samples, offset, buffer, 0, count);
+			for (int i = count; i < 16; i++) {
+				buffer[i] = 0;
 			}
-			else {
-				Logger.logError("Missed a frame!");
+			pos += count;
+
+			VADPCM.encodeFrame(out, book, buffer, state, predCount, ix, prediction, inVec, saveState, error, ie);
+
+			// The decoder restarts an unaligned loop from the reconstructed frame containing its first sample.
+			if (loopStart > 0 && loopStart >= frameStart && loopStart < frameStart + 16) {
+				for (int i = 0; i < 16; i++) {
+					if (state[i] > Short.MAX_VALUE)
+						loopState[i] = Short.MAX_VALUE;
+					else if (state[i] < Short.MIN_VALUE)
+						loopState[i] = Short.MIN_VALUE;
+					else
+						loopState[i] = (short) state[i];
+				}
 			}
+		}
 
+		/**
+		 * @return the decoder state at the start of the loop, all zeros until that frame is encoded
+		 */
+		public short[] getLoopState()
+		{
+			return loopState;
 		}
+	}
+
+	public static int getEncodedSize(int numSamples)
+	{
+		return FRAME_LENGTH * (1 + (numSamples / 16)); // 16 samples -> 9
+	}
+
+	/**
+	 * Encodes raw audio samples using VADPCM.
+	 *
+	 * @param samples Raw audio samples.
+	 * @param book    Precomputed predictor codebook.
+	 * @return ByteBuffer containing encoded VADPCM audio.
+	 */
+	public static EncodeData encode(short[] samples, CodeBook book, int loopStart)
+	{
+		int numSamples = samples.length;
+
+		// output
+		ByteBuffer encoded = ByteBuffer.allocateDirect(getEncodedSize(numSamples));
+
+		Encoder encoder = new Encoder(book, loopStart);
+		for (int pos = 0; pos < numSamples; pos += 16)
+			encoder.encodeFrame(samples, pos, Math.min(16, numSamples - pos), encoded);
 
 		encoded.flip();
-		return new EncodeData(encoded, loopState);
+		return new EncodeData(encoded, encoder.getLoopState());
 	}
 
 	/**
@@ -209,16 +261,16 @@ public class VADPCM
 	 * @param buffer     Input audio samples for the current frame.
 	 * @param state      Current encoder state.
 	 * @param predCount  Not required by the algorithm, just available for accounting.
+	 * @param ix         Scratch space for quantized samples, reused between frames.
+	 * @param prediction Scratch space, reused between frames.
+	 * @param inVec      Scratch space, reused between frames.
+	 * @param saveState  Scratch space, reused between frames.
+	 * @param error      Scratch space, reused between frames.
+	 * @param ie         Scratch space, reused between frames.
 	 */
-	private static void encodeFrame(ByteBuffer out, CodeBook book, short[] buffer, int[] state, int[] predCount)
+	private static void encodeFrame(ByteBuffer out, CodeBook book, short[] buffer, int[] state, int[] predCount,
+		short[] ix, int[] prediction, int[] inVec, int[] saveState, float[] error, int[] ie)
 	{
-		short[] ix = new short[16];
-		int[] prediction = new int[16];
-		int[] inVec = new int[16];
-		int[] saveState = new int[16];
-		float[] error = new float[16];
-		int[] ie = new int[16];
-
 		int encBits = 4;
 		int llevel = -(1 << (encBits - 1));
 		int ulevel = -llevel - 1;
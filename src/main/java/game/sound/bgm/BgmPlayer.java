@@ -73,6 +73,7 @@ public class BgmPlayer implements AudioClient, PlaybackSession
 	private static final int PROXIMITY_MIX_FADE_TICKS = 144;
 	private static final int PROXIMITY_OVERRIDE_FADE_TICKS = 72;
 	private static final int MAX_TIMELINE_FRAMES = 30 * 60 * AudioEngine.OUTPUT_RATE / AudioEngine.FRAME_SAMPLES;
+	private static final int CHECKPOINT_INTERVAL = 2 * AudioEngine.OUTPUT_RATE / AudioEngine.FRAME_SAMPLES;
 	private static final int[] CUSTOM_ENV_TIMES = {
 			0x5E, 0x5D, 0x5C, 0x5B, 0x5A, 0x58, 0x56, 0x53,
 			0x51, 0x4F, 0x4A, 0x45, 0x40, 0x3B, 0x37, 0x35,
@@ -96,6 +97,9 @@ public class BgmPlayer implements AudioClient, PlaybackSession
 	private final int[][] customPressEnvelopes = new int[8][18];
 	private final int[] customEnvelopeWritePos = new int[8];
 	private final int[] effectValues = new int[AudioEngine.NUM_EFFECT_BUSES];
+	private final EffectPreset[] busPresets = new EffectPreset[AudioEngine.NUM_EFFECT_BUSES];
+	private final int[] stereoDelaySides = new int[AudioEngine.NUM_EFFECT_BUSES];
+	private final int[] stereoDelayLengths = new int[AudioEngine.NUM_EFFECT_BUSES];
 
 	private Song selectedSong;
 	private Song currentSong;
@@ -131,6 +135,11 @@ public class BgmPlayer implements AudioClient, PlaybackSession
 	private int writingCustomEnvelope;
 	private Listener listener;
 
+	// snapshots of the fast-forwarded timeline, one every CHECKPOINT_INTERVAL frames
+	private final List<Checkpoint> checkpoints = new ArrayList<>();
+	private CheckpointKey checkpointKey;
+	private boolean linearTimeline;
+
 	public BgmPlayer(AudioEngine engine, SoundBank bank)
 	{
 		this.engine = engine;
@@ -140,6 +149,7 @@ public class BgmPlayer implements AudioClient, PlaybackSession
 			tracks[i] = new BgmTrackPlayer(i);
 		for (int i = 0; i < compLoops.length; i++)
 			compLoops[i] = new LoopState();
+		Arrays.fill(busPresets, EffectPreset.NONE);
 	}
 
 	@Override
@@ -179,6 +189,8 @@ public class BgmPlayer implements AudioClient, PlaybackSession
 
 		selectedSong = song;
 		this.compositionIndex = compositionIndex;
+		checkpoints.clear();
+		checkpointKey = null;
 		engine.resetRenderState();
 		duration = calculateDuration(song);
 		restart();
@@ -188,7 +200,7 @@ public class BgmPlayer implements AudioClient, PlaybackSession
 	public void stop()
 	{
 		clearActivePlayback();
-		engine.resetEffects();
+		resetEffects();
 	}
 
 	@Override
@@ -313,6 +325,10 @@ public class BgmPlayer implements AudioClient, PlaybackSession
 
 		boolean wasPaused = paused;
 		beginPlayback(selectedSong);
+		Checkpoint checkpoint = findCheckpoint(seekTime);
+		if (checkpoint != null)
+			checkpoint.restore();
+
 		engine.prepareForSeek();
 		while (currentSong != null && getTime() < seekTime)
 			engine.renderFrame(AudioEngine.MIXER_BLOCK_TIME, true);
@@ -331,6 +347,12 @@ public class BgmPlayer implements AudioClient, PlaybackSession
 		if (currentSong == null || paused)
 			return;
 
+		// only a timeline fast-forwarded from the beginning can be restored by seekTime
+		if (!fastForward)
+			linearTimeline = false;
+		else if (linearTimeline && currentTime >= getLastCheckpointTime() + CHECKPOINT_INTERVAL)
+			checkpoints.add(new Checkpoint());
+
 		frameCounter++;
 		randomValue1 = (randomValue1 & 0xFFFF) + (currentTime & 0xFFFF) + (frameCounter & 0xFFFF);
 		randomValue2 = (randomValue2 & 0xFFFF) + ((currentTime << 4) & 0xFFFF) + ((frameCounter >> 4) & 0xFFFF);
@@ -382,6 +404,14 @@ public class BgmPlayer implements AudioClient, PlaybackSession
 		if (composition == null)
 			return;
 
+		// the proximity mix selects branches, so each mix has its own timeline
+		CheckpointKey key = new CheckpointKey(song, compositionIndex, proximityMixID, proximityMixVolume, proximityMixInstant);
+		if (!key.equals(checkpointKey)) {
+			checkpoints.clear();
+			checkpointKey = key;
+		}
+		linearTimeline = true;
+
 		currentSong = song;
 		maximumTempo = calculateMaximumTempo(song);
 		compCommands = composition.getCommands();
@@ -413,10 +443,51 @@ public class BgmPlayer implements AudioClient, PlaybackSession
 			track.reset();
 		if (proximityMixID != 0 || proximityMixVolume != 0)
 			markProximityMixChanged(proximityMixID != 0);
-		engine.resetEffects();
+		resetEffects();
 		advanceComposition(false);
 	}
 
+	private int getLastCheckpointTime()
+	{
+		return checkpoints.isEmpty() ? 0 : checkpoints.get(checkpoints.size() - 1).currentTime;
+	}
+
+	/**
+	 * @return the latest checkpoint at or before the given sample time, or null if there is none
+	 */
+	private Checkpoint findCheckpoint(int seekTime)
+	{
+		// checkpoints are recorded at every multiple of the interval, so start from the expected index
+		int seekFrame = seekTime / AudioEngine.FRAME_SAMPLES;
+		int index = Math.min(checkpoints.size(), seekFrame / CHECKPOINT_INTERVAL) - 1;
+		while (index >= 0 && checkpoints.get(index).currentTime > seekFrame)
+			index--;
+		return (index < 0) ? null : checkpoints.get(index);
+	}
+
+	private void resetEffects()
+	{
+		Arrays.fill(busPresets, EffectPreset.NONE);
+		Arrays.fill(stereoDelaySides, 0);
+		Arrays.fill(stereoDelayLengths, 0);
+		engine.resetEffects();
+	}
+
+	private void setEffectPreset(int bus, EffectPreset preset)
+	{
+		busPresets[bus] = preset;
+		engine.setEffectPreset(bus, preset);
+	}
+
+	private void setStereoDelay(int bus, int side, int length)
+	{
+		if (bus < 0 || bus >= stereoDelaySides.length)
+			return;
+		stereoDelaySides[bus] = side;
+		stereoDelayLengths[bus] = length;
+		engine.setStereoDelay(bus, side, length);
+	}
+
 	private void markProximityMixChanged(boolean mixChanged)
 	{
 		for (BgmTrackPlayer track : tracks) {
@@ -789,6 +860,43 @@ public class BgmPlayer implements AudioClient, PlaybackSession
 			muted = false;
 		}
 
+		private void copyFrom(BgmTrackPlayer other)
+		{
+			enabled = other.enabled;
+			isDrum = other.isDrum;
+			muted = other.muted;
+			linkedIndex = other.linkedIndex;
+			polyphonicIndex = other.polyphonicIndex;
+			polyphony = other.polyphony;
+			voiceOwner = other.voiceOwner;
+			stream = other.stream;
+			pos = other.pos;
+			delay = other.delay;
+			returns.clear();
+			returns.addAll(other.returns);
+
+			instrumentVolume.copyFrom(other.instrumentVolume);
+			instrument = other.instrument;
+			envelope = other.envelope;
+			pan = other.pan;
+			reverb = other.reverb;
+			trackVolume = other.trackVolume;
+			coarseTune = other.coarseTune;
+			fineTune = other.fineTune;
+			trackDetune = other.trackDetune;
+			randomPan = other.randomPan;
+			tremoloDelay = other.tremoloDelay;
+			tremoloRate = other.tremoloRate;
+			tremoloDepth = other.tremoloDepth;
+			pressOverride = other.pressOverride;
+			effectBus = other.effectBus;
+			proximityVolume.copyFrom(other.proximityVolume);
+			proximityMixChanged = other.proximityMixChanged;
+			proximityValueChanged = other.proximityValueChanged;
+			proxVol1 = other.proxVol1;
+			proxVol2 = other.proxVol2;
+		}
+
 		private void load(Track track)
 		{
 			enabled = true;
@@ -869,7 +977,7 @@ public class BgmPlayer implements AudioClient, PlaybackSession
 				masterPitchShift = cmd.cents * 100;
 			}
 			else if (command instanceof SetBusEffect cmd) {
-				engine.setEffectPreset(0, effectPreset(cmd.effectType));
+				setEffectPreset(0, effectPreset(cmd.effectType));
 			}
 			else if (command instanceof MasterTempoLerp cmd) {
 				masterTempo.set(cmd.time, tempo(cmd.bpm));
@@ -880,7 +988,7 @@ public class BgmPlayer implements AudioClient, PlaybackSession
 			else if (command instanceof SetMasterEffect cmd) {
 				if (cmd.index >= 0 && cmd.index < AudioEngine.NUM_EFFECT_BUSES
 					&& effectValues[cmd.index] != cmd.value) {
-					engine.setEffectPreset(cmd.index, effectPreset(cmd.value));
+					setEffectPreset(cmd.index, effectPreset(cmd.value));
 					effectValues[cmd.index] = cmd.value;
 				}
 			}
@@ -950,7 +1058,7 @@ public class BgmPlayer implements AudioClient, PlaybackSession
 			}
 			else if (command instanceof SetStereoDelay cmd) {
 				if (cmd.index < AudioEngine.NUM_EFFECT_BUSES)
-					engine.setStereoDelay(cmd.index, cmd.side, cmd.length);
+					setStereoDelay(cmd.index, cmd.side, cmd.length);
 			}
 			else if (command instanceof SeekCustomEnv cmd) {
 				if (cmd.index >= 1 && cmd.index <= customPressEnvelopes.length) {
@@ -1213,6 +1321,26 @@ public class BgmPlayer implements AudioClient, PlaybackSession
 			this.drum = track.isDrum;
 		}
 
+		private BgmVoice(BgmVoice other)
+		{
+			super(other);
+			track = other.track;
+			owner = other.owner;
+			instrument = other.instrument;
+			drum = other.drum;
+			pendingTick = other.pendingTick;
+			length = other.length;
+			velocity = other.velocity;
+			baseDetune = other.baseDetune;
+			randomDetune = other.randomDetune;
+			drumVolume = other.drumVolume;
+			pan = other.pan;
+			reverb = other.reverb;
+			tremoloDepth = other.tremoloDepth;
+			tremoloDelay = other.tremoloDelay;
+			tremoloPhase = other.tremoloPhase;
+		}
+
 		private void start(int length, EnvelopePair envelope, boolean fastForward)
 		{
 			this.length = length;
@@ -1275,6 +1403,147 @@ public class BgmPlayer implements AudioClient, PlaybackSession
 		}
 	}
 
+	private record CheckpointKey(Song song, int compositionIndex, int mixID, int mixVolume, boolean mixInstant)
+	{}
+
+	/**
+	 * Complete sequencer state at the start of a frame, including the voices it owns.
+	 * Restoring a checkpoint and fast-forwarding from it gives the same state as
+	 * fast-forwarding from the beginning of the composition.
+	 */
+	private final class Checkpoint
+	{
+		private final int compPos;
+		private final int[] compLoopStartPos;
+		private final LoopState[] compLoops;
+		private final int compLoopDepth;
+
+		private final Lerp masterTempo;
+		private final Lerp masterVolume;
+		private final int masterPitchShift;
+		private final int detune;
+		private final double tickAccumulator;
+
+		private final int timelineLoopCount;
+		private final int frameCounter;
+		private final int randomValue1;
+		private final int randomValue2;
+		private final int currentTime;
+		private final boolean initLinkMute;
+
+		private final int writingCustomEnvelope;
+		private final int[][] customPressEnvelopes;
+		private final int[] customEnvelopeWritePos;
+		private final int[] effectValues;
+		private final EffectPreset[] busPresets;
+		private final int[] stereoDelaySides;
+		private final int[] stereoDelayLengths;
+
+		private final BgmTrackPlayer[] tracks;
+		private final List<BgmVoice> voices;
+
+		private Checkpoint()
+		{
+			BgmPlayer player = BgmPlayer.this;
+
+			compPos = player.compPos;
+			compLoopStartPos = player.compLoopStartPos.clone();
+			compLoops = new LoopState[player.compLoops.length];
+			for (int i = 0; i < compLoops.length; i++) {
+				compLoops[i] = new LoopState();
+				compLoops[i].copyFrom(player.compLoops[i]);
+			}
+			compLoopDepth = player.compLoopDepth;
+
+			masterTempo = new Lerp(player.masterTempo);
+			masterVolume = new Lerp(player.masterVolume);
+			masterPitchShift = player.masterPitchShift;
+			detune = player.detune;
+			tickAccumulator = player.tickAccumulator;
+
+			timelineLoopCount = player.timelineLoopCount;
+			frameCounter = player.frameCounter;
+			randomValue1 = player.randomValue1;
+			randomValue2 = player.randomValue2;
+			currentTime = player.currentTime;
+			initLinkMute = player.initLinkMute;
+
+			writingCustomEnvelope = player.writingCustomEnvelope;
+			customPressEnvelopes = new int[player.customPressEnvelopes.length][];
+			for (int i = 0; i < customPressEnvelopes.length; i++)
+				customPressEnvelopes[i] = player.customPressEnvelopes[i].clone();
+			customEnvelopeWritePos = player.customEnvelopeWritePos.clone();
+			effectValues = player.effectValues.clone();
+			busPresets = player.busPresets.clone();
+			stereoDelaySides = player.stereoDelaySides.clone();
+			stereoDelayLengths = player.stereoDelayLengths.clone();
+
+			tracks = new BgmTrackPlayer[player.tracks.length];
+			for (int i = 0; i < tracks.length; i++) {
+				tracks[i] = new BgmTrackPlayer(i);
+				tracks[i].copyFrom(player.tracks[i]);
+			}
+
+			voices = new ArrayList<>(player.voices.size());
+			for (BgmVoice voice : player.voices) {
+				if (!voice.isDone())
+					voices.add(new BgmVoice(voice));
+			}
+		}
+
+		/**
+		 * Must follow {@link BgmPlayer#beginPlayback}, which selects the song and composition.
+		 */
+		private void restore()
+		{
+			BgmPlayer player = BgmPlayer.this;
+
+			for (BgmVoice voice : player.voices)
+				voice.kill();
+			player.voices.clear();
+
+			player.compPos = compPos;
+			System.arraycopy(compLoopStartPos, 0, player.compLoopStartPos, 0, compLoopStartPos.length);
+			for (int i = 0; i < compLoops.length; i++)
+				player.compLoops[i].copyFrom(compLoops[i]);
+			player.compLoopDepth = compLoopDepth;
+
+			player.masterTempo.copyFrom(masterTempo);
+			player.masterVolume.copyFrom(masterVolume);
+			player.masterPitchShift = masterPitchShift;
+			player.detune = detune;
+			player.tickAccumulator = tickAccumulator;
+
+			player.timelineLoopCount = timelineLoopCount;
+			player.frameCounter = frameCounter;
+			player.randomValue1 = randomValue1;
+			player.randomValue2 = randomValue2;
+			player.currentTime = currentTime;
+			player.initLinkMute = initLinkMute;
+
+			player.writingCustomEnvelope = writingCustomEnvelope;
+			for (int i = 0; i < customPressEnvelopes.length; i++)
+				System.arraycopy(customPressEnvelopes[i], 0, player.customPressEnvelopes[i], 0, customPressEnvelopes[i].length);
+			System.arraycopy(customEnvelopeWritePos, 0, player.customEnvelopeWritePos, 0, customEnvelopeWritePos.length);
+			System.arraycopy(effectValues, 0, player.effectValues, 0, effectValues.length);
+
+			player.resetEffects();
+			for (int i = 0; i < busPresets.length; i++) {
+				player.setEffectPreset(i, busPresets[i]);
+				player.setStereoDelay(i, stereoDelaySides[i], stereoDelayLengths[i]);
+			}
+
+			for (int i = 0; i < tracks.length; i++)
+				player.tracks[i].copyFrom(tracks[i]);
+
+			for (BgmVoice snapshot : voices) {
+				BgmVoice voice = new BgmVoice(snapshot);
+				player.voices.add(voice);
+				engine.addVoice(voice);
+			}
+		}
+	}
+
 	private static final class StreamCursor
 	{
 		private final CommandStream stream;
@@ -1299,6 +1568,13 @@ public class BgmPlayer implements AudioClient, PlaybackSession
 			endPos = 0;
 			remaining = 0;
 		}
+
+		private void copyFrom(LoopState other)
+		{
+			active = other.active;
+			endPos = other.endPos;
+			remaining = other.remaining;
+		}
 	}
 
 	private static final class Lerp
@@ -1313,6 +1589,19 @@ public class BgmPlayer implements AudioClient, PlaybackSession
 			setImmediate(current);
 		}
 
+		private Lerp(Lerp other)
+		{
+			copyFrom(other);
+		}
+
+		private void copyFrom(Lerp other)
+		{
+			current = other.current;
+			goal = other.goal;
+			step = other.step;
+			time = other.time;
+		}
+
 		private void setImmediate(float value)
 		{
 			current = value;
@@ -30,7 +30,7 @@ import util.xml.XmlWrapper.XmlWriter;
 
 public class Song implements XmlSerializable
 {
-	private static final int NUM_COMPOSITIONS = 4;
+	public static final int NUM_COMPOSITIONS = 4;
 
 	private static final int[] TIMING_PRESET_MAP = {
 			48, 24, 32, 40,
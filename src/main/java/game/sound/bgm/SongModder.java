@@ -107,26 +107,35 @@ public abstract class SongModder
 		SoundBankCatalog catalog = SoundBankCatalog.loadMod();
 		Collection<File> files = IOUtils.getFilesWithExtension(MOD_AUDIO_BGM, "xml", false);
 		for (File f : files) {
-			String filename = FilenameUtils.getBaseName(f.getName());
-			String outputName = filename + ".bgm";
-			if (AudioModder.hasOverride(outputName)) {
-				Logger.log("Using audio override for " + outputName);
-				continue;
-			}
+			buildSong(f, catalog);
+		}
+	}
 
-			Logger.log("Building " + f.getName());
+	/**
+	 * Builds a single BGM file into the audio build directory.
+	 * @param catalog  Sound banks of the mod, the banks assigned to this song are added from the song list.
+	 */
+	public static void buildSong(File xmlFile, SoundBankCatalog catalog) throws IOException
+	{
+		String filename = FilenameUtils.getBaseName(xmlFile.getName());
+		String outputName = filename + ".bgm";
+		if (AudioModder.hasOverride(outputName)) {
+			Logger.log("Using audio override for " + outputName);
+			return;
+		}
 
-			SoundBankCatalog songCatalog = catalog.withSongBanks(
-				MOD_AUDIO.getFile(FN_AUDIO_SONGS), outputName);
-			Song song = new Song();
-			song.setSoundBankCatalog(songCatalog);
+		Logger.log("Building " + xmlFile.getName());
 
-			XmlReader xmr = new XmlReader(f);
-			song.fromXML(xmr, xmr.getRootElement());
+		SoundBankCatalog songCatalog = catalog.withSongBanks(
+			MOD_AUDIO.getFile(FN_AUDIO_SONGS), outputName);
+		Song song = new Song();
+		song.setSoundBankCatalog(songCatalog);
 
-			File outFile = MOD_AUDIO_BUILD.getFile(outputName);
-			song.build(outFile);
-		}
+		XmlReader xmr = new XmlReader(xmlFile);
+		song.fromXML(xmr, xmr.getRootElement());
+
+		File outFile = MOD_AUDIO_BUILD.getFile(outputName);
+		song.build(outFile);
 	}
 
 	public static void validateAll() throws IOException
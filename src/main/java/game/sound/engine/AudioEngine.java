@@ -56,6 +56,7 @@ public class AudioEngine
 
 	private float[] mixedBufferL;
 	private float[] mixedBufferR;
+	private float[] voiceBuffer;
 
 	private byte[] outBuffer;
 
@@ -111,6 +112,7 @@ public class AudioEngine
 
 		mixedBufferL = new float[FRAME_SAMPLES];
 		mixedBufferR = new float[FRAME_SAMPLES];
+		voiceBuffer = new float[FRAME_SAMPLES];
 
 		outBuffer = new byte[FRAME_SAMPLES * BYTES_PER_SAMPLE];
 	}
@@ -257,27 +259,23 @@ public class AudioEngine
 			// mix voices
 			for (Voice v : voices) {
 				int bus = v.getEffectBus();
-				v.renderInto(dryBufferL[bus], dryBufferR[bus], wetBufferL[bus], wetBufferR[bus]);
+				v.renderInto(voiceBuffer, dryBufferL[bus], dryBufferR[bus], wetBufferL[bus], wetBufferR[bus]);
 			}
 
 			// process effects
 			for (int i = 0; i < NUM_EFFECT_BUSES; i++) {
 				effectBuses[i].renderInto(wetBufferL[i], wetBufferR[i]);
-				for (int j = 0; j < FRAME_SAMPLES; j++) {
-					dryBufferL[i][j] += wetBufferL[i][j];
-					dryBufferR[i][j] += wetBufferR[i][j];
-				}
+				addInto(dryBufferL[i], wetBufferL[i]);
+				addInto(dryBufferR[i], wetBufferR[i]);
 				stereoDelays[i].process(dryBufferL[i], dryBufferR[i]);
 			}
 
-			// final mixdown for output samples
-			for (int i = 0; i < FRAME_SAMPLES; i++) {
-				mixedBufferL[i] = 0.0f;
-				mixedBufferR[i] = 0.0f;
-				for (int j = 0; j < NUM_EFFECT_BUSES; j++) {
-					mixedBufferL[i] += dryBufferL[j][i];
-					mixedBufferR[i] += dryBufferR[j][i];
-				}
+			// final mixdown for output samples, one bus at a time
+			System.arraycopy(dryBufferL[0], 0, mixedBufferL, 0, FRAME_SAMPLES);
+			System.arraycopy(dryBufferR[0], 0, mixedBufferR, 0, FRAME_SAMPLES);
+			for (int j = 1; j < NUM_EFFECT_BUSES; j++) {
+				addInto(mixedBufferL, dryBufferL[j]);
+				addInto(mixedBufferR, dryBufferR[j]);
 			}
 
 			processed += FRAME_SAMPLES;
@@ -301,6 +299,12 @@ public class AudioEngine
 		}
 	}
 
+	private static void addInto(float[] out, float[] in)
+	{
+		for (int i = 0; i < FRAME_SAMPLES; i++)
+			out[i] += in[i];
+	}
+
 	public void prepareForSeek()
 	{
 		padLine(0.050);
@@ -263,6 +263,23 @@ public class Envelope implements XmlSerializable
 			phase = EnvelopePhase.INIT;
 		}
 
+		EnvelopePlayer(EnvelopePlayer other)
+		{
+			phase = other.phase;
+			cmdList = other.cmdList;
+			cmdPos = other.cmdPos;
+			initial = other.initial;
+			target = other.target;
+			timeLeft = other.timeLeft;
+			duration = other.duration;
+			delta = other.delta;
+			scale = other.scale;
+			relativeStart = other.relativeStart;
+			isRelativeRelease = other.isRelativeRelease;
+			loopStartPos = other.loopStartPos;
+			loopCounter = other.loopCounter;
+		}
+
 		public void reset()
 		{
 			phase = EnvelopePhase.INIT;
@@ -6,8 +6,8 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.ByteOrder;
+import java.util.Arrays;
 
 import javax.sound.sampled.AudioFileFormat;
 import javax.sound.sampled.AudioFormat;
@@ -60,7 +60,7 @@ public class Instrument implements XmlSerializable
 	public int sampleRate;
 
 	public CodeBook book;
-	public ArrayList<Short> samples;
+	public short[] samples;
 
 	public boolean hasLoop;
 	public boolean usingFallbackSample;
@@ -147,9 +147,7 @@ public class Instrument implements XmlSerializable
 		sampleRate = FALLBACK_SAMPLE_RATE;
 
 		// Keep an invalid sample playable without introducing a replacement sound.
-		samples = new ArrayList<>(FALLBACK_SAMPLE_COUNT);
-		for (int i = 0; i < FALLBACK_SAMPLE_COUNT; i++)
-			samples.add((short) 0);
+		samples = new short[FALLBACK_SAMPLE_COUNT];
 	}
 
 	@Override
@@ -215,42 +213,30 @@ public class Instrument implements XmlSerializable
 	 */
 	public void dump(File bankDir)
 	{
-		List<Short> mainSamples;
-		List<Short> loopSamples;
-
-		if (hasLoop) {
-			mainSamples = samples.subList(0, loopStart);
-			loopSamples = samples.subList(loopStart, loopEnd);
-		}
-		else {
-			mainSamples = samples;
-			loopSamples = new ArrayList<>();
-		}
-
 		File wavFile = new File(bankDir, mainFilename);
-		writeWav(wavFile, mainSamples, sampleRate);
+		writeWav(wavFile, samples, 0, hasLoop ? loopStart : samples.length, sampleRate);
 
 		if (hasLoop) {
 			wavFile = new File(bankDir, loopFilename);
-			writeWav(wavFile, loopSamples, sampleRate);
+			writeWav(wavFile, samples, loopStart, loopEnd - loopStart, sampleRate);
 		}
 	}
 
 	public void load(File bankDir)
 	{
 		ReadWavData mainWav = readWav(new File(bankDir, mainFilename));
-		if (mainWav.samples.isEmpty())
+		if (mainWav.samples.length == 0)
 			throw new StarRodException("%s contains no audio samples", mainFilename);
 
 		ReadWavData loopWav = new ReadWavData(mainWav.sampleRate);
 
 		if (hasLoop) {
 			loopWav = readWav(new File(bankDir, loopFilename));
-			if (loopWav.samples.isEmpty())
+			if (loopWav.samples.length == 0)
 				throw new StarRodException("%s contains no audio samples", loopFilename);
 
-			loopStart = mainWav.samples.size();
-			loopEnd = mainWav.samples.size() + loopWav.samples.size();
+			loopStart = mainWav.samples.length;
+			loopEnd = mainWav.samples.length + loopWav.samples.length;
 		}
 
 		if (loopWav.sampleRate != mainWav.sampleRate) {
@@ -260,9 +246,8 @@ public class Instrument implements XmlSerializable
 
 		sampleRate = mainWav.sampleRate;
 
-		samples = new ArrayList<>(mainWav.samples.size() + loopWav.samples.size());
-		samples.addAll(mainWav.samples);
-		samples.addAll(loopWav.samples);
+		samples = Arrays.copyOf(mainWav.samples, mainWav.samples.length + loopWav.samples.length);
+		System.arraycopy(loopWav.samples, 0, samples, mainWav.samples.length, loopWav.samples.length);
 	}
 
 	public void build()
@@ -293,7 +278,7 @@ public class Instrument implements XmlSerializable
 	{
 		if (hasLoop) {
 			loopStateOffset = dbb.position();
-			for (Short s : buildData.loopState) {
+			for (short s : buildData.loopState) {
 				dbb.putShort(s);
 			}
 		}
@@ -315,25 +300,21 @@ public class Instrument implements XmlSerializable
 	}
 
 	/**
-	 * Outputs a 16-bit wav file from a list of samples
+	 * Outputs a 16-bit wav file from a range of samples
 	 * @param wavFile  The file to output.
-	 * @param samples  List of samples to write.
+	 * @param samples  Samples to write from.
+	 * @param offset  Index of the first sample to write.
+	 * @param numSamples  Number of samples to write.
 	 * @param sampleRate
 	 */
-	private static void writeWav(File wavFile, List<Short> samples, float sampleRate)
+	private static void writeWav(File wavFile, short[] samples, int offset, int numSamples, float sampleRate)
 	{
 		// 16-bit output
 		try {
-			int numSamples = samples.size();
-
 			byte[] rawData = new byte[numSamples * Short.BYTES];
 
-			for (int i = 0; i < numSamples; i++) {
-				short sample = samples.get(i);
-				// WAV is conventionally little endian, so store lowest byte first
-				rawData[i * 2] = (byte) (sample & 0xFF);
-				rawData[i * 2 + 1] = (byte) ((sample >> 8) & 0xFF);
-			}
+			// WAV is conventionally little endian, so store lowest byte first
+			ByteBuffer.wrap(rawData).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().put(samples, offset, numSamples);
 
 			AudioFormat format = new AudioFormat(sampleRate, Short.SIZE, 1, true, false);
 
@@ -350,16 +331,16 @@ public class Instrument implements XmlSerializable
 
 	private static class ReadWavData
 	{
-		public final List<Short> samples;
+		public final short[] samples;
 		public final int sampleRate;
 
 		public ReadWavData(int sampleRate)
 		{
-			this.samples = new ArrayList<>();
+			this.samples = new short[0];
 			this.sampleRate = sampleRate;
 		}
 
-		public ReadWavData(List<Short> samples, int sampleRate)
+		public ReadWavData(short[] samples, int sampleRate)
 		{
 			this.samples = samples;
 			this.sampleRate = sampleRate;
@@ -385,19 +366,11 @@ public class Instrument implements XmlSerializable
 			float sampleRate = format.getSampleRate();
 
 			byte[] audioBytes = audioInputStream.readAllBytes();
-			List<Short> samples = new ArrayList<>(audioBytes.length / 2);
+			short[] samples = new short[audioBytes.length / 2];
 
 			// WAV files are conventionally little-endian, but we can support flexible endianness
-			boolean bigEndian = format.isBigEndian();
-
-			for (int i = 0; i < audioBytes.length; i += 2) {
-				int a = audioBytes[i] & 0xFF;
-				int b = audioBytes[i + 1] & 0xFF;
-				short sample = bigEndian
-					? (short) ((a << 8) | b)
-					: (short) ((b << 8) | a);
-				samples.add(sample);
-			}
+			ByteOrder order = format.isBigEndian() ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+			ByteBuffer.wrap(audioBytes).order(order).asShortBuffer().get(samples);
 
 			return new ReadWavData(samples, Math.round(sampleRate));
 		}
@@ -0,0 +1,67 @@
+package game.sound.engine;
+
+import java.util.Random;
+
+/**
+ * Times {@link AudioEngine#renderFrame(double, boolean)} with many looping voices playing at once,
+ * and reports the cost of each {@link AudioEngine#FRAME_SAMPLES}-sample mixer frame.
+ * Voices use random pitch, pan and reverb, and the output is converted to PCM and discarded.
+ * Usage: MixerBenchmark [voices]
+ */
+public class MixerBenchmark
+{
+	private static final int WARMUP = 5000;
+	private static final int ITERATIONS = 20000;
+	private static final int SAMPLE_LENGTH = 8192;
+
+	public static void main(String[] args) throws Exception
+	{
+		int numVoices = (args.length > 0) ? Integer.parseInt(args[0]) : 32;
+		Random rng = new Random(0x5EED);
+
+		AudioEngine engine = new AudioEngine((data, offset, length) -> {});
+		engine.setEffectPreset(1, EffectBus.EffectPreset.BIG_ROOM);
+
+		for (int i = 0; i < numVoices; i++) {
+			Voice voice = new Voice();
+			voice.setInstrument(makeInstrument(rng));
+			voice.setPitch(0.5f + 1.4f * rng.nextFloat());
+			voice.setVolume(0.5f + 0.5f * rng.nextFloat());
+			voice.setPan(rng.nextInt(128));
+			voice.setReverb(rng.nextBoolean() ? 0 : rng.nextInt(128));
+			voice.setEffectBus(i % AudioEngine.NUM_EFFECT_BUSES);
+			voice.play();
+			engine.addVoice(voice);
+		}
+
+		for (int i = 0; i < WARMUP; i++)
+			engine.renderFrame(AudioEngine.MIXER_BLOCK_TIME, false);
+
+		long t0 = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++)
+			engine.renderFrame(AudioEngine.MIXER_BLOCK_TIME, false);
+		long t1 = System.nanoTime();
+
+		double frameMicros = (t1 - t0) * 1e-3 / ITERATIONS;
+		double realTimeMicros = 1e6 * AudioEngine.FRAME_SAMPLES / AudioEngine.OUTPUT_RATE;
+		System.out.printf("Voices:    %d%n", numVoices);
+		System.out.printf("Per frame: %8.3f us (%.1fx real time)%n", frameMicros, realTimeMicros / frameMicros);
+		System.out.printf("Per voice: %8.3f us%n", frameMicros / numVoices);
+	}
+
+	private static Instrument makeInstrument(Random rng)
+	{
+		Instrument ins = Instrument.createFallbackInstrument();
+		ins.samples = new short[SAMPLE_LENGTH];
+		double freq = 0.01 + 0.05 * rng.nextDouble();
+		for (int i = 0; i < ins.samples.length; i++)
+			ins.samples[i] = (short) (Math.sin(i * freq) * 12000 + rng.nextGaussian() * 1000);
+
+		ins.sampleRate = AudioEngine.OUTPUT_RATE;
+		ins.hasLoop = true;
+		ins.loopStart = SAMPLE_LENGTH / 4;
+		ins.loopEnd = SAMPLE_LENGTH;
+		ins.loopCount = Instrument.LOOP_FOREVER;
+		return ins;
+	}
+}
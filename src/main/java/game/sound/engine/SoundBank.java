@@ -6,9 +6,9 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.io.FilenameUtils;
 
@@ -53,7 +53,7 @@ public class SoundBank
 		bankNameMap = new HashMap<>();
 		bankRefMap = new HashMap<>();
 		instrumentNameMap = new HashMap<>();
-		fallbackWarnings = new HashSet<>();
+		fallbackWarnings = ConcurrentHashMap.newKeySet(); // shared by players rendering on other threads
 		instrumentList = new ArrayList<>();
 		drumList = new ArrayList<>();
 
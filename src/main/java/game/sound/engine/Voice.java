@@ -6,6 +6,14 @@ import util.Logger;
 
 public class Voice
 {
+	// fraction of the gain change reached by each sample of a frame
+	private static final float[] GAIN_RAMP = new float[AudioEngine.FRAME_SAMPLES];
+
+	static {
+		for (int i = 0; i < GAIN_RAMP.length; i++)
+			GAIN_RAMP[i] = (i + 1.0f) / AudioEngine.FRAME_SAMPLES;
+	}
+
 	public enum VoiceState
 	{
 		INIT, // does not have an instrument assigned yet, nothing to play
@@ -49,6 +57,30 @@ public class Voice
 		state = VoiceState.INIT;
 	}
 
+	/**
+	 * Creates a detached copy of another voice, which resumes from exactly the same
+	 * position once it is added to an engine.
+	 */
+	protected Voice(Voice other)
+	{
+		envPlayer = new EnvelopePlayer(other.envPlayer);
+		state = other.state;
+		ins = other.ins;
+		env = other.env;
+		readPos = other.readPos;
+		volume = other.volume;
+		pitch = other.pitch;
+		pan = other.pan;
+		reverb = other.reverb;
+		effectBus = other.effectBus;
+		allowLooping = other.allowLooping;
+		playbackGain = other.playbackGain;
+		playbackTarget = other.playbackTarget;
+		fadeEndState = other.fadeEndState;
+		loopIterations = other.loopIterations;
+		renderedSamples = other.renderedSamples;
+	}
+
 	public void setInstrument(Instrument ins)
 	{
 		this.ins = ins;
@@ -125,9 +157,9 @@ public class Voice
 
 	static int getOutputDuration(Instrument instrument, float pitch)
 	{
-		if (instrument == null || instrument.samples.size() < 2)
+		if (instrument == null || instrument.samples.length < 2)
 			return 0;
-		return (int) Math.ceil((instrument.samples.size() - 1) / getResampleRatio(instrument, pitch));
+		return (int) Math.ceil((instrument.samples.length - 1) / getResampleRatio(instrument, pitch));
 	}
 
 	private static int getOutputPos(Instrument instrument, float pitch, float readPos)
@@ -209,7 +241,13 @@ public class Voice
 		return state == VoiceState.DONE;
 	}
 
-	public void renderInto(float[] dryBufferL, float[] dryBufferR, float[] wetBufferL, float[] wetBufferR)
+	/**
+	 * Mixes the next frame of this voice into the output buffers of its effect bus.
+	 * The voice is first resampled into the scratch block, then gain and pan are applied in
+	 * separate passes over each output buffer.
+	 * @param block scratch buffer of at least {@link AudioEngine#FRAME_SAMPLES} samples
+	 */
+	public void renderInto(float[] block, float[] dryBufferL, float[] dryBufferR, float[] wetBufferL, float[] wetBufferR)
 	{
 		if (state != VoiceState.PLAYING)
 			return;
@@ -228,58 +266,39 @@ public class Voice
 			envelopeDone = envPlayer.isDone();
 		}
 
-		float panAngle = (float) ((pan / 127.0) * (Math.PI / 2));
-		float panL = (float) Math.cos(panAngle);
-		float panR = (float) Math.sin(panAngle);
-
-		float dryAngle = (float) ((reverb / 127.0) * (Math.PI / 2));
-		float dryAmt = (float) Math.cos(dryAngle);
-		float wetAmt = (float) Math.sin(dryAngle);
+		int count = resample(block);
+		if (count > 0) {
+			float panAngle = (float) ((pan / 127.0) * (Math.PI / 2));
+			float panL = (float) Math.cos(panAngle);
+			float panR = (float) Math.sin(panAngle);
 
-		float resampleRatio = getResampleRatio();
-		float voiceVolumeStart = volume * envVolumeStart * playbackGain;
-		float voiceVolumeEnd = volume * envVolumeEnd * playbackTarget;
-		float gainStart = voiceVolumeStart * voiceVolumeStart;
-		float gainEnd = voiceVolumeEnd * voiceVolumeEnd;
+			float dryAngle = (float) ((reverb / 127.0) * (Math.PI / 2));
+			float dryAmt = (float) Math.cos(dryAngle);
+			float wetAmt = (float) Math.sin(dryAngle);
 
-		for (int i = 0; i < AudioEngine.FRAME_SAMPLES; i++) {
-			while (canLoop() && readPos >= ins.loopEnd) {
-				if (ins.loopCount != Instrument.LOOP_FOREVER)
-					loopIterations++;
-				readPos = ins.loopStart + (readPos - ins.loopEnd);
-			}
+			float voiceVolumeStart = volume * envVolumeStart * playbackGain;
+			float voiceVolumeEnd = volume * envVolumeEnd * playbackTarget;
+			float gainStart = voiceVolumeStart * voiceVolumeStart;
+			float gainEnd = voiceVolumeEnd * voiceVolumeEnd;
+			float gainDelta = gainEnd - gainStart;
 
-			int i0 = (int) readPos;
-			int i1 = i0 + 1;
+			for (int i = 0; i < count; i++)
+				block[i] *= gainStart + GAIN_RAMP[i] * gainDelta;
 
-			if (canLoop() && i1 >= ins.loopEnd)
-				i1 = ins.loopStart + (i1 - ins.loopEnd);
+			accumulate(block, count, panL, dryAmt, dryBufferL);
+			accumulate(block, count, panR, dryAmt, dryBufferR);
 
-			if (i1 >= ins.samples.size()) {
-				// reached end of non-looping sample
-				state = VoiceState.DONE;
-				return;
+			// a dry voice would only add zeros to the wet buffers
+			if (wetAmt != 0.0f) {
+				accumulate(block, count, panL, wetAmt, wetBufferL);
+				accumulate(block, count, panR, wetAmt, wetBufferR);
 			}
+		}
 
-			// n64 microcode uses linear resampling, so that's what we'll use
-			float frac = readPos - i0;
-			float s0 = (float) ins.samples.get(i0) / Short.MAX_VALUE;
-			float s1 = (float) ins.samples.get(i1) / Short.MAX_VALUE;
-			float sample = (1 - frac) * s0 + frac * s1;
-
-			float envelopeTime = (i + 1.0f) / AudioEngine.FRAME_SAMPLES;
-			float gain = gainStart + envelopeTime * (gainEnd - gainStart);
-			float scaled = sample * gain;
-
-			dryBufferL[i] += scaled * panL * dryAmt;
-			dryBufferR[i] += scaled * panR * dryAmt;
-
-			wetBufferL[i] += scaled * panL * wetAmt;
-			wetBufferR[i] += scaled * panR * wetAmt;
-
-			readPos += resampleRatio;
-			if (renderedSamples < Integer.MAX_VALUE)
-				renderedSamples++;
+		if (count < AudioEngine.FRAME_SAMPLES) {
+			// reached end of non-looping sample
+			state = VoiceState.DONE;
+			return;
 		}
 
 		playbackGain = playbackTarget;
@@ -292,6 +311,57 @@ public class Voice
 		}
 	}
 
+	private static void accumulate(float[] block, int count, float pan, float amount, float[] out)
+	{
+		for (int i = 0; i < count; i++)
+			out[i] += block[i] * pan * amount;
+	}
+
+	/**
+	 * Fills the block with up to one frame of resampled audio.
+	 * @return the number of samples written, which is less than a full frame only if the sample has ended
+	 */
+	private int resample(float[] block)
+	{
+		short[] samples = ins.samples;
+		int loopStart = ins.loopStart;
+		int loopEnd = ins.loopEnd;
+		float resampleRatio = getResampleRatio();
+		float pos = readPos;
+		boolean looping = canLoop();
+
+		int count = 0;
+		while (count < AudioEngine.FRAME_SAMPLES) {
+			while (looping && pos >= loopEnd) {
+				if (ins.loopCount != Instrument.LOOP_FOREVER)
+					loopIterations++;
+				pos = loopStart + (pos - loopEnd);
+				looping = canLoop();
+			}
+
+			int i0 = (int) pos;
+			int i1 = i0 + 1;
+
+			if (looping && i1 >= loopEnd)
+				i1 = loopStart + (i1 - loopEnd);
+
+			if (i1 >= samples.length)
+				break;
+
+			// n64 microcode uses linear resampling, so that's what we'll use
+			float frac = pos - i0;
+			float s0 = (float) samples[i0] / Short.MAX_VALUE;
+			float s1 = (float) samples[i1] / Short.MAX_VALUE;
+			block[count++] = (1 - frac) * s0 + frac * s1;
+
+			pos += resampleRatio;
+		}
+
+		readPos = pos;
+		renderedSamples = (int) Math.min(Integer.MAX_VALUE, (long) renderedSamples + count);
+		return count;
+	}
+
 	private float getResampleRatio()
 	{
 		return getResampleRatio(ins, pitch);
@@ -306,7 +376,7 @@ public class Voice
 	private boolean canLoop()
 	{
 		return allowLooping && ins.hasLoop
-			&& ins.loopStart >= 0 && ins.loopEnd > ins.loopStart && ins.loopEnd <= ins.samples.size()
+			&& ins.loopStart >= 0 && ins.loopEnd > ins.loopStart && ins.loopEnd <= ins.samples.length
 			&& (ins.loopCount == Instrument.LOOP_FOREVER || loopIterations < ins.loopCount);
 	}
 }
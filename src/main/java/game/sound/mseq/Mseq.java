@@ -107,27 +107,44 @@ public class Mseq implements XmlSerializable
 
 	public static void buildAll() throws IOException
 	{
-		SoundBankCatalog catalog = SoundBankCatalog.loadMod().withAuxiliaryBank(2, "SPC3.bk");
+		SoundBankCatalog catalog = getBuildCatalog();
 		Collection<File> files = IOUtils.getFilesWithExtension(MOD_AUDIO_MSEQ, "xml", false);
 		for (File f : files) {
-			String filename = FilenameUtils.getBaseName(f.getName());
-			String outputName = filename + ".mseq";
-			if (AudioModder.hasOverride(outputName)) {
-				Logger.log("Using audio override for " + outputName);
-				continue;
-			}
+			buildMseq(f, catalog);
+		}
+	}
 
-			Logger.log("Building " + f.getName());
+	/**
+	 * @return sound banks of the mod, with the auxiliary bank used by every MSEQ
+	 */
+	public static SoundBankCatalog getBuildCatalog()
+	{
+		return SoundBankCatalog.loadMod().withAuxiliaryBank(2, "SPC3.bk");
+	}
 
-			Mseq mseq = new Mseq();
-			mseq.soundBankCatalog = catalog;
+	/**
+	 * Builds a single MSEQ file into the audio build directory.
+	 * @param catalog  Sound banks from {@link #getBuildCatalog()}.
+	 */
+	public static void buildMseq(File xmlFile, SoundBankCatalog catalog) throws IOException
+	{
+		String filename = FilenameUtils.getBaseName(xmlFile.getName());
+		String outputName = filename + ".mseq";
+		if (AudioModder.hasOverride(outputName)) {
+			Logger.log("Using audio override for " + outputName);
+			return;
+		}
 
-			XmlReader xmr = new XmlReader(f);
-			mseq.fromXML(xmr, xmr.getRootElement());
+		Logger.log("Building " + xmlFile.getName());
 
-			File outFile = MOD_AUDIO_BUILD.getFile(outputName);
-			mseq.build(outFile);
-		}
+		Mseq mseq = new Mseq();
+		mseq.soundBankCatalog = catalog;
+
+		XmlReader xmr = new XmlReader(xmlFile);
+		mseq.fromXML(xmr, xmr.getRootElement());
+
+		File outFile = MOD_AUDIO_BUILD.getFile(outputName);
+		mseq.build(outFile);
 	}
 
 	public static void validateAll() throws IOException
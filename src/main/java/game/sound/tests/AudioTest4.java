@@ -181,14 +181,14 @@ public class AudioTest4
 				int i0 = (int) readPos;
 				int i1 = i0 + 1;
 
-				if (i1 >= ins.samples.size()) {
+				if (i1 >= ins.samples.length) {
 					return; // done
 				}
 
 				// n64 microcode uses linear resampling, so that's what we'll use
 				float frac = readPos - i0;
-				float s0 = (float) ins.samples.get(i0) / Short.MAX_VALUE;
-				float s1 = (float) ins.samples.get(i1) / Short.MAX_VALUE;
+				float s0 = (float) ins.samples[i0] / Short.MAX_VALUE;
+				float s1 = (float) ins.samples[i1] / Short.MAX_VALUE;
 				float sample = (1 - frac) * s0 + frac * s1;
 
 				bufferL[i] += sample * volume * panL;
@@ -200,7 +200,7 @@ public class AudioTest4
 
 		public boolean isFinished()
 		{
-			return readPos >= ins.samples.size() - 1;
+			return readPos >= ins.samples.length - 1;
 		}
 	}
 }
@@ -29,8 +29,9 @@ import game.shared.encoder.GlobalPatchManager;
 import game.sprite.PlayerSpriteConverter.RasterTableEntry;
 import game.sprite.SpriteLoader.SpriteMetadata;
 import game.sprite.SpriteLoader.SpriteSet;
-import game.sprite.Yay0Cache.CacheResult;
 import game.texture.Tile;
+import game.yay0.Yay0ContentCache;
+import game.yay0.Yay0ContentCache.CacheResult;
 import patcher.Patcher;
 import patcher.RomPatcher;
 import util.KeyValuePair;
@@ -62,6 +63,9 @@ public class SpritePatcher
 	private int romptrPlayerYay0;
 	private int romptrNpcYay0;
 
+	// compressed NPC sprite sheets, may be built ahead of time by buildNpcSprites
+	private List<CacheResult> npcSpriteData = null;
+
 	public SpritePatcher(Patcher patcher) throws IOException
 	{
 		this.patcher = patcher;
@@ -458,9 +462,9 @@ public class SpritePatcher
 		int romptrStart = rp.getCurrentOffset();
 		rp.skip(8 * numPlayerSprites);
 
-		Yay0Cache cache = new Yay0Cache(MOD_SPR_PLR_CACHE);
+		Yay0ContentCache cache = Yay0ContentCache.instance();
 
-		int[][] offsets = new int[numPlayerSprites][2];
+		List<byte[]> binData = new ArrayList<>(playerSprites.size());
 		for (int i = 0; i < playerSprites.size(); i++) {
 			String spriteSheetIDName = String.format("%02X", i + 1);
 
@@ -468,8 +472,17 @@ public class SpritePatcher
 			Logger.log(String.format("Writing player sprite %02X of %02X...", i + 1, playerSprites.size()), Priority.MILESTONE);
 			Sprite spr = playerSprites.get(i);
 			writeBinaryPlayer(spr, out);
+			binData.add(FileUtils.readFileToByteArray(out));
+		}
+
+		Logger.log("Compressing player sprites...", Priority.MILESTONE);
+		List<CacheResult> results = cache.getAll(binData);
+
+		int[][] offsets = new int[numPlayerSprites][2];
+		for (int i = 0; i < playerSprites.size(); i++) {
+			String spriteSheetIDName = String.format("%02X", i + 1);
 
-			CacheResult result = cache.get(out);
+			CacheResult result = results.get(i);
 			byte[] encoded = result.data;
 
 			if (!result.fromCache)
@@ -627,8 +640,37 @@ public class SpritePatcher
 		raf.close();
 	}
 
+	/**
+	 * Builds and compresses every NPC sprite sheet. Nothing is written to the ROM, so this
+	 * may run alongside other build steps any time before {@link #patchSpriteSheets()}.
+	 */
+	public void buildNpcSprites() throws IOException
+	{
+		int highestID = SpriteLoader.getMaximumID(SpriteSet.Npc);
+		Yay0ContentCache cache = Yay0ContentCache.instance();
+
+		// build sprite sheets
+		List<byte[]> binData = new ArrayList<>(highestID);
+		for (int i = 1; i <= highestID; i++) {
+			String spriteSheetIDName = String.format("%02X", i);
+
+			File out = new File(MOD_SPR_NPC_TEMP + spriteSheetIDName);
+			Logger.log(String.format("Writing NPC sprite %02X of %02X...", i, highestID), Priority.MILESTONE);
+
+			Sprite spr = spriteLoader.requireSprite(SpriteSet.Npc, i);
+			writeBinaryNpc(spr, out);
+			binData.add(FileUtils.readFileToByteArray(out));
+		}
+
+		Logger.log("Compressing NPC sprites...", Priority.MILESTONE);
+		npcSpriteData = cache.getAll(binData);
+	}
+
 	private void writeNpcYay0() throws IOException
 	{
+		if (npcSpriteData == null)
+			buildNpcSprites();
+
 		int highestID = SpriteLoader.getMaximumID(SpriteSet.Npc);
 		int[][] offsets = new int[highestID][2];
 
@@ -638,19 +680,14 @@ public class SpritePatcher
 		int roomLeft = SPRITE_DATA_LIMIT - rp.getCurrentOffset();
 		boolean reusingRoom = true;
 
-		Yay0Cache cache = new Yay0Cache(MOD_SPR_NPC_CACHE);
+		Yay0ContentCache cache = Yay0ContentCache.instance();
+		List<CacheResult> results = npcSpriteData;
 
-		// build sprite sheets and write to ROM
+		// write to ROM
 		for (int i = 1; i <= highestID; i++) {
 			String spriteSheetIDName = String.format("%02X", i);
 
-			File out = new File(MOD_SPR_NPC_TEMP + spriteSheetIDName);
-			Logger.log(String.format("Writing NPC sprite %02X of %02X...", i, highestID), Priority.MILESTONE);
-
-			Sprite spr = spriteLoader.requireSprite(SpriteSet.Npc, i);
-			writeBinaryNpc(spr, out);
-
-			CacheResult result = cache.get(out);
+			CacheResult result = results.get(i - 1);
 			byte[] encoded = result.data;
 
 			if (!result.fromCache)
@@ -683,6 +720,7 @@ public class SpritePatcher
 
 		FileUtils.deleteDirectory(MOD_SPR_NPC_TEMP.toFile());
 		cache.save();
+		npcSpriteData = null;
 	}
 
 	protected static void writeBinaryNpc(Sprite spr, File binFile) throws IOException
@@ -144,16 +144,15 @@ public class PMString implements Externalizable, GlobalsListable
 	}
 
 	private static final Pattern TabStartPattern = Pattern.compile("^(\t+).+");
-	private static final Matcher TabStartMatcher = TabStartPattern.matcher("");
 
 	private void loadLines(List<Line> lines)
 	{
 		// preserve tab indents
 		if (lines.size() > 0 && lines.get(0).str.startsWith("\t")) {
 			String firstLine = lines.get(0).str;
-			TabStartMatcher.reset(firstLine);
-			if (TabStartMatcher.matches())
-				leadingTabs = TabStartMatcher.group(1);
+			Matcher matcher = TabStartPattern.matcher(firstLine);
+			if (matcher.matches())
+				leadingTabs = matcher.group(1);
 		}
 
 		StringBuilder sb = new StringBuilder();
@@ -23,7 +23,6 @@ public class StringDecoder
 {
 	// patterns for smart choices
 	private static final Pattern CancelPattern = Pattern.compile("\\[SetCancel (\\d+)\\]");
-	private static final Matcher CancelMatcher = CancelPattern.matcher("");
 
 	private static class DecodedMessageBuilder
 	{
@@ -173,9 +172,9 @@ public class StringDecoder
 		String text = msg.toString();
 		if (msg.choiceMessage) {
 			int cancelOption = Integer.MAX_VALUE;
-			CancelMatcher.reset(text);
-			while (CancelMatcher.find())
-				cancelOption = (byte) Integer.parseInt(CancelMatcher.group(1));
+			Matcher matcher = CancelPattern.matcher(text);
+			while (matcher.find())
+				cancelOption = (byte) Integer.parseInt(matcher.group(1));
 
 			text = text.replaceFirst("\\[DelayOff\\]", "[StartChoice]" + System.lineSeparator());
 			text = text.replaceAll("\\[(DelayOn|Cursor \\d+|SetCancel \\d+|Option 255)\\]", "");
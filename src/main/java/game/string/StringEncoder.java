@@ -39,13 +39,11 @@ public class StringEncoder
 
 	// pattern for TAG_NAME:ARG:ARG:ARG
 	private static final Pattern ClassicTagPattern = Pattern.compile("(?i)[~\\w]+(?::[\\w`]+)*");
-	private static final Matcher ClassicTagMatcher = ClassicTagPattern.matcher("");
 
 	private static final String REGEX_1_INT = "-?(?:0x[0-9A-Fa-f]+|[0-9]+)";
 	private static final String REGEX_2_INT = REGEX_1_INT + "," + REGEX_1_INT;
 
 	private static final Pattern KVPattern = Pattern.compile("(?i)(\\w+)=([\\w,.+-]+)");
-	private static final Matcher KVMatcher = KVPattern.matcher("");
 
 	// temp buffer for encoding tags, prefer using helper methods to add to this
 	private final ArrayList<Byte> tagBytes;
@@ -382,14 +380,14 @@ public class StringEncoder
 		if (tag.startsWith("[") && tag.endsWith("]"))
 			tag = tag.substring(1, tag.length() - 1);
 
-		ClassicTagMatcher.reset(tag);
+		Matcher matcher = ClassicTagPattern.matcher(tag);
 		builder.tagBytes.clear();
 		builder.tagPageBreak = false;
 
 		String[] fields;
 		boolean classic;
 
-		if (ClassicTagMatcher.matches()) {
+		if (matcher.matches()) {
 			classic = true;
 			fields = tag.split(Character.toString(DELIMITER));
 		}
@@ -1198,11 +1196,11 @@ public class StringEncoder
 	private static Integer[] findIntArg(String[] fields, String string, int expectedSize, boolean required) throws InvalidInputException
 	{
 		for (int i = 0; i < fields.length; i++) {
-			KVMatcher.reset(fields[i]);
-			if (KVMatcher.matches()) {
-				if (!KVMatcher.group(1).equalsIgnoreCase(string))
+			Matcher matcher = KVPattern.matcher(fields[i]);
+			if (matcher.matches()) {
+				if (!matcher.group(1).equalsIgnoreCase(string))
 					continue;
-				String[] svals = KVMatcher.group(2).split(",");
+				String[] svals = matcher.group(2).split(",");
 				if (expectedSize > 0 && svals.length != expectedSize)
 					throw new InvalidInputException("Number of elements is incorrect for %s: %d (expected %d)", string, svals.length, expectedSize);
 				Integer[] values = new Integer[svals.length];
@@ -1221,11 +1219,11 @@ public class StringEncoder
 	private static Float[] findFloatArg(String[] fields, String string, int expectedSize, boolean required) throws InvalidInputException
 	{
 		for (int i = 0; i < fields.length; i++) {
-			KVMatcher.reset(fields[i]);
-			if (KVMatcher.matches()) {
-				if (!KVMatcher.group(1).equalsIgnoreCase(string))
+			Matcher matcher = KVPattern.matcher(fields[i]);
+			if (matcher.matches()) {
+				if (!matcher.group(1).equalsIgnoreCase(string))
 					continue;
-				String[] svals = KVMatcher.group(2).split(",");
+				String[] svals = matcher.group(2).split(",");
 				if (expectedSize > 0 && svals.length != expectedSize)
 					throw new InvalidInputException("Number of elements is incorrect for %s: %d (expected %d)", string, svals.length, expectedSize);
 				Float[] values = new Float[svals.length];
@@ -1250,11 +1248,11 @@ public class StringEncoder
 	private static String[] findStringArg(String[] fields, String string, int expectedSize, boolean required) throws InvalidInputException
 	{
 		for (int i = 0; i < fields.length; i++) {
-			KVMatcher.reset(fields[i]);
-			if (KVMatcher.matches()) {
-				if (!KVMatcher.group(1).equalsIgnoreCase(string))
+			Matcher matcher = KVPattern.matcher(fields[i]);
+			if (matcher.matches()) {
+				if (!matcher.group(1).equalsIgnoreCase(string))
 					continue;
-				String[] svals = KVMatcher.group(2).split(",");
+				String[] svals = matcher.group(2).split(",");
 				if (expectedSize > 0 && svals.length != expectedSize)
 					throw new InvalidInputException("Number of elements is incorrect for %s: %d (expected %d)", string, svals.length, expectedSize);
 				return svals;
@@ -6,25 +6,26 @@ import static game.texture.TileFormat.*;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 
 import app.AssetManager;
-import app.Directories;
-import game.sprite.Yay0Cache;
-import game.sprite.Yay0Cache.CacheResult;
+import game.yay0.Yay0ContentCache;
+import game.yay0.Yay0ContentCache.CacheResult;
 import util.Logger;
 
 public class CompressedImagePatcher
 {
 	private static final int DRAW_POS = 0x000C0014;
 
-	private final Yay0Cache cache;
+	private final Yay0ContentCache cache;
 
 	public CompressedImagePatcher() throws IOException
 	{
-		cache = new Yay0Cache(Directories.MOD_IMG_CACHE);
+		cache = Yay0ContentCache.instance();
 	}
 
 	public void buildTextureArchives() throws IOException
@@ -39,6 +40,9 @@ public class CompressedImagePatcher
 
 	public void buildBackgrounds() throws IOException
 	{
+		List<File> outFiles = new ArrayList<>();
+		List<byte[]> outBytes = new ArrayList<>();
+
 		for (File f : MOD_IMG_BG.toFile().listFiles()) {
 			String baseName = FilenameUtils.removeExtension(f.getName());
 
@@ -82,18 +86,22 @@ public class CompressedImagePatcher
 					alt.palette.put(bb);
 				img.putRaster(bb, false);
 
-				File out = new File(MOD_MAP_BUILD + baseName);
+				outFiles.add(new File(MOD_MAP_BUILD + baseName));
+				outBytes.add(bytes);
+			}
+		}
 
-				CacheResult result = cache.get(out, bytes);
-				byte[] encoded = result.data;
+		List<CacheResult> results = cache.getAll(outBytes);
+		for (int i = 0; i < outFiles.size(); i++) {
+			File out = outFiles.get(i);
+			CacheResult result = results.get(i);
 
-				if (!result.fromCache)
-					Logger.logDetail("Saved background to cache: " + baseName);
-				else
-					Logger.logDetail("Using cached file for background: " + baseName);
+			if (!result.fromCache)
+				Logger.logDetail("Saved background to cache: " + out.getName());
+			else
+				Logger.logDetail("Using cached file for background: " + out.getName());
 
-				FileUtils.writeByteArrayToFile(out, encoded);
-			}
+			FileUtils.writeByteArrayToFile(out, result.data);
 		}
 		cache.save();
 	}
@@ -149,7 +157,7 @@ public class CompressedImagePatcher
 			img.putRaster(bb, false);
 		}
 
-		CacheResult result = cache.get(out, titleData);
+		CacheResult result = cache.get(titleData);
 		byte[] encoded = result.data;
 
 		if (!result.fromCache)
@@ -163,18 +171,34 @@ public class CompressedImagePatcher
 
 	private void patchPartyImages() throws IOException
 	{
-		patchPartyImage("party_kurio");
-		patchPartyImage("party_kameki");
-		patchPartyImage("party_pinki");
-		patchPartyImage("party_pareta");
-		patchPartyImage("party_resa");
-		patchPartyImage("party_akari");
-		patchPartyImage("party_opuku");
-		patchPartyImage("party_pokopi");
+		List<File> outFiles = new ArrayList<>();
+		List<byte[]> outBytes = new ArrayList<>();
+
+		patchPartyImage("party_kurio", outFiles, outBytes);
+		patchPartyImage("party_kameki", outFiles, outBytes);
+		patchPartyImage("party_pinki", outFiles, outBytes);
+		patchPartyImage("party_pareta", outFiles, outBytes);
+		patchPartyImage("party_resa", outFiles, outBytes);
+		patchPartyImage("party_akari", outFiles, outBytes);
+		patchPartyImage("party_opuku", outFiles, outBytes);
+		patchPartyImage("party_pokopi", outFiles, outBytes);
+
+		List<CacheResult> results = cache.getAll(outBytes);
+		for (int i = 0; i < outFiles.size(); i++) {
+			File out = outFiles.get(i);
+			CacheResult result = results.get(i);
+
+			if (!result.fromCache)
+				Logger.logDetail("Saved to cache: " + out.getName());
+			else
+				Logger.logDetail("Using cached file for: " + out.getName());
+
+			FileUtils.writeByteArrayToFile(out, result.data);
+		}
 		cache.save();
 	}
 
-	private void patchPartyImage(String name) throws IOException
+	private void patchPartyImage(String name, List<File> outFiles, List<byte[]> outBytes) throws IOException
 	{
 		File f = new File(MOD_IMG_COMP + name + ".png");
 
@@ -193,15 +217,8 @@ public class CompressedImagePatcher
 			img.palette.put(bb);
 			img.putRaster(bb, false);
 
-			CacheResult result = cache.get(out, bytes);
-			byte[] encoded = result.data;
-
-			if (!result.fromCache)
-				Logger.logDetail("Saved to cache: " + out.getName());
-			else
-				Logger.logDetail("Using cached file for: " + out.getName());
-
-			FileUtils.writeByteArrayToFile(out, encoded);
+			outFiles.add(out);
+			outBytes.add(bytes);
 		}
 	}
 }
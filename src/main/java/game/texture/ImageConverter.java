@@ -4,8 +4,12 @@ import static game.texture.TileFormat.*;
 
 import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
 import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
 import java.awt.image.IndexColorModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
 import java.nio.ByteBuffer;
 
 public class ImageConverter
@@ -64,56 +68,12 @@ public class ImageConverter
 
 	public static ByteBuffer pack(Tile img, ByteBuffer unpacked)
 	{
-		switch (img.format) {
-			case RGBA_16:
-				return unpack_RGBA_16bpp(img);
-			case RGBA_32:
-				return unpack_RGBA_32bpp(img);
-			case IA_4:
-				return unpack_IA_4bpp(img);
-			case IA_8:
-				return unpack_IA_8bpp(img);
-			case IA_16:
-				return unpack_IA_16bpp(img);
-			case I_4:
-				return unpack_I_4bpp(img);
-			case I_8:
-				return unpack_I_8bpp(img);
-			case CI_4:
-				return unpack_CI_4bpp(img);
-			case CI_8:
-				return unpack_CI_8bpp(img);
-			case YUV_16:
-			default:
-				throw new UnsupportedOperationException("Unsupported format " + img.format);
-		}
+		return unpack(img);
 	}
 
 	public static ByteBuffer pack(Tile img)
 	{
-		switch (img.format) {
-			case RGBA_16:
-				return unpack_RGBA_16bpp(img);
-			case RGBA_32:
-				return unpack_RGBA_32bpp(img);
-			case IA_4:
-				return unpack_IA_4bpp(img);
-			case IA_8:
-				return unpack_IA_8bpp(img);
-			case IA_16:
-				return unpack_IA_16bpp(img);
-			case I_4:
-				return unpack_I_4bpp(img);
-			case I_8:
-				return unpack_I_8bpp(img);
-			case CI_4:
-				return unpack_CI_4bpp(img);
-			case CI_8:
-				return unpack_CI_8bpp(img);
-			case YUV_16:
-			default:
-				throw new UnsupportedOperationException("Unsupported format " + img.format);
-		}
+		return unpack(img);
 	}
 
 	public static ByteBuffer convertToGLBuffer(Tile img)
@@ -212,11 +172,11 @@ public class ImageConverter
 		img.raster.rewind();
 		for (int y = 0; y < img.height; y++)
 			for (int x = 0; x < img.width; x++) {
-				Color c = unpackColor(img.raster.getShort());
-				bb.put((byte) c.getRed());
-				bb.put((byte) c.getGreen());
-				bb.put((byte) c.getBlue());
-				bb.put((byte) c.getAlpha());
+				int argb = unpackColor(img.raster.getShort());
+				bb.put((byte) (argb >>> 16));
+				bb.put((byte) (argb >>> 8));
+				bb.put((byte) argb);
+				bb.put((byte) (argb >>> 24));
 			}
 
 		return bb;
@@ -247,31 +207,24 @@ public class ImageConverter
 
 	private static BufferedImage getImage_RGBA(Tile img)
 	{
-		ByteBuffer bb;
-		if (img.format == RGBA_16)
-			bb = unpack_RGBA_16bpp(img);
-		else if (img.format == RGBA_32)
-			bb = unpack_RGBA_32bpp(img);
-		else
+		if (img.format != RGBA_16 && img.format != RGBA_32)
 			throw new IllegalStateException("Image is not RGBA format: " + img.format);
 
 		BufferedImage tex = new BufferedImage(img.width, img.height, BufferedImage.TYPE_INT_ARGB);
+		int[] pixels = getPixelData(tex);
+		int numPixels = img.width * img.height;
 
-		bb.rewind();
-		for (int y = 0; y < img.height; y++)
-			for (int x = 0; x < img.width; x++) {
-				int R = (bb.get() & 0xFF);
-				int G = (bb.get() & 0xFF);
-				int B = (bb.get() & 0xFF);
-				int A = (bb.get() & 0xFF);
-
-				Color c = new Color(R, G, B, A);
-
-				//		if(c.getAlpha() != 255)
-				//			img.alpha = AlphaMode.TRANSLUCENT;
-
-				tex.setRGB(x, y, c.getRGB());
+		img.raster.rewind();
+		if (img.format == RGBA_16) {
+			for (int i = 0; i < numPixels; i++)
+				pixels[i] = unpackColor(img.raster.getShort());
+		}
+		else {
+			for (int i = 0; i < numPixels; i++) {
+				int v = img.raster.getInt(); // RGBA -> ARGB
+				pixels[i] = (v >>> 8) | (v << 24);
 			}
+		}
 
 		return tex;
 	}
@@ -279,23 +232,11 @@ public class ImageConverter
 	private static Tile getTile_RGBA_16bpp(BufferedImage bimg)
 	{
 		Tile img = new Tile(RGBA_16, bimg.getHeight(), bimg.getWidth());
-		img.raster.rewind();
+		int[] pixels = getPixels(bimg);
 
-		for (int y = 0; y < img.height; y++)
-			for (int x = 0; x < img.width; x++) {
-				Color c = new Color(bimg.getRGB(x, y), true);
-
-				int R = (int) Math.floor(31 * (c.getRed() / 255.0));
-				int G = (int) Math.floor(31 * (c.getGreen() / 255.0));
-				int B = (int) Math.floor(31 * (c.getBlue() / 255.0));
-
-				int color = ((c.getAlpha() & 0x80) == 0) ? 0 : 1;
-				color |= (R & 0x1F) << 11;
-				color |= (G & 0x1F) << 6;
-				color |= (B & 0x1F) << 1;
-
-				img.raster.putShort((short) color);
-			}
+		img.raster.rewind();
+		for (int i = 0; i < pixels.length; i++)
+			img.raster.putShort(packColor(pixels[i]));
 
 		return img;
 	}
@@ -303,19 +244,13 @@ public class ImageConverter
 	private static Tile getTile_RGBA_32bpp(BufferedImage bimg)
 	{
 		Tile img = new Tile(RGBA_32, bimg.getHeight(), bimg.getWidth());
-		img.raster.rewind();
-
-		for (int y = 0; y < img.height; y++)
-			for (int x = 0; x < img.width; x++) {
-				Color c = new Color(bimg.getRGB(x, y), true);
+		int[] pixels = getPixels(bimg);
 
-				int v = c.getAlpha();
-				v = c.getBlue() << 8 | v;
-				v = c.getGreen() << 16 | v;
-				v = c.getRed() << 24 | v;
-
-				img.raster.putInt(v);
-			}
+		img.raster.rewind();
+		for (int i = 0; i < pixels.length; i++) {
+			int argb = pixels[i]; // ARGB -> RGBA
+			img.raster.putInt((argb << 8) | (argb >>> 24));
+		}
 
 		return img;
 	}
@@ -333,21 +268,13 @@ public class ImageConverter
 		for (int y = 0; y < img.height; y++)
 			for (int x = 0; x < img.width; x += 2) {
 				byte b = img.raster.get();
-				byte h = (byte) (b >>> 4 & 0x0F);
-				byte l = (byte) (b & 0x0F);
-
-				int I1 = (h >>> 1) & 0x0F;
-				int A1 = ((h & 0x01) == 1) ? 255 : 0;
-				I1 = (int) Math.ceil(255 * (I1 / 7.0));
-
-				int I2 = (l >>> 1) & 0x0F;
-				int A2 = ((l & 0x01) == 1) ? 255 : 0;
-				I2 = (int) Math.ceil(255 * (I2 / 7.0));
+				int h = (b >>> 4) & 0x0F;
+				int l = b & 0x0F;
 
-				bb.put((byte) I1);
-				bb.put((byte) A1);
-				bb.put((byte) I2);
-				bb.put((byte) A2);
+				bb.put((byte) EXPAND_3[h >>> 1]);
+				bb.put((byte) (((h & 1) == 1) ? 255 : 0));
+				bb.put((byte) EXPAND_3[l >>> 1]);
+				bb.put((byte) (((l & 1) == 1) ? 255 : 0));
 			}
 
 		return bb;
@@ -366,14 +293,8 @@ public class ImageConverter
 		for (int y = 0; y < img.height; y++)
 			for (int x = 0; x < img.width; x++) {
 				byte b = img.raster.get();
-				int I = (b >>> 4) & 0x0F;
-				int A = b & 0x0F;
-
-				I = (int) Math.ceil(255 * (I / 15.0));
-				A = (int) Math.ceil(255 * (A / 15.0));
-
-				bb.put((byte) I);
-				bb.put((byte) A);
+				bb.put((byte) EXPAND_4[(b >>> 4) & 0x0F]);
+				bb.put((byte) EXPAND_4[b & 0x0F]);
 			}
 
 		return bb;
@@ -400,30 +321,42 @@ public class ImageConverter
 
 	private static BufferedImage getImage_IA(Tile img)
 	{
-		ByteBuffer bb;
-		if (img.format == IA_4)
-			bb = unpack_IA_4bpp(img);
-		else if (img.format == IA_8)
-			bb = unpack_IA_8bpp(img);
-		else if (img.format == IA_16)
-			bb = unpack_IA_16bpp(img);
-		else
+		if (img.format != IA_4 && img.format != IA_8 && img.format != IA_16)
 			throw new IllegalStateException("Image is not IA format: " + img.format);
+		if (img.format == IA_4 && img.width % 2 != 0)
+			throw new ImageFormatException(IA_4 + " image width must be a multiple of 2!");
 
 		BufferedImage tex = new BufferedImage(img.width, img.height, BufferedImage.TYPE_INT_ARGB);
+		int[] pixels = getPixelData(tex);
+		int k = 0;
 
-		bb.rewind();
-		for (int y = 0; y < img.height; y++)
-			for (int x = 0; x < img.width; x++) {
-				int I = (bb.get() & 0xFF);
-				int A = (bb.get() & 0xFF);
-
-				//			if(A != 255)
-				//				img.alpha = AlphaMode.TRANSLUCENT;
-
-				Color c = new Color(I, I, I, A);
-				tex.setRGB(x, y, c.getRGB());
+		img.raster.rewind();
+		for (int y = 0; y < img.height; y++) {
+			switch (img.format) {
+				case IA_4:
+					for (int x = 0; x < img.width; x += 2) {
+						int b = img.raster.get();
+						int h = (b >>> 4) & 0x0F;
+						int l = b & 0x0F;
+						pixels[k++] = getGrayARGB(EXPAND_3[h >>> 1], ((h & 1) == 1) ? 255 : 0);
+						pixels[k++] = getGrayARGB(EXPAND_3[l >>> 1], ((l & 1) == 1) ? 255 : 0);
+					}
+					break;
+				case IA_8:
+					for (int x = 0; x < img.width; x++) {
+						int b = img.raster.get();
+						pixels[k++] = getGrayARGB(EXPAND_4[(b >>> 4) & 0x0F], EXPAND_4[b & 0x0F]);
+					}
+					break;
+				default:
+					for (int x = 0; x < img.width; x++) {
+						int I = img.raster.get() & 0xFF;
+						int A = img.raster.get() & 0xFF;
+						pixels[k++] = getGrayARGB(I, A);
+					}
+					break;
 			}
+		}
 
 		return tex;
 	}
@@ -436,30 +369,27 @@ public class ImageConverter
 	private static Tile getTile_IA_4bpp(BufferedImage bimg)
 	{
 		Tile img = new Tile(IA_4, bimg.getHeight(), bimg.getWidth());
-		img.raster.rewind();
-
-		for (int y = 0; y < img.height; y++)
-			for (int x = 0; x < img.width;) {
-				Color c1 = new Color(bimg.getRGB(x++, y), true);
-				Color c2 = new Color(bimg.getRGB(x++, y), true);
+		if (img.width % 2 != 0)
+			throw new ImageFormatException(IA_4 + " image width must be a multiple of 2!");
 
-				int I1 = (c1.getRed() + c1.getBlue() + c1.getGreen()) / 3;
-				int A1 = c1.getAlpha();
+		int[] pixels = getPixels(bimg);
 
-				int I2 = (c2.getRed() + c2.getBlue() + c2.getGreen()) / 3;
-				int A2 = c2.getAlpha();
+		img.raster.rewind();
+		for (int i = 0; i < pixels.length; i += 2) {
+			int c1 = pixels[i];
+			int c2 = pixels[i + 1];
 
-				I1 = (int) Math.floor(7 * (I1 / 255.0));
-				I2 = (int) Math.floor(7 * (I2 / 255.0));
+			int I1 = TRUNCATE_3[getIntensity(c1)];
+			int I2 = TRUNCATE_3[getIntensity(c2)];
 
-				A1 = (A1 > 128) ? 1 : 0;
-				A2 = (A2 > 128) ? 1 : 0;
+			int A1 = ((c1 >>> 24) > 128) ? 1 : 0;
+			int A2 = ((c2 >>> 24) > 128) ? 1 : 0;
 
-				byte h = (byte) (I1 << 1 | A1);
-				byte l = (byte) (I2 << 1 | A2);
+			int h = I1 << 1 | A1;
+			int l = I2 << 1 | A2;
 
-				img.raster.put((byte) (h << 4 | l));
-			}
+			img.raster.put((byte) (h << 4 | l));
+		}
 
 		return img;
 	}
@@ -471,20 +401,15 @@ public class ImageConverter
 	private static Tile getTile_IA_8bpp(BufferedImage bimg)
 	{
 		Tile img = new Tile(IA_8, bimg.getHeight(), bimg.getWidth());
+		int[] pixels = getPixels(bimg);
 
-		for (int y = 0; y < img.height; y++)
-			for (int x = 0; x < img.width; x++) {
-				Color c = new Color(bimg.getRGB(x, y), true);
-
-				int I = (c.getRed() + c.getBlue() + c.getGreen()) / 3;
-				int A = c.getAlpha();
-
-				I = (int) Math.floor(15 * (I / 255.0));
-				A = (int) Math.floor(15 * (A / 255.0));
-
-				byte b = (byte) (I << 4 | A);
-				img.raster.put(b);
-			}
+		img.raster.rewind();
+		for (int i = 0; i < pixels.length; i++) {
+			int c = pixels[i];
+			int I = TRUNCATE_4[getIntensity(c)];
+			int A = TRUNCATE_4[c >>> 24];
+			img.raster.put((byte) (I << 4 | A));
+		}
 
 		return img;
 	}
@@ -496,18 +421,14 @@ public class ImageConverter
 	private static Tile getTile_IA_16bpp(BufferedImage bimg)
 	{
 		Tile img = new Tile(IA_16, bimg.getHeight(), bimg.getWidth());
-		img.raster.rewind();
+		int[] pixels = getPixels(bimg);
 
-		for (int y = 0; y < img.height; y++)
-			for (int x = 0; x < img.width; x++) {
-				Color c = new Color(bimg.getRGB(x, y), true);
-
-				int I = (c.getRed() + c.getBlue() + c.getGreen()) / 3;
-				int A = c.getAlpha();
-
-				img.raster.put((byte) I);
-				img.raster.put((byte) A);
-			}
+		img.raster.rewind();
+		for (int i = 0; i < pixels.length; i++) {
+			int c = pixels[i];
+			img.raster.put((byte) getIntensity(c));
+			img.raster.put((byte) (c >>> 24));
+		}
 
 		return img;
 	}
@@ -525,13 +446,8 @@ public class ImageConverter
 		for (int y = 0; y < img.height; y++)
 			for (int x = 0; x < img.width; x += 2) {
 				byte b = img.raster.get();
-				int I1 = (b >>> 4) & 0x0F;
-				int I2 = b & 0x0F;
-				I1 = (int) Math.ceil(255 * (I1 / 15.0));
-				I2 = (int) Math.ceil(255 * (I2 / 15.0));
-
-				bb.put((byte) I1);
-				bb.put((byte) I2);
+				bb.put((byte) EXPAND_4[(b >>> 4) & 0x0F]);
+				bb.put((byte) EXPAND_4[b & 0x0F]);
 			}
 
 		return bb;
@@ -557,23 +473,29 @@ public class ImageConverter
 
 	private static BufferedImage getImage_I(Tile img)
 	{
-		ByteBuffer bb;
-		if (img.format == I_4)
-			bb = unpack_I_4bpp(img);
-		else if (img.format == I_8)
-			bb = unpack_I_8bpp(img);
-		else
+		if (img.format != I_4 && img.format != I_8)
 			throw new IllegalStateException("Image is not I format: " + img.format);
+		if (img.format == I_4 && img.width % 2 != 0)
+			throw new ImageFormatException(I_4 + " image width must be a multiple of 2!");
 
 		BufferedImage tex = new BufferedImage(img.width, img.height, BufferedImage.TYPE_INT_ARGB);
+		int[] pixels = getPixelData(tex);
+		int k = 0;
 
-		bb.rewind();
-		for (int y = 0; y < img.height; y++)
-			for (int x = 0; x < img.width; x++) {
-				int I = (bb.get() & 0xFF);
-				Color c = new Color(I, I, I, 255);
-				tex.setRGB(x, y, c.getRGB());
+		img.raster.rewind();
+		for (int y = 0; y < img.height; y++) {
+			if (img.format == I_4) {
+				for (int x = 0; x < img.width; x += 2) {
+					int b = img.raster.get();
+					pixels[k++] = getGrayARGB(EXPAND_4[(b >>> 4) & 0x0F], 255);
+					pixels[k++] = getGrayARGB(EXPAND_4[b & 0x0F], 255);
+				}
+			}
+			else {
+				for (int x = 0; x < img.width; x++)
+					pixels[k++] = getGrayARGB(img.raster.get() & 0xFF, 255);
 			}
+		}
 
 		return tex;
 	}
@@ -585,21 +507,17 @@ public class ImageConverter
 	private static Tile getTile_I_4bpp(BufferedImage bimg)
 	{
 		Tile img = new Tile(I_4, bimg.getHeight(), bimg.getWidth());
+		if (img.width % 2 != 0)
+			throw new ImageFormatException(I_4 + " image width must be a multiple of 2!");
 
-		img.raster.rewind();
-		for (int y = 0; y < img.height; y++)
-			for (int x = 0; x < img.width;) {
-				Color c1 = new Color(bimg.getRGB(x++, y), true);
-				Color c2 = new Color(bimg.getRGB(x++, y), true);
-
-				int I1 = (c1.getRed() + c1.getBlue() + c1.getGreen()) / 3;
-				int I2 = (c2.getRed() + c2.getBlue() + c2.getGreen()) / 3;
+		int[] pixels = getPixels(bimg);
 
-				I1 = (int) Math.floor(15 * (I1 / 255.0));
-				I2 = (int) Math.floor(15 * (I2 / 255.0));
-
-				img.raster.put((byte) (I1 << 4 | I2));
-			}
+		img.raster.rewind();
+		for (int i = 0; i < pixels.length; i += 2) {
+			int I1 = TRUNCATE_4[getIntensity(pixels[i])];
+			int I2 = TRUNCATE_4[getIntensity(pixels[i + 1])];
+			img.raster.put((byte) (I1 << 4 | I2));
+		}
 
 		return img;
 	}
@@ -611,14 +529,11 @@ public class ImageConverter
 	private static Tile getTile_I_8bpp(BufferedImage bimg)
 	{
 		Tile img = new Tile(I_8, bimg.getHeight(), bimg.getWidth());
+		int[] pixels = getPixels(bimg);
 
 		img.raster.rewind();
-		for (int y = 0; y < img.height; y++)
-			for (int x = 0; x < img.width; x++) {
-				Color c = new Color(bimg.getRGB(x, y), true);
-				int I = (c.getRed() + c.getBlue() + c.getGreen()) / 3;
-				img.raster.put((byte) I);
-			}
+		for (int i = 0; i < pixels.length; i++)
+			img.raster.put((byte) getIntensity(pixels[i]));
 
 		return img;
 	}
@@ -666,58 +581,69 @@ public class ImageConverter
 
 	private static BufferedImage getImage_CI(Tile img)
 	{
-		ByteBuffer bb;
-		if (img.format == CI_4)
-			bb = unpack_CI_4bpp(img);
-		else if (img.format == CI_8)
-			bb = unpack_CI_8bpp(img);
-		else
+		if (img.format != CI_4 && img.format != CI_8)
 			throw new IllegalStateException("Image is not CI format: " + img.format);
 
 		BufferedImage tex = new BufferedImage(img.width, img.height, BufferedImage.TYPE_INT_ARGB);
-		Color[] colors = img.palette.getColors();
+		int[] pixels = getPixelData(tex);
 
-		bb.rewind();
-		for (int y = 0; y < img.height; y++)
-			for (int x = 0; x < img.width; x++) {
-				int i = (bb.get() & 0xFF);
-				Color c = colors[i];
-
-				//	if(c.getAlpha() != 255)
-				//		map.alpha = AlphaMode.TRANSPARENT;
-
-				tex.setRGB(x, y, c.getRGB());
-			}
+		Color[] colors = img.palette.getColors();
+		int[] argb = new int[colors.length];
+		for (int i = 0; i < colors.length; i++)
+			argb[i] = colors[i].getRGB();
 
+		readIndices(img, pixels, argb);
 		return tex;
 	}
 
 	public static BufferedImage getIndexedImage(Tile img, Palette pal)
 	{
-		ByteBuffer bb;
-		if (img.format == CI_4)
-			bb = unpack_CI_4bpp(img);
-		else if (img.format == CI_8)
-			bb = unpack_CI_8bpp(img);
-		else
+		if (img.format != CI_4 && img.format != CI_8)
 			throw new IllegalStateException("Image is not CI format: " + img.format);
 
 		BufferedImage tex = new BufferedImage(img.width, img.height, BufferedImage.TYPE_BYTE_INDEXED, pal.getIndexColorModel());
+		byte[] data = ((DataBufferByte) tex.getRaster().getDataBuffer()).getData();
+
+		// use the same pixel value setRGB would choose for each palette color
 		Color[] colors = pal.getColors();
+		ColorModel colorModel = tex.getColorModel();
+		int[] pixelValues = new int[colors.length];
+		for (int i = 0; i < colors.length; i++)
+			pixelValues[i] = ((byte[]) colorModel.getDataElements(colors[i].getRGB(), null))[0];
 
-		bb.rewind();
-		for (int y = 0; y < img.height; y++)
-			for (int x = 0; x < img.width; x++) {
-				int i = (bb.get() & 0xFF);
-				Color c = colors[i];
+		int[] indices = new int[img.width * img.height];
+		readIndices(img, indices, pixelValues);
+		for (int i = 0; i < indices.length; i++)
+			data[i] = (byte) indices[i];
 
-				//	if(c.getAlpha() != 255)
-				//		map.alpha = AlphaMode.TRANSPARENT;
+		return tex;
+	}
 
-				tex.setRGB(x, y, c.getRGB());
-			}
+	/**
+	 * Reads the palette index of each texel in a CI image and writes the
+	 * corresponding value from the lookup table.
+	 */
+	private static void readIndices(Tile img, int[] out, int[] lookup)
+	{
+		if (img.format == CI_4 && img.width % 2 != 0)
+			throw new ImageFormatException(CI_4 + " image width must be a multiple of 2!");
 
-		return tex;
+		int k = 0;
+
+		img.raster.rewind();
+		for (int y = 0; y < img.height; y++) {
+			if (img.format == CI_4) {
+				for (int x = 0; x < img.width; x += 2) {
+					int b = img.raster.get();
+					out[k++] = lookup[(b >>> 4) & 0x0F];
+					out[k++] = lookup[b & 0x0F];
+				}
+			}
+			else {
+				for (int x = 0; x < img.width; x++)
+					out[k++] = lookup[img.raster.get() & 0xFF];
+			}
+		}
 	}
 
 	// Packing and unpacking require converting between a 5-bit color channel
@@ -725,32 +651,98 @@ public class ImageConverter
 	// truncate with ceil() during unpack and floor() during pack.
 	// packed format: RRRRRGGG GGBBBBBA
 
-	private static Color unpackColor(short s)
+	private static final int[] EXPAND_3 = getExpandTable(7);
+	private static final int[] EXPAND_4 = getExpandTable(15);
+	private static final int[] EXPAND_5 = getExpandTable(31);
+
+	private static final int[] TRUNCATE_3 = getTruncateTable(7);
+	private static final int[] TRUNCATE_4 = getTruncateTable(15);
+	private static final int[] TRUNCATE_5 = getTruncateTable(31);
+
+	// maps each n-bit channel value to its 8-bit value, rounding up
+	private static int[] getExpandTable(int max)
+	{
+		int[] table = new int[max + 1];
+		for (int i = 0; i <= max; i++)
+			table[i] = (int) Math.ceil(255 * (i / (double) max));
+		return table;
+	}
+
+	// maps each 8-bit channel value to its n-bit value, rounding down
+	private static int[] getTruncateTable(int max)
+	{
+		int[] table = new int[256];
+		for (int i = 0; i < 256; i++)
+			table[i] = (int) Math.floor(max * (i / 255.0));
+		return table;
+	}
+
+	private static int unpackColor(short s)
 	{
-		int R = (s >>> 11) & 0x1F;
-		int G = (s >>> 6) & 0x1F;
-		int B = (s >>> 1) & 0x1F;
+		int R = EXPAND_5[(s >>> 11) & 0x1F];
+		int G = EXPAND_5[(s >>> 6) & 0x1F];
+		int B = EXPAND_5[(s >>> 1) & 0x1F];
 		int A = ((s & 1) == 1) ? 255 : 0;
-		R = (int) Math.ceil(255 * (R / 31.0));
-		G = (int) Math.ceil(255 * (G / 31.0));
-		B = (int) Math.ceil(255 * (B / 31.0));
-		return new Color(R, G, B, A);
+		return A << 24 | R << 16 | G << 8 | B;
 	}
 
-	private short packColor(int r, int g, int b, int a)
+	private static short packColor(int argb)
 	{
-		int R = (int) Math.floor(31 * (r / 255.0));
-		int G = (int) Math.floor(31 * (g / 255.0));
-		int B = (int) Math.floor(31 * (b / 255.0));
+		int R = TRUNCATE_5[(argb >>> 16) & 0xFF];
+		int G = TRUNCATE_5[(argb >>> 8) & 0xFF];
+		int B = TRUNCATE_5[argb & 0xFF];
 
-		int color = ((a & 0x80) == 0) ? 0 : 1;
-		color |= (R & 0x1F) << 11;
-		color |= (G & 0x1F) << 6;
-		color |= (B & 0x1F) << 1;
+		int color = ((argb & 0x80000000) == 0) ? 0 : 1;
+		color |= R << 11;
+		color |= G << 6;
+		color |= B << 1;
 
 		return (short) color;
 	}
 
+	/**
+	 * 'Dumb' intensity of an ARGB color: I = (R + G + B) / 3
+	 */
+	private static int getIntensity(int argb)
+	{
+		return (((argb >>> 16) & 0xFF) + ((argb >>> 8) & 0xFF) + (argb & 0xFF)) / 3;
+	}
+
+	private static int getGrayARGB(int I, int A)
+	{
+		return A << 24 | I << 16 | I << 8 | I;
+	}
+
+	/**
+	 * Reads every pixel of an image as ARGB, row by row, with the same values getRGB returns.
+	 * The backing array of ARGB images is used directly, so the result must not be modified.
+	 */
+	private static int[] getPixels(BufferedImage bimg)
+	{
+		int width = bimg.getWidth();
+		int height = bimg.getHeight();
+
+		WritableRaster raster = bimg.getRaster();
+		if (bimg.getType() == BufferedImage.TYPE_INT_ARGB
+			&& raster.getDataBuffer() instanceof DataBufferInt buffer
+			&& raster.getSampleModel() instanceof SinglePixelPackedSampleModel sampleModel
+			&& sampleModel.getScanlineStride() == width
+			&& raster.getSampleModelTranslateX() == 0
+			&& raster.getSampleModelTranslateY() == 0
+			&& buffer.getOffset() == 0)
+			return buffer.getData();
+
+		return bimg.getRGB(0, 0, width, height, null, 0, width);
+	}
+
+	/**
+	 * Gets the backing array of a newly created TYPE_INT_ARGB image.
+	 */
+	private static int[] getPixelData(BufferedImage tex)
+	{
+		return ((DataBufferInt) tex.getRaster().getDataBuffer()).getData();
+	}
+
 	public static class ImageFormatException extends RuntimeException
 	{
 		public ImageFormatException(String msg)
@@ -0,0 +1,74 @@
+package game.texture;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+/**
+ * Times {@link ImageConverter#getTile(BufferedImage, TileFormat)} and
+ * {@link ImageConverter#convertToBufferedImage(Tile)} for each supported {@link TileFormat}
+ * on random images.
+ * Usage: ImageConverterBenchmark [size]
+ */
+public class ImageConverterBenchmark
+{
+	private static final int WARMUP = 20;
+	private static final int ITERATIONS = 50;
+
+	public static void main(String[] args)
+	{
+		int size = (args.length > 0) ? Integer.parseInt(args[0]) : 256;
+		Random rng = new Random(0x5EED);
+
+		BufferedImage argb = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+		for (int y = 0; y < size; y++)
+			for (int x = 0; x < size; x++)
+				argb.setRGB(x, y, rng.nextInt());
+
+		System.out.printf("Image size: %d x %d%n", size, size);
+		System.out.printf("%-8s  %10s  %10s%n", "Format", "getTile", "getImage");
+
+		for (TileFormat fmt : TileFormat.values()) {
+			if (fmt == TileFormat.YUV_16)
+				continue;
+
+			BufferedImage source = (fmt.type == TileFormat.TYPE_CI) ? getIndexedSource(fmt, size, rng) : argb;
+			Tile tile = ImageConverter.getTile(source, fmt);
+
+			double encode = time(() -> ImageConverter.getTile(source, fmt));
+			double decode = time(() -> ImageConverter.convertToBufferedImage(tile));
+
+			System.out.printf("%-8s  %7.3f ms  %7.3f ms%n", fmt, encode, decode);
+		}
+	}
+
+	private static BufferedImage getIndexedSource(TileFormat fmt, int size, Random rng)
+	{
+		Color[] colors = new Color[1 << fmt.bpp];
+		for (int i = 0; i < colors.length; i++)
+			colors[i] = new Color(rng.nextInt(256), rng.nextInt(256), rng.nextInt(256), rng.nextInt(256));
+		Palette pal = new Palette(colors);
+
+		Tile tile = new Tile(fmt, size, size);
+		tile.palette = pal;
+		byte[] raster = new byte[tile.raster.capacity()];
+		rng.nextBytes(raster);
+		tile.raster.put(raster);
+
+		// indexed images store one index per byte, so getTile expects this layout for both CI formats
+		return ImageConverter.getIndexedImage(tile, pal);
+	}
+
+	private static double time(Runnable func)
+	{
+		for (int i = 0; i < WARMUP; i++)
+			func.run();
+
+		long t0 = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++)
+			func.run();
+		long t1 = System.nanoTime();
+
+		return (t1 - t0) * 1e-6 / ITERATIONS;
+	}
+}
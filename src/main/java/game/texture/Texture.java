@@ -46,7 +46,7 @@ public class Texture
 	private static final String YES = "yes";
 	private static final String NO = "no";
 
-	private Texture(String name)
+	Texture(String name)
 	{
 		this.name = name;
 	}
@@ -360,6 +360,15 @@ public class Texture
 	}
 
 	public static Texture parseTexture(File archiveFile, String dir, String name, List<String> lines) throws IOException
+	{
+		return parseTexture(archiveFile, dir, name, lines, null);
+	}
+
+	/**
+	 * @param imageFiles - if not null, receives the name of every image file read, relative to <code>dir</code>
+	 */
+	public static Texture parseTexture(File archiveFile, String dir, String name, List<String> lines,
+		List<String> imageFiles) throws IOException
 	{
 		Texture tx = new Texture(name);
 		String imgName = null;
@@ -472,9 +481,14 @@ public class Texture
 		}
 
 		tx.main = Tile.load(dir + imgName, imgFormat, convertImg);
+		if (imageFiles != null)
+			imageFiles.add(imgName);
 
-		if (tx.hasAux)
+		if (tx.hasAux) {
 			tx.aux = Tile.load(dir + auxName, auxFormat, convertAux);
+			if (imageFiles != null)
+				imageFiles.add(auxName);
+		}
 
 		if (tx.hasMipmaps) {
 			int divisor = 2;
@@ -491,6 +505,8 @@ public class Texture
 
 					String mmName = imgName + "_MIPMAP_" + (tx.mipmapList.size() + 1) + ".png";
 					Tile mipmap = Tile.load(dir + mmName, imgFormat, convertImg);
+					if (imageFiles != null)
+						imageFiles.add(mmName);
 
 					if (mipmap.height != mmHeight)
 						throw new InputFileException(archiveFile, "%s has incorrect height: %s instead of %s", mmName, mipmap.height, mmHeight);
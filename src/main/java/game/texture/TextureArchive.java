@@ -6,16 +6,21 @@ import static app.Directories.MOD_IMG_TEX;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 
 import app.Environment;
+import app.StarRodException;
 import app.input.IOUtils;
 import app.input.InputFileException;
 
@@ -155,6 +160,16 @@ public class TextureArchive
 	}
 
 	public static TextureArchive loadText(File texFile) throws IOException
+	{
+		return loadText(texFile, false);
+	}
+
+	/**
+	 * Loads an archive from its text file and images. Textures are decoded concurrently.
+	 * @param useCache - reuse textures from the {@link TextureCache} for this archive, decoding
+	 * only those whose declaration or images have changed, and update the cache afterwards
+	 */
+	public static TextureArchive loadText(File texFile, boolean useCache) throws IOException
 	{
 		String texName = FilenameUtils.getBaseName(texFile.getName());
 		TextureArchive ta = new TextureArchive(texName);
@@ -163,6 +178,9 @@ public class TextureArchive
 		String subdir = parentDirectory.getAbsolutePath() + "/" + texName + "/";
 		List<String> lines = IOUtils.readFormattedTextFile(texFile, false);
 
+		List<String> names = new ArrayList<>();
+		List<List<String>> declarations = new ArrayList<>();
+
 		Iterator<String> iter = lines.iterator();
 		while (iter.hasNext()) {
 			String line = iter.next();
@@ -200,10 +218,50 @@ public class TextureArchive
 				textureLines.add(line);
 			}
 
-			Texture tx = Texture.parseTexture(texFile, subdir, name, textureLines);
-			ta.textureList.add(tx);
+			names.add(name);
+			declarations.add(textureLines);
 		}
 
+		File cacheFile = useCache ? TextureCache.getFile(texName) : null;
+		TextureCache cache = useCache ? TextureCache.load(cacheFile) : null;
+
+		// decoding the images is nearly all of the work, and each texture is independent
+		List<CompletableFuture<Texture>> futures = new ArrayList<>(names.size());
+		for (int i = 0; i < names.size(); i++) {
+			String name = names.get(i);
+			List<String> textureLines = declarations.get(i);
+			futures.add(CompletableFuture.supplyAsync(() -> {
+				try {
+					if (cache != null)
+						return cache.getOrParse(texFile, subdir, name, textureLines);
+					else
+						return Texture.parseTexture(texFile, subdir, name, textureLines);
+				}
+				catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}));
+		}
+
+		for (CompletableFuture<Texture> future : futures) {
+			try {
+				ta.textureList.add(future.join());
+			}
+			catch (CompletionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof UncheckedIOException uioe)
+					throw uioe.getCause();
+				if (cause instanceof RuntimeException re)
+					throw re;
+				if (cause instanceof Error err)
+					throw err;
+				throw new StarRodException(cause);
+			}
+		}
+
+		if (cache != null)
+			cache.save(cacheFile, names);
+
 		return ta;
 	}
 
@@ -0,0 +1,416 @@
+package game.texture;
+
+import static app.Directories.MOD_IMG_CACHE;
+
+import java.awt.Color;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map.Entry;
+
+import app.input.HashUtils;
+import app.input.IOUtils;
+import util.Logger;
+
+/**
+ * Decoded textures from one {@link TextureArchive}, kept in the image cache so opening a map
+ * only needs to decode the PNGs which changed since the archive was last loaded.
+ * <p>
+ * Each entry holds the tile and palette data of one texture along with the SHA-256 hashes of
+ * its declaration and of every image file it was decoded from. An entry is reused if its
+ * declaration is unchanged and each image file still has the same size and modification time,
+ * or failing that, the same hash. Cache files are read into memory in one pass, and textures
+ * are only decoded from their entries when they are requested. The file is not kept open or
+ * mapped, so it can be replaced when the cache is saved.
+ * <p>
+ * Increase {@link #FORMAT_VERSION} whenever the layout of an entry changes, which discards
+ * every cached texture. Safe to use from several threads at once.
+ */
+public class TextureCache
+{
+	private static final int MAGIC = 0x54584341; // TXCA
+	private static final int FORMAT_VERSION = 1;
+	private static final int HASH_SIZE = 32;
+
+	public static final String EXTENSION = "txc";
+
+	private static class ImageSource
+	{
+		private final String name;
+		private final long size;
+		private final long lastModified;
+		private final byte[] hash;
+
+		private ImageSource(String name, long size, long lastModified, byte[] hash)
+		{
+			this.name = name;
+			this.size = size;
+			this.lastModified = lastModified;
+			this.hash = hash;
+		}
+	}
+
+	private static class CacheEntry
+	{
+		private final byte[] declarationHash;
+		private final ImageSource[] sources;
+
+		// encoded texture, copied from the cache file or newly written
+		private final ByteBuffer data;
+
+		private CacheEntry(byte[] declarationHash, ImageSource[] sources, ByteBuffer data)
+		{
+			this.declarationHash = declarationHash;
+			this.sources = sources;
+			this.data = data;
+		}
+	}
+
+	private final HashMap<String, CacheEntry> entries = new HashMap<>();
+	private boolean modified = false;
+
+	private TextureCache()
+	{}
+
+	public static File getFile(String archiveName)
+	{
+		return new File(MOD_IMG_CACHE + archiveName + "." + EXTENSION);
+	}
+
+	/**
+	 * Reads a cache file. A missing, outdated, or damaged file gives an empty cache.
+	 */
+	public static TextureCache load(File f)
+	{
+		TextureCache cache = new TextureCache();
+		if (!f.isFile())
+			return cache;
+
+		try {
+			ByteBuffer bb = IOUtils.getReadOnlyBuffer(f);
+
+			if (bb.getInt() != MAGIC || bb.getInt() != FORMAT_VERSION)
+				return cache;
+
+			int count = bb.getInt();
+			for (int i = 0; i < count; i++) {
+				String name = readString(bb);
+				byte[] declarationHash = readHash(bb);
+
+				ImageSource[] sources = new ImageSource[bb.getInt()];
+				for (int j = 0; j < sources.length; j++)
+					sources[j] = new ImageSource(readString(bb), bb.getLong(), bb.getLong(), readHash(bb));
+
+				int length = bb.getInt();
+				if (length < 0 || length > bb.remaining())
+					throw new BufferUnderflowException();
+
+				byte[] data = new byte[length];
+				bb.get(data);
+
+				cache.entries.put(name, new CacheEntry(declarationHash, sources, ByteBuffer.wrap(data)));
+			}
+		}
+		catch (IOException | RuntimeException e) {
+			Logger.logWarning("Could not read texture cache " + f.getName() + ": " + e.getMessage());
+			cache.entries.clear();
+		}
+
+		return cache;
+	}
+
+	/**
+	 * Returns the cached texture if its declaration and image files are unchanged.
+	 * Otherwise decodes the texture from its image files and stores it in the cache.
+	 */
+	public Texture getOrParse(File archiveFile, String dir, String name, List<String> lines) throws IOException
+	{
+		byte[] declarationHash = HashUtils.hash(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+
+		CacheEntry entry;
+		synchronized (this) {
+			entry = entries.get(name);
+		}
+
+		if (entry != null && Arrays.equals(entry.declarationHash, declarationHash)) {
+			entry = validate(name, entry, dir);
+			if (entry != null) {
+				Texture tx = decode(entry.data.duplicate(), name);
+				if (tx != null)
+					return tx;
+			}
+		}
+
+		List<String> imageFiles = new ArrayList<>();
+		Texture tx = Texture.parseTexture(archiveFile, dir, name, lines, imageFiles);
+
+		ImageSource[] sources = new ImageSource[imageFiles.size()];
+		for (int i = 0; i < sources.length; i++) {
+			File f = new File(dir, imageFiles.get(i));
+			// attributes before contents, so a file modified while hashing is checked again next time
+			long size = f.length();
+			long lastModified = f.lastModified();
+			sources[i] = new ImageSource(imageFiles.get(i), size, lastModified, HashUtils.hashFile(f));
+		}
+
+		CacheEntry built = new CacheEntry(declarationHash, sources, ByteBuffer.wrap(encode(tx)));
+		synchronized (this) {
+			entries.put(name, built);
+			modified = true;
+		}
+
+		return tx;
+	}
+
+	/**
+	 * Checks the image files of an entry against the files on disk.
+	 * @return the entry, updated with new timestamps if needed, or null if any image changed
+	 */
+	private CacheEntry validate(String name, CacheEntry entry, String dir) throws IOException
+	{
+		boolean touched = false;
+		ImageSource[] sources = entry.sources.clone();
+
+		for (int i = 0; i < sources.length; i++) {
+			ImageSource src = sources[i];
+			File f = new File(dir, src.name);
+			if (!f.isFile())
+				return null;
+
+			long size = f.length();
+			long lastModified = f.lastModified();
+			if (src.size == size && src.lastModified == lastModified)
+				continue;
+
+			if (!Arrays.equals(src.hash, HashUtils.hashFile(f)))
+				return null;
+
+			// same contents, just remember the new timestamp
+			sources[i] = new ImageSource(src.name, size, lastModified, src.hash);
+			touched = true;
+		}
+
+		if (!touched)
+			return entry;
+
+		CacheEntry updated = new CacheEntry(entry.declarationHash, sources, entry.data);
+		synchronized (this) {
+			entries.put(name, updated);
+			modified = true;
+		}
+		return updated;
+	}
+
+	/**
+	 * Writes the entries for the given textures if anything changed since the cache was loaded,
+	 * dropping any others. Failures are only logged, since textures can always be decoded again.
+	 */
+	public synchronized void save(File f, Iterable<String> textureNames)
+	{
+		LinkedHashMap<String, CacheEntry> saved = new LinkedHashMap<>();
+		for (String name : textureNames) {
+			CacheEntry entry = entries.get(name);
+			if (entry != null)
+				saved.put(name, entry);
+		}
+
+		if (!modified && saved.size() == entries.size())
+			return;
+
+		File tempFile = null;
+		try {
+			File dir = f.getAbsoluteFile().getParentFile();
+			dir.mkdirs();
+			tempFile = File.createTempFile(f.getName(), ".tmp", dir);
+
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				out.writeInt(saved.size());
+
+				for (Entry<String, CacheEntry> e : saved.entrySet()) {
+					CacheEntry entry = e.getValue();
+					writeString(out, e.getKey());
+					out.write(entry.declarationHash);
+
+					out.writeInt(entry.sources.length);
+					for (ImageSource src : entry.sources) {
+						writeString(out, src.name);
+						out.writeLong(src.size);
+						out.writeLong(src.lastModified);
+						out.write(src.hash);
+					}
+
+					ByteBuffer data = entry.data.duplicate();
+					data.rewind();
+					byte[] bytes = new byte[data.remaining()];
+					data.get(bytes);
+					out.writeInt(bytes.length);
+					out.write(bytes);
+				}
+			}
+
+			Files.move(tempFile.toPath(), f.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			modified = false;
+		}
+		catch (IOException e) {
+			Logger.logWarning("Could not write texture cache " + f.getName() + ": " + e.getMessage());
+			if (tempFile != null)
+				tempFile.delete();
+		}
+	}
+
+	private static byte[] encode(Texture tx) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeInt(tx.extra);
+			out.writeBoolean(tx.hasAux);
+			out.writeBoolean(tx.hasMipmaps);
+			out.writeBoolean(tx.filter);
+			out.writeInt(tx.auxCombine);
+			for (int i = 0; i < 2; i++) {
+				out.writeInt(tx.hWrap[i]);
+				out.writeInt(tx.vWrap[i]);
+			}
+
+			writeTile(out, tx.main);
+			if (tx.hasAux)
+				writeTile(out, tx.aux);
+
+			if (tx.hasMipmaps) {
+				out.writeInt(tx.mipmapList.size());
+				for (Tile mipmap : tx.mipmapList)
+					writeTile(out, mipmap);
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	private static void writeTile(DataOutputStream out, Tile tile) throws IOException
+	{
+		out.writeInt(tile.format.ordinal());
+		out.writeInt(tile.height);
+		out.writeInt(tile.width);
+
+		ByteBuffer raster = tile.raster.duplicate();
+		raster.rewind();
+		byte[] bytes = new byte[raster.remaining()];
+		raster.get(bytes);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+
+		Palette pal = tile.palette;
+		out.writeInt((pal == null) ? -1 : pal.size);
+		if (pal != null) {
+			out.write(pal.r);
+			out.write(pal.g);
+			out.write(pal.b);
+			out.write(pal.a);
+		}
+	}
+
+	/**
+	 * @return the texture, or null if the entry cannot be decoded
+	 */
+	private static Texture decode(ByteBuffer bb, String name)
+	{
+		try {
+			Texture tx = new Texture(name);
+			tx.extra = bb.getInt();
+			tx.hasAux = bb.get() != 0;
+			tx.hasMipmaps = bb.get() != 0;
+			tx.filter = bb.get() != 0;
+			tx.auxCombine = bb.getInt();
+			tx.hWrap = new int[2];
+			tx.vWrap = new int[2];
+			for (int i = 0; i < 2; i++) {
+				tx.hWrap[i] = bb.getInt();
+				tx.vWrap[i] = bb.getInt();
+			}
+
+			tx.main = readTile(bb);
+			if (tx.hasAux)
+				tx.aux = readTile(bb);
+
+			if (tx.hasMipmaps) {
+				int count = bb.getInt();
+				tx.mipmapList = new LinkedList<>();
+				for (int i = 0; i < count; i++)
+					tx.mipmapList.add(readTile(bb));
+			}
+
+			return tx;
+		}
+		catch (RuntimeException e) {
+			Logger.logWarning("Could not read cached texture " + name + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	private static Tile readTile(ByteBuffer bb)
+	{
+		TileFormat fmt = TileFormat.values()[bb.getInt()];
+		int height = bb.getInt();
+		int width = bb.getInt();
+		Tile tile = new Tile(fmt, height, width);
+
+		int length = bb.getInt();
+		if (length != tile.raster.capacity())
+			throw new IllegalStateException("Invalid raster size for " + fmt);
+
+		ByteBuffer raster = bb.slice(bb.position(), length);
+		bb.position(bb.position() + length);
+		tile.raster.put(raster);
+		tile.raster.rewind();
+
+		int paletteSize = bb.getInt();
+		if (paletteSize >= 0) {
+			byte[][] channels = new byte[4][paletteSize];
+			for (byte[] channel : channels)
+				bb.get(channel);
+
+			Color[] colors = new Color[paletteSize];
+			for (int i = 0; i < paletteSize; i++)
+				colors[i] = new Color(channels[0][i] & 0xFF, channels[1][i] & 0xFF, channels[2][i] & 0xFF, channels[3][i] & 0xFF);
+			tile.palette = new Palette(colors);
+		}
+
+		return tile;
+	}
+
+	private static String readString(ByteBuffer bb)
+	{
+		byte[] bytes = new byte[bb.getInt()];
+		bb.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeString(DataOutputStream out, String s) throws IOException
+	{
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static byte[] readHash(ByteBuffer bb)
+	{
+		byte[] hash = new byte[HASH_SIZE];
+		bb.get(hash);
+		return hash;
+	}
+}
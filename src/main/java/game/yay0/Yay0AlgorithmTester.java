@@ -8,6 +8,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.commons.io.FileUtils;
@@ -42,7 +43,9 @@ public class Yay0AlgorithmTester
 
 		//	dump2();
 		// compressFiles();
-		compressFilesStreams();
+		// compressFilesStreams();
+		// compareMatchFinders();
+		compareOptimalEncoder();
 		//checkCompressedFiles();
 		//verifyCompressedFiles();
 
@@ -116,6 +119,98 @@ public class Yay0AlgorithmTester
 		progressBar.destroy();
 	}
 
+	/**
+	 * Encodes every dumped asset with both the brute force and indexed match finders,
+	 * checks that their output is identical, and reports the throughput of each.
+	 */
+	private void compareMatchFinders() throws IOException
+	{
+		File[] decompressedFiles = decodedDir.listFiles();
+
+		long totalBytes = 0;
+		long bruteTime = 0;
+		long indexTime = 0;
+		int mismatches = 0;
+
+		for (File f : decompressedFiles) {
+			byte[] source = FileUtils.readFileToByteArray(f);
+			if (source.length < 64)
+				continue;
+
+			long t0 = System.nanoTime();
+			byte[] brute = new Yay0EncodeHelper(source, false, false).getFile();
+			long t1 = System.nanoTime();
+			byte[] indexed = new Yay0EncodeHelper(source, false, true).getFile();
+			long t2 = System.nanoTime();
+
+			if (!Arrays.equals(brute, indexed)) {
+				System.out.println(f.getName() + " does not match brute force encoding!");
+				mismatches++;
+			}
+
+			totalBytes += source.length;
+			bruteTime += (t1 - t0);
+			indexTime += (t2 - t1);
+		}
+
+		double megabytes = totalBytes / (1024.0 * 1024.0);
+		System.out.printf("Compressed %d files (%.2f MB) with %d mismatches.%n",
+			decompressedFiles.length, megabytes, mismatches);
+		System.out.printf("Brute force: %8.3f s (%.3f MB/s)%n", bruteTime * 1e-9, megabytes / (bruteTime * 1e-9));
+		System.out.printf("Indexed:     %8.3f s (%.3f MB/s)%n", indexTime * 1e-9, megabytes / (indexTime * 1e-9));
+		System.out.printf("Speedup: %.2fx%n", (double) bruteTime / indexTime);
+	}
+
+	/**
+	 * Encodes every dumped asset with both the default and optimal encoders,
+	 * checks that the optimal output decodes correctly, and reports ratio and time for each.
+	 */
+	private void compareOptimalEncoder() throws IOException
+	{
+		File[] decompressedFiles = decodedDir.listFiles();
+
+		long totalBytes = 0;
+		long defaultSize = 0;
+		long optimalSize = 0;
+		long defaultTime = 0;
+		long optimalTime = 0;
+		int errors = 0;
+
+		for (File f : decompressedFiles) {
+			byte[] source = FileUtils.readFileToByteArray(f);
+			if (source.length < 64)
+				continue;
+
+			long t0 = System.nanoTime();
+			byte[] standard = Yay0Helper.encode(source, false, false);
+			long t1 = System.nanoTime();
+			byte[] optimal = Yay0Helper.encode(source, false, true);
+			long t2 = System.nanoTime();
+
+			if (!Arrays.equals(source, Yay0Helper.decode(optimal))) {
+				System.out.println(f.getName() + " does not decode correctly with optimal encoding!");
+				errors++;
+			}
+
+			if (optimal.length > standard.length)
+				System.out.printf("%s is %d bytes LARGER with optimal encoding!%n", f.getName(), optimal.length - standard.length);
+
+			totalBytes += source.length;
+			defaultSize += standard.length;
+			optimalSize += optimal.length;
+			defaultTime += (t1 - t0);
+			optimalTime += (t2 - t1);
+		}
+
+		System.out.printf("Compressed %d files (%d bytes) with %d errors.%n", decompressedFiles.length, totalBytes, errors);
+		System.out.printf("Default: %9d bytes (%.3f%%) in %8.3f s%n",
+			defaultSize, 100.0 * defaultSize / totalBytes, defaultTime * 1e-9);
+		System.out.printf("Optimal: %9d bytes (%.3f%%) in %8.3f s%n",
+			optimalSize, 100.0 * optimalSize / totalBytes, optimalTime * 1e-9);
+		System.out.printf("Saved %d bytes (%.3f%%)%n",
+			defaultSize - optimalSize, 100.0 * (defaultSize - optimalSize) / defaultSize);
+	}
+
 	private void compressTest(String name) throws IOException
 	{
 		byte[] source = FileUtils.readFileToByteArray(new File(decodedDir, name));
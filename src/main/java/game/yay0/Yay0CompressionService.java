@@ -0,0 +1,114 @@
+package game.yay0;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Shared service for compressing batches of buffers on a work-stealing pool.
+ * The amount of source data queued or being compressed at any time is limited by a memory budget.
+ * Callers submitting more than the budget block until earlier jobs have finished.
+ * Each job also needs about five times its source size in scratch space for the encoder.
+ */
+public final class Yay0CompressionService
+{
+	// budget is tracked in units of 1 KB so large batches cannot overflow the semaphore
+	private static final int BUDGET_UNIT = 1024;
+	private static final int MEMORY_BUDGET = (64 << 20) / BUDGET_UNIT;
+
+	private static Yay0CompressionService instance = null;
+
+	public static synchronized Yay0CompressionService instance()
+	{
+		if (instance == null)
+			instance = new Yay0CompressionService(Runtime.getRuntime().availableProcessors());
+		return instance;
+	}
+
+	private final ForkJoinPool pool;
+	private final Semaphore budget;
+
+	private Yay0CompressionService(int parallelism)
+	{
+		pool = new ForkJoinPool(parallelism);
+		budget = new Semaphore(MEMORY_BUDGET, true);
+	}
+
+	public CompletableFuture<byte[]> submit(byte[] source)
+	{
+		return submit(source, false);
+	}
+
+	/**
+	 * Queues a buffer for compression, blocking if the memory budget is exhausted.
+	 * @param optimal - use the optimal parse rather than the default encoder
+	 */
+	public CompletableFuture<byte[]> submit(byte[] source, boolean optimal)
+	{
+		int permits = (source.length + BUDGET_UNIT - 1) / BUDGET_UNIT;
+		int cost = Math.max(1, Math.min(MEMORY_BUDGET, permits));
+		budget.acquireUninterruptibly(cost);
+
+		try {
+			return CompletableFuture.supplyAsync(() -> Yay0Helper.encode(source, false, optimal), pool)
+				.whenComplete((result, ex) -> budget.release(cost));
+		}
+		catch (RuntimeException e) {
+			budget.release(cost);
+			throw e;
+		}
+	}
+
+	public List<CompletableFuture<byte[]>> submitAll(List<byte[]> sources)
+	{
+		return submitAll(sources, false);
+	}
+
+	public List<CompletableFuture<byte[]>> submitAll(List<byte[]> sources, boolean optimal)
+	{
+		List<CompletableFuture<byte[]>> futures = new ArrayList<>(sources.size());
+		for (byte[] source : sources)
+			futures.add(submit(source, optimal));
+		return futures;
+	}
+
+	/**
+	 * Compresses a batch of buffers and waits for all of them to finish.
+	 * Results are returned in the same order as the sources.
+	 */
+	public List<byte[]> encodeAll(List<byte[]> sources)
+	{
+		return encodeAll(sources, false);
+	}
+
+	public List<byte[]> encodeAll(List<byte[]> sources, boolean optimal)
+	{
+		return await(submitAll(sources, optimal));
+	}
+
+	/**
+	 * Waits for every future in the list, rethrowing the first failure encountered.
+	 */
+	public static List<byte[]> await(List<CompletableFuture<byte[]>> futures)
+	{
+		List<byte[]> results = new ArrayList<>(futures.size());
+		for (CompletableFuture<byte[]> future : futures)
+			results.add(await(future));
+		return results;
+	}
+
+	public static byte[] await(CompletableFuture<byte[]> future)
+	{
+		try {
+			return future.join();
+		}
+		catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException re)
+				throw re;
+			throw e;
+		}
+	}
+}
@@ -0,0 +1,308 @@
+package game.yay0;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.commons.io.FileUtils;
+
+import app.Directories;
+import app.StarRodException;
+import app.input.HashUtils;
+import app.input.IOUtils;
+import util.Logger;
+
+/**
+ * Content-addressed cache of compressed data shared by every project. Entries are keyed by the
+ * SHA-256 hash of the uncompressed bytes, so identical content is only ever compressed once,
+ * regardless of where it came from or what it is named.
+ * <p>
+ * Compressed data is stored in one file per entry under {@link Directories#YAY0_CACHE}.
+ * The index lists entries from least to most recently used and is replaced atomically on save.
+ * Least recently used entries are evicted whenever the total size exceeds {@link #MAX_CACHE_SIZE}.
+ */
+public final class Yay0ContentCache
+{
+	public static final long MAX_CACHE_SIZE = 256L << 20;
+
+	private static final String FN_INDEX = "index.txt";
+	private static final String DIR_OBJECTS = "objects";
+	private static final String OPTIMAL_SUFFIX = ".max";
+
+	public static class CacheResult
+	{
+		public final boolean fromCache;
+		public final byte[] data;
+
+		private CacheResult(boolean fromCache, byte[] data)
+		{
+			this.fromCache = fromCache;
+			this.data = data;
+		}
+	}
+
+	private static Yay0ContentCache instance = null;
+
+	public static synchronized Yay0ContentCache instance()
+	{
+		if (instance == null)
+			instance = new Yay0ContentCache(Directories.YAY0_CACHE.toFile(), MAX_CACHE_SIZE);
+		return instance;
+	}
+
+	private final File cacheDir;
+	private final File objectDir;
+	private final long maxSize;
+
+	// key -> compressed size, in access order (least recently used first)
+	private final LinkedHashMap<String, Long> entries;
+	private long totalSize = 0;
+	private boolean modified = false;
+
+	public Yay0ContentCache(File cacheDir, long maxSize)
+	{
+		this.cacheDir = cacheDir;
+		this.objectDir = new File(cacheDir, DIR_OBJECTS);
+		this.maxSize = maxSize;
+		entries = new LinkedHashMap<>(256, 0.75f, true);
+
+		File indexFile = new File(cacheDir, FN_INDEX);
+		try {
+			if (indexFile.exists())
+				loadIndex(indexFile);
+		}
+		catch (IOException | StarRodException e) {
+			// the cache is disposable, start over rather than fail the build
+			Logger.logWarning("Could not read compression cache index: " + e.getMessage());
+			entries.clear();
+			totalSize = 0;
+			modified = true;
+		}
+	}
+
+	public CacheResult get(byte[] source) throws IOException
+	{
+		return get(source, false);
+	}
+
+	/**
+	 * Returns the compressed form of <code>source</code>, compressing and caching it if necessary.
+	 * @param optimal - use the optimal encoder, which is cached separately from the default encoder
+	 */
+	public CacheResult get(byte[] source, boolean optimal) throws IOException
+	{
+		String key = getKey(source, optimal);
+
+		byte[] cached = load(key);
+		if (cached != null)
+			return new CacheResult(true, cached);
+
+		byte[] encoded = Yay0Helper.encode(source, false, optimal);
+		store(key, encoded);
+		return new CacheResult(false, encoded);
+	}
+
+	public List<CacheResult> getAll(List<byte[]> sources) throws IOException
+	{
+		return getAll(sources, false);
+	}
+
+	/**
+	 * Batch version of {@link #get(byte[], boolean)}. Every distinct source missing from the cache
+	 * is compressed concurrently by the {@link Yay0CompressionService}.
+	 * Results are returned in the same order as the sources.
+	 */
+	public List<CacheResult> getAll(List<byte[]> sources, boolean optimal) throws IOException
+	{
+		int count = sources.size();
+		CacheResult[] results = new CacheResult[count];
+		String[] keys = new String[count];
+
+		HashMap<String, CompletableFuture<byte[]>> jobs = new HashMap<>();
+
+		for (int i = 0; i < count; i++) {
+			keys[i] = getKey(sources.get(i), optimal);
+
+			if (jobs.containsKey(keys[i]))
+				continue;
+
+			byte[] cached = load(keys[i]);
+			if (cached != null)
+				results[i] = new CacheResult(true, cached);
+			else
+				jobs.put(keys[i], Yay0CompressionService.instance().submit(sources.get(i), optimal));
+		}
+
+		for (Entry<String, CompletableFuture<byte[]>> e : jobs.entrySet())
+			store(e.getKey(), Yay0CompressionService.await(e.getValue()));
+
+		for (int i = 0; i < count; i++) {
+			if (results[i] == null)
+				results[i] = new CacheResult(false, Yay0CompressionService.await(jobs.get(keys[i])));
+		}
+
+		return List.of(results);
+	}
+
+	public List<byte[]> encodeAll(List<byte[]> sources, boolean optimal) throws IOException
+	{
+		List<byte[]> encoded = new ArrayList<>(sources.size());
+		for (CacheResult result : getAll(sources, optimal))
+			encoded.add(result.data);
+		return encoded;
+	}
+
+	private static String getKey(byte[] source, boolean optimal)
+	{
+		String hash = HashUtils.toHex(HashUtils.hash(source));
+		return optimal ? hash + OPTIMAL_SUFFIX : hash;
+	}
+
+	private File getObjectFile(String key)
+	{
+		return new File(new File(objectDir, key.substring(0, 2)), key);
+	}
+
+	private synchronized byte[] load(String key) throws IOException
+	{
+		Long size = entries.get(key); // marks the entry as recently used
+		if (size == null)
+			return null;
+
+		File f = getObjectFile(key);
+		if (!f.exists() || f.length() != size) {
+			remove(key);
+			return null;
+		}
+
+		modified = true;
+		return FileUtils.readFileToByteArray(f);
+	}
+
+	private synchronized void store(String key, byte[] encoded) throws IOException
+	{
+		if (entries.containsKey(key))
+			return;
+
+		File f = getObjectFile(key);
+		writeAtomic(f, encoded);
+
+		entries.put(key, (long) encoded.length);
+		totalSize += encoded.length;
+		modified = true;
+
+		evict();
+	}
+
+	private void remove(String key)
+	{
+		Long size = entries.remove(key);
+		if (size == null)
+			return;
+
+		totalSize -= size;
+		FileUtils.deleteQuietly(getObjectFile(key));
+		modified = true;
+	}
+
+	private void evict()
+	{
+		Iterator<Entry<String, Long>> iter = entries.entrySet().iterator();
+		while (totalSize > maxSize && iter.hasNext()) {
+			Entry<String, Long> e = iter.next();
+			totalSize -= e.getValue();
+			FileUtils.deleteQuietly(getObjectFile(e.getKey()));
+			iter.remove();
+		}
+	}
+
+	/**
+	 * Writes the index if any entries were added, used, or evicted since it was last saved.
+	 */
+	public synchronized void save() throws IOException
+	{
+		if (!modified)
+			return;
+
+		FileUtils.forceMkdir(cacheDir);
+		File indexFile = new File(cacheDir, FN_INDEX);
+		File tempFile = new File(cacheDir, FN_INDEX + ".tmp");
+
+		PrintWriter pw = IOUtils.getBufferedPrintWriter(tempFile);
+		for (Entry<String, Long> e : entries.entrySet())
+			pw.printf("%s %d%n", e.getKey(), e.getValue());
+		pw.close();
+
+		moveAtomic(tempFile, indexFile);
+		modified = false;
+	}
+
+	private void loadIndex(File indexFile) throws IOException
+	{
+		List<String> lines = Files.readAllLines(indexFile.toPath(), StandardCharsets.UTF_8);
+
+		for (String line : lines) {
+			line = line.trim();
+			if (line.isEmpty())
+				continue;
+
+			String[] tokens = line.split("\\s+");
+			if (tokens.length != 2)
+				throw new StarRodException("Invalid line in %s: %s", FN_INDEX, line);
+
+			long size;
+			try {
+				size = Long.parseLong(tokens[1]);
+			}
+			catch (NumberFormatException e) {
+				throw new StarRodException("Invalid line in %s: %s", FN_INDEX, line);
+			}
+
+			// skip entries whose data was deleted out from under us
+			File f = getObjectFile(tokens[0]);
+			if (!f.exists() || f.length() != size) {
+				modified = true;
+				continue;
+			}
+
+			entries.put(tokens[0], size);
+			totalSize += size;
+		}
+
+		evict();
+	}
+
+	private static void writeAtomic(File f, byte[] data) throws IOException
+	{
+		FileUtils.forceMkdir(f.getParentFile());
+		File temp = File.createTempFile(f.getName(), ".tmp", f.getParentFile());
+		try {
+			FileUtils.writeByteArrayToFile(temp, data);
+			moveAtomic(temp, f);
+		}
+		finally {
+			FileUtils.deleteQuietly(temp);
+		}
+	}
+
+	private static void moveAtomic(File from, File to) throws IOException
+	{
+		try {
+			Files.move(from.toPath(), to.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (IOException e) {
+			// some file systems cannot replace atomically
+			Files.move(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+}
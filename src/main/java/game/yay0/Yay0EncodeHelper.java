@@ -9,12 +9,8 @@ import util.Priority;
 
 public class Yay0EncodeHelper
 {
-	// all limits are inclusive
-	private static final int MIN_LINK_LENGTH = 3;
-	private static final int MAX_LINK_LENGTH = 273;
-	private static final int MAX_OFFSET = 4096;
-
 	private final byte[] source;
+	private final Yay0MatchFinder matchFinder;
 	private int bufferPosition = 0;
 
 	private final Yay0Encoder encoder;
@@ -22,8 +18,18 @@ public class Yay0EncodeHelper
 	private Deque<EncodeLink> linkQueue = new LinkedList<>();
 
 	public Yay0EncodeHelper(byte[] src, boolean logUpates)
+	{
+		this(src, logUpates, true);
+	}
+
+	/**
+	 * @param useIndex - search for links with hash chains rather than scanning the whole window.
+	 * Both produce identical output, the brute force search is only kept for comparison.
+	 */
+	Yay0EncodeHelper(byte[] src, boolean logUpates, boolean useIndex)
 	{
 		source = src;
+		matchFinder = useIndex ? new Yay0MatchFinder(src) : null;
 		encoder = new Yay0Encoder(source.length);
 
 		// determine how to encode the source
@@ -194,60 +200,12 @@ public class Yay0EncodeHelper
 	 * (2) There are less than MIN_LINK_LENGTH bytes left in the source.
 	 * (3) The buffer has read less than MIN_LINK_LENGTH bytes (special case of 1).
 	 */
-	private static EncodeLink findPatternFrom(byte[] source, int encoderBufferPosition)
+	private EncodeLink findPatternFrom(byte[] source, int encoderBufferPosition)
 	{
-		int remainingBytes = source.length - encoderBufferPosition;
-
-		// this check is probably unnecessary, but helpful for readable code
-		if (remainingBytes < MIN_LINK_LENGTH)
-			return null;
-
-		// only search for pattens up to the maximum length
-		int maxMatchLength = (remainingBytes > MAX_LINK_LENGTH) ? MAX_LINK_LENGTH : remainingBytes;
-
-		// do not search further back than MAX_OFFSET, links cannot reach that far
-		int minWindowStart = (encoderBufferPosition <= MAX_OFFSET) ? 0 : encoderBufferPosition - MAX_OFFSET;
-
-		// record the best match
-		int bestMatchLength = 0;
-		int bestMatchStart = 0;
-
-		for (int windowStart = minWindowStart; windowStart < encoderBufferPosition; windowStart++) // don't allow distance = 0
-		{
-			int matchingLength = 0;
-			int windowPos = windowStart;
-
-			byte nextSource, nextMatch;
-
-			while (true) {
-				// wrap the window
-				if (windowPos >= encoderBufferPosition)
-					windowPos = windowStart;
-
-				nextSource = source[encoderBufferPosition + matchingLength];
-				nextMatch = source[windowPos];
-
-				if (nextMatch == nextSource) {
-					matchingLength++;
-					windowPos++;
-
-					if (matchingLength > bestMatchLength) {
-						bestMatchLength = matchingLength;
-						bestMatchStart = windowStart;
-					}
-				}
-				else
-					break;
-
-				if (matchingLength == maxMatchLength)
-					break;
-			}
-		}
-
-		if (bestMatchLength < MIN_LINK_LENGTH)
-			return null;
+		if (matchFinder == null)
+			return Yay0MatchFinder.findBruteForce(source, encoderBufferPosition);
 
-		return new EncodeLink(bestMatchLength, encoderBufferPosition - bestMatchStart);
+		return matchFinder.find(encoderBufferPosition);
 	}
 
 	public byte[] getFile()
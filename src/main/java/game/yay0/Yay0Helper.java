@@ -8,10 +8,24 @@ public final class Yay0Helper
 	}
 
 	public static byte[] encode(byte[] source, boolean logUpdates)
+	{
+		return encode(source, logUpdates, false);
+	}
+
+	/**
+	 * @param optimal - use the slower cost-based parse from {@link Yay0OptimalEncodeHelper},
+	 * which is never larger than the default heuristic encoder apart from mask and file padding.
+	 */
+	public static byte[] encode(byte[] source, boolean logUpdates, boolean optimal)
 	{
 		if (source.length < 64)
 			throw new IllegalArgumentException("Source is too small to compress!");
 
+		if (optimal) {
+			Yay0OptimalEncodeHelper helper = new Yay0OptimalEncodeHelper(source, logUpdates);
+			return helper.getFile();
+		}
+
 		Yay0EncodeHelper helper = new Yay0EncodeHelper(source, logUpdates);
 		return helper.getFile();
 	}
@@ -0,0 +1,165 @@
+package game.yay0;
+
+import java.util.Arrays;
+
+/**
+ * Finds the longest back-reference available at a position in the source using hash chains
+ * keyed on the three byte prefix of each position. Every position in the source is indexed
+ * up front, so queries may be made in any order (the encoder backtracks while optimizing links).
+ * Results are identical to {@link #findBruteForce(byte[], int)}: the longest match wins and
+ * ties are resolved in favor of the most distant match.
+ */
+public class Yay0MatchFinder
+{
+	// all limits are inclusive
+	public static final int MIN_LINK_LENGTH = 3;
+	public static final int MAX_LINK_LENGTH = 273;
+	public static final int MAX_OFFSET = 4096;
+
+	private static final int HASH_BITS = 15;
+	private static final int HASH_SIZE = 1 << HASH_BITS;
+	private static final int HASH_MASK = HASH_SIZE - 1;
+
+	private final byte[] source;
+
+	// previous position sharing the same hash, or -1 if there is none
+	private final int[] prev;
+
+	public Yay0MatchFinder(byte[] source)
+	{
+		this.source = source;
+
+		prev = new int[source.length];
+		int[] head = new int[HASH_SIZE];
+		Arrays.fill(head, -1);
+
+		int last = source.length - MIN_LINK_LENGTH;
+		for (int i = 0; i <= last; i++) {
+			int h = hash(source, i);
+			prev[i] = head[h];
+			head[h] = i;
+		}
+	}
+
+	private static int hash(byte[] buf, int pos)
+	{
+		int key = (buf[pos] & 0xFF) << 16 | (buf[pos + 1] & 0xFF) << 8 | (buf[pos + 2] & 0xFF);
+		return (key * 0x9E3779B1) >>> (32 - HASH_BITS) & HASH_MASK;
+	}
+
+	/**
+	 * Returns a link for the longest match starting at <code>pos</code>, or null if there
+	 * is no match of at least MIN_LINK_LENGTH bytes within MAX_OFFSET.
+	 */
+	public EncodeLink find(int pos)
+	{
+		return search(pos, false);
+	}
+
+	/**
+	 * Like {@link #find(int)}, but stops at the first match which reaches the maximum possible
+	 * length. The distance may differ from <code>find</code>, but the length never will.
+	 */
+	public EncodeLink findLongest(int pos)
+	{
+		return search(pos, true);
+	}
+
+	private EncodeLink search(int pos, boolean stopAtMax)
+	{
+		int remainingBytes = source.length - pos;
+		if (remainingBytes < MIN_LINK_LENGTH)
+			return null;
+
+		int maxMatchLength = (remainingBytes > MAX_LINK_LENGTH) ? MAX_LINK_LENGTH : remainingBytes;
+		int minWindowStart = (pos <= MAX_OFFSET) ? 0 : pos - MAX_OFFSET;
+
+		int bestMatchLength = 0;
+		int bestMatchStart = 0;
+
+		// chains are ordered from nearest to most distant, so ties replace the current best
+		for (int cand = prev[pos]; cand >= minWindowStart; cand = prev[cand]) {
+			// fast reject candidates which cannot reach the current best
+			if (bestMatchLength > 0 && source[cand + bestMatchLength - 1] != source[pos + bestMatchLength - 1])
+				continue;
+
+			// overlapping matches are allowed, the decoder copies one byte at a time
+			int len = 0;
+			while (len < maxMatchLength && source[cand + len] == source[pos + len])
+				len++;
+
+			if (len >= bestMatchLength) {
+				bestMatchLength = len;
+				bestMatchStart = cand;
+			}
+
+			if (stopAtMax && len == maxMatchLength)
+				break;
+		}
+
+		if (bestMatchLength < MIN_LINK_LENGTH)
+			return null;
+
+		return new EncodeLink(bestMatchLength, pos - bestMatchStart);
+	}
+
+	/**
+	 * Reference implementation which tries every start position in the window.
+	 * Retained for verifying and benchmarking the indexed search.
+	 */
+	public static EncodeLink findBruteForce(byte[] source, int encoderBufferPosition)
+	{
+		int remainingBytes = source.length - encoderBufferPosition;
+
+		// this check is probably unnecessary, but helpful for readable code
+		if (remainingBytes < MIN_LINK_LENGTH)
+			return null;
+
+		// only search for pattens up to the maximum length
+		int maxMatchLength = (remainingBytes > MAX_LINK_LENGTH) ? MAX_LINK_LENGTH : remainingBytes;
+
+		// do not search further back than MAX_OFFSET, links cannot reach that far
+		int minWindowStart = (encoderBufferPosition <= MAX_OFFSET) ? 0 : encoderBufferPosition - MAX_OFFSET;
+
+		// record the best match
+		int bestMatchLength = 0;
+		int bestMatchStart = 0;
+
+		for (int windowStart = minWindowStart; windowStart < encoderBufferPosition; windowStart++) // don't allow distance = 0
+		{
+			int matchingLength = 0;
+			int windowPos = windowStart;
+
+			byte nextSource, nextMatch;
+
+			while (true) {
+				// wrap the window
+				if (windowPos >= encoderBufferPosition)
+					windowPos = windowStart;
+
+				nextSource = source[encoderBufferPosition + matchingLength];
+				nextMatch = source[windowPos];
+
+				if (nextMatch == nextSource) {
+					matchingLength++;
+					windowPos++;
+
+					if (matchingLength > bestMatchLength) {
+						bestMatchLength = matchingLength;
+						bestMatchStart = windowStart;
+					}
+				}
+				else
+					break;
+
+				if (matchingLength == maxMatchLength)
+					break;
+			}
+		}
+
+		if (bestMatchLength < MIN_LINK_LENGTH)
+			return null;
+
+		return new EncodeLink(bestMatchLength, encoderBufferPosition - bestMatchStart);
+	}
+}
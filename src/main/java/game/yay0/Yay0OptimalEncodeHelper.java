@@ -0,0 +1,89 @@
+package game.yay0;
+
+import util.Logger;
+import util.Priority;
+
+/**
+ * Slower alternative to {@link Yay0EncodeHelper} which finds the cheapest possible sequence
+ * of copies and links with a dynamic programming pass over the source. The cost of each
+ * command is measured in bits of output:
+ * copy = 1 mask bit + 1 chunk byte
+ * short link (length 3-17) = 1 mask bit + 2 link bytes
+ * long link (length 18-273) = 1 mask bit + 2 link bytes + 1 chunk byte
+ * Since link cost depends only on length, any prefix of the longest match at a position is also
+ * available at the same distance, so the longest match is the only candidate we need to record.
+ * The parse minimizes these bits, but the mask is padded to 4 bytes and the file to 2 bytes,
+ * so the output may still be a few bytes larger than {@link Yay0EncodeHelper} in rare cases.
+ */
+public class Yay0OptimalEncodeHelper
+{
+	private static final int COPY_COST = 9;
+	private static final int SHORT_LINK_COST = 17;
+	private static final int LONG_LINK_COST = 25;
+	private static final int MAX_SHORT_LINK = 17;
+
+	private final Yay0Encoder encoder;
+
+	public Yay0OptimalEncodeHelper(byte[] source, boolean logUpdates)
+	{
+		encoder = new Yay0Encoder(source.length);
+
+		int length = source.length;
+		Yay0MatchFinder matchFinder = new Yay0MatchFinder(source);
+
+		int[] matchLength = new int[length];
+		int[] matchDistance = new int[length];
+
+		for (int i = 0; i < length; i++) {
+			if (logUpdates && i % 4096 == 0) {
+				String progress = String.format("(%.1f%%)", 100.0f * i / length);
+				Logger.log("Compressing bytes... " + progress, Priority.UPDATE);
+			}
+
+			EncodeLink link = matchFinder.findLongest(i);
+			if (link != null) {
+				matchLength[i] = link.length;
+				matchDistance[i] = link.distance;
+			}
+		}
+
+		// cost[i] is the minimum cost of encoding everything from position i to the end
+		long[] cost = new long[length + 1];
+		int[] choice = new int[length]; // 0 = copy, otherwise length of the link
+
+		for (int i = length - 1; i >= 0; i--) {
+			long best = COPY_COST + cost[i + 1];
+			int bestChoice = 0;
+
+			for (int len = Yay0MatchFinder.MIN_LINK_LENGTH; len <= matchLength[i]; len++) {
+				long linkCost = ((len > MAX_SHORT_LINK) ? LONG_LINK_COST : SHORT_LINK_COST) + cost[i + len];
+				if (linkCost <= best) {
+					best = linkCost;
+					bestChoice = len;
+				}
+			}
+
+			cost[i] = best;
+			choice[i] = bestChoice;
+		}
+
+		int pos = 0;
+		while (pos < length) {
+			if (choice[pos] == 0) {
+				encoder.addCopy(source[pos]);
+				pos++;
+			}
+			else {
+				encoder.addLink(choice[pos], matchDistance[pos]);
+				pos += choice[pos];
+			}
+		}
+
+		encoder.flush();
+	}
+
+	public byte[] getFile()
+	{
+		return encoder.getFile();
+	}
+}
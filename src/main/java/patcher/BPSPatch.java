@@ -10,23 +10,165 @@ public final class BPSPatch
 {
 	private static final int SOURCE_READ = 0;
 	private static final int TARGET_READ = 1;
+	private static final int SOURCE_COPY = 2;
 	private static final int TARGET_COPY = 3;
 
 	private static final int MINIMUM_COPY_LENGTH = 4;
+	private static final int BLOCK_SIZE = 16;
 
 	private BPSPatch()
 	{}
 
+	/**
+	 * Creates a patch using a rolling hash index over the source to find data which has moved,
+	 * emitting SOURCE_COPY for relocated source data and TARGET_COPY for repeated target data.
+	 * Blocks of {@link #BLOCK_SIZE} bytes are sampled from the source at aligned offsets, while
+	 * every offset in the target is checked, so any moved block at least twice that long is found.
+	 * Running time is linear in the size of the target for typical ROMs.
+	 */
 	public static byte[] create(byte[] source, byte[] target)
 	{
 		PatchOutputStream out = new PatchOutputStream();
-		out.write('B');
-		out.write('P');
-		out.write('S');
-		out.write('1');
-		writeNumber(out, source.length);
-		writeNumber(out, target.length);
-		writeNumber(out, 0); // no metadata
+		writeHeader(out, source, target);
+
+		BlockIndex sourceIndex = new BlockIndex(source.length / BLOCK_SIZE);
+		for (int pos = 0; pos + BLOCK_SIZE <= source.length; pos += BLOCK_SIZE)
+			sourceIndex.add(hashBlock(source, pos), pos);
+
+		BlockIndex targetIndex = new BlockIndex(target.length / BLOCK_SIZE);
+		int nextTargetBlock = 0;
+
+		long sourceRelativeOffset = 0;
+		long targetRelativeOffset = 0;
+
+		int outputPos = 0;
+		int readStart = 0;
+		int hash = (target.length >= BLOCK_SIZE) ? hashBlock(target, 0) : 0;
+
+		while (outputPos < target.length) {
+			// target blocks become available for copying once output reaches them
+			while (nextTargetBlock + BLOCK_SIZE <= outputPos) {
+				targetIndex.add(hashBlock(target, nextTargetBlock), nextTargetBlock);
+				nextTargetBlock += BLOCK_SIZE;
+			}
+
+			int bestAction = -1;
+			int bestLength = 0;
+			int bestFrom = 0;
+			int bestScore = 0;
+
+			int sourceReadLength = getSourceReadLength(source, target, outputPos);
+			if (sourceReadLength >= MINIMUM_COPY_LENGTH) {
+				bestAction = SOURCE_READ;
+				bestLength = sourceReadLength;
+				bestScore = sourceReadLength - 1;
+			}
+
+			int runLength = getTargetCopyLength(target, outputPos);
+			if (runLength >= MINIMUM_COPY_LENGTH) {
+				int score = runLength - getCopyCost(runLength, outputPos - 1 - targetRelativeOffset);
+				if (score > bestScore) {
+					bestAction = TARGET_COPY;
+					bestLength = runLength;
+					bestFrom = outputPos - 1;
+					bestScore = score;
+				}
+			}
+
+			if (outputPos + BLOCK_SIZE <= target.length && sourceReadLength < BLOCK_SIZE) {
+				// continuing from the end of the last source copy is the cheapest option
+				int next = (int) Math.min(sourceRelativeOffset, Integer.MAX_VALUE);
+				int nextLength = getMatchLength(source, next, target, outputPos);
+				if (nextLength >= MINIMUM_COPY_LENGTH) {
+					int score = nextLength - getCopyCost(nextLength, 0);
+					if (score > bestScore) {
+						bestAction = SOURCE_COPY;
+						bestLength = nextLength;
+						bestFrom = next;
+						bestScore = score;
+					}
+				}
+
+				int from = sourceIndex.get(hash);
+				if (from >= 0 && from != next) {
+					int length = getMatchLength(source, from, target, outputPos);
+					int score = (length < BLOCK_SIZE) ? 0 : length - getCopyCost(length, from - sourceRelativeOffset);
+					if (score > bestScore) {
+						bestAction = SOURCE_COPY;
+						bestLength = length;
+						bestFrom = from;
+						bestScore = score;
+					}
+				}
+
+				from = targetIndex.get(hash);
+				if (from >= 0) {
+					int length = getMatchLength(target, from, target, outputPos);
+					int score = (length < BLOCK_SIZE) ? 0 : length - getCopyCost(length, from - targetRelativeOffset);
+					if (score > bestScore) {
+						bestAction = TARGET_COPY;
+						bestLength = length;
+						bestFrom = from;
+						bestScore = score;
+					}
+				}
+			}
+
+			if (bestAction < 0) {
+				hash = rollHash(target, outputPos, hash);
+				outputPos++;
+				continue;
+			}
+
+			// extend copies backwards into any pending literal bytes
+			if (bestAction == SOURCE_COPY || (bestAction == TARGET_COPY && bestFrom != outputPos - 1)) {
+				byte[] copySource = (bestAction == SOURCE_COPY) ? source : target;
+				while (outputPos > readStart && bestFrom > 0 && copySource[bestFrom - 1] == target[outputPos - 1]) {
+					bestFrom--;
+					outputPos--;
+					bestLength++;
+				}
+			}
+
+			if (outputPos > readStart) {
+				writeAction(out, TARGET_READ, outputPos - readStart);
+				out.write(target, readStart, outputPos - readStart);
+			}
+
+			writeAction(out, bestAction, bestLength);
+			if (bestAction == SOURCE_COPY) {
+				writeSignedNumber(out, bestFrom - sourceRelativeOffset);
+				sourceRelativeOffset = bestFrom + bestLength;
+			}
+			else if (bestAction == TARGET_COPY) {
+				writeSignedNumber(out, bestFrom - targetRelativeOffset);
+				targetRelativeOffset = bestFrom + bestLength;
+			}
+
+			outputPos += bestLength;
+			readStart = outputPos;
+
+			if (outputPos + BLOCK_SIZE <= target.length)
+				hash = hashBlock(target, outputPos);
+		}
+
+		if (outputPos > readStart) {
+			writeAction(out, TARGET_READ, outputPos - readStart);
+			out.write(target, readStart, outputPos - readStart);
+		}
+
+		writeFooter(out, source, target);
+		return out.toByteArray();
+	}
+
+	/**
+	 * Creates a patch using only SOURCE_READ, TARGET_READ, and run-length TARGET_COPY.
+	 * Faster than {@link #create(byte[], byte[])}, but stores any data which has moved literally.
+	 */
+	public static byte[] createSimple(byte[] source, byte[] target)
+	{
+		PatchOutputStream out = new PatchOutputStream();
+		writeHeader(out, source, target);
 
 		int outputPos = 0;
 		long targetRelativeOffset = 0;
@@ -63,10 +205,201 @@ public final class BPSPatch
 			out.write(target, readStart, readLength);
 		}
 
+		writeFooter(out, source, target);
+		return out.toByteArray();
+	}
+
+	/**
+	 * Applies a patch to the source, verifying all three checksums.
+	 * @throws IllegalArgumentException if the patch is malformed or does not match the source
+	 */
+	public static byte[] apply(byte[] source, byte[] patch)
+	{
+		if (patch.length < 16 || patch[0] != 'B' || patch[1] != 'P' || patch[2] != 'S' || patch[3] != '1')
+			throw new IllegalArgumentException("Not a BPS patch!");
+
+		CRC32 patchCRC = new CRC32();
+		patchCRC.update(patch, 0, patch.length - 4);
+		if (patchCRC.getValue() != readChecksum(patch, patch.length - 4))
+			throw new IllegalArgumentException("Patch checksum does not match!");
+
+		if (getChecksum(source) != readChecksum(patch, patch.length - 12))
+			throw new IllegalArgumentException("Source checksum does not match!");
+
+		int[] pos = { 4 };
+		long sourceSize = readNumber(patch, pos);
+		long targetSize = readNumber(patch, pos);
+		long metadataSize = readNumber(patch, pos);
+		pos[0] += (int) metadataSize;
+
+		if (sourceSize != source.length)
+			throw new IllegalArgumentException("Source size does not match!");
+
+		byte[] target = new byte[(int) targetSize];
+		int outputPos = 0;
+		int sourceRelativeOffset = 0;
+		int targetRelativeOffset = 0;
+
+		int end = patch.length - 12;
+		while (pos[0] < end) {
+			long data = readNumber(patch, pos);
+			int action = (int) (data & 3);
+			int length = (int) (data >> 2) + 1;
+
+			switch (action) {
+				case SOURCE_READ:
+					System.arraycopy(source, outputPos, target, outputPos, length);
+					break;
+				case TARGET_READ:
+					System.arraycopy(patch, pos[0], target, outputPos, length);
+					pos[0] += length;
+					break;
+				case SOURCE_COPY:
+					sourceRelativeOffset += readSignedNumber(patch, pos);
+					System.arraycopy(source, sourceRelativeOffset, target, outputPos, length);
+					sourceRelativeOffset += length;
+					break;
+				case TARGET_COPY:
+					targetRelativeOffset += readSignedNumber(patch, pos);
+					// may overlap the output, so copy one byte at a time
+					for (int i = 0; i < length; i++)
+						target[outputPos + i] = target[targetRelativeOffset++];
+					break;
+			}
+			outputPos += length;
+		}
+
+		if (getChecksum(target) != readChecksum(patch, patch.length - 8))
+			throw new IllegalArgumentException("Target checksum does not match!");
+
+		return target;
+	}
+
+	private static void writeHeader(ByteArrayOutputStream out, byte[] source, byte[] target)
+	{
+		out.write('B');
+		out.write('P');
+		out.write('S');
+		out.write('1');
+		writeNumber(out, source.length);
+		writeNumber(out, target.length);
+		writeNumber(out, 0); // no metadata
+	}
+
+	private static void writeFooter(PatchOutputStream out, byte[] source, byte[] target)
+	{
 		writeChecksum(out, getChecksum(source));
 		writeChecksum(out, getChecksum(target));
 		writeChecksum(out, out.getChecksum());
-		return out.toByteArray();
+	}
+
+	private static int getMatchLength(byte[] from, int fromPos, byte[] target, int pos)
+	{
+		int start = pos;
+		while (pos < target.length && fromPos < from.length && from[fromPos] == target[pos]) {
+			fromPos++;
+			pos++;
+		}
+		return pos - start;
+	}
+
+	/**
+	 * Approximate number of patch bytes needed to encode a copy action.
+	 */
+	private static int getCopyCost(int length, long relativeOffset)
+	{
+		long encodedOffset = Math.abs(relativeOffset) << 1;
+		return getNumberSize((long) (length - 1) << 2) + getNumberSize(encodedOffset);
+	}
+
+	private static int getNumberSize(long value)
+	{
+		int size = 1;
+		while ((value >>>= 7) != 0) {
+			value--;
+			size++;
+		}
+		return size;
+	}
+
+	// polynomial rolling hash over BLOCK_SIZE bytes
+	private static final int HASH_BASE = 0x01000193;
+	private static final int HASH_BASE_POW; // HASH_BASE ^ (BLOCK_SIZE - 1)
+
+	static {
+		int pow = 1;
+		for (int i = 0; i < BLOCK_SIZE - 1; i++)
+			pow *= HASH_BASE;
+		HASH_BASE_POW = pow;
+	}
+
+	private static int hashBlock(byte[] data, int pos)
+	{
+		int hash = 0;
+		for (int i = 0; i < BLOCK_SIZE; i++)
+			hash = hash * HASH_BASE + (data[pos + i] & 0xFF);
+		return hash;
+	}
+
+	/**
+	 * Advances the hash of the block at <code>pos</code> to the block at <code>pos + 1</code>.
+	 */
+	private static int rollHash(byte[] data, int pos, int hash)
+	{
+		if (pos + BLOCK_SIZE >= data.length)
+			return 0;
+
+		hash -= (data[pos] & 0xFF) * HASH_BASE_POW;
+		return hash * HASH_BASE + (data[pos + BLOCK_SIZE] & 0xFF);
+	}
+
+	/**
+	 * Direct-mapped table from block hashes to the first block-aligned offset seen with that hash.
+	 * Each entry packs the block number into the low 24 bits and a fingerprint of the hash into
+	 * the high 8 bits, so most false candidates are rejected without touching the data.
+	 * Candidates which pass are still verified against the data by the caller.
+	 */
+	private static class BlockIndex
+	{
+		private static final int MAX_BLOCKS = (1 << 24) - 1;
+
+		private final int[] entries;
+		private final int mask;
+
+		private BlockIndex(int expectedSize)
+		{
+			int capacity = Integer.highestOneBit(Math.max(16, expectedSize)) << 1;
+			entries = new int[capacity];
+			mask = capacity - 1;
+		}
+
+		private void add(int hash, int offset)
+		{
+			int block = offset / BLOCK_SIZE;
+			if (block >= MAX_BLOCKS)
+				return;
+
+			int mixed = mix(hash);
+			int slot = mixed & mask;
+			if (entries[slot] == 0)
+				entries[slot] = (mixed & 0xFF000000) | (block + 1);
+		}
+
+		private int get(int hash)
+		{
+			int mixed = mix(hash);
+			int entry = entries[mixed & mask];
+			if (entry == 0 || (entry & 0xFF000000) != (mixed & 0xFF000000))
+				return -1;
+			return ((entry & MAX_BLOCKS) - 1) * BLOCK_SIZE;
+		}
+
+		private static int mix(int hash)
+		{
+			hash ^= hash >>> 16;
+			hash *= 0x85EBCA6B;
+			return hash ^ (hash >>> 13);
+		}
 	}
 
 	private static int getSourceReadLength(byte[] source, byte[] target, int pos)
@@ -117,6 +450,26 @@ public final class BPSPatch
 		}
 	}
 
+	private static long readNumber(byte[] data, int[] pos)
+	{
+		long value = 0;
+		long shift = 1;
+		while (true) {
+			int next = data[pos[0]++] & 0xFF;
+			value += (next & 0x7F) * shift;
+			if ((next & 0x80) != 0)
+				return value;
+			shift <<= 7;
+			value += shift;
+		}
+	}
+
+	private static int readSignedNumber(byte[] data, int[] pos)
+	{
+		long value = readNumber(data, pos);
+		return (int) (((value & 1) != 0) ? -(value >> 1) : (value >> 1));
+	}
+
 	private static long getChecksum(byte[] data)
 	{
 		CRC32 crc = new CRC32();
@@ -124,6 +477,14 @@ public final class BPSPatch
 		return crc.getValue();
 	}
 
+	private static long readChecksum(byte[] data, int pos)
+	{
+		return (data[pos] & 0xFFL)
+			| (data[pos + 1] & 0xFFL) << 8
+			| (data[pos + 2] & 0xFFL) << 16
+			| (data[pos + 3] & 0xFFL) << 24;
+	}
+
 	private static void writeChecksum(ByteArrayOutputStream out, long checksum)
 	{
 		for (int i = 0; i < 4; i++) {
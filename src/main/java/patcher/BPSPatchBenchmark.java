@@ -0,0 +1,62 @@
+package patcher;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.commons.io.FileUtils;
+
+import app.Environment;
+
+/**
+ * Compares patch size and creation time of {@link BPSPatch#create(byte[], byte[])} against
+ * {@link BPSPatch#createSimple(byte[], byte[])} and verifies that both patches apply correctly.
+ * Usage: BPSPatchBenchmark [source.z64 target.z64]
+ * If no ROMs are given, the base ROM and the current project's target ROM are used.
+ */
+public class BPSPatchBenchmark
+{
+	private static final int ITERATIONS = 3;
+
+	public static void main(String[] args) throws IOException
+	{
+		Environment.initialize();
+
+		byte[] source;
+		byte[] target;
+
+		if (args.length >= 2) {
+			source = FileUtils.readFileToByteArray(new File(args[0]));
+			target = FileUtils.readFileToByteArray(new File(args[1]));
+		}
+		else {
+			source = Environment.getBaseRomBytes();
+			target = FileUtils.readFileToByteArray(Environment.project.getTargetRom());
+		}
+
+		System.out.printf("Source: %d bytes, Target: %d bytes%n", source.length, target.length);
+
+		benchmark("Simple ", source, target, false);
+		benchmark("Indexed", source, target, true);
+
+		Environment.exit();
+	}
+
+	private static void benchmark(String name, byte[] source, byte[] target, boolean indexed)
+	{
+		byte[] patch = null;
+		long bestTime = Long.MAX_VALUE;
+
+		for (int i = 0; i < ITERATIONS; i++) {
+			long t0 = System.nanoTime();
+			patch = indexed ? BPSPatch.create(source, target) : BPSPatch.createSimple(source, target);
+			long t1 = System.nanoTime();
+			bestTime = Math.min(bestTime, t1 - t0);
+		}
+
+		boolean valid = Arrays.equals(target, BPSPatch.apply(source, patch));
+
+		System.out.printf("%s: %10d bytes in %8.3f s (%s)%n", name, patch.length, bestTime * 1e-9,
+			valid ? "valid" : "INVALID");
+	}
+}
@@ -0,0 +1,266 @@
+package patcher;
+
+import static app.Directories.FN_BUILD_GRAPH;
+import static app.Directories.MOD_CACHE;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map.Entry;
+
+import app.StarRodException;
+import app.input.HashUtils;
+import app.input.IOUtils;
+import util.Logger;
+
+/**
+ * Persistent record of the inputs and outputs of each {@link BuildStage} from previous builds.
+ * A stage whose input files, options, and outputs are all unchanged since it last completed
+ * can skip its work and reuse the files it produced last time.
+ * <p>
+ * Input files are identified by content hash, so touching a file without changing it does not
+ * force a rebuild. Hashes are cached by size and modification time to avoid rereading unchanged
+ * files on every build. Outputs are only checked for size and modification time.
+ */
+public class BuildGraph
+{
+	// file size, modification time, and hash from the last time a file was read
+	private static class FileRecord
+	{
+		private final long size;
+		private final long lastModified;
+		private final String hash;
+
+		private FileRecord(long size, long lastModified, String hash)
+		{
+			this.size = size;
+			this.lastModified = lastModified;
+			this.hash = hash;
+		}
+
+		private boolean matches(File f)
+		{
+			return f.length() == size && f.lastModified() == lastModified;
+		}
+	}
+
+	// key and outputs from the last time a stage completed
+	private static class StageRecord
+	{
+		private final String key;
+		private final LinkedHashMap<String, FileRecord> outputs = new LinkedHashMap<>();
+
+		private StageRecord(String key)
+		{
+			this.key = key;
+		}
+	}
+
+	private final File file;
+	private final HashMap<String, FileRecord> inputHashes = new HashMap<>();
+	private final LinkedHashMap<String, StageRecord> stages = new LinkedHashMap<>();
+	private boolean modified = false;
+
+	public static File getFile()
+	{
+		return MOD_CACHE.getFile(FN_BUILD_GRAPH);
+	}
+
+	public static BuildGraph load()
+	{
+		return new BuildGraph(getFile());
+	}
+
+	public BuildGraph(File file)
+	{
+		this.file = file;
+
+		try {
+			if (file.exists())
+				read();
+		}
+		catch (IOException | StarRodException e) {
+			// the graph only saves time, start over rather than fail the build
+			Logger.logWarning("Could not read build graph: " + e.getMessage());
+			inputHashes.clear();
+			stages.clear();
+			modified = true;
+		}
+	}
+
+	public BuildStage stage(String name)
+	{
+		if (name.isEmpty() || name.matches(".*\\s.*"))
+			throw new IllegalArgumentException("Invalid build stage name: " + name);
+
+		return new BuildStage(this, name);
+	}
+
+	/**
+	 * @return true if the stage last completed with the same key and none of its outputs
+	 * have been modified or deleted since
+	 */
+	synchronized boolean isUpToDate(String stageName, String key)
+	{
+		StageRecord record = stages.get(stageName);
+		if (record == null || !record.key.equals(key))
+			return false;
+
+		for (Entry<String, FileRecord> e : record.outputs.entrySet()) {
+			if (!e.getValue().matches(new File(e.getKey())))
+				return false;
+		}
+		return true;
+	}
+
+	synchronized void setRecord(String stageName, String key, List<File> outputs)
+	{
+		StageRecord record = new StageRecord(key);
+		for (File f : outputs)
+			record.outputs.put(f.getAbsolutePath(), new FileRecord(f.length(), f.lastModified(), ""));
+
+		stages.put(stageName, record);
+		modified = true;
+	}
+
+	/**
+	 * @return hex string of the SHA-256 hash of a file's contents, reusing the previous
+	 * hash if the file size and modification time have not changed
+	 */
+	String getHash(File f) throws IOException
+	{
+		String path = f.getAbsolutePath();
+
+		synchronized (this) {
+			FileRecord record = inputHashes.get(path);
+			if (record != null && record.matches(f))
+				return record.hash;
+		}
+
+		// read the attributes first, so a file modified while hashing is hashed again next time
+		long size = f.length();
+		long lastModified = f.lastModified();
+		String hash = HashUtils.toHex(HashUtils.hashFile(f));
+
+		synchronized (this) {
+			inputHashes.put(path, new FileRecord(size, lastModified, hash));
+			modified = true;
+		}
+
+		return hash;
+	}
+
+	/**
+	 * Writes the graph if any stage has completed or any input has been hashed since it was loaded.
+	 * Hashes of files which no longer exist are dropped.
+	 */
+	public synchronized void save() throws IOException
+	{
+		if (!modified)
+			return;
+
+		File tempFile = new File(file.getPath() + ".tmp");
+		tempFile.getParentFile().mkdirs();
+
+		PrintWriter pw = IOUtils.getBufferedPrintWriter(tempFile);
+		for (Entry<String, FileRecord> e : inputHashes.entrySet()) {
+			FileRecord record = e.getValue();
+			if (record.matches(new File(e.getKey())))
+				pw.printf("file %d %d %s %s%n", record.size, record.lastModified, record.hash, e.getKey());
+		}
+
+		for (Entry<String, StageRecord> e : stages.entrySet()) {
+			StageRecord stage = e.getValue();
+			pw.printf("stage %s %s%n", e.getKey(), stage.key);
+			for (Entry<String, FileRecord> out : stage.outputs.entrySet())
+				pw.printf("output %d %d %s%n", out.getValue().size, out.getValue().lastModified, out.getKey());
+		}
+		pw.close();
+
+		Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		modified = false;
+	}
+
+	private void read() throws IOException
+	{
+		List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+		StageRecord currentStage = null;
+
+		for (String line : lines) {
+			if (line.isBlank())
+				continue;
+
+			String[] tokens = line.split(" ", 5);
+			try {
+				switch (tokens[0]) {
+					case "file":
+						if (tokens.length != 5)
+							throw new StarRodException("Invalid line in %s: %s", FN_BUILD_GRAPH, line);
+						inputHashes.put(tokens[4], new FileRecord(Long.parseLong(tokens[1]), Long.parseLong(tokens[2]), tokens[3]));
+						break;
+
+					case "stage":
+						if (tokens.length != 3)
+							throw new StarRodException("Invalid line in %s: %s", FN_BUILD_GRAPH, line);
+						currentStage = new StageRecord(tokens[2]);
+						stages.put(tokens[1], currentStage);
+						break;
+
+					case "output":
+						tokens = line.split(" ", 4);
+						if (tokens.length != 4 || currentStage == null)
+							throw new StarRodException("Invalid line in %s: %s", FN_BUILD_GRAPH, line);
+						currentStage.outputs.put(tokens[3], new FileRecord(Long.parseLong(tokens[1]), Long.parseLong(tokens[2]), ""));
+						break;
+
+					default:
+						throw new StarRodException("Invalid line in %s: %s", FN_BUILD_GRAPH, line);
+				}
+			}
+			catch (NumberFormatException e) {
+				throw new StarRodException("Invalid line in %s: %s", FN_BUILD_GRAPH, line);
+			}
+		}
+	}
+
+	static List<File> listFiles(File dir, List<Path> excluded)
+	{
+		List<File> files = new ArrayList<>();
+		addFiles(dir, excluded, files);
+		return files;
+	}
+
+	private static void addFiles(File dir, List<Path> excluded, List<File> files)
+	{
+		File[] children = dir.listFiles();
+		if (children == null)
+			return;
+
+		// sort so the stage key does not depend on directory listing order
+		Arrays.sort(children);
+
+		for (File f : children) {
+			if (excluded.contains(normalize(f)))
+				continue;
+
+			if (f.isDirectory())
+				addFiles(f, excluded, files);
+			else
+				files.add(f);
+		}
+	}
+
+	static Path normalize(File f)
+	{
+		return f.getAbsoluteFile().toPath().normalize();
+	}
+}
@@ -0,0 +1,177 @@
+package patcher;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import app.Directories;
+import app.Environment;
+import app.input.HashUtils;
+
+/**
+ * A step of the build which reads a set of input files and writes a set of output files,
+ * tracked by a {@link BuildGraph} so it can be skipped when nothing has changed.
+ * Inputs are every file within the input directories, minus any excluded subdirectories.
+ * Outputs are the files within the output directory whose names end with one of the given
+ * suffixes, which lets several stages share the same build directory.
+ * <p>
+ * Typical use:
+ * <pre>
+ * if (stage.isUpToDate())
+ *     reuse outputs
+ * else {
+ *     build outputs
+ *     stage.complete();
+ * }
+ * </pre>
+ */
+public class BuildStage
+{
+	private final BuildGraph graph;
+	private final String name;
+
+	private final List<File> inputs = new ArrayList<>();
+	private final List<Path> excluded = new ArrayList<>();
+	private final List<String> options = new ArrayList<>();
+
+	private File outputDir = null;
+	private List<String> outputSuffixes = List.of();
+
+	private String key = null;
+
+	protected BuildStage(BuildGraph graph, String name)
+	{
+		this.graph = graph;
+		this.name = name;
+	}
+
+	public String getName()
+	{
+		return name;
+	}
+
+	public BuildStage input(Directories dir)
+	{
+		return input(dir.toFile());
+	}
+
+	public BuildStage input(File fileOrDir)
+	{
+		inputs.add(fileOrDir);
+		key = null;
+		return this;
+	}
+
+	public BuildStage exclude(Directories dir)
+	{
+		excluded.add(BuildGraph.normalize(dir.toFile()));
+		key = null;
+		return this;
+	}
+
+	/**
+	 * Adds a setting which affects the outputs of this stage. Changing its value forces a rebuild.
+	 */
+	public BuildStage option(String optionName, Object value)
+	{
+		options.add(optionName + "=" + value);
+		key = null;
+		return this;
+	}
+
+	public BuildStage output(Directories dir, String ... suffixes)
+	{
+		outputDir = dir.toFile();
+		outputSuffixes = Arrays.asList(suffixes);
+		return this;
+	}
+
+	public List<File> getInputFiles()
+	{
+		List<File> files = new ArrayList<>();
+		for (File f : inputs) {
+			if (f.isDirectory())
+				files.addAll(BuildGraph.listFiles(f, excluded));
+			else if (f.exists())
+				files.add(f);
+		}
+		return files;
+	}
+
+	public List<File> getOutputFiles()
+	{
+		List<File> files = new ArrayList<>();
+		if (outputDir == null)
+			return files;
+
+		File[] children = outputDir.listFiles();
+		if (children == null)
+			return files;
+
+		Arrays.sort(children);
+		for (File f : children) {
+			if (!f.isFile())
+				continue;
+
+			for (String suffix : outputSuffixes) {
+				if (f.getName().endsWith(suffix)) {
+					files.add(f);
+					break;
+				}
+			}
+		}
+		return files;
+	}
+
+	/**
+	 * @return true if the inputs and options are the same as the last time this stage completed,
+	 * and its outputs have not been modified since
+	 */
+	public boolean isUpToDate() throws IOException
+	{
+		return graph.isUpToDate(name, getKey());
+	}
+
+	/**
+	 * Records the current inputs and outputs of this stage. Call after the stage has run successfully.
+	 */
+	public void complete() throws IOException
+	{
+		graph.setRecord(name, getKey(), getOutputFiles());
+	}
+
+	private String getKey() throws IOException
+	{
+		if (key != null)
+			return key;
+
+		MessageDigest digest = HashUtils.getDigest();
+		digest.update(Environment.getVersionString().getBytes(StandardCharsets.UTF_8));
+
+		for (String option : options) {
+			digest.update((byte) 0);
+			digest.update(option.getBytes(StandardCharsets.UTF_8));
+		}
+
+		for (File f : getInputFiles()) {
+			digest.update((byte) 0);
+			digest.update(f.getAbsolutePath().getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+			digest.update(graph.getHash(f).getBytes(StandardCharsets.UTF_8));
+		}
+
+		key = HashUtils.toHex(digest.digest());
+		return key;
+	}
+
+	@Override
+	public String toString()
+	{
+		return name;
+	}
+}
@@ -0,0 +1,166 @@
+package patcher;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+import app.input.IOUtils;
+
+/**
+ * The two CRC values used by the N64 boot chip to verify the integrity of the ROM (0x10 and 0x14).
+ * Paper Mario uses the CIC-NUS-6103 boot chip, which checksums the first 1 MB of data following
+ * the boot code. All arithmetic is done on 32-bit ints, which give the same low bits as the
+ * masked longs of the reference implementation without any of the masking.
+ */
+public final class CICChecksum
+{
+	public static final int CRC_OFFSET = 0x10;
+
+	private static final int DATA_START = 0x1000;
+	private static final int DATA_LENGTH = 0x100000;
+	private static final int SEED_6103 = 0xA3886759;
+
+	public final int crc1;
+	public final int crc2;
+
+	public CICChecksum(int crc1, int crc2)
+	{
+		this.crc1 = crc1;
+		this.crc2 = crc2;
+	}
+
+	/**
+	 * Computes the checksum of a ROM without modifying the buffer or its position.
+	 */
+	public static CICChecksum compute(ByteBuffer rom)
+	{
+		if (rom.limit() < DATA_START + DATA_LENGTH)
+			throw new IllegalArgumentException(String.format("ROM is too small to checksum (%X bytes)", rom.limit()));
+
+		IntBuffer data = rom.slice(DATA_START, DATA_LENGTH)
+			.order(ByteOrder.BIG_ENDIAN)
+			.asIntBuffer();
+
+		int t1, t2, t3, t4, t5, t6;
+		t1 = t2 = t3 = t4 = t5 = t6 = SEED_6103;
+
+		int count = data.limit();
+		for (int i = 0; i < count; i++) {
+			int d = data.get(i);
+
+			int sum = t6 + d;
+			if (Integer.compareUnsigned(sum, t6) < 0)
+				t4++;
+			t6 = sum;
+			t3 ^= d;
+
+			int r = Integer.rotateLeft(d, d);
+
+			t5 += r;
+			if (Integer.compareUnsigned(t2, d) > 0)
+				t2 ^= r;
+			else
+				t2 ^= t6 ^ d;
+
+			t1 += t5 ^ d;
+		}
+
+		return new CICChecksum((t6 ^ t4) + t3, (t5 ^ t2) + t1);
+	}
+
+	/**
+	 * Computes the checksum of a ROM file.
+	 */
+	public static CICChecksum compute(File rom) throws IOException
+	{
+		return compute(IOUtils.getReadOnlyBuffer(rom));
+	}
+
+	/**
+	 * @return the checksum stored in the ROM header
+	 */
+	public static CICChecksum read(ByteBuffer rom)
+	{
+		return new CICChecksum(rom.getInt(CRC_OFFSET), rom.getInt(CRC_OFFSET + 4));
+	}
+
+	/**
+	 * Checks whether the checksum stored in the ROM header matches its contents.
+	 */
+	public static boolean validate(ByteBuffer rom)
+	{
+		return read(rom).equals(compute(rom));
+	}
+
+	public static boolean validate(File rom) throws IOException
+	{
+		return validate(IOUtils.getReadOnlyBuffer(rom));
+	}
+
+	/**
+	 * Writes this checksum to the ROM header without changing the buffer position.
+	 */
+	public void write(ByteBuffer rom)
+	{
+		rom.putInt(CRC_OFFSET, crc1);
+		rom.putInt(CRC_OFFSET + 4, crc2);
+	}
+
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (this == obj)
+			return true;
+		if (!(obj instanceof CICChecksum other))
+			return false;
+		return crc1 == other.crc1 && crc2 == other.crc2;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return 31 * crc1 + crc2;
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("%08X %08X", crc1, crc2);
+	}
+
+	/**
+	 * Original implementation using masked long arithmetic.
+	 * Retained for verifying and benchmarking {@link #compute(ByteBuffer)}.
+	 */
+	public static CICChecksum computeReference(ByteBuffer bb)
+	{
+		long t1, t2, t3;
+		long t4, t5, t6;
+		t1 = t2 = t3 = t4 = t5 = t6 = 0xA3886759; // 6103 only
+
+		long r, d;
+
+		bb.position(DATA_START);
+		for (int i = DATA_START; i < DATA_START + DATA_LENGTH; i += 4) {
+			d = bb.getInt() & 0xFFFFFFFFL;
+			if (((t6 + d) & 0xFFFFFFFFL) < (t6 & 0xFFFFFFFFL))
+				t4++;
+			t6 += d;
+			t3 ^= d;
+
+			r = ((d << (d & 0x1F)) | (d >> (32L - (d & 0x1F)))) & 0xFFFFFFFFL;
+
+			t5 += r;
+			if ((t2 & 0xFFFFFFFFL) > (d & 0xFFFFFFFFL))
+				t2 ^= r;
+			else
+				t2 ^= t6 ^ d;
+
+			t1 += t5 ^ d;
+		}
+
+		return new CICChecksum((int) ((t6 ^ t4) + t3), (int) ((t5 ^ t2) + t1));
+	}
+}
@@ -0,0 +1,69 @@
+package patcher;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Random;
+
+import app.input.IOUtils;
+
+/**
+ * Compares {@link CICChecksum#compute(ByteBuffer)} against the original implementation on
+ * heap and direct buffers, and on a read-only buffer read from the ROM file.
+ * Usage: CICChecksumBenchmark [rom.z64]
+ * If no ROM is given, random data is used.
+ */
+public class CICChecksumBenchmark
+{
+	private static final int WARMUP = 20;
+	private static final int ITERATIONS = 50;
+
+	public static void main(String[] args) throws IOException
+	{
+		byte[] data;
+		File romFile;
+
+		if (args.length >= 1) {
+			romFile = new File(args[0]);
+			data = Files.readAllBytes(romFile.toPath());
+		}
+		else {
+			data = new byte[0x101000];
+			new Random(0x6103).nextBytes(data);
+			romFile = File.createTempFile("cic", ".z64");
+			romFile.deleteOnExit();
+			Files.write(romFile.toPath(), data);
+		}
+
+		ByteBuffer heap = ByteBuffer.wrap(data);
+		ByteBuffer direct = IOUtils.getDirectBuffer(data);
+		ByteBuffer fromFile = IOUtils.getReadOnlyBuffer(romFile);
+
+		System.out.println("Stored:    " + CICChecksum.read(heap));
+		benchmark("Reference (heap)  ", () -> CICChecksum.computeReference(heap));
+		benchmark("Reference (direct)", () -> CICChecksum.computeReference(direct));
+		benchmark("Compute (heap)    ", () -> CICChecksum.compute(heap));
+		benchmark("Compute (direct)  ", () -> CICChecksum.compute(direct));
+		benchmark("Compute (file)    ", () -> CICChecksum.compute(fromFile));
+	}
+
+	private static interface ChecksumFunction
+	{
+		public CICChecksum run();
+	}
+
+	private static void benchmark(String name, ChecksumFunction func)
+	{
+		CICChecksum result = null;
+		for (int i = 0; i < WARMUP; i++)
+			result = func.run();
+
+		long t0 = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++)
+			result = func.run();
+		long t1 = System.nanoTime();
+
+		System.out.printf("%s: %s  %7.3f ms%n", name, result, (t1 - t0) * 1e-6 / ITERATIONS);
+	}
+}
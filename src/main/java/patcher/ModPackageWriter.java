@@ -0,0 +1,248 @@
+package patcher;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Writes the legacy .mod package format: an identifier and record count followed by one
+ * (offset, length, bytes) record for each range where the patched ROM differs from the base ROM.
+ * Ranges separated by fewer than {@link #MERGE_DISTANCE} matching bytes share a single record.
+ * <p>
+ * Both ROMs are streamed through two reused {@link #WINDOW_SIZE} buffers, and records are copied
+ * from the patched ROM to the output file through a small buffer, so heap usage does not depend
+ * on the size of either ROM. Matching regions are skipped with {@link ByteBuffer#mismatch(ByteBuffer)},
+ * which compares many bytes per step instead of one.
+ */
+public class ModPackageWriter
+{
+	public static final int IDENTIFIER = 0x504D5352;
+	public static final int MERGE_DISTANCE = 8;
+
+	private static final int HEADER_SIZE = 8;
+	private static final int RECORD_HEADER_SIZE = 8;
+	private static final int WRITE_BUFFER_SIZE = 1 << 16;
+	private static final int WINDOW_SIZE = 1 << 20;
+
+	private final FileChannel base;
+	private final FileChannel patched;
+	private final int baseLength;
+	private final int patchedLength;
+
+	private FileChannel out;
+	private ByteBuffer writeBuffer;
+	private ByteBuffer baseWindow;
+	private ByteBuffer patchedWindow;
+	private int windowStart;
+
+	private int recordCount;
+	private long totalSize;
+
+	/**
+	 * The channels are only read with absolute positions, and are not closed by this writer.
+	 */
+	public ModPackageWriter(FileChannel base, FileChannel patched) throws IOException
+	{
+		long baseSize = base.size();
+		long patchedSize = patched.size();
+
+		if (patchedSize < baseSize)
+			throw new IllegalArgumentException("Patched ROM should not be smaller than base ROM!");
+		if (patchedSize > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Patched ROM is too large for a mod package!");
+
+		this.base = base;
+		this.patched = patched;
+		this.baseLength = (int) baseSize;
+		this.patchedLength = (int) patchedSize;
+	}
+
+	/**
+	 * Writes the diff between the two ROMs to <code>outFile</code>, replacing any existing file.
+	 * @return number of records written
+	 */
+	public int write(File outFile) throws IOException
+	{
+		FileUtils.forceMkdirParent(outFile);
+
+		try (FileChannel channel = FileChannel.open(outFile.toPath(),
+			StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			out = channel;
+			writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+			baseWindow = ByteBuffer.allocateDirect(WINDOW_SIZE);
+			patchedWindow = ByteBuffer.allocateDirect(WINDOW_SIZE);
+			recordCount = 0;
+			totalSize = 0;
+
+			// record count is not known yet, fill it in once all records are written
+			writeBuffer.putInt(IDENTIFIER);
+			writeBuffer.putInt(0);
+			totalSize += HEADER_SIZE;
+
+			writeRecords();
+			flush();
+
+			ByteBuffer count = ByteBuffer.allocate(4);
+			count.putInt(0, recordCount);
+			out.write(count, 4);
+		}
+		finally {
+			out = null;
+			writeBuffer = null;
+			baseWindow = null;
+			patchedWindow = null;
+		}
+
+		return recordCount;
+	}
+
+	public long getTotalSize()
+	{
+		return totalSize;
+	}
+
+	private void writeRecords() throws IOException
+	{
+		int pendingStart = -1;
+		int pendingEnd = -1;
+
+		// start of a difference which runs past the end of the current window
+		int openStart = -1;
+
+		for (windowStart = 0; windowStart < baseLength; windowStart += WINDOW_SIZE) {
+			int windowEnd = Math.min(baseLength, windowStart + WINDOW_SIZE);
+			readWindow(base, baseWindow, windowEnd);
+			readWindow(patched, patchedWindow, windowEnd);
+
+			int pos = windowStart;
+			while (pos < windowEnd) {
+				int start = openStart;
+				if (start < 0) {
+					start = nextMismatch(pos, windowEnd);
+					if (start == windowEnd)
+						break;
+					pos = start + 1;
+				}
+				openStart = -1;
+
+				int end = nextMatch(pos, windowEnd);
+				if (end == windowEnd && windowEnd < baseLength) {
+					// the difference may continue in the next window
+					openStart = start;
+					break;
+				}
+
+				if (pendingStart >= 0 && start < pendingEnd + MERGE_DISTANCE) {
+					pendingEnd = end;
+				}
+				else {
+					if (pendingStart >= 0)
+						writeRecord(pendingStart, pendingEnd);
+					pendingStart = start;
+					pendingEnd = end;
+				}
+
+				pos = end;
+			}
+		}
+
+		// a difference running into the end of the base ROM absorbs any appended data
+		if (pendingStart >= 0 && pendingEnd == baseLength) {
+			writeRecord(pendingStart, patchedLength);
+			return;
+		}
+
+		if (pendingStart >= 0)
+			writeRecord(pendingStart, pendingEnd);
+
+		if (patchedLength > baseLength)
+			writeRecord(baseLength, patchedLength);
+	}
+
+	/**
+	 * Fills the window with [windowStart, windowEnd) of the ROM.
+	 */
+	private void readWindow(FileChannel rom, ByteBuffer window, int windowEnd) throws IOException
+	{
+		window.clear();
+		window.limit(windowEnd - windowStart);
+		readFully(rom, window, windowStart);
+		window.flip();
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer dst, long position) throws IOException
+	{
+		while (dst.hasRemaining()) {
+			int count = channel.read(dst, position);
+			if (count < 0)
+				throw new EOFException("ROM was truncated while writing mod package");
+			position += count;
+		}
+	}
+
+	/**
+	 * @return the first position in [from, end) where the ROMs differ, or end if there is none
+	 */
+	private int nextMismatch(int from, int end)
+	{
+		int offset = from - windowStart;
+		int length = end - from;
+		int found = baseWindow.slice(offset, length).mismatch(patchedWindow.slice(offset, length));
+		return (found < 0) ? end : from + found;
+	}
+
+	/**
+	 * @return the first position in [from, end) where the ROMs agree, or end if there is none
+	 */
+	private int nextMatch(int from, int end)
+	{
+		// differences are usually short, a simple scan is fine here
+		int pos = from;
+		while (pos < end && baseWindow.get(pos - windowStart) != patchedWindow.get(pos - windowStart))
+			pos++;
+		return pos;
+	}
+
+	private void writeRecord(int start, int end) throws IOException
+	{
+		int length = end - start;
+
+		if (writeBuffer.remaining() < RECORD_HEADER_SIZE)
+			flush();
+
+		writeBuffer.putInt(start);
+		writeBuffer.putInt(length);
+
+		// copy the record from the patched ROM, one write buffer at a time
+		long pos = start;
+		int remaining = length;
+		while (remaining > 0) {
+			if (!writeBuffer.hasRemaining())
+				flush();
+
+			int count = Math.min(remaining, writeBuffer.remaining());
+			writeBuffer.limit(writeBuffer.position() + count);
+			readFully(patched, writeBuffer, pos);
+			writeBuffer.limit(writeBuffer.capacity());
+
+			pos += count;
+			remaining -= count;
+		}
+
+		recordCount++;
+		totalSize += RECORD_HEADER_SIZE + length;
+	}
+
+	private void flush() throws IOException
+	{
+		writeBuffer.flip();
+		while (writeBuffer.hasRemaining())
+			out.write(writeBuffer);
+		writeBuffer.clear();
+	}
+}
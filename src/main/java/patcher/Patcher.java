@@ -3,23 +3,20 @@ package patcher;
 import static app.Directories.*;
 import static app.config.Options.CaptureThumbnails;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -43,6 +40,7 @@ import game.globals.ItemModder;
 import game.globals.MoveModder;
 import game.map.Map;
 import game.map.MapIndex;
+import game.map.MapIndexCache;
 import game.map.config.MapConfigTable;
 import game.map.config.MapConfigTable.AreaConfig;
 import game.map.config.MapConfigTable.MapConfig;
@@ -65,6 +63,7 @@ import game.texture.images.ImageScriptModder;
 import game.world.partner.PartnerWorldPatcher;
 import game.worldmap.WorldMapModder;
 import game.yay0.Yay0Helper;
+import patcher.StageScheduler.Task;
 import util.CaseInsensitiveMap;
 import util.Logger;
 import util.Pair;
@@ -73,7 +72,6 @@ import util.Priority;
 public class Patcher implements IGlobalDatabase
 {
 	private static final int OUT_BUFFER_SIZE_MB = 128; //XXX read this from config
-	private static final int MOD_PACKAGE_IDENTIFIER = 0x504D5352;
 
 	public static final int ROM_BASE = 0x02800000;
 	public static final int RAM_BASE = 0x80400000;
@@ -124,23 +122,61 @@ public class Patcher implements IGlobalDatabase
 		boolean buildSoundBanks = cfg.getBoolean(Options.BuildSoundBanks);
 		int minimumAudioHeapSize = 0;
 
-		if (buildAudio || buildSoundBanks)
-			AudioModder.prepareBuildDirectory();
+		BuildGraph buildGraph = BuildGraph.load();
+		StageScheduler scheduler = new StageScheduler();
 
-		if (buildSoundBanks) {
-			Logger.log("Building sound banks...", Priority.MILESTONE);
-			AudioModder.buildSoundBanks();
-			recordTime("Sound Banks Built");
-		}
+		// both audio stages share the audio build directory, so they are always rebuilt together
+		BuildStage soundBankStage = buildGraph.stage("SoundBanks")
+			.input(MOD_AUDIO).exclude(MOD_AUDIO_BUILD).input(DUMP_AUDIO)
+			.option(Options.BuildAudio.key, buildAudio)
+			.option(Options.BuildSoundBanks.key, buildSoundBanks)
+			.output(MOD_AUDIO_BUILD, EXT_BANK, ".per", ".prg");
+
+		BuildStage audioFileStage = buildGraph.stage("AudioFiles")
+			.input(MOD_AUDIO).exclude(MOD_AUDIO_BUILD).input(DUMP_AUDIO)
+			.option(Options.BuildAudio.key, buildAudio)
+			.option(Options.BuildSoundBanks.key, buildSoundBanks)
+			.output(MOD_AUDIO_BUILD, ".bgm", ".mseq", ".sef");
+
+		List<Task<Void>> audioTasks = new ArrayList<>();
+
+		if (buildAudio || buildSoundBanks) {
+			boolean upToDate = (!buildSoundBanks || soundBankStage.isUpToDate())
+				&& (!buildAudio || audioFileStage.isUpToDate());
 
-		if (buildAudio) {
-			Logger.log("Building audio files...", Priority.MILESTONE);
-			AudioModder.buildAudioFiles();
-			recordTime("Audio Files Built");
+			if (upToDate) {
+				Logger.log("Audio files are up to date.", Priority.MILESTONE);
+				recordTime("Audio Files Reused");
+			}
+			else {
+				AudioModder.prepareBuildDirectory(buildSoundBanks, buildAudio);
+
+				if (buildSoundBanks) {
+					audioTasks.add(scheduler.submit("Sound Banks", List.of(MOD_AUDIO, DUMP_AUDIO), List.of(soundBankStage), () -> {
+						Logger.log("Building sound banks...", Priority.MILESTONE);
+						AudioModder.buildSoundBanks();
+						soundBankStage.complete();
+						return null;
+					}));
+				}
+
+				if (buildAudio) {
+					audioTasks.add(scheduler.submit("Audio Files", List.of(MOD_AUDIO, DUMP_AUDIO), List.of(audioFileStage), () -> {
+						Logger.log("Building audio files...", Priority.MILESTONE);
+						AudioModder.buildAudioFiles();
+						audioFileStage.complete();
+						return null;
+					}));
+				}
+			}
 		}
 
-		if (buildAudio || buildSoundBanks)
-			minimumAudioHeapSize = AudioModder.getMinimumAudioHeapSize();
+		StringPatcher stringPatcher = new StringPatcher();
+		Task<Void> stringTask = scheduler.submit("Strings", List.of(MOD_STRINGS), List.of(stringPatcher), () -> {
+			Logger.log("Building string data...", Priority.MILESTONE);
+			stringPatcher.readAllStrings();
+			return null;
+		});
 
 		if (cfg.getBoolean(Options.ClearMapCache) && MapIndex.getFile().exists())
 			FileUtils.forceDelete(MapIndex.getFile());
@@ -173,6 +209,46 @@ public class Patcher implements IGlobalDatabase
 			}
 		}
 
+		// texture archives and backgrounds are only needed once map assets are written
+		List<Task<Void>> imageTasks = new ArrayList<>();
+		CompressedImagePatcher imgPatcher = new CompressedImagePatcher();
+
+		if (cfg.getBoolean(Options.BuildTextures)) {
+			BuildStage textureStage = buildGraph.stage("TextureArchives")
+				.input(MOD_IMG_TEX)
+				.output(MOD_MAP_BUILD, "_tex");
+
+			imageTasks.add(scheduler.submit("Texture Archives", List.of(MOD_IMG_TEX), List.of(textureStage), () -> {
+				if (textureStage.isUpToDate()) {
+					Logger.log("Texture archives are up to date.", Priority.MILESTONE);
+					recordTime("Texture Archives Reused");
+					return null;
+				}
+				Logger.log("Building texture archives...", Priority.MILESTONE);
+				imgPatcher.buildTextureArchives();
+				textureStage.complete();
+				return null;
+			}));
+		}
+
+		if (cfg.getBoolean(Options.BuildBackgrounds)) {
+			BuildStage backgroundStage = buildGraph.stage("Backgrounds")
+				.input(MOD_IMG_BG)
+				.output(MOD_MAP_BUILD, "_bg");
+
+			imageTasks.add(scheduler.submit("Backgrounds", List.of(MOD_IMG_BG), List.of(backgroundStage), () -> {
+				if (backgroundStage.isUpToDate()) {
+					Logger.log("Backgrounds are up to date.", Priority.MILESTONE);
+					recordTime("Backgrounds Reused");
+					return null;
+				}
+				Logger.log("Building backgrounds...", Priority.MILESTONE);
+				imgPatcher.buildBackgrounds();
+				backgroundStage.complete();
+				return null;
+			}));
+		}
+
 		// ======== Phase 1: build data files from patches and run pre-processor
 
 		rp = Environment.project.getTargetRomPatcher(OUT_BUFFER_SIZE_MB * 1024 * 1024);
@@ -184,9 +260,7 @@ public class Patcher implements IGlobalDatabase
 		FileUtils.forceMkdir(MOD_FORMA_TEMP.toFile());
 		FileUtils.cleanDirectory(MOD_FORMA_TEMP.toFile());
 
-		Logger.log("Building string data...", Priority.MILESTONE);
-		StringPatcher stringPatcher = new StringPatcher();
-		stringPatcher.readAllStrings();
+		scheduler.await(stringTask);
 		stringIDMap = stringPatcher.getStringIDMap();
 		recordTime("Strings Built");
 
@@ -196,7 +270,6 @@ public class Patcher implements IGlobalDatabase
 		BattlePatcher battlePatcher = new BattlePatcher(this);
 		AuxBattlePatcher auxPatcher = new AuxBattlePatcher(this);
 		spritePatcher = new SpritePatcher(this);
-		CompressedImagePatcher imgPatcher = new CompressedImagePatcher();
 		PartnerWorldPatcher partnerPatcher = new PartnerWorldPatcher(this);
 		EffectPatcher effectPatcher = new EffectPatcher(this);
 		Logger.log("Reading map config files...", Priority.MILESTONE);
@@ -217,6 +290,14 @@ public class Patcher implements IGlobalDatabase
 		spritePatcher.indexAnimations(allowDuplicateNames);
 		recordTime("Animations Indexed");
 
+		Task<Void> npcSpriteTask = null;
+		if (cfg.getBoolean(Options.BuildSpriteSheets)) {
+			npcSpriteTask = scheduler.submit("NPC Sprites", List.of(MOD_SPR_NPC_SRC), List.of(MOD_SPR_NPC_TEMP), () -> {
+				spritePatcher.buildNpcSprites();
+				return null;
+			});
+		}
+
 		Logger.log("Writing map config table...", Priority.MILESTONE);
 		int mapConfigTableBase = mapPatcher.writeConfigTable(mapTable);
 		recordTime("Map Configs Patched");
@@ -242,6 +323,12 @@ public class Patcher implements IGlobalDatabase
 		Logger.log("Reading direct ROM patches...", Priority.MILESTONE);
 		GlobalPatchManager gpm = new GlobalPatchManager(this);
 
+		if (buildAudio || buildSoundBanks) {
+			for (Task<Void> task : audioTasks)
+				scheduler.await(task);
+			minimumAudioHeapSize = AudioModder.getMinimumAudioHeapSize();
+		}
+
 		FunctionPatcher.modifyHeaps(this, cfg, gpm, rp, minimumAudioHeapSize);
 		gpm.readInternalPatch("ExtendedSoundBanks.patch");
 		gpm.readInternalPatch("ExtendedGlobals.patch",
@@ -410,15 +497,8 @@ public class Patcher implements IGlobalDatabase
 
 		imgPatcher.patchCompressedImages();
 
-		if (cfg.getBoolean(Options.BuildTextures)) {
-			Logger.log("Building texture archives...", Priority.MILESTONE);
-			imgPatcher.buildTextureArchives();
-		}
-
-		if (cfg.getBoolean(Options.BuildBackgrounds)) {
-			Logger.log("Building backgrounds...", Priority.MILESTONE);
-			imgPatcher.buildBackgrounds();
-		}
+		for (Task<Void> task : imageTasks)
+			scheduler.await(task);
 
 		Logger.log("Writing map assets...", Priority.MILESTONE);
 		mapPatcher.writeAssetTable(mapTable);
@@ -427,7 +507,7 @@ public class Patcher implements IGlobalDatabase
 		mapPatcher.updateConfigTable(mapTable);
 
 		Logger.log("Writing battle data...", Priority.MILESTONE);
-		battlePatcher.writeBattleData(optCompressBattleData);
+		battlePatcher.writeBattleData(optCompressBattleData, cfg.getBoolean(Options.MaxCompression));
 		auxPatcher.writeData();
 		sealBattleData();
 
@@ -440,6 +520,8 @@ public class Patcher implements IGlobalDatabase
 		}
 
 		if (cfg.getBoolean(Options.BuildSpriteSheets)) {
+			if (npcSpriteTask != null)
+				scheduler.await(npcSpriteTask);
 			Logger.log("Patching sprite sheets...", Priority.MILESTONE);
 			spritePatcher.patchSpriteSheets();
 			recordTime("Sprite Sheets Patched");
@@ -453,6 +535,8 @@ public class Patcher implements IGlobalDatabase
 
 		// ======== Phase 5: finishing touches
 
+		scheduler.awaitAll();
+
 		Logger.log("Calculating new CRC values...", Priority.MILESTONE);
 		recalculateCRCs(rp.getBuffer());
 
@@ -468,9 +552,11 @@ public class Patcher implements IGlobalDatabase
 
 		System.out.println("------------- TIMING -------------");
 		printTimes();
+		scheduler.printTimes();
 
 		rp.writeFile();
 		buildSymbolMap.write();
+		buildGraph.save();
 
 		cfg.setString(Options.CompileVersion, Environment.getVersionString()); // another successful compile. great job!
 		cfg.setBoolean(Options.ClearMapCache, false);
@@ -710,7 +796,6 @@ public class Patcher implements IGlobalDatabase
 	}
 
 	public static final Pattern PatternMessageID = Pattern.compile("([0-9A-F]+)-([0-9A-F]+)");
-	public static final Matcher MatcherMessageID = PatternMessageID.matcher("");
 
 	@Override
 	public int resolveStringID(String s) throws InvalidInputException
@@ -722,10 +807,10 @@ public class Patcher implements IGlobalDatabase
 		if (id != null)
 			return id;
 
-		MatcherMessageID.reset(s);
-		if (MatcherMessageID.matches()) {
-			int hi = Integer.parseInt(MatcherMessageID.group(1), 16);
-			int lo = Integer.parseInt(MatcherMessageID.group(2), 16);
+		Matcher matcher = PatternMessageID.matcher(s);
+		if (matcher.matches()) {
+			int hi = Integer.parseInt(matcher.group(1), 16);
+			int lo = Integer.parseInt(matcher.group(2), 16);
 			return (hi << 16 | lo);
 		}
 
@@ -746,46 +831,13 @@ public class Patcher implements IGlobalDatabase
 
 	/**
 	 * Patches the two CRC values used by the N64 boot chip to verify the integrity of
-	 * the ROM (0x10 and 0x14). Paper Mario uses the CIC-NUS-6103 boot chip, so we must
-	 * use the corresponding algorithm to calculate the new CRCs. Reproducing the correct
-	 * unsigned integer arithmetic is tricky and leads to this ugly, nigh-unreadable code.
-	 * But it works.
-	 * @throws IOException
+	 * the ROM (0x10 and 0x14). See {@link CICChecksum}.
 	 */
-	private void recalculateCRCs(ByteBuffer bb) throws IOException
+	private void recalculateCRCs(ByteBuffer bb)
 	{
-		long t1, t2, t3;
-		long t4, t5, t6;
-		t1 = t2 = t3 = t4 = t5 = t6 = 0xA3886759; // 6103 only
-
-		long r, d;
-
-		bb.position(0x1000);
-		for (int i = 0x1000; i < 0x101000; i += 4) {
-			d = bb.getInt() & 0xFFFFFFFFL;
-			if (((t6 + d) & 0xFFFFFFFFL) < (t6 & 0xFFFFFFFFL))
-				t4++;
-			t6 += d;
-			t3 ^= d;
-
-			r = ((d << (d & 0x1F)) | (d >> (32L - (d & 0x1F)))) & 0xFFFFFFFFL;
-
-			t5 += r;
-			if ((t2 & 0xFFFFFFFFL) > (d & 0xFFFFFFFFL))
-				t2 ^= r;
-			else
-				t2 ^= t6 ^ d;
-
-			t1 += t5 ^ d;
-		}
-
-		int crc1 = (int) ((t6 ^ t4) + t3);
-		int crc2 = (int) ((t5 ^ t2) + t1);
-
-		bb.position(0x10);
-		bb.putInt(crc1);
-		bb.putInt(crc2);
-		Logger.log(String.format("Wrote new CRCs to ROM (%08X %08X)", crc1, crc2), Priority.IMPORTANT);
+		CICChecksum checksum = CICChecksum.compute(bb);
+		checksum.write(bb);
+		Logger.log("Wrote new CRCs to ROM (" + checksum + ")", Priority.IMPORTANT);
 	}
 
 	public static void packageMod(File rom) throws IOException
@@ -801,17 +853,14 @@ public class Patcher implements IGlobalDatabase
 		if (modName.isEmpty())
 			modName = Options.ModVersionString.defaultValue;
 
-		byte[] base = Environment.getBaseRomBytes();
-		byte[] patched = FileUtils.readFileToByteArray(rom);
-
 		Logger.log("Starting mod packaging: " + new java.util.Date().toString(), Priority.IMPORTANT);
 
 		switch (format) {
 			case BPS:
-				packageBPS(base, patched, modName);
+				packageBPS(Environment.getBaseRomBytes(), FileUtils.readFileToByteArray(rom), modName);
 				break;
 			case MOD:
-				packageStarRodMod(base, patched, modName, cfg);
+				packageStarRodMod(rom, modName, cfg);
 				break;
 			default:
 				throw new IllegalStateException("Unknown mod package format: " + format);
@@ -829,84 +878,33 @@ public class Patcher implements IGlobalDatabase
 		Logger.log("Wrote BPS file to " + outBPS, Priority.IMPORTANT);
 	}
 
-	private static void packageStarRodMod(byte[] base, byte[] patched, String modName, Config cfg) throws IOException
+	private static void packageStarRodMod(File rom, String modName, Config cfg) throws IOException
 	{
-		LinkedList<Integer> diffStarts = new LinkedList<>();
-		LinkedList<Integer> diffLengths = new LinkedList<>();
-
-		if (patched.length < base.length)
-			throw new RuntimeException("Patched ROM should not be smaller than base ROM!");
-
-		boolean mismatching = false;
-		int mismatchStart = -1;
-		int lastEnd = Integer.MIN_VALUE;
-
-		Logger.log("Finding differences between base ROM and patched ROM...", Priority.MILESTONE);
-
-		for (int pos = 0; pos < base.length; pos++) {
-			if (base[pos] != patched[pos]) {
-				if (!mismatching) {
-					if (pos < lastEnd + 8) {
-						diffLengths.removeLast();
-						mismatchStart = diffStarts.removeLast();
-					}
-					else {
-						mismatchStart = pos;
-					}
-
-					mismatching = true;
-				}
-			}
-			else {
-				if (mismatching) {
-					diffStarts.add(mismatchStart);
-					diffLengths.add(pos - mismatchStart);
-					lastEnd = pos;
-					mismatching = false;
-				}
-			}
-		}
-
-		if (mismatching) {
-			diffStarts.add(mismatchStart);
-			diffLengths.add(patched.length - mismatchStart);
-		}
-		else if (patched.length > base.length) {
-			diffStarts.add(base.length);
-			diffLengths.add(patched.length - base.length);
-		}
-
-		Logger.log("Found " + diffStarts.size() + " different byte sequences.", Priority.MILESTONE);
-
-		int totalSize = 8 + 8 * diffStarts.size();
-		for (int len : diffLengths)
-			totalSize += len;
-
-		Logger.log("Copying differences to diff file...", Priority.MILESTONE);
+		File outMod = new File(MOD_OUT + modName + ".mod");
 
-		ByteBuffer buf = ByteBuffer.allocate(totalSize);
-		buf.putInt(MOD_PACKAGE_IDENTIFIER);
-		buf.putInt(diffStarts.size());
+		Logger.log("Copying differences between base ROM and patched ROM to diff file...", Priority.MILESTONE);
 
-		for (int i = 0; i < diffStarts.size(); i++) {
-			buf.putInt(diffStarts.get(i));
-			buf.putInt(diffLengths.get(i));
-			buf.put(patched, diffStarts.get(i), diffLengths.get(i));
+		ModPackageWriter writer;
+		int count;
+		try (FileChannel baseChannel = Environment.getBaseRomChannel();
+			FileChannel patchedChannel = FileChannel.open(rom.toPath(), StandardOpenOption.READ)) {
+			writer = new ModPackageWriter(baseChannel, patchedChannel);
+			count = writer.write(outMod);
 		}
 
-		byte[] diffBytes = buf.array();
+		Logger.log("Found " + count + " different byte sequences.", Priority.MILESTONE);
 
 		if (cfg.getBoolean(Options.CompressModPackage)) {
 			Logger.log("Compressing diff file...", Priority.MILESTONE);
-			diffBytes = Yay0Helper.encode(diffBytes, true);
+			long totalSize = writer.getTotalSize();
+			byte[] diffBytes = Yay0Helper.encode(FileUtils.readFileToByteArray(outMod), true);
 			Logger.logf("Compressed %08X -> %08X (%04.2f%%)",
 				totalSize,
 				diffBytes.length,
 				100 * (float) diffBytes.length / totalSize);
+			FileUtils.writeByteArrayToFile(outMod, diffBytes);
 		}
 
-		File outMod = new File(MOD_OUT + modName + ".mod");
-		FileUtils.writeByteArrayToFile(outMod, diffBytes);
 		Logger.log("Wrote MOD file to " + outMod, Priority.IMPORTANT);
 	}
 
@@ -966,7 +964,8 @@ public class Patcher implements IGlobalDatabase
 		}
 	}
 
-	public void recordTime(String name)
+	// stages running on the scheduler may record their times concurrently
+	public synchronized void recordTime(String name)
 	{
 		if (timerLookup.containsKey(name))
 			throw new IllegalStateException();
@@ -974,7 +973,7 @@ public class Patcher implements IGlobalDatabase
 		timerLookup.put(name, new Timer(name));
 	}
 
-	private void printTimes()
+	private synchronized void printTimes()
 	{
 		ArrayList<Timer> timers = new ArrayList<>(timerLookup.values());
 		timers.add(new Timer("Done"));
@@ -989,7 +988,7 @@ public class Patcher implements IGlobalDatabase
 	private void indexMapObjects(Config cfg, MapConfigTable mapTable) throws IOException
 	{
 		indexedMaps = new LinkedHashMap<>();
-		HashMap<String, MapIndex> cache = loadMapCache();
+		MapIndexCache cache = MapIndexCache.load(MapIndex.getFile());
 		buildMapIndex(cache, mapTable);
 
 		for (AreaConfig area : mapTable.areas) {
@@ -1013,58 +1012,57 @@ public class Patcher implements IGlobalDatabase
 		Logger.log("Loaded map index.");
 	}
 
-	private HashMap<String, MapIndex> loadMapCache()
+	private static final class MapIndexJob
 	{
-		HashMap<String, MapIndex> cache = new HashMap<>();
-
-		File indexFile = MapIndex.getFile();
-		if (!indexFile.exists())
-			return cache;
-
-		try (ObjectInputStream in = new ObjectInputStream(
-			new BufferedInputStream(new FileInputStream(indexFile)))) {
-			String versionString = in.readUTF();
-			if (!versionString.equals(Environment.getVersionString()))
-				return cache;
-
-			int numMaps = in.readInt();
+		private final String name;
+		private final File source;
+		private MapIndex index;
 
-			for (int i = 0; i < numMaps; i++) {
-				MapIndex index = (MapIndex) in.readObject();
-				String name = index.getMapName();
-				if (!name.isEmpty())
-					cache.put(name, index);
-			}
-
-		}
-		catch (IOException | ClassNotFoundException e) {
-			Logger.printStackTrace(e);
-			return cache;
+		private MapIndexJob(String name, File source)
+		{
+			this.name = name;
+			this.source = source;
 		}
-		return cache;
 	}
 
-	private void buildMapIndex(HashMap<String, MapIndex> cache, MapConfigTable mapTable) throws IOException
+	private void buildMapIndex(MapIndexCache cache, MapConfigTable mapTable) throws IOException
 	{
+		LinkedHashMap<String, MapIndexJob> jobs = new LinkedHashMap<>();
 		for (AreaConfig area : mapTable.areas) {
 			for (MapConfig mapCfg : area.maps)
-				indexMap(cache, mapCfg);
+				addIndexJob(jobs, mapCfg);
 
 			for (MapConfig mapCfg : area.stages)
-				indexMap(cache, mapCfg);
+				addIndexJob(jobs, mapCfg);
 		}
 
-		try (ObjectOutputStream out = new ObjectOutputStream(
-			new BufferedOutputStream(new FileOutputStream(MapIndex.getFile())))) {
-			Collection<MapIndex> indices = indexedMaps.values();
-			out.writeUTF(Environment.getVersionString());
-			out.writeInt(indices.size());
-			for (MapIndex index : indices)
-				out.writeObject(index);
+		// only changed maps are parsed, and those are independent of each other
+		AtomicInteger parseCount = new AtomicInteger();
+		try {
+			jobs.values().parallelStream().forEach((job) -> {
+				try {
+					job.index = cache.getOrBuild(job.name, job.source, (f) -> {
+						parseCount.incrementAndGet();
+						return new MapIndex(Map.indexMap(f));
+					});
+				}
+				catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		}
+		catch (UncheckedIOException e) {
+			throw e.getCause();
 		}
+
+		for (MapIndexJob job : jobs.values())
+			indexedMaps.put(job.name, job.index);
+
+		Logger.logf("Indexed %d maps (%d changed).", jobs.size(), parseCount.get());
+		cache.save(MapIndex.getFile(), indexedMaps.keySet());
 	}
 
-	private void indexMap(HashMap<String, MapIndex> cache, MapConfig cfg)
+	private void addIndexJob(LinkedHashMap<String, MapIndexJob> jobs, MapConfig cfg)
 	{
 		File[] matches = IOUtils.getFileWithin(MOD_MAP_SAVE, cfg.name + Map.EXTENSION, true);
 		if (matches.length > 1)
@@ -1079,20 +1077,12 @@ public class Patcher implements IGlobalDatabase
 		if (!mapFile.exists())
 			return;
 
-		MapIndex cached = cache.get(cfg.name);
-		if (cached != null && cached.sourceLastModified() == mapFile.lastModified()) {
-			indexedMaps.put(cfg.name, cached);
-			return;
-		}
-
-		Map map = Map.loadMap(mapFile);
-
-		if (indexedMaps.containsKey(cfg.name)) {
+		if (jobs.containsKey(cfg.name)) {
 			Logger.logWarning("Map index already contains entry for " + cfg.name + "! Ignoring duplicate entry.");
 			return;
 		}
 
-		indexedMaps.put(cfg.name, new MapIndex(map));
+		jobs.put(cfg.name, new MapIndexJob(cfg.name, mapFile));
 	}
 
 	@Override
@@ -0,0 +1,191 @@
+package patcher;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import app.StarRodException;
+
+/**
+ * Runs independent build tasks concurrently on a thread pool.
+ * <p>
+ * Each task declares the resources it reads and writes. Resources may be any objects with a
+ * meaningful equals, such as {@link app.Directories} or {@link BuildStage}. A task waits for
+ * every earlier task which writes something it reads or writes, or reads something it writes,
+ * so the results are the same as running the tasks one after another in submission order.
+ * <p>
+ * Nothing submitted here may write to the shared {@link RomPatcher}. ROM writes stay on the
+ * calling thread, which uses {@link #await(Task)} to join each task before consuming its results.
+ */
+public class StageScheduler
+{
+	public static final class Task<T>
+	{
+		public final String name;
+		private final Set<Object> reads;
+		private final Set<Object> writes;
+		private CompletableFuture<T> future;
+
+		private volatile long startTime;
+		private volatile long endTime;
+
+		private Task(String name, Set<Object> reads, Set<Object> writes)
+		{
+			this.name = name;
+			this.reads = reads;
+			this.writes = writes;
+		}
+
+		private boolean conflictsWith(Task<?> other)
+		{
+			for (Object o : other.writes) {
+				if (reads.contains(o) || writes.contains(o))
+					return true;
+			}
+			for (Object o : other.reads) {
+				if (writes.contains(o))
+					return true;
+			}
+			return false;
+		}
+
+		private void start(List<Task<?>> dependencies, Callable<T> action, ExecutorService pool)
+		{
+			CompletableFuture<?>[] depFutures = new CompletableFuture<?>[dependencies.size()];
+			for (int i = 0; i < depFutures.length; i++)
+				depFutures[i] = dependencies.get(i).future;
+
+			future = CompletableFuture.allOf(depFutures).thenApplyAsync(v -> {
+				startTime = System.nanoTime();
+				try {
+					return action.call();
+				}
+				catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				catch (RuntimeException e) {
+					throw e;
+				}
+				catch (Exception e) {
+					throw new StarRodException(e);
+				}
+				finally {
+					endTime = System.nanoTime();
+				}
+			}, pool);
+		}
+
+		public boolean isDone()
+		{
+			return future.isDone();
+		}
+
+		/**
+		 * @return time spent running this task in nanoseconds, not including time spent waiting
+		 * for its dependencies
+		 */
+		public long getDuration()
+		{
+			return future.isDone() ? (endTime - startTime) : 0;
+		}
+	}
+
+	private final ExecutorService pool;
+	private final List<Task<?>> tasks = new ArrayList<>();
+
+	public StageScheduler()
+	{
+		this(Math.max(2, Runtime.getRuntime().availableProcessors()));
+	}
+
+	public StageScheduler(int parallelism)
+	{
+		AtomicInteger threadCount = new AtomicInteger();
+
+		// idle threads exit on their own, so an aborted build does not leave the pool running
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(parallelism, parallelism, 1, TimeUnit.SECONDS,
+			new LinkedBlockingQueue<>(), r -> {
+				Thread t = new Thread(r, "BuildStage-" + threadCount.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			});
+		executor.allowCoreThreadTimeOut(true);
+		pool = executor;
+	}
+
+	/**
+	 * Queues a task, which starts once every earlier task it conflicts with has finished.
+	 * @param reads - resources this task reads
+	 * @param writes - resources this task creates or modifies
+	 */
+	public synchronized <T> Task<T> submit(String name, Collection<?> reads, Collection<?> writes, Callable<T> action)
+	{
+		Task<T> task = new Task<>(name, Set.copyOf(reads), Set.copyOf(writes));
+
+		List<Task<?>> dependencies = new ArrayList<>();
+		for (Task<?> earlier : tasks) {
+			if (task.conflictsWith(earlier))
+				dependencies.add(earlier);
+		}
+
+		task.start(dependencies, action, pool);
+		tasks.add(task);
+		return task;
+	}
+
+	/**
+	 * Waits for a task to finish, rethrowing any exception it threw.
+	 */
+	public <T> T await(Task<T> task) throws IOException
+	{
+		try {
+			return task.future.join();
+		}
+		catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof UncheckedIOException uioe)
+				throw uioe.getCause();
+			if (cause instanceof RuntimeException re)
+				throw re;
+			if (cause instanceof Error err)
+				throw err;
+			throw new StarRodException(cause);
+		}
+	}
+
+	/**
+	 * Waits for every task submitted so far, rethrowing the first exception encountered.
+	 */
+	public void awaitAll() throws IOException
+	{
+		List<Task<?>> submitted;
+		synchronized (this) {
+			submitted = new ArrayList<>(tasks);
+		}
+
+		for (Task<?> task : submitted)
+			await(task);
+	}
+
+	public void printTimes()
+	{
+		List<Task<?>> submitted;
+		synchronized (this) {
+			submitted = new ArrayList<>(tasks);
+		}
+
+		for (Task<?> task : submitted)
+			System.out.printf("%11.3f ms   %s (parallel)%n", 1e-6 * task.getDuration(), task.name);
+	}
+}
@@ -52,6 +52,9 @@ public class BattleMapTracker
 		if (!enabled)
 			return;
 
+		if (TrackerJournal.defer(() -> add(mapName, battleID)))
+			return;
+
 		battleIDSet.add(battleID & 0xFFFF0000);
 
 		List<Integer> battleList;
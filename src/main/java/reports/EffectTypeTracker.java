@@ -19,6 +19,9 @@ public class EffectTypeTracker
 
 	public static void addEffect(int effect, String source)
 	{
+		if (TrackerJournal.defer(() -> addEffect(effect, source)))
+			return;
+
 		if (effectCount.containsKey(effect)) {
 			int oldCount = effectCount.get(effect);
 			effectCount.put(effect, oldCount + 1);
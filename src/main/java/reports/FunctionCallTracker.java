@@ -19,6 +19,9 @@ public class FunctionCallTracker
 
 	public static void addCall(int address)
 	{
+		if (TrackerJournal.defer(() -> addCall(address)))
+			return;
+
 		long unsignedAddress = address & 0xFFFFFFFFL;
 
 		if (calls.containsKey(unsignedAddress)) {
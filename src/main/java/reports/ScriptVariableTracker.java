@@ -92,6 +92,9 @@ public class ScriptVariableTracker
 
 	public static void foundByte(int i)
 	{
+		if (TrackerJournal.defer(() -> foundByte(i)))
+			return;
+
 		foundBytes[i] = true;
 
 		if (!machiBytes[i])
@@ -100,6 +103,9 @@ public class ScriptVariableTracker
 
 	public static void foundFlag(int i)
 	{
+		if (TrackerJournal.defer(() -> foundFlag(i)))
+			return;
+
 		foundFlags[i] = true;
 
 		if (!machiFlags[i])
@@ -0,0 +1,63 @@
+package reports;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the tracker updates made by one thread so they can be applied later.
+ * Concurrent decoders each run inside their own journal, and the journals are replayed
+ * in the same order a serial dump would have visited them. Trackers which keep the first
+ * or last value seen therefore end up with the same contents either way.
+ */
+public class TrackerJournal
+{
+	private static final ThreadLocal<TrackerJournal> active = new ThreadLocal<>();
+
+	private final List<Runnable> updates = new ArrayList<>();
+
+	private TrackerJournal()
+	{}
+
+	/**
+	 * Starts deferring tracker updates made by the current thread into a new journal.
+	 */
+	public static TrackerJournal begin()
+	{
+		TrackerJournal journal = new TrackerJournal();
+		active.set(journal);
+		return journal;
+	}
+
+	/**
+	 * Stops deferring tracker updates made by the current thread.
+	 */
+	public static void end()
+	{
+		active.remove();
+	}
+
+	/**
+	 * Defers an update if a journal is active on the current thread.
+	 * @return true if the update was recorded, false if the caller should apply it now
+	 */
+	public static boolean defer(Runnable update)
+	{
+		TrackerJournal journal = active.get();
+		if (journal == null)
+			return false;
+
+		journal.updates.add(update);
+		return true;
+	}
+
+	/**
+	 * Applies the recorded updates in the order they were made.
+	 * Should be called from a thread without an active journal.
+	 */
+	public void replay()
+	{
+		for (Runnable update : updates)
+			update.run();
+		updates.clear();
+	}
+}
@@ -1,7 +1,11 @@
 package util;
 
+import java.io.File;
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.Stack;
 
 public class DynamicByteBuffer
@@ -20,6 +24,18 @@ public class DynamicByteBuffer
 		this(128);
 	}
 
+	/**
+	 * Creates a buffer whose {@link #size()} only covers what has been written. Buffers from the
+	 * constructors start out with a size equal to their initial capacity, so their contents are
+	 * zero padded to at least that length.
+	 */
+	public static DynamicByteBuffer empty(int initialCapacity)
+	{
+		DynamicByteBuffer dbb = new DynamicByteBuffer(initialCapacity);
+		dbb.buffer.limit(0);
+		return dbb;
+	}
+
 	public void putByte(int v)
 	{
 		putByte((byte) v);
@@ -210,4 +226,31 @@ public class DynamicByteBuffer
 
 		return outBuffer;
 	}
+
+	/**
+	 * @return copy of the contents from the start of the buffer up to {@link #size()}
+	 */
+	public byte[] getBytes()
+	{
+		byte[] bytes = new byte[buffer.limit()];
+		ByteBuffer view = buffer.duplicate();
+		view.rewind();
+		view.get(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Writes the contents to a file with a single channel write, replacing any existing file.
+	 */
+	public void writeToFile(File f) throws IOException
+	{
+		ByteBuffer view = buffer.duplicate();
+		view.rewind();
+
+		try (FileChannel channel = FileChannel.open(f.toPath(),
+			StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (view.hasRemaining())
+				channel.write(view);
+		}
+	}
 }
@@ -45,7 +45,7 @@ public abstract class Logger
 		}
 	}
 
-	public static void addListener(Listener listener)
+	public static synchronized void addListener(Listener listener)
 	{
 		listeners.add(new ListenerReference(listener, defaultPriority));
 
@@ -53,7 +53,7 @@ public abstract class Logger
 			minListenerPriority = defaultPriority;
 	}
 
-	public static void addListener(Listener listener, Priority p)
+	public static synchronized void addListener(Listener listener, Priority p)
 	{
 		listeners.add(new ListenerReference(listener, p));
 
@@ -61,7 +61,7 @@ public abstract class Logger
 			minListenerPriority = p;
 	}
 
-	public static void removeListener(Listener listener)
+	public static synchronized void removeListener(Listener listener)
 	{
 		listeners.removeIf(ref -> ref.listener == listener);
 
@@ -82,7 +82,9 @@ public abstract class Logger
 		progressListener = null;
 	}
 
-	private static void broadcast(String text, Priority p)
+	// build stages may log from several threads at once, so listeners are only
+	// changed or notified while holding the class lock
+	private static synchronized void broadcast(String text, Priority p)
 	{
 		if (!enabled)
 			return;
@@ -185,7 +187,7 @@ public abstract class Logger
 		enabled = true;
 	}
 
-	public static void printStackTrace(Throwable t)
+	public static synchronized void printStackTrace(Throwable t)
 	{
 		StackTraceElement[] stackTrace = t.getStackTrace();
 
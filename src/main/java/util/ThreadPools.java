@@ -0,0 +1,22 @@
+package util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public abstract class ThreadPools
+{
+	/**
+	 * Creates a fixed size pool of daemon threads, so a batch which is abandoned
+	 * part way through cannot keep the application from exiting.
+	 * @param name - name given to each worker thread
+	 * @param threads - number of worker threads, at least one thread is always created
+	 */
+	public static ExecutorService newDaemonPool(String name, int threads)
+	{
+		return Executors.newFixedThreadPool(Math.max(1, threads), (r) -> {
+			Thread t = new Thread(r, name);
+			t.setDaemon(true);
+			return t;
+		});
+	}
+}
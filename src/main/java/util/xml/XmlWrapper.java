@@ -1,11 +1,14 @@
 package util.xml;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
 import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
@@ -14,11 +17,16 @@ import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import org.w3c.dom.Text;
 import org.xml.sax.SAXException;
 
 import app.input.IOUtils;
@@ -51,6 +59,16 @@ public class XmlWrapper
 		return factory.newDocumentBuilder();
 	}
 
+	public static XMLInputFactory newSecureInputFactory()
+	{
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+		return factory;
+	}
+
 	public static interface XmlSerializable
 	{
 		public void fromXML(XmlReader xmr, Element elem);
@@ -58,11 +76,32 @@ public class XmlWrapper
 		public void toXML(XmlWriter xmw);
 	}
 
+	/**
+	 * Reads the content of an element directly from the stream, instead of adding it to the DOM.
+	 */
+	public static interface StreamedContentReader
+	{
+		/**
+		 * Called with the stream positioned on the start tag of the element, and must consume
+		 * everything up to and including its matching end tag. The element is still added to
+		 * the DOM with its attributes, and a non-null result can be retrieved from it with
+		 * {@link XmlReader#getStreamedContent}.
+		 */
+		public Object read(XmlReader xmr, XMLStreamReader in) throws XMLStreamException;
+	}
+
 	public static class XmlReader
 	{
+		public static final StreamedContentReader SKIP = (xmr, in) -> {
+			skipElement(in);
+			return null;
+		};
+
 		private final File xmlFile;
 		private Element rootElement;
 
+		private final IdentityHashMap<Element, Object> streamedContent = new IdentityHashMap<>();
+
 		public XmlReader(File xmlFile)
 		{
 			this.xmlFile = xmlFile;
@@ -109,6 +148,163 @@ public class XmlWrapper
 			rootElement = document.getDocumentElement();
 		}
 
+		/**
+		 * Parses the file with a streaming parser. Elements with tags in <code>streamedTags</code>
+		 * are handed to their reader as they are encountered, so large blocks of simple data
+		 * can be read (or skipped) without building DOM nodes for them. Everything else is
+		 * available through the DOM as usual.
+		 */
+		public XmlReader(File xmlFile, java.util.Map<String, StreamedContentReader> streamedTags)
+		{
+			this.xmlFile = xmlFile;
+			Document document;
+
+			try (InputStream stream = new BufferedInputStream(new FileInputStream(xmlFile))) {
+				document = newSecureDocumentBuilder().newDocument();
+
+				XMLStreamReader in = newSecureInputFactory().createXMLStreamReader(stream);
+				try {
+					buildDocument(document, in, streamedTags);
+				}
+				finally {
+					in.close();
+				}
+			}
+			catch (ParserConfigurationException | XMLStreamException | IOException e) {
+				throw new InputFileException(xmlFile, e.getMessage());
+			}
+
+			rootElement = document.getDocumentElement();
+			if (rootElement == null)
+				complain("Document has no root element.");
+		}
+
+		/**
+		 * Wraps a document which has already been built, for example from a cached copy of the file.
+		 */
+		public XmlReader(File xmlFile, Document document)
+		{
+			this.xmlFile = xmlFile;
+			this.rootElement = document.getDocumentElement();
+		}
+
+		private void buildDocument(Document document, XMLStreamReader in,
+			java.util.Map<String, StreamedContentReader> streamedTags) throws XMLStreamException
+		{
+			Node parent = document;
+
+			while (in.hasNext()) {
+				switch (in.next()) {
+					case XMLStreamConstants.START_ELEMENT:
+						Element elem = document.createElement(in.getLocalName());
+						for (int i = 0; i < in.getAttributeCount(); i++)
+							elem.setAttribute(in.getAttributeLocalName(i), in.getAttributeValue(i));
+						parent.appendChild(elem);
+
+						StreamedContentReader reader = streamedTags.get(elem.getTagName());
+						if (reader != null) {
+							Object content = reader.read(this, in);
+							if (content != null)
+								streamedContent.put(elem, content);
+						}
+						else
+							parent = elem;
+						break;
+
+					case XMLStreamConstants.END_ELEMENT:
+						parent = parent.getParentNode();
+						break;
+
+					case XMLStreamConstants.CHARACTERS:
+					case XMLStreamConstants.CDATA:
+					case XMLStreamConstants.SPACE:
+						// text outside the root element is ignorable whitespace
+						if (parent == document)
+							break;
+						// same as normalize(), never leave adjacent text nodes
+						if (parent.getLastChild() instanceof Text text)
+							text.appendData(in.getText());
+						else
+							parent.appendChild(document.createTextNode(in.getText()));
+						break;
+
+					case XMLStreamConstants.DTD:
+						throw new XMLStreamException("DOCTYPE is not allowed", in.getLocation());
+				}
+			}
+		}
+
+		/**
+		 * @return the result of the {@link StreamedContentReader} for this element, or null
+		 * if the element was not streamed or its reader returned null
+		 */
+		public <T> T getStreamedContent(Element elem, Class<T> type)
+		{
+			return type.cast(streamedContent.get(elem));
+		}
+
+		public void putStreamedContent(Element elem, Object content)
+		{
+			streamedContent.put(elem, content);
+		}
+
+		/**
+		 * Advances to the next child of the current element with this tag, skipping any others.
+		 * @return false once the end tag of the current element has been consumed
+		 */
+		public boolean nextChildTag(XMLStreamReader in, XmlKey key) throws XMLStreamException
+		{
+			String keyname = key.toString();
+
+			while (true) {
+				int event = in.next();
+				if (event == XMLStreamConstants.END_ELEMENT)
+					return false;
+
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					if (keyname.equals(in.getLocalName()))
+						return true;
+					skipElement(in);
+				}
+			}
+		}
+
+		/**
+		 * Consumes the rest of the current element, up to and including its end tag.
+		 */
+		public static void skipElement(XMLStreamReader in) throws XMLStreamException
+		{
+			int depth = 1;
+			while (depth > 0) {
+				int event = in.next();
+				if (event == XMLStreamConstants.START_ELEMENT)
+					depth++;
+				else if (event == XMLStreamConstants.END_ELEMENT)
+					depth--;
+			}
+		}
+
+		/**
+		 * @return the trimmed attribute value from the current start tag, or null if it is missing or blank
+		 */
+		public String getAttribute(XMLStreamReader in, XmlKey key)
+		{
+			String value = in.getAttributeValue(null, key.toString());
+			if (value == null || value.isBlank())
+				return null;
+
+			return value.trim();
+		}
+
+		public String getRequiredAttribute(XMLStreamReader in, XmlKey key)
+		{
+			String value = getAttribute(in, key);
+			if (value == null)
+				complain(in.getLocalName() + " is missing required attribute: " + key);
+
+			return value;
+		}
+
 		public File getSourceFile()
 		{
 			return xmlFile;
@@ -182,8 +378,11 @@ public class XmlWrapper
 
 		public boolean readBoolean(Element elem, XmlKey key)
 		{
-			String value = getAttribute(elem, key);
+			return parseBoolean(getAttribute(elem, key), key);
+		}
 
+		public boolean parseBoolean(String value, XmlKey key)
+		{
 			if (value.equalsIgnoreCase("true"))
 				return true;
 			else if (value.equalsIgnoreCase("false"))
@@ -324,7 +523,11 @@ public class XmlWrapper
 
 		public int[] readIntArray(Element elem, XmlKey key, int len)
 		{
-			String value = getAttribute(elem, key);
+			return parseIntArray(getAttribute(elem, key), key, len);
+		}
+
+		public int[] parseIntArray(String value, XmlKey key, int len)
+		{
 			String[] tokens = value.split("\\s*,\\s*");
 
 			if (len > 0 && tokens.length != len)
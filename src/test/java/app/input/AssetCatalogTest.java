@@ -0,0 +1,99 @@
+package app.input;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class AssetCatalogTest
+{
+	// some platforms poll for changes rather than being notified
+	private static final long WATCH_TIMEOUT_MS = 15000;
+
+	@TempDir
+	File tempDir;
+
+	private static File create(File dir, String path) throws IOException
+	{
+		File f = new File(dir, path);
+		f.getParentFile().mkdirs();
+		Files.write(f.toPath(), path.getBytes());
+		return f;
+	}
+
+	@Test
+	public void findsFilesInSubdirectories() throws IOException
+	{
+		File a = create(tempDir, "kmr/kmr_00.xml");
+		File b = create(tempDir, "nok/deeper/nok_01.xml");
+		create(tempDir, "nok/deeper/nok_01.png");
+
+		AssetCatalog catalog = AssetCatalog.of(tempDir);
+		assertEquals(3, catalog.size());
+
+		File[] matches = catalog.findFiles("kmr_00.xml");
+		assertEquals(1, matches.length);
+		assertEquals(a.getAbsoluteFile(), matches[0].getAbsoluteFile());
+
+		matches = catalog.findFiles("nok_01.xml");
+		assertEquals(1, matches.length);
+		assertEquals(b.getAbsoluteFile(), matches[0].getAbsoluteFile());
+
+		assertEquals(0, catalog.findFiles("missing.xml").length);
+		assertEquals(0, catalog.findFiles("deeper").length);
+	}
+
+	@Test
+	public void reportsDuplicateNames() throws IOException
+	{
+		create(tempDir, "one/dup.xml");
+		create(tempDir, "two/dup.xml");
+
+		assertEquals(2, AssetCatalog.of(tempDir).findFiles("dup.xml").length);
+	}
+
+	@Test
+	public void seesChangesWithoutRescan() throws IOException
+	{
+		File old = create(tempDir, "sub/old.xml");
+
+		AssetCatalog catalog = AssetCatalog.of(tempDir);
+		assertEquals(1, catalog.findFiles("old.xml").length);
+
+		// deleted and newly saved files are visible immediately, even before any watch event
+		old.delete();
+		create(tempDir, "new.xml");
+
+		assertEquals(0, catalog.findFiles("old.xml").length);
+		assertEquals(1, catalog.findFiles("new.xml").length);
+
+		create(tempDir, "sub/nested.xml");
+		catalog.rescan();
+		assertEquals(1, catalog.findFiles("nested.xml").length);
+	}
+
+	@Test
+	public void findsNewFileInSubdirectory() throws IOException, InterruptedException
+	{
+		create(tempDir, "sub/old.png");
+
+		AssetCatalog catalog = AssetCatalog.of(tempDir);
+		assertEquals(0, catalog.findFiles("new.png").length);
+
+		// the miss is remembered until the watch event for the new file arrives
+		File created = create(tempDir, "sub/new.png");
+		File[] matches = catalog.findFiles("new.png");
+		long deadline = System.currentTimeMillis() + WATCH_TIMEOUT_MS;
+		while (matches.length == 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(50);
+			matches = catalog.findFiles("new.png");
+		}
+
+		assertEquals(1, matches.length);
+		assertEquals(created.getAbsoluteFile(), matches[0].getAbsoluteFile());
+	}
+}
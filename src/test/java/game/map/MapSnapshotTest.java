@@ -0,0 +1,141 @@
+package game.map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.w3c.dom.Element;
+
+import game.map.mesh.Triangle;
+import game.map.mesh.Vertex;
+import util.xml.XmlWrapper.StreamedContentReader;
+import util.xml.XmlWrapper.XmlReader;
+
+public class MapSnapshotTest
+{
+	private static final String XML = String.join("\n",
+		"<?xml version=\"1.0\" encoding=\"UTF-8\"?>",
+		"<Map name=\"test_map\" author=\"\u00e9diteur\" tex=\"kmr_tex\">",
+		"	<ModelTree>",
+		"		<Model name=\"Root\" type=\"Root\">",
+		"			<TriangleBatch v=\"0\">",
+		"				<VertexTable>",
+		"					<Vertex xyz=\"-100,0,250\" uv=\"32,64\" rgba=\"255,128,0,200\"/>",
+		"					<Vertex xyz=\"100,0,250\"/>",
+		"					<Vertex xyz=\"0,75,-250\" uv=\"-16,1024\"/>",
+		"				</VertexTable>",
+		"				<TriangleList>",
+		"					<Triangle ijk=\"0,1,2\"/>",
+		"					<Triangle ijk=\"2,1,0\" doubleSided=\"true\"/>",
+		"				</TriangleList>",
+		"			</TriangleBatch>",
+		"		</Model>",
+		"	</ModelTree>",
+		"	<ScriptData>some text</ScriptData>",
+		"</Map>");
+
+	@TempDir
+	File tempDir;
+
+	private static HashMap<String, StreamedContentReader> meshReaders()
+	{
+		HashMap<String, StreamedContentReader> readers = new HashMap<>();
+		readers.put(MapKey.TAG_VERTEX_TABLE.toString(), Vertex::readTable);
+		readers.put(MapKey.TAG_TRIANGLE_LIST.toString(), Triangle::readList);
+		return readers;
+	}
+
+	private File writeSource() throws IOException
+	{
+		File f = new File(tempDir, "test_map.xml");
+		Files.write(f.toPath(), XML.getBytes("UTF-8"));
+		return f;
+	}
+
+	private static Element findTag(Element elem, MapKey key)
+	{
+		return (Element) elem.getElementsByTagName(key.toString()).item(0);
+	}
+
+	@Test
+	public void roundTripsDocumentAndMeshes() throws IOException
+	{
+		File source = writeSource();
+		File snapshot = new File(tempDir, "test_map." + MapSnapshot.EXTENSION);
+
+		XmlReader xml = new XmlReader(source, meshReaders());
+		MapSnapshot.write(snapshot, source, xml);
+		assertTrue(snapshot.exists());
+
+		XmlReader bin = MapSnapshot.read(snapshot, source, true);
+		assertTrue(xml.getRootElement().isEqualNode(bin.getRootElement()));
+
+		Vertex[] expectedVerts = xml.getStreamedContent(findTag(xml.getRootElement(), MapKey.TAG_VERTEX_TABLE), Vertex[].class);
+		Vertex[] actualVerts = bin.getStreamedContent(findTag(bin.getRootElement(), MapKey.TAG_VERTEX_TABLE), Vertex[].class);
+		assertEquals(expectedVerts.length, actualVerts.length);
+
+		for (int i = 0; i < expectedVerts.length; i++) {
+			Vertex a = expectedVerts[i];
+			Vertex b = actualVerts[i];
+			assertEquals(a.getLocalPosition().getX(), b.getLocalPosition().getX());
+			assertEquals(a.getLocalPosition().getY(), b.getLocalPosition().getY());
+			assertEquals(a.getLocalPosition().getZ(), b.getLocalPosition().getZ());
+			assertEquals(a.uv.getU(), b.uv.getU());
+			assertEquals(a.uv.getV(), b.uv.getV());
+			assertArrayEquals(new int[] { a.r, a.g, a.b, a.a }, new int[] { b.r, b.g, b.b, b.a });
+		}
+
+		Triangle[] expectedTris = xml.getStreamedContent(findTag(xml.getRootElement(), MapKey.TAG_TRIANGLE_LIST), Triangle[].class);
+		Triangle[] actualTris = bin.getStreamedContent(findTag(bin.getRootElement(), MapKey.TAG_TRIANGLE_LIST), Triangle[].class);
+		assertEquals(expectedTris.length, actualTris.length);
+
+		for (int i = 0; i < expectedTris.length; i++) {
+			assertArrayEquals(expectedTris[i].ijk, actualTris[i].ijk);
+			assertEquals(expectedTris[i].doubleSided, actualTris[i].doubleSided);
+		}
+	}
+
+	@Test
+	public void skipsMeshesForIndexing() throws IOException
+	{
+		File source = writeSource();
+		File snapshot = new File(tempDir, "test_map." + MapSnapshot.EXTENSION);
+		MapSnapshot.write(snapshot, source, new XmlReader(source, meshReaders()));
+
+		XmlReader bin = MapSnapshot.read(snapshot, source, false);
+		Element vertexTable = findTag(bin.getRootElement(), MapKey.TAG_VERTEX_TABLE);
+		assertNull(bin.getStreamedContent(vertexTable, Vertex[].class));
+		assertEquals("some text", findTag(bin.getRootElement(), MapKey.TAG_SCRIPT_DATA).getTextContent());
+
+		// a reader without mesh data cannot produce a complete snapshot
+		File partial = new File(tempDir, "partial." + MapSnapshot.EXTENSION);
+		HashMap<String, StreamedContentReader> skippers = new HashMap<>();
+		skippers.put(MapKey.TAG_VERTEX_TABLE.toString(), XmlReader.SKIP);
+		skippers.put(MapKey.TAG_TRIANGLE_LIST.toString(), XmlReader.SKIP);
+		MapSnapshot.write(partial, source, new XmlReader(source, skippers));
+		assertFalse(partial.exists());
+	}
+
+	@Test
+	public void ignoresStaleSnapshots() throws IOException
+	{
+		File source = writeSource();
+		File snapshot = new File(tempDir, "test_map." + MapSnapshot.EXTENSION);
+		MapSnapshot.write(snapshot, source, new XmlReader(source, meshReaders()));
+
+		assertTrue(source.setLastModified(source.lastModified() + 2000));
+		assertNull(MapSnapshot.read(snapshot, source, true));
+
+		Files.write(snapshot.toPath(), new byte[] { 1, 2, 3 });
+		assertNull(MapSnapshot.read(snapshot, source, true));
+	}
+}
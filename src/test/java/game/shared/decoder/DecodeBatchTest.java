@@ -0,0 +1,73 @@
+package game.shared.decoder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.junit.jupiter.api.Test;
+
+import reports.TrackerJournal;
+
+public class DecodeBatchTest
+{
+	private static final int NUM_JOBS = 32;
+
+	// stands in for a tracker, only ever updated from the calling thread
+	private final List<Integer> tracked = new ArrayList<>();
+
+	private void track(int n)
+	{
+		if (TrackerJournal.defer(() -> track(n)))
+			return;
+		tracked.add(n);
+	}
+
+	private List<Callable<Integer>> makeJobs()
+	{
+		List<Callable<Integer>> jobs = new ArrayList<>();
+		for (int i = 0; i < NUM_JOBS; i++) {
+			int n = i;
+			jobs.add(() -> {
+				// later jobs finish first when run concurrently
+				Thread.sleep(NUM_JOBS - n);
+				track(2 * n);
+				track(2 * n + 1);
+				return n;
+			});
+		}
+		return jobs;
+	}
+
+	@Test
+	public void parallelMatchesSerial() throws IOException
+	{
+		List<Integer> serialResults = DecodeBatch.decodeAll(makeJobs(), false);
+		List<Integer> serialTracked = new ArrayList<>(tracked);
+		tracked.clear();
+
+		List<Integer> parallelResults = DecodeBatch.decodeAll(makeJobs(), true);
+
+		assertEquals(serialResults, parallelResults);
+		assertEquals(serialTracked, tracked);
+		assertEquals(2 * NUM_JOBS, tracked.size());
+	}
+
+	@Test
+	public void rethrowsFirstFailure()
+	{
+		List<Callable<Integer>> jobs = makeJobs();
+		jobs.set(5, () -> {
+			throw new IOException("first");
+		});
+		jobs.set(9, () -> {
+			throw new IllegalStateException("second");
+		});
+
+		IOException e = assertThrows(IOException.class, () -> DecodeBatch.decodeAll(jobs, true));
+		assertEquals("first", e.getMessage());
+	}
+}
@@ -0,0 +1,137 @@
+package game.sound;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class AudioBuildManifestTest
+{
+	private static final String VERSION = "1.0";
+
+	@TempDir
+	File tempDir;
+
+	private File getManifestFile()
+	{
+		return new File(tempDir, "Test" + AudioBuildManifest.EXTENSION);
+	}
+
+	private File write(String name, String contents) throws IOException
+	{
+		File f = new File(tempDir, name);
+		Files.write(f.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+		return f;
+	}
+
+	@Test
+	public void keepsOutputWithUnchangedInputs() throws IOException
+	{
+		File xml = write("Song.xml", "<Song/>");
+		File output = write("Song.bgm", "output");
+
+		AudioBuildManifest manifest = new AudioBuildManifest(getManifestFile(), VERSION);
+		String key = manifest.getKey(List.of(xml));
+		assertFalse(manifest.isUpToDate(output, key));
+
+		manifest.setBuilt(output, key);
+		manifest.save();
+
+		AudioBuildManifest reloaded = new AudioBuildManifest(getManifestFile(), VERSION);
+		assertEquals(key, reloaded.getKey(List.of(xml)));
+		assertTrue(reloaded.isUpToDate(output, key));
+	}
+
+	@Test
+	public void rebuildsWhenInputChanges() throws IOException
+	{
+		File xml = write("Song.xml", "<Song/>");
+		File output = write("Song.bgm", "output");
+
+		AudioBuildManifest manifest = new AudioBuildManifest(getManifestFile(), VERSION);
+		String key = manifest.getKey(List.of(xml));
+		manifest.setBuilt(output, key);
+
+		write("Song.xml", "<Song name=\"changed\"/>");
+		xml.setLastModified(xml.lastModified() + 2000);
+		String newKey = manifest.getKey(List.of(xml));
+		assertFalse(key.equals(newKey));
+		assertFalse(manifest.isUpToDate(output, newKey));
+	}
+
+	@Test
+	public void keepsOutputWhenInputIsOnlyTouched() throws IOException
+	{
+		File xml = write("Song.xml", "<Song/>");
+
+		AudioBuildManifest manifest = new AudioBuildManifest(getManifestFile(), VERSION);
+		String key = manifest.getKey(List.of(xml));
+
+		xml.setLastModified(xml.lastModified() + 2000);
+		assertEquals(key, manifest.getKey(List.of(xml)));
+	}
+
+	@Test
+	public void rebuildsWhenInputIsAddedOrRemoved() throws IOException
+	{
+		File xml = write("Song.xml", "<Song/>");
+		File override = new File(tempDir, "Song.bgm.override");
+
+		AudioBuildManifest manifest = new AudioBuildManifest(getManifestFile(), VERSION);
+		String key = manifest.getKey(List.of(xml, override));
+
+		write(override.getName(), "override");
+		assertFalse(key.equals(manifest.getKey(List.of(xml, override))));
+
+		override.delete();
+		assertEquals(key, manifest.getKey(List.of(xml, override)));
+	}
+
+	@Test
+	public void rebuildsWhenOutputChanges() throws IOException
+	{
+		File xml = write("Song.xml", "<Song/>");
+		File output = write("Song.bgm", "output");
+
+		AudioBuildManifest manifest = new AudioBuildManifest(getManifestFile(), VERSION);
+		String key = manifest.getKey(List.of(xml));
+		manifest.setBuilt(output, key);
+
+		write("Song.bgm", "modified output");
+		assertFalse(manifest.isUpToDate(output, key));
+
+		manifest.setBuilt(output, key);
+		output.delete();
+		assertFalse(manifest.isUpToDate(output, key));
+	}
+
+	@Test
+	public void rebuildsForNewVersion() throws IOException
+	{
+		File xml = write("Song.xml", "<Song/>");
+
+		String key = new AudioBuildManifest(getManifestFile(), VERSION).getKey(List.of(xml));
+		String newKey = new AudioBuildManifest(getManifestFile(), "1.1").getKey(List.of(xml));
+		assertFalse(key.equals(newKey));
+	}
+
+	@Test
+	public void ignoresInvalidManifest() throws IOException
+	{
+		File xml = write("Song.xml", "<Song/>");
+		File output = write("Song.bgm", "output");
+		write(getManifestFile().getName(), "not a manifest\n");
+
+		AudioBuildManifest manifest = new AudioBuildManifest(getManifestFile(), VERSION);
+		String key = manifest.getKey(List.of(xml));
+		assertFalse(manifest.isUpToDate(output, key));
+	}
+}
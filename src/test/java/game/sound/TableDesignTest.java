@@ -0,0 +1,102 @@
+package game.sound;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import game.sound.TableDesign.Table;
+
+public class TableDesignTest
+{
+	// tables produced by the original single-threaded implementation for the inputs below
+
+	private static final short[] SHORT_POW0 = {
+			748, 429, 519, 454, 450, 424, 407, 388,
+			1174, 1421, 1243, 1232, 1160, 1115, 1063, 1016,
+	};
+
+	private static final short[] SHORT_POW1 = {
+			1053, 397, 691, 465, 530, 439, 438, 391,
+			772, 1344, 904, 1032, 854, 853, 761, 725,
+			133, 119, 114, 109, 105, 100, 96, 92,
+			1822, 1755, 1680, 1609, 1542, 1477, 1414, 1355,
+	};
+
+	private static final short[] SHORT_POW2 = {
+			1174, 308, 754, 374, 530, 353, 396, 306,
+			536, 1315, 652, 925, 616, 691, 534, 536,
+			222, 179, 169, 156, 144, 133, 123, 114,
+			1655, 1559, 1439, 1331, 1231, 1139, 1053, 974,
+			786, 442, 549, 478, 479, 453, 438, 420,
+			1151, 1432, 1247, 1250, 1181, 1143, 1095, 1054,
+			-402, -467, -464, -448, -430, -413, -395, -379,
+			2382, 2368, 2287, 2195, 2104, 2016, 1932, 1852,
+	};
+
+	// long enough to be analyzed in parallel
+	private static final short[] LONG_POW2 = {
+			937, 263, 502, 261, 303, 205, 196, 149,
+			575, 1098, 571, 663, 447, 429, 325, 287,
+			154, 127, 116, 105, 95, 86, 78, 71,
+			1687, 1544, 1399, 1268, 1150, 1043, 945, 857,
+			880, 452, 610, 507, 522, 486, 474, 452,
+			1051, 1419, 1180, 1215, 1130, 1102, 1051, 1013,
+			-312, -349, -344, -332, -319, -307, -295, -284,
+			2294, 2258, 2180, 2098, 2019, 1942, 1868, 1797,
+	};
+
+	private static short[] makeSamples(int count, long seed)
+	{
+		Random rng = new Random(seed);
+		short[] samples = new short[count];
+		double phase = 0.0;
+		for (int i = 0; i < count; i++) {
+			// leave silent gaps, which have no stable predictor
+			if ((i / 512) % 4 == 3)
+				continue;
+			phase += 0.02 + 0.08 * rng.nextDouble();
+			samples[i] = (short) (Math.sin(phase) * 12000 + Math.sin(phase * 3.1) * 4000 + rng.nextGaussian() * 800);
+		}
+		return samples;
+	}
+
+	private static short[] getTable(short[] samples, int pow)
+	{
+		Table tbl = TableDesign.makeTable(samples, VADPCM.ORDER, pow);
+		assertEquals(1 << pow, tbl.numPred);
+
+		ByteBuffer bb = tbl.buffer;
+		short[] values = new short[bb.capacity() / Short.BYTES];
+		for (int i = 0; i < values.length; i++)
+			values[i] = bb.getShort(i * Short.BYTES);
+		return values;
+	}
+
+	@Test
+	public void matchesReferenceTables()
+	{
+		short[] samples = makeSamples(3000, 7);
+		assertArrayEquals(SHORT_POW0, getTable(samples, 0));
+		assertArrayEquals(SHORT_POW1, getTable(samples, 1));
+		assertArrayEquals(SHORT_POW2, getTable(samples, 2));
+	}
+
+	@Test
+	public void matchesReferenceTablesInParallel()
+	{
+		short[] samples = makeSamples(40000, 11);
+		assertArrayEquals(LONG_POW2, getTable(samples, 2));
+	}
+
+	@Test
+	public void isRepeatable()
+	{
+		short[] samples = makeSamples(40000, 11);
+		for (int i = 0; i < 4; i++)
+			assertArrayEquals(LONG_POW2, getTable(samples, 2));
+	}
+}
@@ -0,0 +1,105 @@
+package game.sound;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import game.sound.TableDesign.Table;
+import game.sound.VADPCM.CodeBook;
+import game.sound.VADPCM.Decoder;
+import game.sound.VADPCM.EncodeData;
+import game.sound.VADPCM.Encoder;
+
+public class VADPCMTest
+{
+	private static short[] makeSamples(int count, long seed)
+	{
+		Random rng = new Random(seed);
+		short[] samples = new short[count];
+		double phase = 0.0;
+		for (int i = 0; i < count; i++) {
+			phase += 0.05 + 0.01 * rng.nextDouble();
+			samples[i] = (short) (Math.sin(phase) * 12000 + rng.nextGaussian() * 500);
+		}
+		return samples;
+	}
+
+	private static CodeBook makeBook(short[] samples, int pow)
+	{
+		Table tbl = TableDesign.makeTable(samples, VADPCM.ORDER, pow);
+		return new CodeBook(tbl.buffer, 0, tbl.numPred);
+	}
+
+	private static byte[] getBytes(ByteBuffer bb)
+	{
+		ByteBuffer copy = bb.duplicate();
+		byte[] bytes = new byte[copy.remaining()];
+		copy.get(bytes);
+		return bytes;
+	}
+
+	@Test
+	public void streamingEncodeMatchesWholeBuffer()
+	{
+		short[] samples = makeSamples(1000, 1);
+		CodeBook book = makeBook(samples, 1);
+		int loopStart = 437;
+
+		EncodeData whole = VADPCM.encode(samples, book, loopStart);
+
+		// feed the encoder uneven chunks, as a caller streaming from a file would
+		ByteBuffer out = ByteBuffer.allocate(VADPCM.getEncodedSize(samples.length));
+		Encoder encoder = new Encoder(book, loopStart);
+		for (int pos = 0; pos < samples.length; pos += 16)
+			encoder.encodeFrame(samples, pos, Math.min(16, samples.length - pos), out);
+		out.flip();
+
+		assertArrayEquals(getBytes(whole.buffer), getBytes(out));
+		assertArrayEquals(whole.loopState, encoder.getLoopState());
+	}
+
+	@Test
+	public void streamingDecodeMatchesWholeBuffer()
+	{
+		short[] samples = makeSamples(800, 2);
+		CodeBook book = makeBook(samples, 2);
+		byte[] encoded = getBytes(VADPCM.encode(samples, book, 0).buffer);
+
+		short[] whole = VADPCM.decode(ByteBuffer.wrap(encoded), book, 0, encoded.length);
+		assertEquals(16 * (encoded.length / 9), whole.length);
+
+		Decoder decoder = new Decoder(book);
+		ByteBuffer in = ByteBuffer.wrap(encoded);
+		short[] frame = new short[16];
+		for (int i = 0; i < whole.length; i += 16) {
+			decoder.decodeFrame(in, frame, 0);
+			for (int j = 0; j < 16; j++)
+				assertEquals(whole[i + j], frame[j]);
+		}
+	}
+
+	@Test
+	public void decodedSamplesTrackSource()
+	{
+		short[] samples = makeSamples(1600, 3);
+		CodeBook book = makeBook(samples, 0);
+		byte[] encoded = getBytes(VADPCM.encode(samples, book, 0).buffer);
+		short[] decoded = VADPCM.decode(ByteBuffer.wrap(encoded), book, 0, encoded.length);
+
+		double errorEnergy = 0.0;
+		double signalEnergy = 0.0;
+		for (int i = 0; i < samples.length; i++) {
+			double err = decoded[i] - samples[i];
+			errorEnergy += err * err;
+			signalEnergy += (double) samples[i] * samples[i];
+		}
+
+		// 4-bit ADPCM should stay well above 20 dB SNR on a smooth signal
+		assertTrue(signalEnergy / errorEnergy > 100.0, "SNR too low: " + (signalEnergy / errorEnergy));
+	}
+}
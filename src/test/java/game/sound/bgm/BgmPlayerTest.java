@@ -0,0 +1,280 @@
+package game.sound.bgm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import game.sound.engine.AudioEngine;
+import game.sound.engine.AudioEngine.PcmOutput;
+import game.sound.engine.Envelope;
+import game.sound.engine.Instrument;
+import game.sound.engine.SoundBank;
+import game.sound.engine.Voice;
+import util.xml.XmlWrapper.XmlReader;
+
+public class BgmPlayerTest
+{
+	// missing from the empty sound bank, so notes play the fallback instrument
+	private static final String WAV_NAME = "Missing";
+
+	// long enough that notes are still sounding when checkpoints are recorded
+	private static final int SAMPLE_COUNT = 30 * 16000;
+
+	// rendering state, and snapshots which are not part of the timeline
+	private static final Set<String> IGNORED_FIELDS = Set.of("engine", "checkpoints");
+
+	private static final String SONG_XML = """
+		<Song name="Checkpoints" code="TEST" timing="0" branchTicks="96" branches="1">
+			<Instruments/>
+			<Drums/>
+			<Compositions>
+				<Composition index="0">
+					<Play id="1"/>
+					<StartLoop index="0"/>
+					<Play id="2"/>
+					<EndLoop index="0" count="2"/>
+				</Composition>
+			</Compositions>
+			<Phrases>
+				<Phrase id="1">
+					<Track index="0" polyphony="5">
+						<Commands>
+							<OverridePatch wav="Missing"/>
+							<BusEffect effectType="1"/>
+							<TrackTremolo delay="8" speed="40" depth="30"/>
+							<Note pitch="40" velocity="100" length="300"/>
+							<Delay ticks="120"/>
+							<Note pitch="44" velocity="90" length="300"/>
+							<Delay ticks="240"/>
+							<MasterVolumeLerp ticks="200" target="50"/>
+							<Note pitch="47" velocity="80" length="500"/>
+							<Delay ticks="360"/>
+						</Commands>
+					</Track>
+					<Track index="1" polyphony="6">
+						<Commands>
+							<OverridePatch wav="Missing"/>
+							<RandomPan pan1="40" pan2="30"/>
+							<SeekCustomEnvelope index="1"/>
+							<WriteCustomEnvelope data="0A7F"/>
+							<WriteCustomEnvelope data="1040"/>
+							<UseCustomEnvelope index="1"/>
+							<Note pitch="28" velocity="70" length="600"/>
+							<Delay ticks="60"/>
+							<InstrumentVolumeLerp ticks="400" target="40"/>
+							<Note pitch="35" velocity="70" length="600"/>
+							<Delay ticks="660"/>
+						</Commands>
+					</Track>
+				</Phrase>
+				<Phrase id="2">
+					<Track index="0" polyphony="5">
+						<Commands>
+							<MasterTempoLerp ticks="300" bpm="120"/>
+							<Note pitch="52" velocity="110" length="200"/>
+							<Delay ticks="100"/>
+							<Note pitch="50" velocity="110" length="400"/>
+							<Delay ticks="380"/>
+							<MasterTempo bpm="156"/>
+						</Commands>
+					</Track>
+					<Track index="1" polyphony="6">
+						<Commands>
+							<Note pitch="31" velocity="60" length="700"/>
+							<Delay ticks="240"/>
+							<Note pitch="38" velocity="60" length="300"/>
+							<Delay ticks="240"/>
+						</Commands>
+					</Track>
+				</Phrase>
+			</Phrases>
+		</Song>
+		""";
+
+	private static Song loadSong() throws Exception
+	{
+		XmlReader xmr = new XmlReader(new ByteArrayInputStream(SONG_XML.getBytes(StandardCharsets.UTF_8)), "Checkpoints.xml");
+		Song song = new Song();
+		song.fromXML(xmr, xmr.getRootElement());
+		return song;
+	}
+
+	private static BgmPlayer createPlayer(SoundBank bank) throws Exception
+	{
+		PcmOutput output = (data, offset, length) -> {};
+		BgmPlayer player = new BgmPlayer(new AudioEngine(output), bank);
+		player.attach();
+		return player;
+	}
+
+	private static Object getField(Object obj, String name) throws ReflectiveOperationException
+	{
+		Field field = obj.getClass().getDeclaredField(name);
+		field.setAccessible(true);
+		return field.get(obj);
+	}
+
+	private static void clearCheckpoints(BgmPlayer player) throws ReflectiveOperationException
+	{
+		((List<?>) getField(player, "checkpoints")).clear();
+	}
+
+	private static void render(BgmPlayer player, int frames) throws ReflectiveOperationException
+	{
+		AudioEngine engine = (AudioEngine) getField(player, "engine");
+		for (int i = 0; i < frames; i++)
+			engine.renderFrame(AudioEngine.MIXER_BLOCK_TIME, false);
+	}
+
+	@Test
+	public void seekFromCheckpointMatchesReplay() throws Exception
+	{
+		SoundBank bank = new SoundBank(true);
+		Instrument fallback = bank.getInstrument(WAV_NAME, 0).instrument();
+		fallback.samples = new short[SAMPLE_COUNT];
+
+		try {
+			Song song = loadSong();
+			BgmPlayer replayed = createPlayer(bank);
+			BgmPlayer restored = createPlayer(bank);
+			replayed.play(song, 0);
+			restored.play(song, 0);
+
+			int duration = restored.getDuration();
+			assertEquals(duration, replayed.getDuration());
+			assertTrue(duration > 4 * 2 * AudioEngine.OUTPUT_RATE, "song is too short to have several checkpoints");
+
+			// seek backwards as well as forwards, so some seeks must start from an earlier checkpoint
+			int[] seekTimes = {
+					duration / 2, duration / 5, (duration * 7) / 8, duration / 3, duration / 100
+			};
+
+			for (int seekTime : seekTimes) {
+				assertFalse(((List<?>) getField(restored, "checkpoints")).isEmpty());
+				restored.seekTime(seekTime);
+
+				// without checkpoints, the seek fast-forwards from the beginning of the composition
+				clearCheckpoints(replayed);
+				replayed.seekTime(seekTime);
+
+				assertEquals(replayed.getTime(), restored.getTime());
+				assertSameState(replayed, restored, "seek to " + seekTime);
+
+				// voices carried over from the checkpoint must also keep playing the same way
+				render(replayed, 100);
+				render(restored, 100);
+				assertSameState(replayed, restored, "play after seek to " + seekTime);
+			}
+		}
+		finally {
+			fallback.useFallbackSample(null);
+		}
+	}
+
+	private static void assertSameState(BgmPlayer expected, BgmPlayer actual, String context) throws ReflectiveOperationException
+	{
+		List<?> voices = liveVoices((List<?>) getField(expected, "voices"));
+		assertFalse(voices.isEmpty(), context + ": no voices are playing");
+		assertSameState(expected, actual, context, new IdentityHashMap<>());
+	}
+
+	/**
+	 * Compares the player, its tracks, voices, and envelope players field by field.
+	 * Song data and instruments are shared by both players, so they are compared by identity.
+	 */
+	private static void assertSameState(Object expected, Object actual, String path,
+		IdentityHashMap<Object, Object> visited) throws IllegalAccessException
+	{
+		if (expected == null || actual == null) {
+			assertSame(expected, actual, path);
+			return;
+		}
+
+		Class<?> type = expected.getClass();
+		assertSame(type, actual.getClass(), path);
+
+		if (isValue(type)) {
+			assertEquals(expected, actual, path);
+			return;
+		}
+
+		if (type.isArray()) {
+			int length = Array.getLength(expected);
+			assertEquals(length, Array.getLength(actual), path + ".length");
+			for (int i = 0; i < length; i++)
+				assertSameState(Array.get(expected, i), Array.get(actual, i), path + "[" + i + "]", visited);
+			return;
+		}
+
+		if (expected instanceof Collection<?> list) {
+			// finished voices are dropped by checkpoints, and are removed by the next tick anyway
+			List<?> expectedItems = liveVoices(list);
+			List<?> actualItems = liveVoices((Collection<?>) actual);
+			assertEquals(expectedItems.size(), actualItems.size(), path + ".size");
+			for (int i = 0; i < expectedItems.size(); i++)
+				assertSameState(expectedItems.get(i), actualItems.get(i), path + "[" + i + "]", visited);
+			return;
+		}
+
+		if (!isPlaybackState(type)) {
+			assertSame(expected, actual, path);
+			return;
+		}
+
+		// tracks and voices refer to each other
+		if (visited.containsKey(expected)) {
+			assertSame(visited.get(expected), actual, path);
+			return;
+		}
+		visited.put(expected, actual);
+
+		for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+			for (Field field : c.getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic())
+					continue;
+				if (IGNORED_FIELDS.contains(field.getName()))
+					continue;
+
+				field.setAccessible(true);
+				assertSameState(field.get(expected), field.get(actual), path + "." + field.getName(), visited);
+			}
+		}
+	}
+
+	private static List<?> liveVoices(Collection<?> items)
+	{
+		List<Object> live = new ArrayList<>(items.size());
+		for (Object item : items) {
+			if (!(item instanceof Voice voice && voice.isDone()))
+				live.add(item);
+		}
+		return live;
+	}
+
+	private static boolean isValue(Class<?> type)
+	{
+		return type.isPrimitive() || Enum.class.isAssignableFrom(type) || Number.class.isAssignableFrom(type)
+			|| type == Boolean.class || type == Character.class || type == String.class;
+	}
+
+	private static boolean isPlaybackState(Class<?> type)
+	{
+		return type.getName().startsWith(BgmPlayer.class.getName())
+			|| Voice.class.isAssignableFrom(type)
+			|| type.getName().startsWith(Envelope.class.getName() + "$");
+	}
+}
@@ -0,0 +1,157 @@
+package game.sound.engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class VoiceTest
+{
+	private static final int N = AudioEngine.FRAME_SAMPLES;
+
+	private static Instrument makeInstrument(int length, boolean loop, int loopCount, long seed)
+	{
+		Random rng = new Random(seed);
+		Instrument ins = Instrument.createFallbackInstrument();
+		ins.samples = new short[length];
+		for (int i = 0; i < length; i++)
+			ins.samples[i] = (short) rng.nextInt(0x10000);
+		ins.sampleRate = 22050;
+		ins.hasLoop = loop;
+		ins.loopStart = length / 3;
+		ins.loopEnd = length - 7;
+		ins.loopCount = loopCount;
+		return ins;
+	}
+
+	// per-sample reference mixer, using the same arithmetic as the original Voice.renderInto
+	private static final class ReferenceVoice
+	{
+		private final Instrument ins;
+		private final float ratio;
+		private final float volume;
+		private final int pan;
+		private final int reverb;
+		private float readPos = 0.0f;
+		private int loopIterations = 0;
+		private boolean done = false;
+
+		private ReferenceVoice(Instrument ins, float pitch, float volume, int pan, int reverb)
+		{
+			this.ins = ins;
+			this.ratio = Math.min(pitch * ((float) ins.sampleRate / AudioEngine.OUTPUT_RATE), 1.99996f);
+			this.volume = volume;
+			this.pan = pan;
+			this.reverb = reverb;
+		}
+
+		private boolean canLoop()
+		{
+			return ins.hasLoop && (ins.loopCount == Instrument.LOOP_FOREVER || loopIterations < ins.loopCount);
+		}
+
+		private void render(float[] dryL, float[] dryR, float[] wetL, float[] wetR)
+		{
+			float panAngle = (float) ((pan / 127.0) * (Math.PI / 2));
+			float panL = (float) Math.cos(panAngle);
+			float panR = (float) Math.sin(panAngle);
+			float dryAngle = (float) ((reverb / 127.0) * (Math.PI / 2));
+			float dryAmt = (float) Math.cos(dryAngle);
+			float wetAmt = (float) Math.sin(dryAngle);
+			float gain = volume * volume;
+
+			for (int i = 0; i < N; i++) {
+				while (canLoop() && readPos >= ins.loopEnd) {
+					if (ins.loopCount != Instrument.LOOP_FOREVER)
+						loopIterations++;
+					readPos = ins.loopStart + (readPos - ins.loopEnd);
+				}
+
+				int i0 = (int) readPos;
+				int i1 = i0 + 1;
+				if (canLoop() && i1 >= ins.loopEnd)
+					i1 = ins.loopStart + (i1 - ins.loopEnd);
+				if (i1 >= ins.samples.length) {
+					done = true;
+					return;
+				}
+
+				float frac = readPos - i0;
+				float s0 = (float) ins.samples[i0] / Short.MAX_VALUE;
+				float s1 = (float) ins.samples[i1] / Short.MAX_VALUE;
+				float scaled = ((1 - frac) * s0 + frac * s1) * gain;
+
+				dryL[i] += scaled * panL * dryAmt;
+				dryR[i] += scaled * panR * dryAmt;
+				wetL[i] += scaled * panL * wetAmt;
+				wetR[i] += scaled * panR * wetAmt;
+				readPos += ratio;
+			}
+		}
+	}
+
+	private static void assertSameMix(Instrument ins, float pitch, int reverb, int frames)
+	{
+		Voice voice = new Voice();
+		voice.setInstrument(ins);
+		voice.setPitch(pitch);
+		voice.setVolume(0.8f);
+		voice.setPan(37);
+		voice.setReverb(reverb);
+		voice.play();
+
+		ReferenceVoice reference = new ReferenceVoice(ins, pitch, 0.8f, 37, reverb);
+		float[] block = new float[N];
+
+		for (int frame = 0; frame < frames && !reference.done; frame++) {
+			float[][] expected = new float[4][N];
+			float[][] actual = new float[4][N];
+			reference.render(expected[0], expected[1], expected[2], expected[3]);
+			voice.renderInto(block, actual[0], actual[1], actual[2], actual[3]);
+
+			for (int i = 0; i < 4; i++)
+				assertArrayEquals(expected[i], actual[i], "buffer " + i + " of frame " + frame);
+			assertEquals(reference.done, voice.isDone(), "frame " + frame);
+		}
+	}
+
+	@Test
+	public void mixesLikeReference()
+	{
+		assertSameMix(makeInstrument(5000, true, Instrument.LOOP_FOREVER, 1), 1.3f, 0, 100);
+		assertSameMix(makeInstrument(5000, true, Instrument.LOOP_FOREVER, 2), 0.37f, 90, 100);
+		assertSameMix(makeInstrument(900, true, 2, 3), 2.5f, 127, 100);
+		assertSameMix(makeInstrument(3000, false, 0, 4), 1.0f, 45, 100);
+	}
+
+	@Test
+	public void stopsAtSampleEnd()
+	{
+		// 250 samples at unity pitch end partway through the second frame
+		Instrument ins = makeInstrument(250, false, 0, 5);
+		ins.sampleRate = AudioEngine.OUTPUT_RATE;
+
+		Voice voice = new Voice();
+		voice.setInstrument(ins);
+		voice.play();
+
+		float[] block = new float[N];
+		float[] dryL = new float[N];
+		float[] dryR = new float[N];
+		float[] wetL = new float[N];
+		float[] wetR = new float[N];
+
+		voice.renderInto(block, dryL, dryR, wetL, wetR);
+		assertFalse(voice.isDone());
+
+		dryL = new float[N];
+		voice.renderInto(block, dryL, dryR, wetL, wetR);
+		assertTrue(voice.isDone());
+		assertEquals(249, voice.getRenderedSamples());
+		assertEquals(0.0f, dryL[249 - N]);
+	}
+}
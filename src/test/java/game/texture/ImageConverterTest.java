@@ -0,0 +1,220 @@
+package game.texture;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import game.texture.ImageConverter.ImageFormatException;
+
+public class ImageConverterTest
+{
+	private static final int WIDTH = 18;
+	private static final int HEIGHT = 7;
+
+	private static final TileFormat[] DIRECT_FORMATS = {
+			TileFormat.RGBA_16, TileFormat.RGBA_32,
+			TileFormat.IA_4, TileFormat.IA_8, TileFormat.IA_16,
+			TileFormat.I_4, TileFormat.I_8 };
+
+	private static BufferedImage randomImage(int type, Random rng)
+	{
+		BufferedImage bimg = new BufferedImage(WIDTH, HEIGHT, type);
+		for (int y = 0; y < HEIGHT; y++)
+			for (int x = 0; x < WIDTH; x++)
+				bimg.setRGB(x, y, rng.nextInt());
+		return bimg;
+	}
+
+	private static byte[] getBytes(ByteBuffer bb)
+	{
+		ByteBuffer copy = bb.duplicate();
+		copy.rewind();
+		byte[] bytes = new byte[copy.remaining()];
+		copy.get(bytes);
+		return bytes;
+	}
+
+	private static int[] getPixels(BufferedImage bimg)
+	{
+		return bimg.getRGB(0, 0, bimg.getWidth(), bimg.getHeight(), null, 0, bimg.getWidth());
+	}
+
+	// per-pixel reference encoder, using the same arithmetic as the original converter
+	private static byte[] referenceEncode(BufferedImage bimg, TileFormat fmt)
+	{
+		ByteBuffer bb = ByteBuffer.allocate(fmt.getNumBytes(WIDTH, HEIGHT));
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				Color c = new Color(bimg.getRGB(x, y), true);
+				int I = (c.getRed() + c.getBlue() + c.getGreen()) / 3;
+
+				switch (fmt) {
+					case RGBA_16:
+						int color = ((c.getAlpha() & 0x80) == 0) ? 0 : 1;
+						color |= ((int) Math.floor(31 * (c.getRed() / 255.0))) << 11;
+						color |= ((int) Math.floor(31 * (c.getGreen() / 255.0))) << 6;
+						color |= ((int) Math.floor(31 * (c.getBlue() / 255.0))) << 1;
+						bb.putShort((short) color);
+						break;
+					case RGBA_32:
+						bb.putInt(c.getRed() << 24 | c.getGreen() << 16 | c.getBlue() << 8 | c.getAlpha());
+						break;
+					case IA_4:
+						Color c2 = new Color(bimg.getRGB(++x, y), true);
+						int I2 = (c2.getRed() + c2.getBlue() + c2.getGreen()) / 3;
+						int h = (int) Math.floor(7 * (I / 255.0)) << 1 | ((c.getAlpha() > 128) ? 1 : 0);
+						int l = (int) Math.floor(7 * (I2 / 255.0)) << 1 | ((c2.getAlpha() > 128) ? 1 : 0);
+						bb.put((byte) (h << 4 | l));
+						break;
+					case IA_8:
+						bb.put((byte) ((int) Math.floor(15 * (I / 255.0)) << 4 | (int) Math.floor(15 * (c.getAlpha() / 255.0))));
+						break;
+					case IA_16:
+						bb.put((byte) I);
+						bb.put((byte) c.getAlpha());
+						break;
+					case I_4:
+						Color c3 = new Color(bimg.getRGB(++x, y), true);
+						int I3 = (c3.getRed() + c3.getBlue() + c3.getGreen()) / 3;
+						bb.put((byte) ((int) Math.floor(15 * (I / 255.0)) << 4 | (int) Math.floor(15 * (I3 / 255.0))));
+						break;
+					case I_8:
+						bb.put((byte) I);
+						break;
+					default:
+						throw new IllegalArgumentException(fmt.toString());
+				}
+			}
+		}
+		return bb.array();
+	}
+
+	@Test
+	public void encodesLikeReference()
+	{
+		Random rng = new Random(18);
+		int[] types = { BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_INT_RGB };
+
+		for (int type : types) {
+			BufferedImage bimg = randomImage(type, rng);
+			for (TileFormat fmt : DIRECT_FORMATS) {
+				Tile tile = ImageConverter.getTile(bimg, fmt);
+				assertArrayEquals(referenceEncode(bimg, fmt), getBytes(tile.raster), fmt + " from type " + type);
+			}
+		}
+	}
+
+	@Test
+	public void encodesSubimages()
+	{
+		Random rng = new Random(19);
+		BufferedImage full = new BufferedImage(WIDTH + 5, HEIGHT + 3, BufferedImage.TYPE_INT_ARGB);
+		for (int y = 0; y < full.getHeight(); y++)
+			for (int x = 0; x < full.getWidth(); x++)
+				full.setRGB(x, y, rng.nextInt());
+
+		BufferedImage sub = full.getSubimage(3, 2, WIDTH, HEIGHT);
+		for (TileFormat fmt : DIRECT_FORMATS)
+			assertArrayEquals(referenceEncode(sub, fmt), getBytes(ImageConverter.getTile(sub, fmt).raster), fmt.toString());
+	}
+
+	@Test
+	public void decodesLikeUnpack()
+	{
+		Random rng = new Random(20);
+		for (TileFormat fmt : DIRECT_FORMATS) {
+			Tile tile = new Tile(fmt, HEIGHT, WIDTH);
+			byte[] raster = new byte[tile.raster.capacity()];
+			rng.nextBytes(raster);
+			tile.raster.put(raster);
+
+			// the image and the unpacked GL buffer must agree texel for texel
+			int[] pixels = getPixels(ImageConverter.convertToBufferedImage(tile));
+			ByteBuffer unpacked = ImageConverter.unpack(tile);
+			unpacked.rewind();
+
+			for (int i = 0; i < pixels.length; i++) {
+				int expected;
+				switch (fmt.type) {
+					case TileFormat.TYPE_RGBA:
+						expected = new Color(unpacked.get() & 0xFF, unpacked.get() & 0xFF, unpacked.get() & 0xFF, unpacked.get() & 0xFF).getRGB();
+						break;
+					case TileFormat.TYPE_IA:
+						int I = unpacked.get() & 0xFF;
+						expected = new Color(I, I, I, unpacked.get() & 0xFF).getRGB();
+						break;
+					default:
+						int V = unpacked.get() & 0xFF;
+						expected = new Color(V, V, V, 255).getRGB();
+						break;
+				}
+				assertEquals(expected, pixels[i], fmt + " pixel " + i);
+			}
+		}
+	}
+
+	@Test
+	public void reversibleRGBA16()
+	{
+		Tile tile = new Tile(TileFormat.RGBA_16, 256, 256);
+		for (int i = 0; i < 0x10000; i++)
+			tile.raster.putShort((short) i);
+
+		BufferedImage bimg = ImageConverter.convertToBufferedImage(tile);
+		assertArrayEquals(getBytes(tile.raster), getBytes(ImageConverter.getTile(bimg, TileFormat.RGBA_16).raster));
+	}
+
+	@Test
+	public void indexedImageMatchesSetRGB()
+	{
+		Random rng = new Random(21);
+		for (TileFormat fmt : new TileFormat[] { TileFormat.CI_4, TileFormat.CI_8 }) {
+			Color[] colors = new Color[1 << fmt.bpp];
+			for (int i = 0; i < colors.length; i++)
+				colors[i] = new Color(rng.nextInt(4) * 85, rng.nextInt(256), rng.nextInt(256), rng.nextInt(2) * 255);
+			Palette pal = new Palette(colors);
+
+			Tile tile = new Tile(fmt, HEIGHT, WIDTH);
+			tile.palette = pal;
+			byte[] raster = new byte[tile.raster.capacity()];
+			rng.nextBytes(raster);
+			tile.raster.put(raster);
+
+			// setRGB picks a pixel value through the color model, which may differ from the palette index
+			BufferedImage expected = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_BYTE_INDEXED, pal.getIndexColorModel());
+			for (int i = 0; i < WIDTH * HEIGHT; i++) {
+				int index = (fmt == TileFormat.CI_4) ? (raster[i / 2] >>> ((i % 2 == 0) ? 4 : 0)) & 0xF : raster[i] & 0xFF;
+				expected.setRGB(i % WIDTH, i / WIDTH, colors[index].getRGB());
+			}
+
+			BufferedImage actual = ImageConverter.getIndexedImage(tile, pal);
+			assertArrayEquals(
+				((DataBufferByte) expected.getRaster().getDataBuffer()).getData(),
+				((DataBufferByte) actual.getRaster().getDataBuffer()).getData(), fmt.toString());
+
+			int[] argb = getPixels(ImageConverter.convertToBufferedImage(tile));
+			for (int i = 0; i < argb.length; i++) {
+				int index = (fmt == TileFormat.CI_4) ? (raster[i / 2] >>> ((i % 2 == 0) ? 4 : 0)) & 0xF : raster[i] & 0xFF;
+				assertEquals(colors[index].getRGB(), argb[i], fmt + " pixel " + i);
+			}
+		}
+	}
+
+	@Test
+	public void rejectsOddWidth4bpp()
+	{
+		for (TileFormat fmt : new TileFormat[] { TileFormat.IA_4, TileFormat.I_4, TileFormat.CI_4 }) {
+			Tile tile = new Tile(fmt, 4, WIDTH + 1);
+			tile.palette = new Palette(new short[16]);
+			assertThrows(ImageFormatException.class, () -> ImageConverter.convertToBufferedImage(tile), fmt.toString());
+		}
+	}
+}
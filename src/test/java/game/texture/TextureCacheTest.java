@@ -0,0 +1,187 @@
+package game.texture;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TextureCacheTest
+{
+	@TempDir
+	File tempDir;
+
+	private static final List<String> SHARED_AUX = List.of(
+		"img: shared.png", "{", "format: RGBA-16", "hwrap: mirror", "vwrap: clamp", "}",
+		"aux: shared_AUX.png", "{", "format: shared", "hwrap: repeat", "vwrap: repeat", "}",
+		"filter: yes", "combine: D");
+
+	private static final List<String> INDEXED = List.of(
+		"img: indexed.png", "{", "format: CI-4", "hwrap: repeat", "vwrap: repeat", "}",
+		"filter: no", "combine: 8");
+
+	private String getDir()
+	{
+		return tempDir.getAbsolutePath() + "/";
+	}
+
+	private File getArchive()
+	{
+		return new File(tempDir, "test_tex.txa");
+	}
+
+	private void saveImage(String name, TileFormat fmt, int seed) throws IOException
+	{
+		Random rng = new Random(seed);
+		Tile tile = new Tile(fmt, 16, 32);
+		byte[] raster = new byte[tile.raster.capacity()];
+		rng.nextBytes(raster);
+		tile.raster.put(raster);
+		tile.raster.rewind();
+
+		if (fmt.type == TileFormat.TYPE_CI) {
+			Color[] colors = new Color[1 << fmt.bpp];
+			for (int i = 0; i < colors.length; i++)
+				colors[i] = new Color(rng.nextInt(256), rng.nextInt(256), rng.nextInt(256));
+			tile.palette = new Palette(colors);
+		}
+
+		tile.savePNG(getDir() + name);
+	}
+
+	private void saveImages() throws IOException
+	{
+		saveImage("shared", TileFormat.RGBA_16, 1);
+		saveImage("shared_AUX", TileFormat.RGBA_16, 2);
+		saveImage("indexed", TileFormat.CI_4, 3);
+	}
+
+	private static byte[] getBytes(ByteBuffer bb)
+	{
+		ByteBuffer copy = bb.duplicate();
+		copy.rewind();
+		byte[] bytes = new byte[copy.remaining()];
+		copy.get(bytes);
+		return bytes;
+	}
+
+	private static void assertSameTile(Tile expected, Tile actual)
+	{
+		assertEquals(expected.format, actual.format);
+		assertEquals(expected.height, actual.height);
+		assertEquals(expected.width, actual.width);
+		assertEquals(0, actual.raster.position());
+		assertArrayEquals(getBytes(expected.raster), getBytes(actual.raster));
+
+		if (expected.palette == null) {
+			assertNull(actual.palette);
+			return;
+		}
+
+		assertEquals(expected.palette.size, actual.palette.size);
+		assertArrayEquals(expected.palette.r, actual.palette.r);
+		assertArrayEquals(expected.palette.g, actual.palette.g);
+		assertArrayEquals(expected.palette.b, actual.palette.b);
+		assertArrayEquals(expected.palette.a, actual.palette.a);
+	}
+
+	private static void assertSameTexture(Texture expected, Texture actual)
+	{
+		assertEquals(expected.name, actual.name);
+		assertEquals(expected.extra, actual.extra);
+		assertEquals(expected.hasAux, actual.hasAux);
+		assertEquals(expected.hasMipmaps, actual.hasMipmaps);
+		assertEquals(expected.filter, actual.filter);
+		assertEquals(expected.auxCombine, actual.auxCombine);
+		assertArrayEquals(expected.hWrap, actual.hWrap);
+		assertArrayEquals(expected.vWrap, actual.vWrap);
+
+		assertSameTile(expected.main, actual.main);
+		if (expected.hasAux)
+			assertSameTile(expected.aux, actual.aux);
+	}
+
+	// replaces the contents of an image without changing its size or timestamp
+	private void corrupt(String name) throws IOException
+	{
+		File f = new File(tempDir, name);
+		long lastModified = f.lastModified();
+		byte[] garbage = new byte[(int) f.length()];
+		Arrays.fill(garbage, (byte) 0x5A);
+		Files.write(f.toPath(), garbage);
+		f.setLastModified(lastModified);
+	}
+
+	@Test
+	public void reusesSavedTextures() throws IOException
+	{
+		saveImages();
+		File cacheFile = new File(tempDir, "test_tex." + TextureCache.EXTENSION);
+
+		TextureCache cache = TextureCache.load(cacheFile);
+		Texture shared = cache.getOrParse(getArchive(), getDir(), "shared", SHARED_AUX);
+		Texture indexed = cache.getOrParse(getArchive(), getDir(), "indexed", INDEXED);
+		assertSameTexture(Texture.parseTexture(getArchive(), getDir(), "shared", SHARED_AUX), shared);
+		assertSameTexture(Texture.parseTexture(getArchive(), getDir(), "indexed", INDEXED), indexed);
+		cache.save(cacheFile, List.of("shared", "indexed"));
+
+		// the images can no longer be decoded, so these must come from the cache file
+		corrupt("shared.png");
+		corrupt("shared_AUX.png");
+		corrupt("indexed.png");
+
+		TextureCache reloaded = TextureCache.load(cacheFile);
+		assertSameTexture(shared, reloaded.getOrParse(getArchive(), getDir(), "shared", SHARED_AUX));
+		assertSameTexture(indexed, reloaded.getOrParse(getArchive(), getDir(), "indexed", INDEXED));
+	}
+
+	@Test
+	public void decodesChangedImages() throws IOException
+	{
+		saveImages();
+		File cacheFile = new File(tempDir, "test_tex." + TextureCache.EXTENSION);
+
+		TextureCache cache = TextureCache.load(cacheFile);
+		cache.getOrParse(getArchive(), getDir(), "shared", SHARED_AUX);
+		cache.getOrParse(getArchive(), getDir(), "indexed", INDEXED);
+		cache.save(cacheFile, List.of("shared", "indexed"));
+
+		saveImage("shared_AUX", TileFormat.RGBA_16, 4);
+		File aux = new File(tempDir, "shared_AUX.png");
+		aux.setLastModified(aux.lastModified() + 2000);
+		corrupt("indexed.png");
+
+		TextureCache reloaded = TextureCache.load(cacheFile);
+		assertSameTexture(Texture.parseTexture(getArchive(), getDir(), "shared", SHARED_AUX),
+			reloaded.getOrParse(getArchive(), getDir(), "shared", SHARED_AUX));
+
+		// the image is unreadable now, so a changed declaration fails rather than reusing the entry
+		List<String> filtered = List.of(
+			"img: indexed.png", "{", "format: CI-4", "hwrap: repeat", "vwrap: repeat", "}",
+			"filter: yes", "combine: 8");
+		assertThrows(RuntimeException.class, () -> reloaded.getOrParse(getArchive(), getDir(), "indexed", filtered));
+	}
+
+	@Test
+	public void ignoresDamagedFile() throws IOException
+	{
+		saveImages();
+		File cacheFile = new File(tempDir, "test_tex." + TextureCache.EXTENSION);
+		Files.write(cacheFile.toPath(), new byte[] { 0x54, 0x58, 0x43, 0x41, 0, 0, 0, 1, 0, 0, 0, 9, 0 });
+
+		TextureCache cache = TextureCache.load(cacheFile);
+		assertSameTexture(Texture.parseTexture(getArchive(), getDir(), "indexed", INDEXED),
+			cache.getOrParse(getArchive(), getDir(), "indexed", INDEXED));
+	}
+}
@@ -0,0 +1,138 @@
+package game.yay0;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import game.yay0.Yay0ContentCache.CacheResult;
+
+public class Yay0ContentCacheTest
+{
+	private static final int DATA_SIZE = 1024;
+
+	@TempDir
+	File tempDir;
+
+	private static byte[] makeData(long seed)
+	{
+		// random bytes barely compress, so every entry has about the same size
+		byte[] data = new byte[DATA_SIZE];
+		new Random(seed).nextBytes(data);
+		return data;
+	}
+
+	private static int countObjects(File dir)
+	{
+		File[] files = dir.listFiles();
+		if (files == null)
+			return 0;
+
+		int count = 0;
+		for (File f : files)
+			count += f.isDirectory() ? countObjects(f) : 1;
+		return count;
+	}
+
+	@Test
+	public void compressesIdenticalContentOnce() throws IOException
+	{
+		Yay0ContentCache cache = new Yay0ContentCache(tempDir, Long.MAX_VALUE);
+		byte[] data = makeData(1);
+
+		CacheResult first = cache.get(data);
+		assertFalse(first.fromCache);
+		assertArrayEquals(data, Yay0Helper.decode(first.data));
+
+		CacheResult second = cache.get(data.clone());
+		assertTrue(second.fromCache);
+		assertArrayEquals(first.data, second.data);
+
+		List<CacheResult> batch = cache.getAll(List.of(data, makeData(2), makeData(2)));
+		assertTrue(batch.get(0).fromCache);
+		assertFalse(batch.get(1).fromCache);
+		assertArrayEquals(batch.get(1).data, batch.get(2).data);
+
+		// optimal encoding is stored separately from the default encoding
+		assertFalse(cache.get(data, true).fromCache);
+		assertEquals(3, countObjects(new File(tempDir, "objects")));
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsed() throws IOException
+	{
+		byte[] a = makeData(1);
+		byte[] b = makeData(2);
+		byte[] c = makeData(3);
+
+		// room for two entries, but not three
+		long entrySize = Yay0Helper.encode(a, false, false).length;
+		Yay0ContentCache cache = new Yay0ContentCache(tempDir, entrySize * 5 / 2);
+
+		cache.get(a);
+		cache.get(b);
+		assertTrue(cache.get(a).fromCache);
+
+		// b is now the least recently used, so it makes room for c
+		cache.get(c);
+		assertEquals(2, countObjects(new File(tempDir, "objects")));
+		cache.save();
+
+		Yay0ContentCache reloaded = new Yay0ContentCache(tempDir, entrySize * 5 / 2);
+		assertTrue(reloaded.get(a).fromCache);
+		assertTrue(reloaded.get(c).fromCache);
+		assertFalse(reloaded.get(b).fromCache);
+	}
+
+	@Test
+	public void replacesIndexOnSave() throws IOException
+	{
+		File indexFile = new File(tempDir, "index.txt");
+		File tempFile = new File(tempDir, "index.txt.tmp");
+
+		Yay0ContentCache cache = new Yay0ContentCache(tempDir, Long.MAX_VALUE);
+		cache.get(makeData(1));
+		cache.save();
+
+		assertTrue(indexFile.exists());
+		assertFalse(tempFile.exists());
+		List<String> lines = Files.readAllLines(indexFile.toPath(), StandardCharsets.UTF_8);
+		assertEquals(1, lines.size());
+
+		// a temp file left behind by an interrupted save is replaced
+		Files.write(tempFile.toPath(), "partial".getBytes(StandardCharsets.UTF_8));
+		cache.get(makeData(2));
+		cache.save();
+
+		assertFalse(tempFile.exists());
+		assertEquals(2, Files.readAllLines(indexFile.toPath(), StandardCharsets.UTF_8).size());
+
+		// nothing changed, so the index is not written again
+		long lastModified = indexFile.lastModified();
+		indexFile.setLastModified(lastModified - 10000);
+		cache.save();
+		assertEquals(lastModified - 10000, indexFile.lastModified());
+	}
+
+	@Test
+	public void ignoresInvalidIndex() throws IOException
+	{
+		Files.write(new File(tempDir, "index.txt").toPath(), "not an index\n".getBytes(StandardCharsets.UTF_8));
+
+		Yay0ContentCache cache = new Yay0ContentCache(tempDir, Long.MAX_VALUE);
+		assertFalse(cache.get(makeData(1)).fromCache);
+		cache.save();
+
+		assertTrue(new Yay0ContentCache(tempDir, Long.MAX_VALUE).get(makeData(1)).fromCache);
+	}
+}
@@ -0,0 +1,73 @@
+package patcher;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class BPSPatchTest
+{
+	private static byte[] randomBytes(int length, long seed)
+	{
+		byte[] data = new byte[length];
+		new Random(seed).nextBytes(data);
+		return data;
+	}
+
+	@Test
+	public void roundTripsIdenticalFiles()
+	{
+		byte[] source = randomBytes(0x10000, 1);
+		byte[] patch = BPSPatch.create(source, source.clone());
+
+		assertArrayEquals(source, BPSPatch.apply(source, patch));
+		assertTrue(patch.length < 64);
+	}
+
+	@Test
+	public void roundTripsMovedAndDuplicatedBlocks()
+	{
+		byte[] source = randomBytes(0x20000, 2);
+		byte[] target = new byte[0x24000];
+
+		// swap the two halves, then repeat a block and append some zero fill
+		System.arraycopy(source, 0x10000, target, 0, 0x10000);
+		System.arraycopy(source, 0, target, 0x10000, 0x10000);
+		System.arraycopy(target, 0x1234, target, 0x20000, 0x2000);
+
+		byte[] patch = BPSPatch.create(source, target);
+
+		assertArrayEquals(target, BPSPatch.apply(source, patch));
+		assertTrue(patch.length < 256);
+		assertTrue(patch.length < BPSPatch.createSimple(source, target).length);
+	}
+
+	@Test
+	public void roundTripsInsertionsAndResizing()
+	{
+		byte[] source = randomBytes(0x8000, 3);
+		byte[] inserted = randomBytes(100, 4);
+		byte[] target = new byte[source.length + inserted.length - 0x100];
+
+		System.arraycopy(source, 0, target, 0, 0x4000);
+		System.arraycopy(inserted, 0, target, 0x4000, inserted.length);
+		System.arraycopy(source, 0x4000, target, 0x4000 + inserted.length, target.length - 0x4000 - inserted.length);
+
+		assertArrayEquals(target, BPSPatch.apply(source, BPSPatch.create(source, target)));
+		assertArrayEquals(target, BPSPatch.apply(source, BPSPatch.createSimple(source, target)));
+		assertArrayEquals(source, BPSPatch.apply(target, BPSPatch.create(target, source)));
+	}
+
+	@Test
+	public void rejectsWrongSource()
+	{
+		byte[] source = randomBytes(0x1000, 5);
+		byte[] target = randomBytes(0x1000, 6);
+		byte[] patch = BPSPatch.create(source, target);
+
+		assertThrows(IllegalArgumentException.class, () -> BPSPatch.apply(target, patch));
+	}
+}
@@ -0,0 +1,51 @@
+package patcher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class CICChecksumTest
+{
+	private static ByteBuffer randomRom(long seed)
+	{
+		byte[] data = new byte[0x101000];
+		new Random(seed).nextBytes(data);
+		return ByteBuffer.wrap(data);
+	}
+
+	@Test
+	public void matchesReferenceImplementation()
+	{
+		for (long seed = 0; seed < 8; seed++) {
+			ByteBuffer rom = randomRom(seed);
+			assertEquals(CICChecksum.computeReference(rom), CICChecksum.compute(rom));
+		}
+
+		// exercise the carry and rotate edge cases
+		ByteBuffer zeros = ByteBuffer.allocate(0x101000);
+		assertEquals(CICChecksum.computeReference(zeros), CICChecksum.compute(zeros));
+
+		ByteBuffer ones = ByteBuffer.allocate(0x101000);
+		for (int i = 0; i < ones.capacity(); i++)
+			ones.put(i, (byte) 0xFF);
+		assertEquals(CICChecksum.computeReference(ones), CICChecksum.compute(ones));
+	}
+
+	@Test
+	public void validatesWrittenChecksum()
+	{
+		ByteBuffer rom = randomRom(42);
+		assertFalse(CICChecksum.validate(rom));
+
+		CICChecksum.compute(rom).write(rom);
+		assertTrue(CICChecksum.validate(rom));
+
+		rom.put(0x2000, (byte) (rom.get(0x2000) + 1));
+		assertFalse(CICChecksum.validate(rom));
+	}
+}
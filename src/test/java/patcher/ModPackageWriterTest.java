@@ -0,0 +1,121 @@
+package patcher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ModPackageWriterTest
+{
+	@TempDir
+	File tempDir;
+
+	private ByteBuffer write(byte[] base, byte[] patched) throws Exception
+	{
+		File baseFile = new File(tempDir, "base.z64");
+		File patchedFile = new File(tempDir, "patched.z64");
+		Files.write(baseFile.toPath(), base);
+		Files.write(patchedFile.toPath(), patched);
+
+		File out = new File(tempDir, "test.mod");
+		try (FileChannel baseChannel = FileChannel.open(baseFile.toPath(), StandardOpenOption.READ);
+			FileChannel patchedChannel = FileChannel.open(patchedFile.toPath(), StandardOpenOption.READ)) {
+			new ModPackageWriter(baseChannel, patchedChannel).write(out);
+		}
+
+		ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(out.toPath()));
+		assertEquals(ModPackageWriter.IDENTIFIER, buf.getInt());
+		return buf;
+	}
+
+	@Test
+	public void mergesNearbyDifferences() throws Exception
+	{
+		byte[] base = new byte[0x100];
+		byte[] patched = base.clone();
+
+		patched[0x10] = 1;
+		patched[0x17] = 1; // within MERGE_DISTANCE of the previous difference
+		patched[0x40] = 1;
+
+		ByteBuffer buf = write(base, patched);
+
+		assertEquals(2, buf.getInt());
+		assertEquals(0x10, buf.getInt());
+		assertEquals(8, buf.getInt());
+		buf.position(buf.position() + 8);
+		assertEquals(0x40, buf.getInt());
+		assertEquals(1, buf.getInt());
+		assertEquals(1, buf.get());
+		assertEquals(0, buf.remaining());
+	}
+
+	@Test
+	public void writesAppendedData() throws Exception
+	{
+		byte[] base = new byte[0x100];
+		byte[] patched = new byte[0x180];
+		patched[0x20] = 1;
+		patched[0x100] = 1;
+
+		ByteBuffer buf = write(base, patched);
+
+		assertEquals(2, buf.getInt());
+		assertEquals(0x20, buf.getInt());
+		assertEquals(1, buf.getInt());
+		buf.get();
+		assertEquals(0x100, buf.getInt());
+		assertEquals(0x80, buf.getInt());
+		assertEquals(0x80, buf.remaining());
+	}
+
+	@Test
+	public void extendsTrailingDifferenceIntoAppendedData() throws Exception
+	{
+		byte[] base = new byte[0x100];
+		byte[] patched = new byte[0x180];
+		patched[0xFF] = 1;
+
+		ByteBuffer buf = write(base, patched);
+
+		assertEquals(1, buf.getInt());
+		assertEquals(0xFF, buf.getInt());
+		assertEquals(0x81, buf.getInt());
+		assertEquals(0x81, buf.remaining());
+	}
+
+	@Test
+	public void mergesAcrossWindows() throws Exception
+	{
+		int window = 1 << 20;
+		byte[] base = new byte[3 * window];
+		byte[] patched = base.clone();
+
+		// one difference running across the first window boundary
+		for (int i = window - 4; i < window + 4; i++)
+			patched[i] = 1;
+
+		// two differences merged across the second window boundary
+		patched[2 * window - 2] = 2;
+		patched[2 * window + 3] = 2;
+
+		ByteBuffer buf = write(base, patched);
+
+		assertEquals(2, buf.getInt());
+		assertEquals(window - 4, buf.getInt());
+		assertEquals(8, buf.getInt());
+		buf.position(buf.position() + 8);
+		assertEquals(2 * window - 2, buf.getInt());
+		assertEquals(6, buf.getInt());
+		assertEquals(2, buf.get());
+		buf.position(buf.position() + 4);
+		assertEquals(2, buf.get());
+		assertEquals(0, buf.remaining());
+	}
+}
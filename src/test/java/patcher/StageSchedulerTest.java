@@ -0,0 +1,76 @@
+package patcher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import patcher.StageScheduler.Task;
+
+public class StageSchedulerTest
+{
+	@Test
+	public void conflictingTasksRunInOrder() throws IOException
+	{
+		StageScheduler scheduler = new StageScheduler(4);
+		List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+		List<Integer> expected = new ArrayList<>();
+
+		for (int i = 0; i < 20; i++) {
+			int n = i;
+			expected.add(n);
+			scheduler.submit("Task " + i, List.of("in"), List.of("out"), () -> {
+				Thread.sleep(1);
+				order.add(n);
+				return null;
+			});
+		}
+		scheduler.awaitAll();
+
+		assertEquals(expected, order);
+	}
+
+	@Test
+	public void independentTasksRunConcurrently() throws IOException
+	{
+		StageScheduler scheduler = new StageScheduler(2);
+		CountDownLatch latch = new CountDownLatch(2);
+
+		// each task waits for the other to start, which only succeeds if they run at the same time
+		Task<Boolean> a = scheduler.submit("A", List.of("shared"), List.of("a"), () -> {
+			latch.countDown();
+			return latch.await(10, TimeUnit.SECONDS);
+		});
+		Task<Boolean> b = scheduler.submit("B", List.of("shared"), List.of("b"), () -> {
+			latch.countDown();
+			return latch.await(10, TimeUnit.SECONDS);
+		});
+
+		assertTrue(scheduler.await(a));
+		assertTrue(scheduler.await(b));
+	}
+
+	@Test
+	public void exceptionsReachCaller()
+	{
+		StageScheduler scheduler = new StageScheduler(2);
+
+		Task<Void> failed = scheduler.submit("Fail", List.of(), List.of("x"), () -> {
+			throw new IOException("missing file");
+		});
+		Task<Void> dependent = scheduler.submit("Dependent", List.of("x"), List.of(), () -> null);
+
+		IOException e = assertThrows(IOException.class, () -> scheduler.await(failed));
+		assertEquals("missing file", e.getMessage());
+		assertThrows(IOException.class, () -> scheduler.await(dependent));
+		assertThrows(IOException.class, () -> scheduler.awaitAll());
+	}
+}
@@ -0,0 +1,73 @@
+package util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class DynamicByteBufferTest
+{
+	@TempDir
+	File tempDir;
+
+	@Test
+	public void matchesRandomAccessFileOutput() throws IOException
+	{
+		File rafFile = new File(tempDir, "raf.bin");
+		File dbbFile = new File(tempDir, "dbb.bin");
+
+		// same sequence of seeks and writes the map compilers use: skip a header, write data,
+		// align, write more data, then go back and fill in the header
+		try (RandomAccessFile raf = new RandomAccessFile(rafFile, "rw")) {
+			raf.seek(0x20);
+			raf.write("texture".getBytes());
+			raf.write((byte) 0);
+			raf.seek(((int) raf.getFilePointer() + 0xF) & 0xFFFFFFF0);
+			for (int i = 0; i < 1000; i++) {
+				raf.writeShort(i);
+				raf.writeFloat(i * 0.5f);
+			}
+			raf.writeInt(0xDF000000);
+			raf.seek(0);
+			raf.writeInt(0x80210000);
+			raf.writeInt(0x80210030);
+		}
+
+		DynamicByteBuffer dbb = DynamicByteBuffer.empty(16);
+		dbb.position(0x20);
+		dbb.putBytes("texture".getBytes());
+		dbb.putByte(0);
+		dbb.align(16);
+		for (int i = 0; i < 1000; i++) {
+			dbb.putShort(i);
+			dbb.putFloat(i * 0.5f);
+		}
+		dbb.putInt(0xDF000000);
+		dbb.position(0);
+		dbb.putInt(0x80210000);
+		dbb.putInt(0x80210030);
+		dbb.writeToFile(dbbFile);
+
+		byte[] expected = Files.readAllBytes(rafFile.toPath());
+		assertArrayEquals(expected, Files.readAllBytes(dbbFile.toPath()));
+		assertArrayEquals(expected, dbb.getBytes());
+	}
+
+	@Test
+	public void writeReplacesExistingFile() throws IOException
+	{
+		File f = new File(tempDir, "out.bin");
+		Files.write(f.toPath(), new byte[256]);
+
+		DynamicByteBuffer dbb = DynamicByteBuffer.empty(16);
+		dbb.putInt(0x12345678);
+		dbb.writeToFile(f);
+
+		assertArrayEquals(new byte[] { 0x12, 0x34, 0x56, 0x78 }, Files.readAllBytes(f.toPath()));
+	}
+}
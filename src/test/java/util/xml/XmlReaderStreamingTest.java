@@ -0,0 +1,148 @@
+package util.xml;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.w3c.dom.Element;
+
+import util.xml.XmlWrapper.StreamedContentReader;
+import util.xml.XmlWrapper.XmlReader;
+
+public class XmlReaderStreamingTest
+{
+	private static enum TestKey implements XmlKey
+	{
+		TAG_ROOT ("Root"),
+		TAG_GROUP ("Group"),
+		TAG_TABLE ("Table"),
+		TAG_ENTRY ("Entry"),
+		TAG_NOTE ("Note"),
+		ATTR_NAME ("name"),
+		ATTR_VALUES ("values");
+
+		private final String key;
+
+		private TestKey(String key)
+		{
+			this.key = key;
+		}
+
+		@Override
+		public String toString()
+		{
+			return key;
+		}
+	}
+
+	private static final String XML = String.join("\n",
+		"<?xml version=\"1.0\" encoding=\"UTF-8\"?>",
+		"<Root name=\"test\">",
+		"	<Group name=\" first \">",
+		"		<Table>",
+		"			<Entry values=\"1,2,3\"/>",
+		"			<Ignored/>",
+		"			<Entry values=\"4, 5, 6\"><Nested/></Entry>",
+		"		</Table>",
+		"		<Note>some text</Note>",
+		"	</Group>",
+		"	<Group name=\"second\"/>",
+		"</Root>");
+
+	@TempDir
+	File tempDir;
+
+	private File writeXml() throws IOException
+	{
+		File f = new File(tempDir, "test.xml");
+		Files.write(f.toPath(), XML.getBytes("UTF-8"));
+		return f;
+	}
+
+	private static int[][] readEntries(XmlReader xmr, XMLStreamReader in) throws XMLStreamException
+	{
+		List<int[]> entries = new ArrayList<>();
+		while (xmr.nextChildTag(in, TestKey.TAG_ENTRY)) {
+			entries.add(xmr.parseIntArray(xmr.getRequiredAttribute(in, TestKey.ATTR_VALUES), TestKey.ATTR_VALUES, 3));
+			XmlReader.skipElement(in);
+		}
+		return entries.toArray(new int[entries.size()][]);
+	}
+
+	@Test
+	public void buildsSameDocumentAsDomParser() throws IOException
+	{
+		File f = writeXml();
+		XmlReader dom = new XmlReader(f);
+		XmlReader stream = new XmlReader(f, new HashMap<>());
+
+		assertEquals(dom.getRootAttribute(TestKey.ATTR_NAME), stream.getRootAttribute(TestKey.ATTR_NAME));
+
+		List<Element> domGroups = dom.getTags(dom.getRootElement(), TestKey.TAG_GROUP);
+		List<Element> streamGroups = stream.getTags(stream.getRootElement(), TestKey.TAG_GROUP);
+		assertEquals(domGroups.size(), streamGroups.size());
+
+		for (int i = 0; i < domGroups.size(); i++) {
+			Element a = domGroups.get(i);
+			Element b = streamGroups.get(i);
+			assertEquals(dom.getAttribute(a, TestKey.ATTR_NAME), stream.getAttribute(b, TestKey.ATTR_NAME));
+			assertEquals(a.getTextContent(), b.getTextContent());
+			assertEquals(a.getChildNodes().getLength(), b.getChildNodes().getLength());
+		}
+
+		Element domTable = dom.getUniqueRequiredTag(domGroups.get(0), TestKey.TAG_TABLE);
+		Element streamTable = stream.getUniqueRequiredTag(streamGroups.get(0), TestKey.TAG_TABLE);
+		List<Element> entries = stream.getTags(streamTable, TestKey.TAG_ENTRY);
+		assertEquals(dom.getTags(domTable, TestKey.TAG_ENTRY).size(), entries.size());
+		assertArrayEquals(new int[] { 4, 5, 6 }, stream.readIntArray(entries.get(1), TestKey.ATTR_VALUES, 3));
+	}
+
+	@Test
+	public void readsStreamedTags() throws IOException
+	{
+		HashMap<String, StreamedContentReader> readers = new HashMap<>();
+		readers.put(TestKey.TAG_TABLE.toString(), XmlReaderStreamingTest::readEntries);
+
+		XmlReader xmr = new XmlReader(writeXml(), readers);
+		Element group = xmr.getTags(xmr.getRootElement(), TestKey.TAG_GROUP).get(0);
+		Element table = xmr.getUniqueRequiredTag(group, TestKey.TAG_TABLE);
+
+		// streamed content replaces the children, but the rest of the document is unaffected
+		assertEquals(0, xmr.getTags(table, TestKey.TAG_ENTRY).size());
+		int[][] entries = xmr.getStreamedContent(table, int[][].class);
+		assertEquals(2, entries.length);
+		assertArrayEquals(new int[] { 1, 2, 3 }, entries[0]);
+		assertArrayEquals(new int[] { 4, 5, 6 }, entries[1]);
+
+		Element note = xmr.getUniqueRequiredTag(group, TestKey.TAG_NOTE);
+		assertEquals("some text", note.getTextContent());
+		assertEquals(2, xmr.getTags(xmr.getRootElement(), TestKey.TAG_GROUP).size());
+	}
+
+	@Test
+	public void skipsStreamedTags() throws IOException
+	{
+		HashMap<String, StreamedContentReader> readers = new HashMap<>();
+		readers.put(TestKey.TAG_TABLE.toString(), XmlReader.SKIP);
+
+		XmlReader xmr = new XmlReader(writeXml(), readers);
+		Element group = xmr.getTags(xmr.getRootElement(), TestKey.TAG_GROUP).get(0);
+		Element table = xmr.getUniqueRequiredTag(group, TestKey.TAG_TABLE);
+
+		assertNull(xmr.getStreamedContent(table, int[][].class));
+		assertEquals(0, table.getChildNodes().getLength());
+		assertEquals("some text", xmr.getUniqueRequiredTag(group, TestKey.TAG_NOTE).getTextContent());
+	}
+}